@@ -0,0 +1,196 @@
+
+package com.example;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+import com.fernandobarillas.albumparser.parser.ParserResponse;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+/**
+ * Measures how long a freshly started JVM takes to create an AlbumParser and parse its first URL
+ * of each provider, with the Moshi adapters and Retrofit clients generated at build time and with
+ * Moshi's and Retrofit's reflection. Every run is a new JVM so nothing is warmed up, the API
+ * responses come from the recorded fixtures so no network calls are made.
+ * <p>
+ * Run it with: ./gradlew :example:coldStartBenchmark, or pass the number of JVMs to start per mode
+ * as the first argument.
+ */
+public class ColdStartBenchmark {
+    private static final String CODEGEN_PROPERTY = "albumparser.codegen";
+    private static final String CHILD_ARGUMENT   = "--child";
+    private static final String RESULT_PREFIX    = "RESULT ";
+    private static final int    DEFAULT_RUNS     = 10;
+
+    private static final String[] URLS = {
+            "https://gfycat.com/TautDelightfulBarracuda",
+            "https://giphy.com/gifs/l0HlQ7LRalQqdWfao",
+            "https://imgur.com/a/kvNbA",
+            "https://photographer.tumblr.com/post/161785532217",
+    };
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(CHILD_ARGUMENT)) {
+            runChild();
+            return;
+        }
+
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS;
+        List<long[]> generated = new ArrayList<>();
+        List<long[]> reflection = new ArrayList<>();
+        // Alternate between the modes so both see the same disk and CPU conditions
+        for (int i = 0; i < runs; i++) {
+            generated.add(runInNewJvm(true));
+            reflection.add(runInNewJvm(false));
+        }
+
+        System.out.println("Median of " + runs + " JVMs, in milliseconds");
+        System.out.println(String.format("%-12s %10s %12s %12s", "mode", "build", "first parse",
+                "second parse"));
+        printMedians("generated", generated);
+        printMedians("reflection", reflection);
+    }
+
+    private static double median(List<long[]> results, int index) {
+        List<Long> values = new ArrayList<>();
+        for (long[] result : results) {
+            values.add(result[index]);
+        }
+        Collections.sort(values);
+        int middle = values.size() / 2;
+        long nanos = values.size() % 2 == 1 ? values.get(middle)
+                : (values.get(middle - 1) + values.get(middle)) / 2;
+        return nanos / 1e6;
+    }
+
+    private static void printMedians(String mode, List<long[]> results) {
+        System.out.println(String.format("%-12s %10.1f %12.1f %12.1f", mode, median(results, 0),
+                median(results, 1), median(results, 2)));
+    }
+
+    /**
+     * Runs in the child JVM, prints the nanoseconds taken to build the parser, parse every URL
+     * once and then parse them all again
+     */
+    private static void runChild() throws IOException {
+        long start = System.nanoTime();
+        OkHttpClient client =
+                new OkHttpClient.Builder().addInterceptor(new FixtureInterceptor()).build();
+        AlbumParser albumParser = new AlbumParser.Builder().okHttpClient(client)
+                .giphyApiKey("benchmark")
+                .imgurClientId("benchmark")
+                .tumblrApiKey("benchmark")
+                .build();
+        long built = System.nanoTime();
+        parseAll(albumParser);
+        long firstParse = System.nanoTime();
+        parseAll(albumParser);
+        long secondParse = System.nanoTime();
+        System.out.println(RESULT_PREFIX + (built - start) + " " + (firstParse - built) + " "
+                + (secondParse - firstParse));
+    }
+
+    private static void parseAll(AlbumParser albumParser) throws IOException {
+        for (String url : URLS) {
+            ParserResponse response = albumParser.parseUrl(url);
+            if (response == null) throw new IllegalStateException("No response for " + url);
+        }
+    }
+
+    private static long[] runInNewJvm(boolean codegen) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+                + "java";
+        List<String> command = Arrays.asList(java,
+                "-D" + CODEGEN_PROPERTY + "=" + codegen,
+                "-cp",
+                System.getProperty("java.class.path"),
+                ColdStartBenchmark.class.getName(),
+                CHILD_ARGUMENT);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+        long[] result = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(RESULT_PREFIX)) {
+                String[] values = line.substring(RESULT_PREFIX.length()).split(" ");
+                result = new long[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = Long.parseLong(values[i]);
+                }
+            } else {
+                System.out.println(line);
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("The benchmark JVM failed");
+        }
+        return result;
+    }
+
+    /**
+     * Answers the API calls with the recorded responses in the fixtures directory of the lib
+     * module's tests
+     */
+    private static class FixtureInterceptor implements Interceptor {
+        private static final MediaType JSON = MediaType.parse("application/json");
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            String fixture = getFixture(request);
+            Response.Builder response =
+                    new Response.Builder().request(request).protocol(Protocol.HTTP_1_1);
+            if (fixture == null) {
+                return response.code(404)
+                        .message("Not Found")
+                        .body(ResponseBody.create(JSON, "{}"))
+                        .build();
+            }
+            return response.code(200)
+                    .message("OK")
+                    .body(ResponseBody.create(JSON, readFixture(fixture)))
+                    .build();
+        }
+
+        private static String getFixture(Request request) {
+            String host = request.url().host();
+            String path = request.url().encodedPath();
+            if (host.endsWith("gfycat.com")) return "gfycat_gfyitem.json";
+            if (host.endsWith("giphy.com")) return "giphy_gif.json";
+            if (host.endsWith("tumblr.com")) return "tumblr_photo_post.json";
+            if (host.endsWith("imgur.com")) {
+                if (path.contains("/album/")) return "imgur_album.json";
+                if (path.contains("/image/")) return "imgur_image.json";
+            }
+            return null;
+        }
+
+        private static String readFixture(String fixture) throws IOException {
+            InputStream inputStream =
+                    ColdStartBenchmark.class.getResourceAsStream("/fixtures/" + fixture);
+            if (inputStream == null) throw new IOException("Missing fixture " + fixture);
+            try {
+                return Okio.buffer(Okio.source(inputStream)).readUtf8();
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+import com.fernandobarillas.albumparser.parser.ClientProfile;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okio.Okio;
+
+/**
+ * Load tests an AlbumParser without touching the network. A local HTTP server replays the lib
+ * module's recorded API responses and every provider's API calls are sent to it with {@link
+ * AlbumParser.Builder#apiUrl(String, String)}, so the whole stack down to the sockets is
+ * exercised.
+ * <p>
+ * Run it with: ./gradlew :example:replayLoadTest, or pass the number of threads and the number of
+ * parses per thread as arguments.
+ */
+public class ReplayLoadTest {
+    private static final int DEFAULT_THREADS           = 8;
+    private static final int DEFAULT_PARSES_PER_THREAD = 200;
+
+    private static final String[] URLS = {
+            "https://gfycat.com/TautDelightfulBarracuda",
+            "https://giphy.com/gifs/l0HlQ7LRalQqdWfao",
+            "https://imgur.com/a/kvNbA",
+            "https://photographer.tumblr.com/post/161785532217",
+    };
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+        int parsesPerThread =
+                args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PARSES_PER_THREAD;
+
+        final AtomicInteger served = new AtomicInteger();
+        HttpServer server =
+                HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new FixtureHandler(served));
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        server.start();
+        String serverUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        ClientProfile profile = new ClientProfile.Builder().maxRequests(threads, threads).build();
+        final AlbumParser albumParser = new AlbumParser.Builder().clientProfile(profile)
+                .apiUrl("gfycat.com", serverUrl + "/gfycat")
+                .apiUrl("giphy.com", serverUrl + "/giphy")
+                .apiUrl("imgur.com", serverUrl + "/imgur")
+                .apiUrl("tumblr.com", serverUrl + "/tumblr")
+                .giphyApiKey("load-test")
+                .imgurClientId("load-test")
+                .tumblrApiKey("load-test")
+                .build();
+
+        // Warm up the parsers and connections before measuring
+        for (String url : URLS) {
+            albumParser.parseUrl(url);
+        }
+        served.set(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        final int parses = parsesPerThread;
+        long start = System.nanoTime();
+        for (int thread = 0; thread < threads; thread++) {
+            final int offset = thread;
+            futures.add(executor.submit(new Callable<long[]>() {
+                @Override
+                public long[] call() throws Exception {
+                    long[] latencies = new long[parses];
+                    for (int i = 0; i < parses; i++) {
+                        long parseStart = System.nanoTime();
+                        albumParser.parseUrl(URLS[(offset + i) % URLS.length]);
+                        latencies[i] = System.nanoTime() - parseStart;
+                    }
+                    return latencies;
+                }
+            }));
+        }
+        List<Long> latencies = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            for (long latency : future.get()) {
+                latencies.add(latency);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdown();
+
+        Collections.sort(latencies);
+        System.out.println(String.format("%d parses on %d threads in %.1f ms, %.0f parses/s",
+                latencies.size(), threads, elapsed / 1e6, latencies.size() / (elapsed / 1e9)));
+        System.out.println(String.format("%d API calls served", served.get()));
+        System.out.println(String.format("latency ms: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f",
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                percentile(latencies, 100)));
+    }
+
+    private static double percentile(List<Long> sortedNanos, int percentile) {
+        int index = (int) Math.ceil(sortedNanos.size() * percentile / 100.0) - 1;
+        return sortedNanos.get(Math.max(index, 0)) / 1e6;
+    }
+
+    /**
+     * Answers the API calls with the recorded responses in the fixtures directory of the lib
+     * module's tests, the first path segment says which provider the call was meant for
+     */
+    private static class FixtureHandler implements HttpHandler {
+        private final AtomicInteger mServed;
+
+        private FixtureHandler(AtomicInteger served) {
+            mServed = served;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String fixture = getFixture(exchange.getRequestURI().getPath());
+            byte[] body = fixture != null ? readFixture(fixture) : "{}".getBytes("UTF-8");
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(fixture != null ? 200 : 404, body.length);
+            OutputStream outputStream = exchange.getResponseBody();
+            try {
+                outputStream.write(body);
+            } finally {
+                outputStream.close();
+            }
+            mServed.incrementAndGet();
+        }
+
+        private static String getFixture(String path) {
+            if (path.startsWith("/gfycat/")) return "gfycat_gfyitem.json";
+            if (path.startsWith("/giphy/")) return "giphy_gif.json";
+            if (path.startsWith("/tumblr/")) return "tumblr_photo_post.json";
+            if (path.startsWith("/imgur/")) {
+                if (path.contains("/album/")) return "imgur_album.json";
+                if (path.contains("/image/")) return "imgur_image.json";
+            }
+            return null;
+        }
+
+        private static byte[] readFixture(String fixture) throws IOException {
+            InputStream inputStream =
+                    ReplayLoadTest.class.getResourceAsStream("/fixtures/" + fixture);
+            if (inputStream == null) throw new IOException("Missing fixture " + fixture);
+            try {
+                return Okio.buffer(Okio.source(inputStream)).readByteArray();
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+}
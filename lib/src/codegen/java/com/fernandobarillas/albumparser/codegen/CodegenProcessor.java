@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.codegen;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates the JsonAdapters and Retrofit service clients the parsers use at runtime instead of
+ * Moshi's and Retrofit's reflection, which is slow the first time each type is used. The API models
+ * are found through their @Json fields and the response types of the @GET methods in the API
+ * interfaces, plus every model those reference.
+ * <p>
+ * Everything generated is registered in two classes in the parser package, GeneratedJsonAdapters
+ * and GeneratedServices, which GeneratedCode loads if they exist. Anything the generators can't
+ * handle is left out of them so it falls back to reflection, with a warning saying why.
+ */
+@SupportedAnnotationTypes({
+        JsonAdapterGenerator.JSON_ANNOTATION, ServiceClientGenerator.GET_ANNOTATION
+})
+public class CodegenProcessor extends AbstractProcessor {
+    private static final String PARSER_PACKAGE   = "com.fernandobarillas.albumparser.parser";
+    private static final String ADAPTER_REGISTRY = "GeneratedJsonAdapters";
+    private static final String SERVICE_REGISTRY = "GeneratedServices";
+
+    private final Set<TypeElement> mModels   = new LinkedHashSet<>();
+    private final Set<TypeElement> mServices = new LinkedHashSet<>();
+
+    private JsonAdapterGenerator   mAdapterGenerator;
+    private ServiceClientGenerator mClientGenerator;
+    private boolean                mGenerated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mAdapterGenerator = new JsonAdapterGenerator(processingEnv);
+        mClientGenerator = new ServiceClientGenerator(processingEnv);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (mGenerated) return false;
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                Element enclosing = element.getEnclosingElement();
+                if (element.getKind() == ElementKind.FIELD) {
+                    mModels.add((TypeElement) enclosing);
+                } else if (element.getKind() == ElementKind.METHOD) {
+                    mServices.add((TypeElement) enclosing);
+                }
+            }
+        }
+
+        // Every model and API is a source file of the first round, the generated files of the
+        // following rounds have nothing to process
+        if (mModels.isEmpty() && mServices.isEmpty()) return false;
+        mGenerated = true;
+        try {
+            generate();
+        } catch (IOException e) {
+            processingEnv.getMessager()
+                    .printMessage(Diagnostic.Kind.ERROR, "Couldn't write generated code: " + e);
+        }
+        return false;
+    }
+
+    private void addResponseModels(TypeElement service, Set<TypeElement> models) {
+        for (Element element : service.getEnclosedElements()) {
+            if (element.getKind() != ElementKind.METHOD) continue;
+            TypeMirror returnType = ((ExecutableElement) element)
+                    .getReturnType();
+            if (returnType.getKind() != TypeKind.DECLARED) continue;
+            for (TypeMirror argument : ((DeclaredType) returnType).getTypeArguments()) {
+                if (argument.getKind() == TypeKind.DECLARED) {
+                    models.add((TypeElement) ((DeclaredType) argument).asElement());
+                }
+            }
+        }
+    }
+
+    private void generate() throws IOException {
+        Set<TypeElement> models = new LinkedHashSet<>(mModels);
+        for (TypeElement service : mServices) {
+            addResponseModels(service, models);
+        }
+
+        // Walk every model reachable through the fields of the ones found so far
+        Map<TypeElement, String> adapters = new LinkedHashMap<>();
+        Set<TypeElement> visited = new LinkedHashSet<>();
+        Deque<TypeElement> pending = new ArrayDeque<>(models);
+        while (!pending.isEmpty()) {
+            TypeElement model = pending.removeFirst();
+            if (!visited.add(model) || JsonAdapterGenerator.isPlatformType(model)) continue;
+            String adapterName = mAdapterGenerator.generate(model);
+            if (adapterName == null) continue;
+            adapters.put(model, adapterName);
+            pending.addAll(mAdapterGenerator.getReferencedModels(model));
+        }
+
+        Map<TypeElement, String> clients = new LinkedHashMap<>();
+        for (TypeElement service : mServices) {
+            String clientName = mClientGenerator.generate(service, PARSER_PACKAGE);
+            if (clientName != null) clients.put(service, clientName);
+        }
+
+        writeAdapterRegistry(adapters);
+        writeServiceRegistry(clients);
+    }
+
+    private void writeAdapterRegistry(Map<TypeElement, String> adapters) throws IOException {
+        SourceWriter source = new SourceWriter().header(PARSER_PACKAGE);
+        source.line("import com.squareup.moshi.JsonAdapter;");
+        source.line("import com.squareup.moshi.Moshi;");
+        source.line();
+        source.line("import java.lang.annotation.Annotation;");
+        source.line("import java.lang.reflect.Type;");
+        source.line("import java.util.Set;");
+        source.line();
+        source.line("/**");
+        source.line(" * Creates the generated JsonAdapters of the API models");
+        source.line(" */");
+        source.begin("final class " + ADAPTER_REGISTRY + " implements JsonAdapter.Factory");
+        source.line("@Override");
+        source.begin("public JsonAdapter<?> create(Type type, Set<? extends Annotation> "
+                + "annotations, Moshi moshi)");
+        source.line("if (!annotations.isEmpty()) return null;");
+        for (Map.Entry<TypeElement, String> entry : adapters.entrySet()) {
+            source.line("if (type == " + entry.getKey().getQualifiedName() + ".class) {");
+            source.indent();
+            source.line("return new " + entry.getValue() + "(moshi).nullSafe();");
+            source.outdent();
+            source.line("}");
+        }
+        source.line("return null;");
+        source.end();
+        source.end();
+        source.writeTo(processingEnv.getFiler(), PARSER_PACKAGE + "." + ADAPTER_REGISTRY,
+                adapters.keySet().toArray(new Element[adapters.size()]));
+    }
+
+    private void writeServiceRegistry(Map<TypeElement, String> clients) throws IOException {
+        SourceWriter source = new SourceWriter().header(PARSER_PACKAGE);
+        source.line("import retrofit2.Retrofit;");
+        source.line();
+        source.line("/**");
+        source.line(" * Creates the generated clients of the Retrofit API interfaces");
+        source.line(" */");
+        source.begin(
+                "final class " + SERVICE_REGISTRY + " implements GeneratedCode.ServiceFactory");
+        source.line("@Override");
+        source.begin("public <S> S create(Class<S> service, Retrofit retrofit)");
+        for (Map.Entry<TypeElement, String> entry : clients.entrySet()) {
+            source.line("if (service == " + entry.getKey().getQualifiedName() + ".class) {");
+            source.indent();
+            source.line("return service.cast(new " + entry.getValue() + "(retrofit));");
+            source.outdent();
+            source.line("}");
+        }
+        source.line("return null;");
+        source.end();
+        source.end();
+        source.writeTo(processingEnv.getFiler(), PARSER_PACKAGE + "." + SERVICE_REGISTRY,
+                clients.keySet().toArray(new Element[clients.size()]));
+    }
+}
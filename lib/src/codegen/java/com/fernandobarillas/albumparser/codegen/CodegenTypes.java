@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.codegen;
+
+import java.util.List;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * Turns the types the processor finds into the Java source that names them in generated code
+ */
+final class CodegenTypes {
+    private final Types mTypes;
+
+    CodegenTypes(Types types) {
+        mTypes = types;
+    }
+
+    /**
+     * @return A Java string literal with the passed-in value
+     */
+    static String stringLiteral(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    /**
+     * Names a type for use in a JsonAdapter field name, for example: ListOfString
+     */
+    String simpleName(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return simpleName(((ArrayType) type).getComponentType()) + "Array";
+            case DECLARED:
+                DeclaredType declaredType = (DeclaredType) type;
+                StringBuilder name =
+                        new StringBuilder(declaredType.asElement().getSimpleName().toString());
+                List<? extends TypeMirror> arguments = declaredType.getTypeArguments();
+                for (int i = 0; i < arguments.size(); i++) {
+                    name.append(i == 0 ? "Of" : "And").append(simpleName(arguments.get(i)));
+                }
+                return name.toString();
+            default:
+                String primitive = type.toString();
+                return Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+        }
+    }
+
+    /**
+     * Gets the source for an expression evaluating to the java.lang.reflect.Type of the passed-in
+     * type, for example: Types.newParameterizedType(java.util.List.class, java.lang.String.class)
+     *
+     * @return The expression, null if the type can't be written as one such as type variables and
+     * wildcards
+     */
+    String typeLiteral(TypeMirror type) {
+        if (type.getKind().isPrimitive()) return type.toString() + ".class";
+        switch (type.getKind()) {
+            case ARRAY:
+                String component = typeLiteral(((ArrayType) type).getComponentType());
+                return component != null ? "com.squareup.moshi.Types.arrayOf(" + component + ")"
+                        : null;
+            case DECLARED:
+                DeclaredType declaredType = (DeclaredType) type;
+                TypeMirror enclosingType = declaredType.getEnclosingType();
+                if (enclosingType.getKind() == TypeKind.DECLARED
+                        && !((DeclaredType) enclosingType).getTypeArguments().isEmpty()) {
+                    // Inner classes of generic classes need an owner type
+                    return null;
+                }
+                String rawType = ((TypeElement) declaredType.asElement()).getQualifiedName()
+                        + ".class";
+                List<? extends TypeMirror> arguments = declaredType.getTypeArguments();
+                if (arguments.isEmpty()) return rawType;
+                StringBuilder literal =
+                        new StringBuilder("com.squareup.moshi.Types.newParameterizedType(");
+                literal.append(rawType);
+                for (TypeMirror argument : arguments) {
+                    String argumentLiteral = typeLiteral(argument);
+                    if (argumentLiteral == null) return null;
+                    literal.append(", ").append(argumentLiteral);
+                }
+                return literal.append(')').toString();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the source that declares the passed-in type, boxing primitives so the type can be used
+     * as a type argument
+     */
+    String typeName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return mTypes.boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+}
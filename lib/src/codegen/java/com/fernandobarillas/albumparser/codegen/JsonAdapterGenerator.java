@@ -0,0 +1,385 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.codegen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a Moshi JsonAdapter for an API model class that reads and writes the same fields
+ * Moshi's reflective ClassJsonAdapter would, without reflection. Models with fields a generated
+ * adapter can't reach, such as private fields with a @Json name, are left to Moshi's reflection.
+ */
+final class JsonAdapterGenerator {
+    static final String JSON_ANNOTATION           = "com.squareup.moshi.Json";
+    static final String JSON_QUALIFIER_ANNOTATION = "com.squareup.moshi.JsonQualifier";
+
+    private static final String ADAPTER_SUFFIX = "JsonAdapter";
+
+    private final ProcessingEnvironment            mEnv;
+    private final CodegenTypes                     mTypes;
+    private final Map<TypeElement, List<Property>> mProperties = new HashMap<>();
+
+    JsonAdapterGenerator(ProcessingEnvironment env) {
+        mEnv = env;
+        mTypes = new CodegenTypes(env.getTypeUtils());
+    }
+
+    /**
+     * @return True if the passed-in type belongs to the Java platform, which Moshi has its own
+     * adapters for or refuses to reflect over
+     */
+    static boolean isPlatformType(TypeElement type) {
+        String name = type.getQualifiedName().toString();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("android.");
+    }
+
+    /**
+     * Writes the adapter for the passed-in model
+     *
+     * @param model The model to write an adapter for
+     * @return The qualified name of the generated adapter, null if the model is left to reflection
+     * @throws IOException If the source file couldn't be written
+     */
+    String generate(TypeElement model) throws IOException {
+        List<Property> properties = getProperties(model);
+        if (properties == null) return null;
+
+        String packageName = getPackageName(model);
+        String adapterName = getAdapterName(model);
+        String modelName = getNestedName(model);
+
+        // One delegate adapter per distinct field type, named after the type
+        Map<String, String> adapterFields = new LinkedHashMap<>();
+        Map<String, TypeMirror> adapterTypes = new LinkedHashMap<>();
+        for (Property property : properties) {
+            String typeLiteral = mTypes.typeLiteral(property.mType);
+            if (adapterFields.containsKey(typeLiteral)) continue;
+            String fieldName = "m" + mTypes.simpleName(property.mType) + "Adapter";
+            while (adapterFields.containsValue(fieldName)) {
+                fieldName = fieldName + "_";
+            }
+            adapterFields.put(typeLiteral, fieldName);
+            adapterTypes.put(typeLiteral, property.mType);
+        }
+
+        SourceWriter source = new SourceWriter().header(packageName);
+        source.line("import com.squareup.moshi.JsonAdapter;");
+        source.line("import com.squareup.moshi.JsonReader;");
+        source.line("import com.squareup.moshi.JsonWriter;");
+        source.line("import com.squareup.moshi.Moshi;");
+        source.line();
+        source.line("import java.io.IOException;");
+        source.line();
+        source.line("/**");
+        source.line(" * Reads and writes {@link " + modelName + "} without reflection");
+        source.line(" */");
+        source.begin("public final class " + adapterName + " extends JsonAdapter<" + modelName
+                + ">");
+
+        source.line("private static final JsonReader.Options OPTIONS = JsonReader.Options.of(");
+        source.indent().indent();
+        for (int i = 0; i < properties.size(); i++) {
+            String separator = i < properties.size() - 1 ? "," : ");";
+            source.line(CodegenTypes.stringLiteral(properties.get(i).mJsonName) + separator);
+        }
+        if (properties.isEmpty()) source.line(");");
+        source.outdent().outdent();
+        source.line();
+
+        for (Map.Entry<String, String> field : adapterFields.entrySet()) {
+            String typeName = mTypes.typeName(adapterTypes.get(field.getKey()));
+            source.line("private final JsonAdapter<" + typeName + "> " + field.getValue() + ";");
+        }
+        if (!adapterFields.isEmpty()) source.line();
+
+        source.begin("public " + adapterName + "(Moshi moshi)");
+        for (Map.Entry<String, String> field : adapterFields.entrySet()) {
+            source.line(field.getValue() + " = moshi.adapter(" + field.getKey() + ");");
+        }
+        source.end();
+        source.line();
+
+        source.line("@Override");
+        source.begin("public " + modelName + " fromJson(JsonReader reader) throws IOException");
+        source.line(modelName + " value = new " + modelName + "();");
+        source.line("reader.beginObject();");
+        source.begin("while (reader.hasNext())");
+        source.begin("switch (reader.selectName(OPTIONS))");
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            String adapterField = adapterFields.get(mTypes.typeLiteral(property.mType));
+            source.line("case " + i + ":").indent();
+            source.line("value." + property.mFieldName + " = " + adapterField
+                    + ".fromJson(reader);");
+            source.line("break;").outdent();
+        }
+        source.line("default:").indent();
+        source.line("// Unknown fields are skipped like Moshi's reflective adapter does");
+        source.line("reader.nextName();");
+        source.line("reader.skipValue();").outdent();
+        source.end();
+        source.end();
+        source.line("reader.endObject();");
+        source.line("return value;");
+        source.end();
+        source.line();
+
+        source.line("@Override");
+        source.begin("public void toJson(JsonWriter writer, " + modelName
+                + " value) throws IOException");
+        source.line("writer.beginObject();");
+        for (Property property : properties) {
+            String adapterField = adapterFields.get(mTypes.typeLiteral(property.mType));
+            source.line("writer.name(" + CodegenTypes.stringLiteral(property.mJsonName) + ");");
+            source.line(adapterField + ".toJson(writer, value." + property.mFieldName + ");");
+        }
+        source.line("writer.endObject();");
+        source.end();
+        source.line();
+
+        source.line("@Override");
+        source.begin("public String toString()");
+        source.line("return \"GeneratedJsonAdapter(" + modelName + ")\";");
+        source.end();
+        source.end();
+
+        String qualifiedName = packageName.isEmpty() ? adapterName : packageName + "."
+                + adapterName;
+        source.writeTo(mEnv.getFiler(), qualifiedName, model);
+        return qualifiedName;
+    }
+
+    /**
+     * @return The model classes the passed-in model's fields refer to, which also need adapters
+     */
+    Set<TypeElement> getReferencedModels(TypeElement model) {
+        Set<TypeElement> referencedModels = new HashSet<>();
+        List<Property> properties = getProperties(model);
+        if (properties == null) return referencedModels;
+        for (Property property : properties) {
+            addReferencedModels(property.mType, referencedModels);
+        }
+        return referencedModels;
+    }
+
+    private static String getAdapterName(TypeElement model) {
+        return getNestedName(model).replace('.', '_') + ADAPTER_SUFFIX;
+    }
+
+    private static String getJsonName(VariableElement field) {
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            if (!isAnnotation(annotation, JSON_ANNOTATION)) continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                    annotation.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("name")) {
+                    return (String) entry.getValue().getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The name of a possibly nested class relative to its package, for example Outer.Inner
+     */
+    private static String getNestedName(TypeElement type) {
+        String name = type.getSimpleName().toString();
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name = enclosing.getSimpleName() + "." + name;
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name;
+    }
+
+    private static boolean isAnnotation(AnnotationMirror annotation, String qualifiedName) {
+        TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+        return type.getQualifiedName().contentEquals(qualifiedName);
+    }
+
+    private void addReferencedModels(TypeMirror type, Set<TypeElement> referencedModels) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            addReferencedModels(((ArrayType) type).getComponentType(), referencedModels);
+            return;
+        }
+        if (type.getKind() != TypeKind.DECLARED) return;
+        DeclaredType declaredType = (DeclaredType) type;
+        TypeElement element = (TypeElement) declaredType.asElement();
+        if (element.getKind() == ElementKind.CLASS && !isPlatformType(element)) {
+            referencedModels.add(element);
+        }
+        for (TypeMirror argument : declaredType.getTypeArguments()) {
+            addReferencedModels(argument, referencedModels);
+        }
+    }
+
+    private String getPackageName(TypeElement type) {
+        return mEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    }
+
+    /**
+     * Finds the fields Moshi's ClassJsonAdapter would bind for the passed-in model, in the order
+     * it writes them
+     *
+     * @return The model's properties, null if the model can't have a generated adapter
+     */
+    private List<Property> getProperties(TypeElement model) {
+        if (mProperties.containsKey(model)) return mProperties.get(model);
+        List<Property> properties = findProperties(model);
+        mProperties.put(model, properties);
+        return properties;
+    }
+
+    private List<Property> findProperties(TypeElement model) {
+        Set<Modifier> modifiers = model.getModifiers();
+        if (model.getKind() != ElementKind.CLASS
+                || !modifiers.contains(Modifier.PUBLIC)
+                || modifiers.contains(Modifier.ABSTRACT)
+                || !model.getTypeParameters().isEmpty()
+                || isPlatformType(model)) {
+            return null;
+        }
+        if (model.getNestingKind() != NestingKind.TOP_LEVEL
+                && (model.getNestingKind() != NestingKind.MEMBER
+                || !modifiers.contains(Modifier.STATIC))) {
+            return null;
+        }
+        if (!hasNoArgsConstructor(model)) {
+            return skip(model, "it has no non-private constructor without arguments");
+        }
+
+        String packageName = getPackageName(model);
+        DeclaredType modelType = (DeclaredType) model.asType();
+        List<Property> properties = new ArrayList<>();
+        Set<String> jsonNames = new HashSet<>();
+        TypeElement type = model;
+        while (type != null && !isPlatformType(type)) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Set<Modifier> fieldModifiers = field.getModifiers();
+                if (fieldModifiers.contains(Modifier.STATIC)
+                        || fieldModifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+
+                String jsonName = getJsonName(field);
+                boolean accessible = fieldModifiers.contains(Modifier.PUBLIC)
+                        || (!fieldModifiers.contains(Modifier.PRIVATE)
+                        && getPackageName(type).equals(packageName));
+                if (!accessible) {
+                    // Unnamed private fields hold state the model derives itself, they never
+                    // appear in API responses
+                    if (jsonName == null) continue;
+                    return skip(model, "field " + field.getSimpleName() + " isn't accessible");
+                }
+                for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+                    Element annotationType = annotation.getAnnotationType().asElement();
+                    for (AnnotationMirror meta : annotationType.getAnnotationMirrors()) {
+                        if (isAnnotation(meta, JSON_QUALIFIER_ANNOTATION)) {
+                            return skip(model, "field " + field.getSimpleName()
+                                    + " has a JsonQualifier");
+                        }
+                    }
+                }
+
+                TypeMirror fieldType = mEnv.getTypeUtils().asMemberOf(modelType, field);
+                if (mTypes.typeLiteral(fieldType) == null) {
+                    return skip(model, "field " + field.getSimpleName() + " has type "
+                            + fieldType);
+                }
+                if (jsonName == null) jsonName = field.getSimpleName().toString();
+                if (!jsonNames.add(jsonName)) {
+                    return skip(model, "more than one field is named " + jsonName);
+                }
+                properties.add(new Property(jsonName, field.getSimpleName().toString(),
+                        fieldType));
+            }
+
+            TypeMirror superclass = type.getSuperclass();
+            type = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+
+        // ClassJsonAdapter keeps its fields sorted by name
+        Collections.sort(properties, new Comparator<Property>() {
+            @Override
+            public int compare(Property first, Property second) {
+                return first.mJsonName.compareTo(second.mJsonName);
+            }
+        });
+        return properties;
+    }
+
+    private boolean hasNoArgsConstructor(TypeElement model) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(
+                model.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()
+                    && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Property> skip(TypeElement model, String reason) {
+        mEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                model.getQualifiedName() + " is read with reflection because " + reason, model);
+        return null;
+    }
+
+    private static class Property {
+        private final String     mJsonName;
+        private final String     mFieldName;
+        private final TypeMirror mType;
+
+        private Property(String jsonName, String fieldName, TypeMirror type) {
+            mJsonName = jsonName;
+            mFieldName = fieldName;
+            mType = type;
+        }
+    }
+}
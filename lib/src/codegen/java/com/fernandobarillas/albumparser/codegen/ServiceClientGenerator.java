@@ -0,0 +1,320 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.codegen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a class implementing a Retrofit API interface that builds each request directly
+ * instead of going through the reflective proxy {@code Retrofit.create()} returns. Only GET
+ * methods with @Path, @Query and @Header parameters, optionally @Streaming, are supported,
+ * interfaces using anything else are left to Retrofit.
+ */
+final class ServiceClientGenerator {
+    static final String GET_ANNOTATION = "retrofit2.http.GET";
+
+    private static final String CALL_TYPE         = "retrofit2.Call";
+    private static final String HTTP_PACKAGE      = "retrofit2.http.";
+    private static final String HEADER_ANNOTATION = "retrofit2.http.Header";
+    private static final String PATH_ANNOTATION   = "retrofit2.http.Path";
+    private static final String QUERY_ANNOTATION  = "retrofit2.http.Query";
+    private static final String STREAMING         = "retrofit2.http.Streaming";
+    private static final String RESPONSE_BODY     = "okhttp3.ResponseBody";
+    private static final String CLIENT_SUFFIX     = "Client";
+
+    private final ProcessingEnvironment mEnv;
+    private final CodegenTypes          mTypes;
+
+    ServiceClientGenerator(ProcessingEnvironment env) {
+        mEnv = env;
+        mTypes = new CodegenTypes(env.getTypeUtils());
+    }
+
+    /**
+     * Writes a client for the passed-in API interface
+     *
+     * @param service     The Retrofit interface to implement
+     * @param packageName The package to write the client to, it has to have the ServiceCall and
+     *                    ServiceRequest classes the client uses
+     * @return The simple name of the generated client, null if the interface is left to Retrofit
+     * @throws IOException If the source file couldn't be written
+     */
+    String generate(TypeElement service, String packageName) throws IOException {
+        List<Method> methods = getMethods(service);
+        if (methods == null) return null;
+
+        String serviceName = service.getQualifiedName().toString();
+        String clientName = service.getSimpleName() + CLIENT_SUFFIX;
+
+        SourceWriter source = new SourceWriter().header(packageName);
+        source.line("import retrofit2.Call;");
+        source.line("import retrofit2.Retrofit;");
+        source.line();
+        source.line("/**");
+        source.line(" * Implements {@link " + serviceName + "} without Retrofit's proxies");
+        source.line(" */");
+        source.begin("final class " + clientName + " implements " + serviceName);
+        source.line("private final Retrofit mRetrofit;");
+        for (Method method : methods) {
+            source.line("private final ServiceCall.BodyConverter<" + method.mResponseTypeName
+                    + "> " + method.mConverterField + ";");
+        }
+        source.line();
+
+        source.begin(clientName + "(Retrofit retrofit)");
+        source.line("mRetrofit = retrofit;");
+        for (Method method : methods) {
+            source.line(method.mConverterField + " = new ServiceCall.BodyConverter<>(retrofit, "
+                    + method.mResponseTypeLiteral + (method.mStreaming ? ", true" : "") + ");");
+        }
+        source.end();
+
+        for (Method method : methods) {
+            source.line();
+            writeMethod(source, method);
+        }
+        source.end();
+
+        source.writeTo(mEnv.getFiler(), packageName + "." + clientName, service);
+        return clientName;
+    }
+
+    private static AnnotationMirror getHttpAnnotation(List<? extends AnnotationMirror> annotations,
+            String qualifiedName) {
+        for (AnnotationMirror annotation : annotations) {
+            TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(qualifiedName)) return annotation;
+        }
+        return null;
+    }
+
+    private static int countHttpAnnotations(List<? extends AnnotationMirror> annotations) {
+        int count = 0;
+        for (AnnotationMirror annotation : annotations) {
+            TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+            if (type.getQualifiedName().toString().startsWith(HTTP_PACKAGE)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return The value of the annotation's element, null if it was left to its default
+     */
+    private static Object getValue(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The interface's methods, null if the interface can't have a generated client
+     */
+    private List<Method> getMethods(TypeElement service) {
+        if (service.getKind() != ElementKind.INTERFACE
+                || !service.getModifiers().contains(Modifier.PUBLIC)
+                || !service.getTypeParameters().isEmpty()
+                || !service.getInterfaces().isEmpty()) {
+            return null;
+        }
+
+        List<Method> methods = new ArrayList<>();
+        for (ExecutableElement element : ElementFilter.methodsIn(service.getEnclosedElements())) {
+            if (element.getModifiers().contains(Modifier.STATIC)) continue;
+            String name = element.getSimpleName().toString();
+            List<? extends AnnotationMirror> annotations = element.getAnnotationMirrors();
+            AnnotationMirror get = getHttpAnnotation(annotations, GET_ANNOTATION);
+            boolean streaming = getHttpAnnotation(annotations, STREAMING) != null;
+            if (get == null || countHttpAnnotations(annotations) != (streaming ? 2 : 1)) {
+                return skip(service, name + "() isn't a plain GET request");
+            }
+
+            TypeMirror returnType = element.getReturnType();
+            if (returnType.getKind() != TypeKind.DECLARED
+                    || !((TypeElement) ((DeclaredType) returnType).asElement()).getQualifiedName()
+                    .contentEquals(CALL_TYPE)) {
+                return skip(service, name + "() doesn't return a Call");
+            }
+            TypeMirror responseType = ((DeclaredType) returnType).getTypeArguments().get(0);
+            String responseTypeLiteral = mTypes.typeLiteral(responseType);
+            if (responseTypeLiteral == null) {
+                return skip(service, name + "() returns a Call<" + responseType + ">");
+            }
+
+            if (streaming && !responseType.toString().equals(RESPONSE_BODY)) {
+                return skip(service, name + "() streams a " + responseType);
+            }
+
+            Method method = new Method(element, (String) getValue(get, "value"),
+                    mTypes.typeName(responseType), responseTypeLiteral,
+                    "m" + Character.toUpperCase(name.charAt(0)) + name.substring(1)
+                            + "Converter" + (methods.size() + 1), streaming);
+            for (VariableElement parameter : element.getParameters()) {
+                List<? extends AnnotationMirror> parameterAnnotations =
+                        parameter.getAnnotationMirrors();
+                if (countHttpAnnotations(parameterAnnotations) != 1) {
+                    return skip(service, name + "() has unsupported parameters");
+                }
+                AnnotationMirror annotation = null;
+                String kind = null;
+                for (String supported : new String[]{PATH_ANNOTATION, QUERY_ANNOTATION,
+                        HEADER_ANNOTATION}) {
+                    annotation = getHttpAnnotation(parameterAnnotations, supported);
+                    if (annotation != null) {
+                        kind = supported;
+                        break;
+                    }
+                }
+                if (annotation == null || Boolean.TRUE.equals(getValue(annotation, "encoded"))) {
+                    return skip(service, name + "() has unsupported parameters");
+                }
+                TypeMirror parameterType = parameter.asType();
+                if (!isStringType(parameterType)) {
+                    return skip(service, name + "() has a " + parameterType + " parameter");
+                }
+                method.mParameters.add(new Parameter(parameter.getSimpleName().toString(), kind,
+                        (String) getValue(annotation, "value"),
+                        parameterType.getKind().isPrimitive()));
+            }
+            methods.add(method);
+        }
+        return methods;
+    }
+
+    /**
+     * @return True if Retrofit turns the parameter into a String with toString(), as it does for
+     * Strings, primitives and their boxed types
+     */
+    private boolean isStringType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) return true;
+        if (type.getKind() != TypeKind.DECLARED) return false;
+        String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName()
+                .toString();
+        if (name.equals("java.lang.String")) return true;
+        try {
+            mEnv.getTypeUtils().unboxedType(type);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private List<Method> skip(TypeElement service, String reason) {
+        mEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                service.getQualifiedName() + " is left to Retrofit because " + reason, service);
+        return null;
+    }
+
+    private void writeMethod(SourceWriter source, Method method) {
+        ExecutableElement element = method.mElement;
+        StringBuilder signature = new StringBuilder("public Call<")
+                .append(method.mResponseTypeName)
+                .append("> ")
+                .append(element.getSimpleName())
+                .append('(');
+        List<? extends VariableElement> parameters = element.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) signature.append(", ");
+            VariableElement parameter = parameters.get(i);
+            signature.append(parameter.asType()).append(' ').append(parameter.getSimpleName());
+        }
+        signature.append(')');
+
+        source.line("@Override");
+        source.begin(signature.toString());
+        source.line("ServiceRequest request = new ServiceRequest(mRetrofit.baseUrl(), "
+                + CodegenTypes.stringLiteral(method.mRelativeUrl) + ");");
+        // Retrofit can only replace path parameters before any query parameters are added
+        for (String kind : new String[]{PATH_ANNOTATION, QUERY_ANNOTATION, HEADER_ANNOTATION}) {
+            for (Parameter parameter : method.mParameters) {
+                if (!parameter.mKind.equals(kind)) continue;
+                String value = parameter.mPrimitive ? "String.valueOf(" + parameter.mName + ")"
+                        : parameter.mName;
+                String adder = kind.equals(PATH_ANNOTATION) ? "addPathParam"
+                        : kind.equals(QUERY_ANNOTATION) ? "addQueryParam" : "addHeader";
+                source.line("request." + adder + "(" + CodegenTypes.stringLiteral(parameter.mKey)
+                        + ", " + value + ");");
+            }
+        }
+        source.line("return new ServiceCall<>(mRetrofit, request, "
+                + method.mConverterField + ");");
+        source.end();
+    }
+
+    private static class Method {
+        private final ExecutableElement mElement;
+        private final String            mRelativeUrl;
+        private final String            mResponseTypeName;
+        private final String            mResponseTypeLiteral;
+        private final String            mConverterField;
+        private final boolean           mStreaming;
+        private final List<Parameter>   mParameters = new ArrayList<>();
+
+        private Method(ExecutableElement element,
+                String relativeUrl,
+                String responseTypeName,
+                String responseTypeLiteral,
+                String converterField,
+                boolean streaming) {
+            mElement = element;
+            mRelativeUrl = relativeUrl;
+            mResponseTypeName = responseTypeName;
+            mResponseTypeLiteral = responseTypeLiteral;
+            mConverterField = converterField;
+            mStreaming = streaming;
+        }
+    }
+
+    private static class Parameter {
+        private final String  mName;
+        private final String  mKind;
+        private final String  mKey;
+        private final boolean mPrimitive;
+
+        private Parameter(String name, String kind, String key, boolean primitive) {
+            mName = name;
+            mKind = kind;
+            mKey = key;
+            mPrimitive = primitive;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+
+/**
+ * Builds the source of a generated Java file one line at a time, keeping track of indentation
+ */
+final class SourceWriter {
+    private static final String INDENT = "    ";
+
+    private final StringBuilder mSource = new StringBuilder();
+    private       int           mIndent;
+
+    /**
+     * Writes a line at the current indentation and indents the lines after it, for opening a block
+     */
+    SourceWriter begin(String line) {
+        line(line + " {");
+        mIndent++;
+        return this;
+    }
+
+    /**
+     * Outdents and writes the closing brace of a block opened with {@link #begin(String)}
+     */
+    SourceWriter end() {
+        mIndent--;
+        return line("}");
+    }
+
+    SourceWriter indent() {
+        mIndent++;
+        return this;
+    }
+
+    SourceWriter line() {
+        mSource.append('\n');
+        return this;
+    }
+
+    SourceWriter line(String line) {
+        for (int i = 0; i < mIndent; i++) {
+            mSource.append(INDENT);
+        }
+        mSource.append(line).append('\n');
+        return this;
+    }
+
+    SourceWriter outdent() {
+        mIndent--;
+        return this;
+    }
+
+    /**
+     * Writes the header every generated file starts with
+     */
+    SourceWriter header(String packageName) {
+        line("// Generated by " + CodegenProcessor.class.getSimpleName() + ", do not edit");
+        line("package " + packageName + ";");
+        return line();
+    }
+
+    /**
+     * Writes the source to a new file in the compiler's generated source directory
+     *
+     * @param qualifiedName The qualified name of the class the source declares
+     * @param originatingElements The elements the class was generated from
+     */
+    void writeTo(Filer filer, String qualifiedName, Element... originatingElements)
+            throws IOException {
+        Writer writer = filer.createSourceFile(qualifiedName, originatingElements).openWriter();
+        try {
+            writer.write(mSource.toString());
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.media;
+
+import com.fernandobarillas.albumparser.gfycat.model.GfycatInfoResponse;
+import com.fernandobarillas.albumparser.imgur.model.v3.AlbumResponseV3;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.vidble.model.VidbleMedia;
+import com.fernandobarillas.albumparser.vidble.model.VidbleResponse;
+import com.squareup.moshi.Moshi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Measures what reading a media's URLs costs the way a serializer does, each URL several times.
+ * Every operation reads the URLs of one media from the recorded API responses in
+ * src/test/resources/fixtures, so the gc profiler's gc.alloc.rate.norm is the allocation per
+ * media. rebuiltUrls creates the URLs on every read, the way the getters used to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaUrlBenchmark {
+    /** How many times each URL is read for every media */
+    private static final int READS = 3;
+
+    private static final Moshi MOSHI = new Moshi.Builder().build();
+
+    @Param({"gfycat", "imgur", "vidble"})
+    public String provider;
+
+    private BaseMedia[] mMedia;
+    private int         mIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<BaseMedia> media = new ArrayList<>();
+        switch (provider) {
+            case "gfycat":
+                GfycatInfoResponse gfycat = MOSHI.adapter(GfycatInfoResponse.class)
+                        .fromJson(readFixture("gfycat_gfyitem.json"));
+                media.add(gfycat.getMedia());
+                break;
+            case "imgur":
+                AlbumResponseV3 imgur = MOSHI.adapter(AlbumResponseV3.class)
+                        .fromJson(readFixture("imgur_album.json"));
+                for (IMedia image : imgur.getAlbum().getAlbumMedia()) {
+                    media.add((BaseMedia) image);
+                }
+                break;
+            case "vidble":
+                VidbleResponse vidble = MOSHI.adapter(VidbleResponse.class)
+                        .fromJson(readFixture("vidble_album.json"));
+                for (String pic : vidble.pics) {
+                    if (pic != null) media.add(new VidbleMedia(pic));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown provider " + provider);
+        }
+        mMedia = media.toArray(new BaseMedia[media.size()]);
+    }
+
+    @Benchmark
+    public void firstUrls(Blackhole blackhole) {
+        BaseMedia media = nextMedia();
+        media.clearMediaUrls();
+        readUrls(media, blackhole);
+    }
+
+    @Benchmark
+    public void memoizedUrls(Blackhole blackhole) {
+        readUrls(nextMedia(), blackhole);
+    }
+
+    @Benchmark
+    public void rebuiltUrls(Blackhole blackhole) {
+        BaseMedia media = nextMedia();
+        for (int i = 0; i < READS; i++) {
+            consume(media.createMediaUrl(true), blackhole);
+            consume(media.createMediaUrl(false), blackhole);
+            consume(media.createPreviewMediaUrl(), blackhole);
+        }
+    }
+
+    private static void consume(MediaUrl url, Blackhole blackhole) {
+        blackhole.consume(url != null ? url.toUrl() : null);
+    }
+
+    private static BufferedSource readFixture(String fixture) throws IOException {
+        InputStream inputStream =
+                MediaUrlBenchmark.class.getResourceAsStream("/fixtures/" + fixture);
+        if (inputStream == null) throw new IOException("Missing fixture " + fixture);
+        return Okio.buffer(Okio.source(inputStream));
+    }
+
+    private BaseMedia nextMedia() {
+        BaseMedia media = mMedia[mIndex];
+        mIndex = (mIndex + 1) % mMedia.length;
+        return media;
+    }
+
+    private void readUrls(BaseMedia media, Blackhole blackhole) {
+        for (int i = 0; i < READS; i++) {
+            blackhole.consume(media.getUrl(true));
+            blackhole.consume(media.getUrl(false));
+            blackhole.consume(media.getPreviewUrl());
+        }
+    }
+}
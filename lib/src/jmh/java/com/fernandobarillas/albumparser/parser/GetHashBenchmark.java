@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.giphy.GiphyParser;
+import com.fernandobarillas.albumparser.streamable.StreamableParser;
+import com.fernandobarillas.albumparser.tumblr.TumblrParser;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.vidble.VidbleParser;
+import com.fernandobarillas.albumparser.vidme.VidmeParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures getHash() throughput for the providers that used to compile their hash regex on every
+ * call. Each URL is paired with the regex its parser used before the patterns were precompiled so
+ * the old cost can be compared against the parser and the cached {@link
+ * ParseUtils#hashRegex(String, String)}. Each benchmark hashes every URL for the provider once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetHashBenchmark {
+    @Param({"giphy", "streamable", "tumblr", "vidble", "vidme"})
+    public String provider;
+
+    private AbstractApiParser<?> mParser;
+    private URL[]                mUrls;
+    private String[]             mPaths;
+    private String[]             mRegexes;
+
+    @Setup
+    public void setUp() {
+        String[][] corpus;
+        switch (provider) {
+            case "giphy":
+                mParser = new GiphyParser();
+                corpus = new String[][]{
+                        {"https://giphy.com/gifs/cat-funny-PNSCRvHld1eP6",
+                                "/gifs/(?:.*-)?(\\w+)\\/?.*$"},
+                        {"https://giphy.com/embed/PNSCRvHld1eP6", "/embed/(\\w+)"},
+                        {"https://media.giphy.com/media/PNSCRvHld1eP6/giphy.gif",
+                                "/media/(\\w+)"},
+                        {"https://i.giphy.com/PNSCRvHld1eP6.gif", "/(\\w+)"},
+                };
+                break;
+            case "streamable":
+                mParser = new StreamableParser();
+                corpus = new String[][]{
+                        {"https://streamable.com/w78y", "/(\\w+)"},
+                        {"https://cdn.streamable.com/video/mp4/w78y.mp4", "/mp4/(\\w{4})"},
+                        {"https://cdn.streamable.com/video/mp4-mobile/w78y.mp4",
+                                "/mp4-mobile/(\\w{4})"},
+                };
+                break;
+            case "tumblr":
+                mParser = new TumblrParser();
+                corpus = new String[][]{
+                        {"http://fbis251.tumblr.com/post/150135750508/", "/post/(\\d+)"},
+                        {"http://fbis251.tumblr.com/post/150135750508/a-slug", "/post/(\\d+)"},
+                        {"http://fbis251.tumblr.com/image/150135750508", "/image/(\\d+)"},
+                };
+                break;
+            case "vidble":
+                mParser = new VidbleParser();
+                corpus = new String[][]{
+                        {"https://www.vidble.com/album/cfQZodMa", "/album/(\\w{8})"},
+                        {"https://www.vidble.com/show/XOwqxH6Xz9", "/show/(\\w{10})"},
+                        {"https://www.vidble.com/XOwqxH6Xz9_med.jpg", "/(\\w{10})"},
+                };
+                break;
+            case "vidme":
+                mParser = new VidmeParser();
+                corpus = new String[][]{
+                        {"https://vid.me/2wl6", "/(\\w+)"},
+                        {"https://vid.me/e/2wl6", "/e/(\\w+)"},
+                };
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown provider " + provider);
+        }
+
+        mUrls = new URL[corpus.length];
+        mPaths = new String[corpus.length];
+        mRegexes = new String[corpus.length];
+        for (int i = 0; i < corpus.length; i++) {
+            mUrls[i] = ParseUtils.getUrlObject(corpus[i][0]);
+            mPaths[i] = mUrls[i].getPath();
+            mRegexes[i] = corpus[i][1];
+        }
+    }
+
+    /** How getHash() matched before the patterns were precompiled */
+    @Benchmark
+    public void compilePerCall(Blackhole blackhole) {
+        for (int i = 0; i < mPaths.length; i++) {
+            Matcher matcher = Pattern.compile(mRegexes[i]).matcher(mPaths[i]);
+            blackhole.consume(matcher.find() ? matcher.group(1) : null);
+        }
+    }
+
+    /** Dynamic regexes, which are now served from the bounded pattern cache */
+    @Benchmark
+    public void cachedRegex(Blackhole blackhole) {
+        for (int i = 0; i < mPaths.length; i++) {
+            blackhole.consume(ParseUtils.hashRegex(mPaths[i], mRegexes[i]));
+        }
+    }
+
+    @Benchmark
+    public void getHash(Blackhole blackhole) {
+        for (URL url : mUrls) {
+            blackhole.consume(mParser.getHash(url));
+        }
+    }
+}
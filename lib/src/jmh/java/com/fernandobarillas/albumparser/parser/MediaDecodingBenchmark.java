@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.gfycat.GfycatParser;
+import com.fernandobarillas.albumparser.gfycat.model.GfycatInfoResponse;
+import com.fernandobarillas.albumparser.giphy.GiphyParser;
+import com.fernandobarillas.albumparser.giphy.model.GiphyResponse;
+import com.fernandobarillas.albumparser.imgur.ImgurParser;
+import com.fernandobarillas.albumparser.imgur.model.v3.AlbumResponseV3;
+import com.fernandobarillas.albumparser.tumblr.TumblrParser;
+import com.fernandobarillas.albumparser.tumblr.model.TumblrResponse;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+import okio.ByteString;
+import okio.Okio;
+
+/**
+ * Compares decoding the recorded API responses in src/test/resources/fixtures with the regular
+ * Moshi adapters against the adapters from {@link AbstractApiParser#getMediaAdapterFactory()},
+ * which only read the fields that back IMedia. Run with the gc profiler to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaDecodingBenchmark {
+    private static final Moshi MOSHI = new Moshi.Builder().add(new URLAdapter()).build();
+
+    @Param({"gfycat", "giphy", "imgur", "tumblr"})
+    public String provider;
+
+    private ByteString     mFixture;
+    private JsonAdapter<?> mFullAdapter;
+    private JsonAdapter<?> mMediaFieldsAdapter;
+
+    @Setup
+    public void setUp() throws IOException {
+        AbstractApiParser<?> parser;
+        Class<?> responseType;
+        String fixture;
+        switch (provider) {
+            case "gfycat":
+                parser = new GfycatParser();
+                responseType = GfycatInfoResponse.class;
+                fixture = "gfycat_gfyitem.json";
+                break;
+            case "giphy":
+                parser = new GiphyParser();
+                responseType = GiphyResponse.class;
+                fixture = "giphy_gif.json";
+                break;
+            case "imgur":
+                parser = new ImgurParser();
+                responseType = AlbumResponseV3.class;
+                fixture = "imgur_album.json";
+                break;
+            case "tumblr":
+                parser = new TumblrParser();
+                responseType = TumblrResponse.class;
+                fixture = "tumblr_photo_post.json";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown provider " + provider);
+        }
+
+        InputStream inputStream = getClass().getResourceAsStream("/fixtures/" + fixture);
+        if (inputStream == null) throw new IOException("Missing fixture " + fixture);
+        try {
+            mFixture = Okio.buffer(Okio.source(inputStream)).readByteString();
+        } finally {
+            inputStream.close();
+        }
+
+        Moshi mediaFieldsMoshi = MOSHI.newBuilder().add(parser.getMediaAdapterFactory()).build();
+        mFullAdapter = MOSHI.adapter(responseType);
+        mMediaFieldsAdapter = mediaFieldsMoshi.adapter(responseType);
+    }
+
+    @Benchmark
+    public Object decodeAllFields() throws IOException {
+        return mFullAdapter.fromJson(new Buffer().write(mFixture));
+    }
+
+    @Benchmark
+    public Object decodeMediaFields() throws IOException {
+        return mMediaFieldsAdapter.fromJson(new Buffer().write(mFixture));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.gfycat.GfycatParser;
+import com.fernandobarillas.albumparser.gfycat.api.GfycatApi;
+import com.fernandobarillas.albumparser.gfycat.model.GfycatInfoResponse;
+import com.squareup.moshi.Moshi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.converter.moshi.MoshiConverterFactory;
+
+/**
+ * Compares the per-request cost of building a new Moshi, Retrofit and service implementation for
+ * every API call against reusing the ones cached by {@link AbstractApiParser#getServices()}. Both
+ * benchmarks stop at creating the Call so no network requests are made.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetrofitBenchmark {
+    private static final String HASH = "AngryFrequentChuckwalla";
+
+    private final OkHttpClient mClient = new OkHttpClient();
+    private final GfycatParser mParser = new GfycatParser(mClient);
+
+    /** How every parser created its service before they were cached */
+    @Benchmark
+    public Call<GfycatInfoResponse> newRetrofitPerRequest() {
+        Moshi moshi = new Moshi.Builder().add(new URLAdapter()).build();
+        Retrofit retrofit = new Retrofit.Builder().baseUrl(GfycatApi.API_URL)
+                .addConverterFactory(MoshiConverterFactory.create(moshi))
+                .client(mClient)
+                .build();
+        return retrofit.create(GfycatApi.class).getGfycatInfo(HASH);
+    }
+
+    @Benchmark
+    public Call<GfycatInfoResponse> cachedServices() {
+        return mParser.getServices().get(GfycatApi.class).getGfycatInfo(HASH);
+    }
+}
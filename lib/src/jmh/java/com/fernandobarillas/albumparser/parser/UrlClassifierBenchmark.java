@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.gfycat.GfycatParser;
+import com.fernandobarillas.albumparser.giphy.GiphyParser;
+import com.fernandobarillas.albumparser.imgur.ImgurParser;
+import com.fernandobarillas.albumparser.streamable.StreamableParser;
+import com.fernandobarillas.albumparser.tumblr.TumblrParser;
+import com.fernandobarillas.albumparser.vidble.VidbleParser;
+import com.fernandobarillas.albumparser.vidme.VidmeParser;
+import com.fernandobarillas.albumparser.xkcd.XkcdParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares classifying a batch of archived URLs with {@link UrlClassifier} against finding the
+ * same hashes through the parsers, which create a URL and a ParsedUrl for every URL and check
+ * each parser's domain in turn. Each benchmark classifies every URL once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlClassifierBenchmark {
+    private static final String[] URLS = {
+            "http://i.imgur.com/0t3yWP9.gifv",
+            "http://imgur.com/gallery/abcdefg",
+            "http://imgur.com/a/abcde",
+            "https://gfycat.com/gifs/detail/AngryFrequentChuckwalla",
+            "https://fat.gfycat.com/PotableLeftAbalone.webm",
+            "https://giphy.com/gifs/cat-funny-PNSCRvHld1eP6",
+            "https://media.giphy.com/media/PNSCRvHld1eP6/giphy.gif",
+            "https://cdn.streamable.com/video/mp4/w78y.mp4",
+            "http://fbis251.tumblr.com/post/150135750508/",
+            "https://www.vidble.com/album/cfQZodMa",
+            "https://vid.me/2wl6",
+            "http://xkcd.com/1728/",
+            "http://example.com/file.jpg",
+            "https://www.google.com/search?q=imgur",
+    };
+
+    private final AbstractApiParser<?>[]      mParsers = {
+            new GfycatParser(),
+            new GiphyParser(),
+            new ImgurParser(),
+            new StreamableParser(),
+            new TumblrParser(),
+            new VidbleParser(),
+            new VidmeParser(),
+            new XkcdParser(),
+    };
+    private final UrlClassifier.Classification mResult = new UrlClassifier.Classification();
+
+    /** Only classifies, the hashes are never copied out of the URLs */
+    @Benchmark
+    public void classify(Blackhole blackhole) {
+        for (String url : URLS) {
+            blackhole.consume(UrlClassifier.classify(url, mResult));
+        }
+    }
+
+    @Benchmark
+    public void classifyAndGetHash(Blackhole blackhole) {
+        for (String url : URLS) {
+            UrlClassifier.classify(url, mResult);
+            blackhole.consume(mResult.getHash());
+        }
+    }
+
+    /** How a bulk job had to find hashes before, one parser at a time */
+    @Benchmark
+    public void parserGetHash(Blackhole blackhole) {
+        for (String url : URLS) {
+            ParsedUrl parsedUrl = ParsedUrl.of(url);
+            if (parsedUrl == null) continue;
+            for (AbstractApiParser<?> parser : mParsers) {
+                if (!parser.isValidDomain(parsedUrl)) continue;
+                try {
+                    blackhole.consume(parser.getHash(parsedUrl));
+                } catch (InvalidMediaUrlException ignored) {
+                }
+                break;
+            }
+        }
+    }
+}
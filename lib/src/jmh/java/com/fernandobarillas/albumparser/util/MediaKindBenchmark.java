@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.util;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+import com.fernandobarillas.albumparser.media.IMedia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares classifying URLs with {@link ParseUtils#getMediaKind(URL)} against the extension
+ * checks it replaced, which built and lower-cased the file name and extension once for each of
+ * the image, video and GIF checks. Each benchmark classifies the whole corpus once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaKindBenchmark {
+    /** A mix of the direct, album, page and unsupported links found in reddit submissions */
+    private static final String[] CORPUS = {
+            "https://i.imgur.com/0t3yWP9.gifv",
+            "https://i.imgur.com/FbisLogo.PNG",
+            "https://imgur.com/gallery/PBTrqAA",
+            "https://imgur.com/a/sHr7d",
+            "https://m.imgur.com/r/aww/DdLzSfA",
+            "https://i.redd.it/abcdefgh1234.jpg",
+            "https://i.reddituploads.com/0a1b2c3d?fit=max&h=1536&w=1536&s=9f8e7d6c",
+            "https://i.redditmedia.com/abc.gif?fm=mp4&w=320&s=1234",
+            "https://gfycat.com/AngryFrequentChuckwalla",
+            "https://fat.gfycat.com/PotableLeftAbalone.webm",
+            "https://giant.gfycat.com/PotableLeftAbalone.mp4",
+            "https://media.giphy.com/media/PNSCRvHld1eP6/giphy.gif",
+            "https://cdn.streamable.com/video/mp4/w78y.mp4",
+            "https://streamable.com/w78y",
+            "https://www.vidble.com/album/cfQZodMa",
+            "https://www.vidble.com/show/abcdef1234.jpeg",
+            "https://fbis251.tumblr.com/post/150135750508/",
+            "https://68.media.tumblr.com/abc/tumblr_abc_1280.webp",
+            "https://imgs.xkcd.com/comics/bad_code.png",
+            "https://xkcd.com/1728/",
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ",
+            "https://example.com/file.html",
+            "https://example.com/downloads/archive.tar.gz",
+            "https://en.wikipedia.org/wiki/File:Example.jpg",
+    };
+
+    private final URL[] mUrls = new URL[CORPUS.length];
+
+    public MediaKindBenchmark() {
+        for (int i = 0; i < CORPUS.length; i++) {
+            mUrls[i] = ParseUtils.getUrlObject(CORPUS[i]);
+        }
+    }
+
+    /** How {@link ParseUtils#isDirectUrl(URL)} classified URLs before getMediaKind() */
+    @Benchmark
+    public void legacyExtensionChecks(Blackhole blackhole) {
+        for (URL url : mUrls) {
+            blackhole.consume(isLegacyVideoExtension(url)
+                    || isLegacyImageExtension(url)
+                    || isLegacyGifExtension(url));
+        }
+    }
+
+    @Benchmark
+    public void getMediaKind(Blackhole blackhole) {
+        for (URL url : mUrls) {
+            blackhole.consume(ParseUtils.getMediaKind(url));
+        }
+    }
+
+    /** Routing every URL, which classifies the URLs no provider could parse */
+    @Benchmark
+    public void isSupported(Blackhole blackhole) {
+        for (URL url : mUrls) {
+            blackhole.consume(AlbumParser.isSupported(url));
+        }
+    }
+
+    private static String getLegacyExtension(URL url) {
+        String path = url.getPath();
+        String filename = path.substring(path.lastIndexOf("/") + 1);
+        if (!filename.contains(".")) return null;
+        return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
+    }
+
+    private static boolean isLegacyGifExtension(URL url) {
+        String extension = getLegacyExtension(url);
+        return extension != null && extension.equals(IMedia.EXT_GIF);
+    }
+
+    private static boolean isLegacyImageExtension(URL url) {
+        String extension = getLegacyExtension(url);
+        if (extension == null) return false;
+        switch (extension) {
+            case IMedia.EXT_BMP:
+            case IMedia.EXT_JPG:
+            case IMedia.EXT_JPEG:
+            case IMedia.EXT_PNG:
+            case IMedia.EXT_WEBP:
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isLegacyVideoExtension(URL url) {
+        String extension = getLegacyExtension(url);
+        if (extension == null) return false;
+        switch (extension) {
+            case IMedia.EXT_3GP:
+            case IMedia.EXT_GIFV:
+            case IMedia.EXT_MKV:
+            case IMedia.EXT_MP4:
+            case IMedia.EXT_WEBM:
+                return true;
+        }
+        return false;
+    }
+}
@@ -22,27 +22,57 @@
 package com.fernandobarillas.albumparser;
 
 import com.fernandobarillas.albumparser.deviantart.DeviantartParser;
+import com.fernandobarillas.albumparser.exception.CircuitBreakerOpenException;
+import com.fernandobarillas.albumparser.exception.DeadlineExceededException;
 import com.fernandobarillas.albumparser.exception.InvalidApiKeyException;
 import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.exception.RateLimitExceededException;
 import com.fernandobarillas.albumparser.gfycat.GfycatParser;
 import com.fernandobarillas.albumparser.giphy.GiphyParser;
 import com.fernandobarillas.albumparser.imgur.ImgurParser;
 import com.fernandobarillas.albumparser.imgur.model.Image;
 import com.fernandobarillas.albumparser.media.DirectMedia;
 import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.media.MediaKind;
+import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.ApiUrlInterceptor;
+import com.fernandobarillas.albumparser.parser.CircuitBreaker;
+import com.fernandobarillas.albumparser.parser.ClientProfile;
+import com.fernandobarillas.albumparser.parser.ConcurrencyLimiter;
+import com.fernandobarillas.albumparser.parser.Deadline;
+import com.fernandobarillas.albumparser.parser.FailureCache;
+import com.fernandobarillas.albumparser.parser.HedgingPolicy;
+import com.fernandobarillas.albumparser.parser.MediaStream;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserCallback;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
+import com.fernandobarillas.albumparser.parser.RateLimiter;
+import com.fernandobarillas.albumparser.parser.ResponseCache;
+import com.fernandobarillas.albumparser.parser.RetryPolicy;
+import com.fernandobarillas.albumparser.parser.SingleFlight;
 import com.fernandobarillas.albumparser.reddit.RedditParser;
+import com.fernandobarillas.albumparser.store.ResponseStore;
 import com.fernandobarillas.albumparser.streamable.StreamableParser;
 import com.fernandobarillas.albumparser.tumblr.TumblrParser;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.DomainTrie;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.vidble.VidbleParser;
 import com.fernandobarillas.albumparser.vidme.VidmeParser;
 import com.fernandobarillas.albumparser.xkcd.XkcdParser;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 
 /**
@@ -51,6 +81,8 @@ import okhttp3.OkHttpClient;
  * that the API returned, regardless of which API provider was used. All responses conform to the
  * interfaces in the media package so iterating and parsing the returned Objects is simple, reducing
  * code redundancy.
+ * <p>
+ * Instances are immutable once built, so a single AlbumParser can be shared between threads.
  */
 public class AlbumParser {
 
@@ -68,17 +100,86 @@ public class AlbumParser {
     private static final int TUMBLR     = 10;
     private static final int XKCD       = 11;
 
-    /** The OkHttpClient instance to use when making all the API calls */
-    private OkHttpClient mClient;
+    /** The default number of concurrent requests parseUrls() makes to a single provider */
+    public static final int DEFAULT_MAX_REQUESTS_PER_PROVIDER = 4;
+
+    /**
+     * Parsers used only to check whether a URL can be parsed, indexed by their provider constant.
+     * These never make API calls so they can be shared between all threads.
+     */
+    private static final AbstractApiParser<?>[] ROUTING_PARSERS =
+            new AbstractApiParser<?>[XKCD + 1];
+
+    /** Maps a host name to the provider constant of the only parser that accepts that host */
+    private static final DomainTrie<Integer> PROVIDER_ROUTER = new DomainTrie<>();
+
+    static {
+        ROUTING_PARSERS[DEVIANTART] = new DeviantartParser();
+        ROUTING_PARSERS[GFYCAT] = new GfycatParser();
+        ROUTING_PARSERS[GIPHY] = new GiphyParser();
+        ROUTING_PARSERS[IMGUR] = new ImgurParser();
+        ROUTING_PARSERS[REDDIT] = new RedditParser();
+        ROUTING_PARSERS[STREAMABLE] = new StreamableParser();
+        ROUTING_PARSERS[VIDBLE] = new VidbleParser();
+        ROUTING_PARSERS[VIDME] = new VidmeParser();
+        ROUTING_PARSERS[TUMBLR] = new TumblrParser();
+        ROUTING_PARSERS[XKCD] = new XkcdParser();
+
+        for (int provider = 0; provider < ROUTING_PARSERS.length; provider++) {
+            AbstractApiParser<?> parser = ROUTING_PARSERS[provider];
+            if (parser == null) continue;
+            // Parsers accept subdomains of their base domain unless they override isValidDomain(),
+            // canParse() below still has the final say for those parsers
+            PROVIDER_ROUTER.putWithSubdomains(parser.getBaseDomain(), provider);
+            for (String domain : parser.getValidDomains()) {
+                PROVIDER_ROUTER.put(domain, provider);
+            }
+        }
+    }
+
+    /** The OkHttpClient instance every provider's client is derived from */
+    private final OkHttpClient mClient;
+
+    /** The client each provider's API calls are made with, indexed by provider constant */
+    private final OkHttpClient[] mClients = new OkHttpClient[XKCD + 1];
 
     // API Keys
-    private String mGiphyApiKey;
-    private String mImgurClientId;
-    private String mTumblrApiKey;
+    private final String mGiphyApiKey;
+    private final String mImgurClientId;
+    private final String mTumblrApiKey;
+
+    // Parsers are created once and shared by every call to parseUrl(), they're all thread-safe
+    private final DeviantartParser mDeviantartParser;
+    private final GfycatParser     mGfycatParser;
+    private final GiphyParser      mGiphyParser;
+    private final ImgurParser      mImgurParser;
+    private final RedditParser     mRedditParser;
+    private final StreamableParser mStreamableParser;
+    private final VidbleParser     mVidbleParser;
+    private final VidmeParser      mVidmeParser;
+    private final TumblrParser     mTumblrParser;
+    private final XkcdParser       mXkcdParser;
 
-    // Default preview and low quality URL dimensions/sizes
-    private String mImgurPreviewSize;
-    private String mImgurLowQualitySize;
+    /** The parsers above, indexed by provider constant */
+    private final AbstractApiParser<?>[] mParsers = new AbstractApiParser<?>[XKCD + 1];
+
+    /** Rejects calls to providers that are down, indexed by provider constant, null if none */
+    private final CircuitBreaker[] mCircuitBreakers = new CircuitBreaker[XKCD + 1];
+
+    /** Successful API responses, null when caching is disabled */
+    private final ResponseCache mResponseCache;
+
+    /** Successful API responses persisted to disk, null when disabled */
+    private final ResponseStore mResponseStore;
+
+    /** Failed parses, null when caching is disabled */
+    private final FailureCache mFailureCache;
+
+    /** Coalesces concurrent parses of the same media into a single API call */
+    private final SingleFlight mSingleFlight = new SingleFlight();
+
+    /** Limits the requests parseUrls() makes, indexed by provider constant */
+    private final ConcurrencyLimiter[] mLimiters = new ConcurrencyLimiter[XKCD + 1];
 
     /**
      * Instantiates an AlbumParser instance with the passed in OkHttpClient. This is useful when
@@ -92,14 +193,95 @@ public class AlbumParser {
             String imgurClientId,
             String tumblrApiKey,
             String imgurPreviewSize,
-            String imgurLowQualitySize) {
+            String imgurLowQualitySize,
+            int maxRequestsPerProvider,
+            Map<String, Integer> providerMaxRequests,
+            ClientProfile clientProfile,
+            Map<String, ClientProfile> providerClientProfiles,
+            Map<String, String> providerApiUrls,
+            Map<String, RateLimiter> providerRateLimiters,
+            RetryPolicy retryPolicy,
+            Map<String, RetryPolicy> providerRetryPolicies,
+            Map<String, HedgingPolicy> providerHedgingPolicies,
+            CircuitBreaker.Builder circuitBreaker,
+            Map<String, CircuitBreaker.Builder> providerCircuitBreakers,
+            ResponseCache responseCache,
+            ResponseStore responseStore,
+            FailureCache failureCache,
+            boolean mediaFieldsOnly) {
         mClient = client != null ? client : new OkHttpClient();
+        for (int provider = 0; provider < ROUTING_PARSERS.length; provider++) {
+            AbstractApiParser<?> parser = ROUTING_PARSERS[provider];
+            if (parser == null) continue;
+            ClientProfile profile = providerClientProfiles.get(parser.getBaseDomain());
+            if (profile == null) profile = clientProfile;
+            OkHttpClient providerClient = profile != null ? profile.newClient(mClient) : mClient;
+            String apiUrl = providerApiUrls.get(parser.getBaseDomain());
+            if (apiUrl != null) {
+                OkHttpClient.Builder builder = providerClient.newBuilder();
+                // Run before any other interceptor so they all see the request that is sent
+                builder.interceptors()
+                        .add(0, new ApiUrlInterceptor(parser.getBaseDomain(), apiUrl));
+                providerClient = builder.build();
+            }
+            mClients[provider] = providerClient;
+        }
+        mResponseCache = responseCache;
+        mResponseStore = responseStore;
+        mFailureCache = failureCache;
 
         mGiphyApiKey = giphyApiKey;
         mImgurClientId = imgurClientId;
         mTumblrApiKey = tumblrApiKey;
-        mImgurPreviewSize = imgurPreviewSize;
-        mImgurLowQualitySize = imgurLowQualitySize;
+
+        mDeviantartParser = new DeviantartParser(mClients[DEVIANTART]);
+        mGfycatParser = new GfycatParser(mClients[GFYCAT], mediaFieldsOnly);
+        mGiphyParser = new GiphyParser(mClients[GIPHY], mGiphyApiKey, mediaFieldsOnly);
+        mImgurParser = new ImgurParser(mClients[IMGUR],
+                mImgurClientId,
+                imgurPreviewSize,
+                imgurLowQualitySize,
+                mediaFieldsOnly);
+        mRedditParser = new RedditParser();
+        mStreamableParser = new StreamableParser(mClients[STREAMABLE]);
+        mVidbleParser = new VidbleParser(mClients[VIDBLE]);
+        mVidmeParser = new VidmeParser(mClients[VIDME]);
+        mTumblrParser = new TumblrParser(mClients[TUMBLR], mTumblrApiKey, mediaFieldsOnly);
+        mXkcdParser = new XkcdParser(mClients[XKCD]);
+
+        mParsers[DEVIANTART] = mDeviantartParser;
+        mParsers[GFYCAT] = mGfycatParser;
+        mParsers[GIPHY] = mGiphyParser;
+        mParsers[IMGUR] = mImgurParser;
+        mParsers[REDDIT] = mRedditParser;
+        mParsers[STREAMABLE] = mStreamableParser;
+        mParsers[VIDBLE] = mVidbleParser;
+        mParsers[VIDME] = mVidmeParser;
+        mParsers[TUMBLR] = mTumblrParser;
+        mParsers[XKCD] = mXkcdParser;
+        for (int provider = 0; provider < mParsers.length; provider++) {
+            AbstractApiParser<?> parser = mParsers[provider];
+            // Reddit URLs are parsed without any API calls
+            if (parser == null || provider == REDDIT) continue;
+            String baseDomain = parser.getBaseDomain();
+            parser.setRateLimiter(providerRateLimiters.get(baseDomain));
+            RetryPolicy providerRetryPolicy = providerRetryPolicies.get(baseDomain);
+            parser.setRetryPolicy(providerRetryPolicy != null ? providerRetryPolicy : retryPolicy);
+            parser.setHedgingPolicy(providerHedgingPolicies.get(baseDomain));
+            CircuitBreaker.Builder breakerBuilder = providerCircuitBreakers.get(baseDomain);
+            if (breakerBuilder == null) breakerBuilder = circuitBreaker;
+            if (breakerBuilder != null) {
+                mCircuitBreakers[provider] = breakerBuilder.build(baseDomain);
+            }
+        }
+
+        for (int provider = 0; provider < ROUTING_PARSERS.length; provider++) {
+            AbstractApiParser<?> parser = ROUTING_PARSERS[provider];
+            if (parser == null) continue;
+            Integer maxRequests = providerMaxRequests.get(parser.getBaseDomain());
+            mLimiters[provider] = new ConcurrencyLimiter(
+                    maxRequests != null ? maxRequests : maxRequestsPerProvider);
+        }
     }
 
     /**
@@ -109,7 +291,7 @@ public class AlbumParser {
      * @return True if the URL can be parsed by this library, false if the URL is unsupported
      */
     public static boolean isSupported(URL url) {
-        return getMediaProvider(url) != UNKNOWN;
+        return getMediaProvider(ParsedUrl.of(url)) != UNKNOWN;
     }
 
     /**
@@ -119,44 +301,47 @@ public class AlbumParser {
      * @return True if the URL can be parsed by this library, false if the URL is unsupported
      */
     public static boolean isSupported(String url) {
-        return isSupported(ParseUtils.getUrlObject(url));
+        return getMediaProvider(ParsedUrl.of(url)) != UNKNOWN;
     }
 
-    private static int getMediaProvider(URL url) {
-        if (url == null || url.getHost() == null) return UNKNOWN;
-        String domain = url.getHost().toLowerCase();
+    private static String getBatchKey(ParsedUrl mediaUrl, int provider, String urlString) {
+        String flightKey = getFlightKey(mediaUrl, provider);
+        return flightKey != null ? flightKey : provider + ":" + urlString;
+    }
 
-        if (new DeviantartParser().canParse(url)) {
-            return DEVIANTART;
-        }
-        if (new GfycatParser().canParse(url)) {
-            return GFYCAT;
-        }
-        if (new GiphyParser().canParse(url)) {
-            return GIPHY;
-        }
-        if (new ImgurParser().canParse(url)) {
-            return IMGUR;
-        }
-        if (new RedditParser().canParse(url)) {
-            return REDDIT;
-        }
-        if (new StreamableParser().canParse(url)) {
-            return STREAMABLE;
-        }
-        if (new VidbleParser().canParse(url)) {
-            return VIDBLE;
-        }
-        if (new VidmeParser().canParse(url)) {
-            return VIDME;
-        }
-        if (new TumblrParser().canParse(url)) {
-            return TUMBLR;
+    /**
+     * @return A key identifying the media the URL points to, null if the URL has no hash
+     */
+    private static String getFlightKey(ParsedUrl mediaUrl, int provider) {
+        String hash = getHash(mediaUrl, provider);
+        // Some parsers, such as reddit's, return a blank hash for every URL
+        if (hash == null || hash.isEmpty()) return null;
+        return provider + ":" + hash;
+    }
+
+    private static String getHash(ParsedUrl mediaUrl, int provider) {
+        if (provider <= DIRECT_GIF) return null;
+        try {
+            return ROUTING_PARSERS[provider].getHash(mediaUrl);
+        } catch (InvalidMediaUrlException e) {
+            return null;
         }
-        if (new XkcdParser().canParse(url)) {
-            return XKCD;
+    }
+
+    private static URL getUrl(ParsedUrl mediaUrl) {
+        return mediaUrl != null ? mediaUrl.getUrl() : null;
+    }
+
+    private static int getMediaProvider(ParsedUrl url) {
+        if (url == null) return UNKNOWN;
+
+        // Provider domains don't overlap, so at most a single parser needs to look at the URL
+        Integer provider = PROVIDER_ROUTER.get(url.getHost());
+        if (provider != null && ROUTING_PARSERS[provider].canParse(url)) {
+            return provider;
         }
-        if (ParseUtils.isImageExtension(url) || ParseUtils.isVideoExtension(url)) {
+        MediaKind kind = url.getMediaKind();
+        if (kind == MediaKind.IMAGE || kind == MediaKind.VIDEO) {
             return DIRECT;
         }
 
@@ -164,12 +349,70 @@ public class AlbumParser {
     }
 
     /**
-     * @return The OkHttpClient instance that the library is using for its HTTP calls.
+     * @return The OkHttpClient instance that the library is using for its HTTP calls. Providers
+     * with a {@link ClientProfile} use a client derived from it, see {@link #getClient(String)}
      */
     public OkHttpClient getClient() {
         return mClient;
     }
 
+    /**
+     * @param baseDomain The base domain of the provider, for example: imgur.com, gfycat.com
+     * @return The OkHttpClient instance used for the provider's API calls, {@link #getClient()} if
+     * no provider has the passed-in base domain
+     */
+    public OkHttpClient getClient(String baseDomain) {
+        for (int provider = 0; provider < ROUTING_PARSERS.length; provider++) {
+            AbstractApiParser<?> parser = ROUTING_PARSERS[provider];
+            if (parser != null && parser.getBaseDomain().equals(baseDomain)) {
+                return mClients[provider];
+            }
+        }
+        return mClient;
+    }
+
+    /**
+     * @param baseDomain The base domain of the provider, for example: imgur.com, gfycat.com
+     * @return The circuit breaker for the provider's API calls, null if it has none
+     */
+    public CircuitBreaker getCircuitBreaker(String baseDomain) {
+        for (int provider = 0; provider < mParsers.length; provider++) {
+            AbstractApiParser<?> parser = mParsers[provider];
+            if (parser != null && parser.getBaseDomain().equals(baseDomain)) {
+                return mCircuitBreakers[provider];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The cache of API responses, null if responses aren't being cached
+     */
+    public ResponseCache getResponseCache() {
+        return mResponseCache;
+    }
+
+    /**
+     * @return The cache of failed parses, null if failures aren't being cached
+     */
+    public FailureCache getFailureCache() {
+        return mFailureCache;
+    }
+
+    /**
+     * @return The persistent store of API responses, null if responses aren't being persisted
+     */
+    public ResponseStore getResponseStore() {
+        return mResponseStore;
+    }
+
+    /**
+     * @return The coalescer that makes concurrent lookups of the same media share one API call
+     */
+    public SingleFlight getSingleFlight() {
+        return mSingleFlight;
+    }
+
     /**
      * @return The API key the library is using for its Giphy API calls
      */
@@ -208,11 +451,11 @@ public class AlbumParser {
     public ParserResponse parseUrl(String urlString)
             throws IOException, InvalidApiKeyException, InvalidApiResponseException,
             InvalidMediaUrlException {
-        return parseUrl(ParseUtils.getUrlObject(urlString));
+        return parseUrl(ParsedUrl.of(urlString));
     }
 
     /**
-     * @param mediaUrl The URL to parse and receive data for
+     * @param url The URL to parse and receive data for
      * @return The API response for the passed-in URL.
      * @throws IOException                 When there are any network issues such as a host not
      *                                     being reached.
@@ -223,45 +466,536 @@ public class AlbumParser {
      * @throws InvalidMediaUrlException    When the passed-in URL is not supported by this library
      *                                     and cannot be parsed
      */
-    public ParserResponse<IMedia> parseUrl(URL mediaUrl)
+    public ParserResponse<IMedia> parseUrl(URL url)
+            throws IOException, InvalidApiKeyException, InvalidApiResponseException,
+            InvalidMediaUrlException {
+        return parseUrl(ParsedUrl.of(url));
+    }
+
+    private ParserResponse<IMedia> parseUrl(final ParsedUrl mediaUrl) throws IOException {
+        // Routing, the cache lookups and the parser all share the work done parsing the URL
+        final int provider = getMediaProvider(mediaUrl);
+        ParserResponse<IMedia> cachedResponse = getCachedResponse(mediaUrl, provider);
+        if (cachedResponse != null) return cachedResponse;
+        RuntimeException cachedFailure = getCachedFailure(mediaUrl, provider);
+        if (cachedFailure != null) throw cachedFailure;
+
+        String flightKey = getFlightKey(mediaUrl, provider);
+        if (flightKey == null) return parseAndCache(mediaUrl, provider, null);
+        // Concurrent lookups for the same media wait for a single API call
+        return mSingleFlight.call(flightKey, mediaUrl.getMediaUrl(), new SingleFlight.Parse() {
+            @Override
+            public ParserResponse<IMedia> call() throws IOException {
+                return parseAndCache(mediaUrl, provider, null);
+            }
+        });
+    }
+
+    /**
+     * Parses a URL like {@link #parseUrl(String)}, within a time budget
+     *
+     * @param urlString The URL to parse and receive data for
+     * @param deadline  The time budget for the parse, see {@link #parseUrl(URL, Deadline)}
+     * @return The API response for the passed-in URL.
+     * @throws DeadlineExceededException When the deadline passed before the parse was done
+     */
+    public ParserResponse<IMedia> parseUrl(String urlString, Deadline deadline)
             throws IOException, InvalidApiKeyException, InvalidApiResponseException,
             InvalidMediaUrlException {
+        return parseUrl(ParsedUrl.of(urlString), deadline);
+    }
+
+    /**
+     * Parses a URL like {@link #parseUrl(URL)}, but gives up once the deadline passes. Every API
+     * call the parse makes, such as Imgur's image lookup followed by its album lookup, and every
+     * retry shares the deadline's budget. The call in flight when the deadline passes is aborted.
+     * Canceling the deadline from another thread aborts the parse the same way.
+     * <p>
+     * Parses with a deadline don't share their API calls with concurrent parses of the same media,
+     * so one caller's deadline never fails another caller's parse.
+     *
+     * @param url      The URL to parse and receive data for
+     * @param deadline The time budget for the parse, see {@link Deadline#after(long, TimeUnit)}.
+     *                 Null to parse without a deadline
+     * @return The API response for the passed-in URL.
+     * @throws DeadlineExceededException   When the deadline passed before the parse was done
+     * @throws InterruptedIOException      When the deadline was canceled
+     * @throws IOException                 When there are any network issues such as a host not
+     *                                     being reached.
+     * @throws InvalidApiKeyException      When you attempt to use an API that requires a key
+     *                                     without first setting the key
+     * @throws InvalidApiResponseException When the API returns a null response or a response which
+     *                                     the library could not parse.
+     * @throws InvalidMediaUrlException    When the passed-in URL is not supported by this library
+     *                                     and cannot be parsed
+     */
+    public ParserResponse<IMedia> parseUrl(URL url, Deadline deadline)
+            throws IOException, InvalidApiKeyException, InvalidApiResponseException,
+            InvalidMediaUrlException {
+        return parseUrl(ParsedUrl.of(url), deadline);
+    }
+
+    private ParserResponse<IMedia> parseUrl(ParsedUrl mediaUrl, Deadline deadline)
+            throws IOException {
+        if (deadline == null) return parseUrl(mediaUrl);
         int provider = getMediaProvider(mediaUrl);
+        ParserResponse<IMedia> cachedResponse = getCachedResponse(mediaUrl, provider);
+        if (cachedResponse != null) return cachedResponse;
+        RuntimeException cachedFailure = getCachedFailure(mediaUrl, provider);
+        if (cachedFailure != null) throw cachedFailure;
+        return parseAndCache(mediaUrl, provider, deadline);
+    }
+
+    private ParserResponse<IMedia> parseAndCache(ParsedUrl mediaUrl,
+            int provider,
+            Deadline deadline) throws IOException {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(provider);
+        if (circuitBreaker != null) {
+            try {
+                circuitBreaker.acquire();
+            } catch (CircuitBreakerOpenException e) {
+                return getOfflineResponse(mediaUrl, provider, e);
+            }
+        }
+        ParserResponse<IMedia> response;
+        try {
+            response = parseUrl(mediaUrl, provider, deadline);
+        } catch (InvalidApiResponseException | InvalidMediaUrlException e) {
+            recordResult(circuitBreaker, e);
+            cacheFailure(mediaUrl, provider, e);
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            recordResult(circuitBreaker, e);
+            throw e;
+        }
+        recordResult(circuitBreaker, null);
+        cacheResponse(response);
+        return response;
+    }
 
-        switch (getMediaProvider(mediaUrl)) {
+    @SuppressWarnings("unchecked")
+    private ParserResponse<IMedia> parseUrl(ParsedUrl mediaUrl, int provider, Deadline deadline)
+            throws IOException, InvalidApiKeyException, InvalidApiResponseException,
+            InvalidMediaUrlException {
+        if (deadline != null && provider > DIRECT_GIF) {
+            return (ParserResponse<IMedia>) mParsers[provider].parse(mediaUrl, deadline);
+        }
+        switch (provider) {
             case DEVIANTART:
-                return new DeviantartParser(mClient).parse(mediaUrl);
+                return mDeviantartParser.parse(mediaUrl);
             case GFYCAT:
-                return new GfycatParser(mClient).parse(mediaUrl);
+                return mGfycatParser.parse(mediaUrl);
             case GIPHY:
-                return new GiphyParser(mClient, mGiphyApiKey).parse(mediaUrl);
+                return mGiphyParser.parse(mediaUrl);
             case IMGUR:
-                ImgurParser imgurParser = new ImgurParser(mClient, mImgurClientId);
-                if (mImgurLowQualitySize != null) {
-                    imgurParser.setLowQualitySize(mImgurLowQualitySize);
+                return mImgurParser.parse(mediaUrl);
+            case REDDIT:
+                return mRedditParser.parse(mediaUrl);
+            case STREAMABLE:
+                return mStreamableParser.parse(mediaUrl);
+            case VIDBLE:
+                return mVidbleParser.parse(mediaUrl);
+            case VIDME:
+                return mVidmeParser.parse(mediaUrl);
+            case TUMBLR:
+                return mTumblrParser.parse(mediaUrl);
+            case XKCD:
+                return mXkcdParser.parse(mediaUrl);
+            case DIRECT:
+                return new ParserResponse(new DirectMedia(mediaUrl.getMediaUrl()));
+            case UNKNOWN:
+            default:
+                // Media is not supported or a URL that doesn't point to any media passed in
+                throw new InvalidMediaUrlException(getUrl(mediaUrl));
+        }
+    }
+
+    /**
+     * Parses a URL without blocking the calling thread, see {@link #parseUrlAsync(URL)}
+     *
+     * @param urlString The URL to parse and receive data for
+     * @return A future that completes with the API response for the passed-in URL
+     */
+    public ParserFuture<IMedia> parseUrlAsync(String urlString) {
+        return parseUrlAsync(ParsedUrl.of(urlString));
+    }
+
+    /**
+     * Parses a URL without blocking the calling thread. API calls are queued on the OkHttpClient's
+     * dispatcher, so many lookups can be in flight without holding a thread for each one.
+     *
+     * @param url The URL to parse and receive data for
+     * @return A future that completes with the API response for the passed-in URL, or fails with
+     * the same Exception {@link #parseUrl(URL)} would have thrown
+     */
+    public ParserFuture<IMedia> parseUrlAsync(URL url) {
+        return parseUrlAsync(ParsedUrl.of(url));
+    }
+
+    private ParserFuture<IMedia> parseUrlAsync(ParsedUrl mediaUrl) {
+        int provider = getMediaProvider(mediaUrl);
+        ParserResponse<IMedia> cachedResponse = getCachedResponse(mediaUrl, provider);
+        if (cachedResponse != null) return ParserFuture.completed(cachedResponse);
+        RuntimeException cachedFailure = getCachedFailure(mediaUrl, provider);
+        if (cachedFailure != null) return ParserFuture.failed(cachedFailure);
+        return parseUrlAsync(mediaUrl, provider);
+    }
+
+    /**
+     * Parses a batch of URLs concurrently, such as all the links in a listing. URLs are only
+     * classified once and URLs that point to the same media, meaning they have the same provider
+     * and hash, share a single API call. The number of requests in flight to each provider is
+     * capped, see {@link Builder#maxRequestsPerProvider(int)}, and the remaining requests are
+     * queued until earlier ones finish.
+     * <p>
+     * This method doesn't block, so a whole batch resolves in roughly the time of its slowest
+     * round-trips instead of the sum of all of them.
+     *
+     * @param urlStrings The URLs to parse and receive data for
+     * @return One future per passed-in URL, in the same order. Each completes with the API response
+     * for its URL or fails with the same Exception {@link #parseUrl(URL)} would have thrown.
+     * Duplicate URLs get the same future, so their responses also report the first URL's original
+     * URL.
+     */
+    public List<ParserFuture<IMedia>> parseUrls(Collection<String> urlStrings) {
+        List<ParserFuture<IMedia>> futures = new ArrayList<>(urlStrings.size());
+        Map<String, ParserFuture<IMedia>> started = new HashMap<>();
+        for (String urlString : urlStrings) {
+            final ParsedUrl mediaUrl = ParsedUrl.of(urlString);
+            final int provider = getMediaProvider(mediaUrl);
+            String key = getBatchKey(mediaUrl, provider, urlString);
+            ParserFuture<IMedia> future = started.get(key);
+            if (future == null) {
+                ParserResponse<IMedia> cachedResponse = getCachedResponse(mediaUrl, provider);
+                RuntimeException cachedFailure =
+                        cachedResponse == null ? getCachedFailure(mediaUrl, provider) : null;
+                ConcurrencyLimiter limiter = provider >= 0 ? mLimiters[provider] : null;
+                if (cachedResponse != null) {
+                    // Cached outcomes don't need to wait for a free slot
+                    future = ParserFuture.completed(cachedResponse);
+                } else if (cachedFailure != null) {
+                    future = ParserFuture.failed(cachedFailure);
+                } else if (limiter == null) {
+                    // Direct links and unsupported URLs don't make any requests
+                    future = parseUrlAsync(mediaUrl, provider);
+                } else {
+                    future = limiter.submit(new ConcurrencyLimiter.Task<IMedia>() {
+                        @Override
+                        public ParserFuture<IMedia> start() {
+                            return parseUrlAsync(mediaUrl, provider);
+                        }
+                    });
                 }
-                if (mImgurPreviewSize != null) {
-                    imgurParser.setPreviewSize(mImgurPreviewSize);
+                started.put(key, future);
+            }
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    /**
+     * @param urlString The URL to parse and receive the media for
+     * @return The media of the passed-in URL, see {@link #parseUrlStream(URL)}
+     * @throws IOException When there are any network issues such as a host not being reached
+     */
+    public MediaStream<IMedia> parseUrlStream(String urlString)
+            throws IOException, InvalidApiKeyException, InvalidApiResponseException,
+            InvalidMediaUrlException {
+        return parseUrlStream(ParsedUrl.of(urlString));
+    }
+
+    /**
+     * Parses a URL and returns its media one at a time. Imgur and Vidble albums are decoded while
+     * the API response is being read, so memory use doesn't grow with the size of the album and
+     * the first media can be shown before the last one has arrived. Other URLs are parsed with
+     * {@link #parseUrl(URL)}.
+     * <p>
+     * Streamed albums are never cached, but a response that is already cached is streamed from the
+     * cache.
+     *
+     * @param url The URL to parse and receive the media for
+     * @return The media of the passed-in URL, the stream must be read to the end or closed
+     * @throws IOException                 When there are any network issues such as a host not
+     *                                     being reached.
+     * @throws InvalidApiKeyException      When you attempt to use an API that requires a key
+     *                                     without first setting the key
+     * @throws InvalidApiResponseException When the API returns a null response or a response which
+     *                                     the library could not parse.
+     * @throws InvalidMediaUrlException    When the passed-in URL is not supported by this library
+     *                                     and cannot be parsed
+     */
+    public MediaStream<IMedia> parseUrlStream(URL url)
+            throws IOException, InvalidApiKeyException, InvalidApiResponseException,
+            InvalidMediaUrlException {
+        return parseUrlStream(ParsedUrl.of(url));
+    }
+
+    private MediaStream<IMedia> parseUrlStream(ParsedUrl mediaUrl) throws IOException {
+        int provider = getMediaProvider(mediaUrl);
+        AbstractApiParser<IMedia> parser = getStreamingParser(provider);
+        if (parser == null) return MediaStream.of(parseUrl(mediaUrl));
+
+        ParserResponse<IMedia> cachedResponse = getCachedResponse(mediaUrl, provider);
+        if (cachedResponse != null) return MediaStream.of(cachedResponse);
+        RuntimeException cachedFailure = getCachedFailure(mediaUrl, provider);
+        if (cachedFailure != null) throw cachedFailure;
+
+        CircuitBreaker circuitBreaker = getCircuitBreaker(provider);
+        if (circuitBreaker == null) return parser.parseStream(mediaUrl);
+        try {
+            circuitBreaker.acquire();
+        } catch (CircuitBreakerOpenException e) {
+            return MediaStream.of(getOfflineResponse(mediaUrl, provider, e));
+        }
+        MediaStream<IMedia> stream;
+        try {
+            stream = parser.parseStream(mediaUrl);
+        } catch (IOException | RuntimeException e) {
+            circuitBreaker.onResult(e);
+            throw e;
+        }
+        // The provider answered, errors while reading the rest of the album aren't counted
+        circuitBreaker.onResult(null);
+        return stream;
+    }
+
+    /**
+     * Parses a URL without blocking the calling thread and passes its media to the callback as
+     * soon as each one has been decoded, see {@link #parseUrlStream(URL)}
+     *
+     * @param url      The URL to parse and receive the media for
+     * @param callback Receives the media, then either onComplete() or onFailure()
+     */
+    public void parseUrlStreamAsync(URL url, final MediaStream.Callback<IMedia> callback) {
+        ParsedUrl mediaUrl = ParsedUrl.of(url);
+        int provider = getMediaProvider(mediaUrl);
+        AbstractApiParser<IMedia> parser = getStreamingParser(provider);
+        ParserFuture<IMedia> future;
+        if (parser == null) {
+            future = parseUrlAsync(mediaUrl);
+        } else {
+            ParserResponse<IMedia> cachedResponse = getCachedResponse(mediaUrl, provider);
+            if (cachedResponse == null) {
+                RuntimeException cachedFailure = getCachedFailure(mediaUrl, provider);
+                if (cachedFailure != null) {
+                    callback.onFailure(cachedFailure);
+                } else {
+                    parseStreamAsync(parser, mediaUrl, provider, callback);
+                }
+                return;
+            }
+            future = ParserFuture.completed(cachedResponse);
+        }
+
+        future.addCallback(new ParserCallback<IMedia>() {
+            @Override
+            public void onSuccess(ParserResponse<IMedia> response) {
+                MediaStream.of(response).readAll(callback);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                callback.onFailure(throwable);
+            }
+        });
+    }
+
+    private void cacheFailure(ParsedUrl mediaUrl, int provider, Throwable throwable) {
+        if (mFailureCache == null || provider <= DIRECT_GIF) return;
+        mFailureCache.put(ROUTING_PARSERS[provider].getBaseDomain(),
+                getHash(mediaUrl, provider),
+                mediaUrl.getMediaUrl(),
+                throwable);
+    }
+
+    private RuntimeException getCachedFailure(ParsedUrl mediaUrl, int provider) {
+        if (mFailureCache == null || provider <= DIRECT_GIF) return null;
+        return mFailureCache.get(ROUTING_PARSERS[provider].getBaseDomain(),
+                getHash(mediaUrl, provider),
+                mediaUrl.getMediaUrl());
+    }
+
+    private void cacheResponse(ParserResponse<IMedia> response) {
+        if (mResponseCache != null) mResponseCache.put(response);
+        if (mResponseStore != null) {
+            try {
+                mResponseStore.put(response);
+            } catch (IOException ignored) {
+                // The response was still parsed, it just won't be available after a restart
+            }
+        }
+    }
+
+    private ParserResponse<IMedia> getCachedResponse(ParsedUrl parsedUrl, int provider) {
+        if (mResponseCache == null && mResponseStore == null) return null;
+        if (provider <= DIRECT_GIF) return null;
+        String providerName = ROUTING_PARSERS[provider].getBaseDomain();
+        String hash = getHash(parsedUrl, provider);
+        MediaUrl mediaUrl = parsedUrl.getMediaUrl();
+        ParserResponse<IMedia> response =
+                mResponseCache != null ? mResponseCache.get(providerName, hash, mediaUrl) : null;
+        if (response == null && mResponseStore != null) {
+            response = mResponseStore.get(providerName, hash, mediaUrl);
+            // Keep the response in memory so later lookups don't have to decode it again
+            if (response != null && mResponseCache != null) mResponseCache.put(response);
+        }
+        return response;
+    }
+
+    private CircuitBreaker getCircuitBreaker(int provider) {
+        return provider > DIRECT_GIF ? mCircuitBreakers[provider] : null;
+    }
+
+    /**
+     * Builds a response without calling the API of a provider whose circuit breaker is open
+     *
+     * @throws CircuitBreakerOpenException The passed-in exception when the provider's parser
+     *                                     can't build a response without its API
+     */
+    @SuppressWarnings("unchecked")
+    private ParserResponse<IMedia> getOfflineResponse(ParsedUrl mediaUrl,
+            int provider,
+            CircuitBreakerOpenException circuitBreakerOpen) throws CircuitBreakerOpenException {
+        ParserResponse<IMedia> response =
+                (ParserResponse<IMedia>) mParsers[provider].getOfflineResponse(mediaUrl);
+        if (response == null) throw circuitBreakerOpen;
+        return response;
+    }
+
+    private static void recordResult(CircuitBreaker circuitBreaker, Throwable throwable) {
+        if (circuitBreaker != null) circuitBreaker.onResult(throwable);
+    }
+
+    /**
+     * @return The parser for the provider if it can stream albums, null otherwise
+     */
+    @SuppressWarnings("unchecked")
+    private AbstractApiParser<IMedia> getStreamingParser(int provider) {
+        switch (provider) {
+            case IMGUR:
+                return mImgurParser;
+            case VIDBLE:
+                return mVidbleParser;
+            default:
+                return null;
+        }
+    }
+
+    private ParserFuture<IMedia> parseUrlAsync(final ParsedUrl mediaUrl, final int provider) {
+        String flightKey = getFlightKey(mediaUrl, provider);
+        if (flightKey == null) return parseAndCacheAsync(mediaUrl, provider);
+        ConcurrencyLimiter.Task<IMedia> task = new ConcurrencyLimiter.Task<IMedia>() {
+            @Override
+            public ParserFuture<IMedia> start() {
+                return parseAndCacheAsync(mediaUrl, provider);
+            }
+        };
+        return mSingleFlight.join(flightKey, mediaUrl.getMediaUrl(), task);
+    }
+
+    private ParserFuture<IMedia> parseAndCacheAsync(final ParsedUrl mediaUrl,
+            final int provider) {
+        final CircuitBreaker circuitBreaker = getCircuitBreaker(provider);
+        if (circuitBreaker != null) {
+            try {
+                circuitBreaker.acquire();
+            } catch (CircuitBreakerOpenException e) {
+                try {
+                    return ParserFuture.completed(getOfflineResponse(mediaUrl, provider, e));
+                } catch (IOException | RuntimeException failure) {
+                    return ParserFuture.failed(failure);
                 }
-                return imgurParser.parse(mediaUrl);
+            }
+        }
+        ParserFuture<IMedia> future = startParse(mediaUrl, provider);
+        if (circuitBreaker != null
+                || mResponseCache != null
+                || mResponseStore != null
+                || mFailureCache != null) {
+            future.addCallback(new ParserCallback<IMedia>() {
+                @Override
+                public void onSuccess(ParserResponse<IMedia> response) {
+                    recordResult(circuitBreaker, null);
+                    cacheResponse(response);
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    recordResult(circuitBreaker, throwable);
+                    cacheFailure(mediaUrl, provider, throwable);
+                }
+            });
+        }
+        return future;
+    }
+
+    private void parseStreamAsync(AbstractApiParser<IMedia> parser,
+            ParsedUrl mediaUrl,
+            int provider,
+            final MediaStream.Callback<IMedia> callback) {
+        final CircuitBreaker circuitBreaker = getCircuitBreaker(provider);
+        if (circuitBreaker == null) {
+            parser.parseStreamAsync(mediaUrl, callback);
+            return;
+        }
+        try {
+            circuitBreaker.acquire();
+        } catch (CircuitBreakerOpenException e) {
+            ParserResponse<IMedia> offlineResponse;
+            try {
+                offlineResponse = getOfflineResponse(mediaUrl, provider, e);
+            } catch (IOException | RuntimeException failure) {
+                callback.onFailure(failure);
+                return;
+            }
+            MediaStream.of(offlineResponse).readAll(callback);
+            return;
+        }
+        parser.openStreamAsync(mediaUrl, new MediaStream.OpenCallback<IMedia>() {
+            @Override
+            public void onOpen(MediaStream<IMedia> stream) {
+                // The provider answered, errors while reading the rest of the album aren't counted
+                circuitBreaker.onResult(null);
+                stream.readAll(callback);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                circuitBreaker.onResult(throwable);
+                callback.onFailure(throwable);
+            }
+        });
+    }
+
+    private ParserFuture<IMedia> startParse(ParsedUrl mediaUrl, int provider) {
+        switch (provider) {
+            case DEVIANTART:
+                return mDeviantartParser.parseAsync(mediaUrl);
+            case GFYCAT:
+                return mGfycatParser.parseAsync(mediaUrl);
+            case GIPHY:
+                return mGiphyParser.parseAsync(mediaUrl);
+            case IMGUR:
+                return mImgurParser.parseAsync(mediaUrl);
             case REDDIT:
-                return new RedditParser().parse(mediaUrl);
+                return mRedditParser.parseAsync(mediaUrl);
             case STREAMABLE:
-                return new StreamableParser(mClient).parse(mediaUrl);
+                return mStreamableParser.parseAsync(mediaUrl);
             case VIDBLE:
-                return new VidbleParser(mClient).parse(mediaUrl);
+                return mVidbleParser.parseAsync(mediaUrl);
             case VIDME:
-                return new VidmeParser(mClient).parse(mediaUrl);
+                return mVidmeParser.parseAsync(mediaUrl);
             case TUMBLR:
-                return new TumblrParser(mClient, mTumblrApiKey).parse(mediaUrl);
+                return mTumblrParser.parseAsync(mediaUrl);
             case XKCD:
-                return new XkcdParser(mClient).parse(mediaUrl);
+                return mXkcdParser.parseAsync(mediaUrl);
             case DIRECT:
-                return new ParserResponse(new DirectMedia(mediaUrl));
+                return ParserFuture.completed(
+                        new ParserResponse<IMedia>(new DirectMedia(mediaUrl.getMediaUrl())));
             case UNKNOWN:
             default:
                 // Media is not supported or a URL that doesn't point to any media passed in
-                throw new InvalidMediaUrlException(mediaUrl);
+                return ParserFuture.failed(new InvalidMediaUrlException(getUrl(mediaUrl)));
         }
     }
 
@@ -269,6 +1003,27 @@ public class AlbumParser {
 
         private OkHttpClient newOkHttpClient;
 
+        // Connection settings derived from the OkHttpClient
+        private ClientProfile              newClientProfile;
+        private Map<String, ClientProfile> newProviderClientProfiles = new HashMap<>();
+
+        // Servers to send API calls to instead of the providers' own
+        private Map<String, String> newProviderApiUrls = new HashMap<>();
+
+        // Limits on how fast API calls are made to each provider
+        private Map<String, RateLimiter> newProviderRateLimiters = new HashMap<>();
+
+        // Retries of API calls that failed with a transient error
+        private RetryPolicy              newRetryPolicy;
+        private Map<String, RetryPolicy> newProviderRetryPolicies = new HashMap<>();
+
+        // Duplicate requests for slow API calls
+        private Map<String, HedgingPolicy> newProviderHedgingPolicies = new HashMap<>();
+
+        // Circuit breakers for providers that are down
+        private CircuitBreaker.Builder              newCircuitBreaker;
+        private Map<String, CircuitBreaker.Builder> newProviderCircuitBreakers = new HashMap<>();
+
         // API Keys
         private String newGiphyApiKey;
         private String newImgurClientId;
@@ -278,6 +1033,16 @@ public class AlbumParser {
         private String newImgurPreviewSize;
         private String newImgurLowQualitySize;
 
+        // Concurrency limits for parseUrls()
+        private int newMaxRequestsPerProvider = DEFAULT_MAX_REQUESTS_PER_PROVIDER;
+        private Map<String, Integer> newProviderMaxRequests = new HashMap<>();
+
+        private ResponseCache newResponseCache;
+        private ResponseStore newResponseStore;
+        private FailureCache  newFailureCache;
+
+        private boolean newMediaFieldsOnly;
+
         public Builder() {
         }
 
@@ -290,7 +1055,111 @@ public class AlbumParser {
                     newImgurClientId,
                     newTumblrApiKey,
                     newImgurPreviewSize,
-                    newImgurLowQualitySize);
+                    newImgurLowQualitySize,
+                    newMaxRequestsPerProvider,
+                    new HashMap<>(newProviderMaxRequests),
+                    newClientProfile,
+                    new HashMap<>(newProviderClientProfiles),
+                    new HashMap<>(newProviderApiUrls),
+                    new HashMap<>(newProviderRateLimiters),
+                    newRetryPolicy,
+                    new HashMap<>(newProviderRetryPolicies),
+                    new HashMap<>(newProviderHedgingPolicies),
+                    newCircuitBreaker,
+                    new HashMap<>(newProviderCircuitBreakers),
+                    newResponseCache,
+                    newResponseStore,
+                    newFailureCache,
+                    newMediaFieldsOnly);
+        }
+
+        /**
+         * Sends a provider's API calls to a different server, for example a local server that
+         * replays recorded API responses for load testing. Calls to every host of the provider
+         * are sent there, see {@link ApiUrlInterceptor} for how URLs are rewritten.
+         *
+         * @param baseDomain The base domain of the provider, for example: imgur.com, gfycat.com
+         * @param apiUrl     The http or https URL of the server, null to use the provider's API
+         * @return The Builder instance with the new API URL set.
+         * @throws IllegalArgumentException When the API URL isn't a valid http or https URL
+         */
+        public Builder apiUrl(String baseDomain, String apiUrl) {
+            if (apiUrl == null) {
+                newProviderApiUrls.remove(baseDomain);
+                return this;
+            }
+            if (HttpUrl.parse(apiUrl) == null) {
+                throw new IllegalArgumentException("Invalid API URL: " + apiUrl);
+            }
+            newProviderApiUrls.put(baseDomain, apiUrl);
+            return this;
+        }
+
+        /**
+         * Gives every provider a circuit breaker, so a provider that is down fails right away
+         * instead of every call waiting for a timeout. Each provider gets its own breaker built
+         * with the passed-in settings. While a breaker is open, Giphy URLs and single Imgur
+         * images still get a response guessed from the URL, other URLs fail with a {@link
+         * CircuitBreakerOpenException}.
+         *
+         * @param circuitBreaker The breaker settings, null to never reject calls
+         * @return The Builder instance with the new circuit breaker settings set.
+         */
+        public Builder circuitBreaker(CircuitBreaker.Builder circuitBreaker) {
+            newCircuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * Gives a single provider a circuit breaker with the passed-in settings, overriding {@link
+         * #circuitBreaker(CircuitBreaker.Builder)} for it
+         *
+         * @param baseDomain     The base domain of the provider, for example: imgur.com, gfycat.com
+         * @param circuitBreaker The breaker settings to use for the provider
+         * @return The Builder instance with the new circuit breaker settings set.
+         */
+        public Builder circuitBreaker(String baseDomain, CircuitBreaker.Builder circuitBreaker) {
+            newProviderCircuitBreakers.put(baseDomain, circuitBreaker);
+            return this;
+        }
+
+        /**
+         * Gives every provider its own client with the passed-in profile's settings, derived from
+         * the {@link #okHttpClient(OkHttpClient)}. By default all providers share that client.
+         *
+         * @param clientProfile The connection settings to use, null to share the OkHttpClient
+         * @return The Builder instance with the new client profile set.
+         */
+        public Builder clientProfile(ClientProfile clientProfile) {
+            newClientProfile = clientProfile;
+            return this;
+        }
+
+        /**
+         * Gives a single provider its own client with the passed-in profile's settings, overriding
+         * {@link #clientProfile(ClientProfile)} for it. This keeps a slow provider from using up
+         * the connections and request slots of the others.
+         *
+         * @param baseDomain    The base domain of the provider, for example: imgur.com, gfycat.com
+         * @param clientProfile The connection settings to use for the provider
+         * @return The Builder instance with the new client profile set.
+         */
+        public Builder clientProfile(String baseDomain, ClientProfile clientProfile) {
+            newProviderClientProfiles.put(baseDomain, clientProfile);
+            return this;
+        }
+
+        /**
+         * Sets the cache to store failed parses in, so URLs that recently failed with an {@link
+         * InvalidApiResponseException} or {@link InvalidMediaUrlException} fail right away
+         * without any requests being made. Failures aren't cached unless a cache is set.
+         *
+         * @param failureCache The cache to use, see {@link FailureCache.Builder}
+         * @return The Builder instance with the new failure cache set.
+         */
+        public Builder failureCache(FailureCache failureCache) {
+            newFailureCache = failureCache;
+            return this;
         }
 
         /**
@@ -304,6 +1173,26 @@ public class AlbumParser {
             return this;
         }
 
+        /**
+         * Hedges a provider's slow API calls: a call that takes longer than the policy's percentile
+         * of recent response times is made a second time and the first successful response is
+         * used. Only lookups that are safe to make twice are hedged. Calls aren't hedged unless a
+         * policy is set for their provider.
+         *
+         * @param baseDomain    The base domain of the provider, for example: imgur.com, gfycat.com
+         * @param hedgingPolicy The policy to use for the provider, see {@link
+         *                      HedgingPolicy.Builder}. Null to stop hedging its calls
+         * @return The Builder instance with the new hedging policy set.
+         */
+        public Builder hedgingPolicy(String baseDomain, HedgingPolicy hedgingPolicy) {
+            if (hedgingPolicy == null) {
+                newProviderHedgingPolicies.remove(baseDomain);
+            } else {
+                newProviderHedgingPolicies.put(baseDomain, hedgingPolicy);
+            }
+            return this;
+        }
+
         /**
          * Sets the client ID to use when making requests to the Imgur API
          *
@@ -341,9 +1230,57 @@ public class AlbumParser {
             return this;
         }
 
+        /**
+         * Sets how many requests {@link AlbumParser#parseUrls(Collection)} can have in flight to
+         * each provider at once. Defaults to {@link AlbumParser#DEFAULT_MAX_REQUESTS_PER_PROVIDER}.
+         *
+         * @param maxRequests The maximum number of concurrent requests per provider
+         * @return The Builder instance with the new limit set.
+         */
+        public Builder maxRequestsPerProvider(int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException(
+                        "maxRequests must be at least 1: " + maxRequests);
+            }
+            newMaxRequestsPerProvider = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets how many requests {@link AlbumParser#parseUrls(Collection)} can have in flight to a
+         * single provider at once, overriding {@link #maxRequestsPerProvider(int)} for it
+         *
+         * @param baseDomain  The base domain of the provider, for example: imgur.com, gfycat.com
+         * @param maxRequests The maximum number of concurrent requests to the provider
+         * @return The Builder instance with the new limit set.
+         */
+        public Builder maxRequestsPerProvider(String baseDomain, int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException(
+                        "maxRequests must be at least 1: " + maxRequests);
+            }
+            newProviderMaxRequests.put(baseDomain, maxRequests);
+            return this;
+        }
+
+        /**
+         * Sets whether API responses are decoded with adapters that only read the fields backing
+         * the returned IMedia and IMediaAlbum instances and skip everything else, which is faster
+         * and allocates less for providers with large responses. Model fields that the media
+         * doesn't use are left null. Defaults to false.
+         *
+         * @param mediaFieldsOnly True to skip unused fields when decoding API responses
+         * @return The Builder instance with the new decoding mode set.
+         */
+        public Builder mediaFieldsOnly(boolean mediaFieldsOnly) {
+            newMediaFieldsOnly = mediaFieldsOnly;
+            return this;
+        }
+
         /**
          * @param okHttpClient The OkHttpClient instance to use with all the HTTP calls this library
-         *                     makes
+         *                     makes. Providers with a {@link ClientProfile} use a client derived
+         *                     from this one
          * @return The Builder instance with the new OkHttpClient set.
          */
         public Builder okHttpClient(OkHttpClient okHttpClient) {
@@ -351,6 +1288,76 @@ public class AlbumParser {
             return this;
         }
 
+        /**
+         * Limits how fast a provider's API calls are made. Calls that would have to wait longer
+         * than the limiter allows fail with a {@link RateLimitExceededException} instead of being
+         * sent. Imgur's limiter also tracks the credits Imgur reports with each response, see
+         * {@link RateLimiter#getRemainingCredits()}.
+         *
+         * @param baseDomain  The base domain of the provider, for example: imgur.com, gfycat.com
+         * @param rateLimiter The limiter to use for the provider, null to stop limiting its calls
+         * @return The Builder instance with the new rate limiter set.
+         */
+        public Builder rateLimiter(String baseDomain, RateLimiter rateLimiter) {
+            if (rateLimiter == null) {
+                newProviderRateLimiters.remove(baseDomain);
+            } else {
+                newProviderRateLimiters.put(baseDomain, rateLimiter);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the cache to store successful API responses in. Responses aren't cached unless a
+         * cache is set. The same cache can be shared by several AlbumParser instances.
+         *
+         * @param responseCache The cache to use, see {@link ResponseCache.Builder}
+         * @return The Builder instance with the new response cache set.
+         */
+        public Builder responseCache(ResponseCache responseCache) {
+            newResponseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * Sets the store to persist successful API responses in, so they can be served from disk
+         * after a restart. It's checked after the {@link #responseCache(ResponseCache)}, if one is
+         * set. The AlbumParser doesn't close the store.
+         *
+         * @param responseStore The store to use, see {@link ResponseStore.Builder}
+         * @return The Builder instance with the new response store set.
+         */
+        public Builder responseStore(ResponseStore responseStore) {
+            newResponseStore = responseStore;
+            return this;
+        }
+
+        /**
+         * Retries every provider's API calls that fail with a transient error, such as a 503
+         * response or a connection failure. Calls aren't retried unless a policy is set.
+         *
+         * @param retryPolicy The policy to use, see {@link RetryPolicy.Builder}
+         * @return The Builder instance with the new retry policy set.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            newRetryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Retries a single provider's API calls with the passed-in policy, overriding {@link
+         * #retryPolicy(RetryPolicy)} for it. Giving each provider its own policy keeps their retry
+         * counters apart.
+         *
+         * @param baseDomain  The base domain of the provider, for example: imgur.com, gfycat.com
+         * @param retryPolicy The policy to use for the provider
+         * @return The Builder instance with the new retry policy set.
+         */
+        public Builder retryPolicy(String baseDomain, RetryPolicy retryPolicy) {
+            newProviderRetryPolicies.put(baseDomain, retryPolicy);
+            return this;
+        }
+
         /**
          * Sets the API key used to make calls to the Tumblr API. Notice, the Tumblr API will not
          * send a response unless you have first set the key using this method. If you attempt to
@@ -24,6 +24,8 @@ import com.fernandobarillas.albumparser.deviantart.api.DeviantartApi;
 import com.fernandobarillas.albumparser.deviantart.model.DeviantartResponse;
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
 
 import java.io.IOException;
@@ -33,8 +35,6 @@ import java.util.Set;
 import okhttp3.OkHttpClient;
 import retrofit2.Response;
 
-import static com.fernandobarillas.albumparser.util.ParseUtils.isDirectUrl;
-
 /**
  * Parser for the DeviantArt API
  */
@@ -63,8 +63,7 @@ public class DeviantartParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) throws InvalidMediaUrlException {
-        if (mediaUrl == null) throw new InvalidMediaUrlException(mediaUrl);
-        return mediaUrl.toString();
+        return getHash(ParsedUrl.of(mediaUrl));
     }
 
     @Override
@@ -73,19 +72,43 @@ public class DeviantartParser extends AbstractApiParser {
     }
 
     @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
         String hash = getHash(mediaUrl);
 
-        if (isDirectUrl(mediaUrl)) {
+        if (mediaUrl.getMediaKind().isDirect()) {
             DeviantartResponse response = new DeviantartResponse();
             // DeviantArt won't return OEmbed data for direct URLs
             response.url = mediaUrl.toString();
             return new ParserResponse(response);
         }
 
-        DeviantartApi service = getRetrofit().create(DeviantartApi.class);
-        Response<DeviantartResponse> response = service.getOembed(hash).execute();
+        DeviantartApi service = getServices().get(DeviantartApi.class);
+        Response<DeviantartResponse> response = execute(service.getOembed(hash));
         DeviantartResponse deviantartResponse = response.body();
         return new ParserResponse(deviantartResponse);
     }
+
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
+        return mediaUrl.toString();
+    }
+
+    @Override
+    protected void parseAsync(ParsedUrl mediaUrl, final ParserFuture future)
+            throws IOException, RuntimeException {
+        String hash = getHash(mediaUrl);
+
+        if (mediaUrl.getMediaKind().isDirect()) {
+            future.set(parse(mediaUrl));
+            return;
+        }
+
+        DeviantartApi service = getServices().get(DeviantartApi.class);
+        enqueue(service.getOembed(hash), future, new ResponseHandler<DeviantartResponse>() {
+            @Override
+            public void onResponse(Response<DeviantartResponse> response) {
+                future.set(new ParserResponse(response.body()));
+            }
+        });
+    }
 }
@@ -25,10 +25,10 @@ package com.fernandobarillas.albumparser.deviantart.model;
  */
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
 
 public class DeviantartResponse extends BaseMedia {
 
@@ -83,8 +83,8 @@ public class DeviantartResponse extends BaseMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        return ParseUtils.getUrlObject(thumbnailUrl);
+    protected MediaUrl createPreviewMediaUrl() {
+        return MediaUrl.parse(thumbnailUrl);
     }
 
     @Override
@@ -93,11 +93,11 @@ public class DeviantartResponse extends BaseMedia {
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
-        if (!highQuality && getPreviewUrl() != null) {
-            return getPreviewUrl();
+    protected MediaUrl createMediaUrl(boolean highQuality) {
+        if (!highQuality && getPreviewMediaUrl() != null) {
+            return getPreviewMediaUrl();
         }
-        return ParseUtils.getUrlObject(url);
+        return MediaUrl.parse(url);
     }
 
     @Override
@@ -107,11 +107,11 @@ public class DeviantartResponse extends BaseMedia {
 
     @Override
     public boolean isGif() {
-        return ParseUtils.isGifExtension(getUrl(true));
+        return ParseUtils.isGifExtension(getMediaUrl(true));
     }
 
     @Override
     public boolean isVideo() {
-        return ParseUtils.isVideoExtension(getUrl(true));
+        return ParseUtils.isVideoExtension(getMediaUrl(true));
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.exception;
+
+import java.io.IOException;
+
+/**
+ * This Exception is thrown when a request is not sent because the provider's circuit breaker is
+ * open after too many of its recent requests failed. Requests are let through again once the
+ * breaker has been open for a while, so trying again later may succeed.
+ */
+public class CircuitBreakerOpenException extends IOException {
+    private static final String message = "Circuit breaker open";
+
+    private final String mProviderName;
+    private final long   mRetryAfterMillis;
+
+    public CircuitBreakerOpenException(String providerName, long retryAfterMillis) {
+        super(message
+                + ": providerName = ["
+                + providerName
+                + "], retryAfterMillis = ["
+                + retryAfterMillis
+                + "]");
+        mProviderName = providerName;
+        mRetryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return The base domain of the provider whose breaker is open, for example: gfycat.com
+     */
+    public String getProviderName() {
+        return mProviderName;
+    }
+
+    /**
+     * @return How long in milliseconds until the breaker lets probe requests through, 0 if it's
+     * already letting the maximum number of probes through
+     */
+    public long getRetryAfterMillis() {
+        return mRetryAfterMillis;
+    }
+}
@@ -8,11 +8,40 @@ import java.net.URL;
 public class InvalidApiResponseException extends IllegalStateException {
     private static final String message = "The API did not return a valid response";
 
+    /** The status code used when the API response was not an HTTP error */
+    public static final int NO_STATUS_CODE = -1;
+
+    private final String mErrorMessage;
+    private final int    mStatusCode;
+
     public InvalidApiResponseException(URL url) {
         super(message + ": url = [" + url + "]");
+        mErrorMessage = null;
+        mStatusCode = NO_STATUS_CODE;
     }
 
     public InvalidApiResponseException(URL url, String errorMessage) {
+        this(url, NO_STATUS_CODE, errorMessage);
+    }
+
+    public InvalidApiResponseException(URL url, int statusCode, String errorMessage) {
         super(message + ": url = [" + url + "], errorMessage = [" + errorMessage + "]");
+        mErrorMessage = errorMessage;
+        mStatusCode = statusCode;
+    }
+
+    /**
+     * @return The error message the API returned, null if there was none
+     */
+    public String getErrorMessage() {
+        return mErrorMessage;
+    }
+
+    /**
+     * @return The HTTP status code of the failed API response, {@link #NO_STATUS_CODE} if the HTTP
+     * call succeeded but its body was not a valid response
+     */
+    public int getStatusCode() {
+        return mStatusCode;
     }
 }
@@ -29,11 +29,22 @@ import java.net.URL;
 public class InvalidMediaUrlException extends IllegalArgumentException {
     private static final String message = "URL not a media URL or not supported by library";
 
+    private final String mErrorMessage;
+
     public InvalidMediaUrlException(URL url, String errorMessage) {
         super(message + ": url = [" + url + "], errorMessage = [" + errorMessage + "]");
+        mErrorMessage = errorMessage;
     }
 
     public InvalidMediaUrlException(URL url) {
         super(message + ": url = [" + url + "]");
+        mErrorMessage = null;
+    }
+
+    /**
+     * @return The reason the URL could not be parsed, null if no reason was given
+     */
+    public String getErrorMessage() {
+        return mErrorMessage;
     }
 }
@@ -0,0 +1,47 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.exception;
+
+import java.io.IOException;
+
+/**
+ * This Exception is thrown when a request is dropped before being sent because the provider's
+ * rate limit would have been exceeded. It's an IOException since, like a network error, trying
+ * again later may succeed.
+ */
+public class RateLimitExceededException extends IOException {
+    private static final String message = "Rate limit exceeded";
+
+    private final long mRetryAfterMillis;
+
+    public RateLimitExceededException(long retryAfterMillis) {
+        super(message + ": retryAfterMillis = [" + retryAfterMillis + "]");
+        mRetryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return How long in milliseconds until the rate limit would have allowed the request
+     */
+    public long getRetryAfterMillis() {
+        return mRetryAfterMillis;
+    }
+}
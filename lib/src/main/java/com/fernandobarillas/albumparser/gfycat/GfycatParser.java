@@ -23,16 +23,22 @@ package com.fernandobarillas.albumparser.gfycat;
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
 import com.fernandobarillas.albumparser.gfycat.api.GfycatApi;
 import com.fernandobarillas.albumparser.gfycat.model.GfycatInfoResponse;
+import com.fernandobarillas.albumparser.gfycat.model.GfycatMediaAdapterFactory;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
 import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.squareup.moshi.JsonAdapter;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.Set;
 import java.util.regex.Pattern;
 
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
+import retrofit2.Call;
 import retrofit2.Response;
 
 /**
@@ -44,6 +50,11 @@ public class GfycatParser extends AbstractApiParser {
     private static final String  DETAIL_PATH  = "detail";
     private static final Pattern HASH_PATTERN = Pattern.compile("(\\w+)");
 
+    private static final JsonAdapter.Factory MEDIA_ADAPTER_FACTORY =
+            new GfycatMediaAdapterFactory();
+
+    private static final String UPLOAD_HOST = HttpUrl.parse(GfycatApi.UPLOAD_URL).host();
+
     public GfycatParser() {
     }
 
@@ -51,6 +62,10 @@ public class GfycatParser extends AbstractApiParser {
         super(client);
     }
 
+    public GfycatParser(OkHttpClient client, boolean mediaFieldsOnly) {
+        super(client, mediaFieldsOnly);
+    }
+
     @Override
     public String getApiUrl() {
         return GfycatApi.API_URL;
@@ -63,43 +78,66 @@ public class GfycatParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) {
+        return getHash(ParsedUrl.of(mediaUrl));
+    }
+
+    @Override
+    public Set<String> getValidDomains() {
+        return GfycatApi.VALID_DOMAINS_SET;
+    }
+
+    @Override
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
+        String hash = getHash(mediaUrl);
+        if (hash == null) {
+            throw new InvalidMediaUrlException(mediaUrl.getUrl());
+        }
+
+        GfycatApi service = getServices().get(GfycatApi.class);
+        Response<GfycatInfoResponse> serviceResponse = execute(service.getGfycatInfo(hash));
+        GfycatInfoResponse apiResponse = serviceResponse.body();
+        return getParserResponse(mediaUrl, apiResponse, serviceResponse);
+    }
+
+    @Override
+    protected void parseAsync(ParsedUrl mediaUrl, ParserFuture future)
+            throws IOException, RuntimeException {
+        String hash = getHash(mediaUrl);
+        GfycatApi service = getServices().get(GfycatApi.class);
+        enqueue(mediaUrl, service.getGfycatInfo(hash), future);
+    }
+
+    @Override
+    protected JsonAdapter.Factory getMediaAdapterFactory() {
+        return MEDIA_ADAPTER_FACTORY;
+    }
+
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) {
         if (!isValidDomain(mediaUrl)) {
-            throw new InvalidMediaUrlException(mediaUrl);
+            throw new InvalidMediaUrlException(mediaUrl.getUrl());
         }
         String hash = null;
-        String[] pathSegments = ParseUtils.getSplitPath(mediaUrl);
-        int segmentCount = pathSegments != null ? pathSegments.length : 0;
+        int segmentCount = mediaUrl.getPathSegmentCount();
 
         if (segmentCount >= 3) {
             // /gifs/details/{hash} URL
-            if (GIFS_PATH.equalsIgnoreCase(pathSegments[0]) && DETAIL_PATH.equalsIgnoreCase(
-                    pathSegments[1])) {
-                hash = ParseUtils.hashRegex(pathSegments[2], HASH_PATTERN);
+            if (mediaUrl.pathSegmentEqualsIgnoreCase(0, GIFS_PATH)
+                    && mediaUrl.pathSegmentEqualsIgnoreCase(1, DETAIL_PATH)) {
+                hash = ParseUtils.hashRegex(mediaUrl.getPathSegment(2), HASH_PATTERN);
             }
         } else if (segmentCount >= 1) {
             // /{hash} URL
-            hash = ParseUtils.hashRegex(pathSegments[0], HASH_PATTERN);
+            hash = ParseUtils.hashRegex(mediaUrl.getPathSegment(0), HASH_PATTERN);
         }
 
-        if (hash == null) throw new InvalidMediaUrlException(mediaUrl);
+        if (hash == null) throw new InvalidMediaUrlException(mediaUrl.getUrl());
         return hash;
     }
 
     @Override
-    public Set<String> getValidDomains() {
-        return GfycatApi.VALID_DOMAINS_SET;
-    }
-
-    @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
-        String hash = getHash(mediaUrl);
-        if (hash == null) {
-            throw new InvalidMediaUrlException(mediaUrl);
-        }
-
-        GfycatApi service = getRetrofit().create(GfycatApi.class);
-        Response<GfycatInfoResponse> serviceResponse = service.getGfycatInfo(hash).execute();
-        GfycatInfoResponse apiResponse = serviceResponse.body();
-        return getParserResponse(mediaUrl, apiResponse, serviceResponse);
+    protected boolean isHedgeable(Call call) {
+        // The upload API's GET requests start a transcode, making one twice makes a duplicate gif
+        return super.isHedgeable(call) && !UPLOAD_HOST.equals(call.request().url().host());
     }
 }
@@ -28,19 +28,19 @@ import com.squareup.moshi.Json;
 public class CheckLinkResponse {
 
     @Json(name = "urlKnown")
-    private Boolean urlKnown;
+    Boolean urlKnown;
     @Json(name = "gfyUrl")
-    private String  gfyUrl;
+    String  gfyUrl;
     @Json(name = "webmUrl")
-    private String  webmUrl;
+    String  webmUrl;
     @Json(name = "mp4Url")
-    private String  mp4Url;
+    String  mp4Url;
     @Json(name = "gifUrl")
-    private String  gifUrl;
+    String  gifUrl;
     @Json(name = "frameRate")
-    private String  frameRate;
+    String  frameRate;
     @Json(name = "gfyName")
-    private String  gfyName;
+    String  gfyName;
 
     @Override
     public String toString() {
@@ -21,10 +21,9 @@
 package com.fernandobarillas.albumparser.gfycat.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
 import java.util.List;
 
 public class GfyItem extends BaseMedia {
@@ -143,9 +142,9 @@ public class GfyItem extends BaseMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        if (mobilePosterUrl != null) return ParseUtils.getUrlObject(mobilePosterUrl);
-        return ParseUtils.getUrlObject(posterUrl);
+    protected MediaUrl createPreviewMediaUrl() {
+        if (mobilePosterUrl != null) return MediaUrl.parse(mobilePosterUrl);
+        return MediaUrl.parse(posterUrl);
     }
 
     @Override
@@ -154,12 +153,12 @@ public class GfyItem extends BaseMedia {
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    protected MediaUrl createMediaUrl(boolean highQuality) {
         String resultUrl = mp4Url;
         if (!highQuality && mobileUrl != null) {
             resultUrl = mobileUrl;
         }
-        return ParseUtils.getUrlObject(resultUrl);
+        return MediaUrl.parse(resultUrl);
     }
 
     @Override
@@ -21,10 +21,9 @@
 package com.fernandobarillas.albumparser.gfycat.model;
 
 import com.fernandobarillas.albumparser.media.BaseApiResponse;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
-
 public class GfycatInfoResponse extends BaseApiResponse<GfyItem> {
 
     @Json(name = "gfyItem")
@@ -43,8 +42,8 @@ public class GfycatInfoResponse extends BaseApiResponse<GfyItem> {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        return (gfyItem != null) ? gfyItem.getPreviewUrl() : null;
+    public MediaUrl getPreviewMediaUrl() {
+        return (gfyItem != null) ? gfyItem.getPreviewMediaUrl() : null;
     }
 
     @Override
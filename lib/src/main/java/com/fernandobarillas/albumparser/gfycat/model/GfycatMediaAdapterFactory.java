@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.gfycat.model;
+
+import com.fernandobarillas.albumparser.util.JsonUtils;
+import com.fernandobarillas.albumparser.util.MediaFieldsAdapter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.Moshi;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Set;
+
+/**
+ * Creates Moshi adapters that only read the {@link GfyItem} fields backing its IMedia methods and
+ * skip the rest of the 40+ fields Gfycat returns, such as the tags and reddit fields
+ */
+public final class GfycatMediaAdapterFactory implements JsonAdapter.Factory {
+    private static final JsonReader.Options GFY_ITEM_NAMES = JsonReader.Options.of(
+            "width", "height", "frameRate", "numFrames", "mp4Url", "mobileUrl", "mobilePosterUrl",
+            "posterUrl", "mp4Size", "title", "description",
+            // Unused, see JsonUtils.skipField()
+            "gfyId", "gfyName", "gfyNumber", "userName", "webmUrl", "webpUrl", "thumb360Url",
+            "thumb360PosterUrl", "thumb100PosterUrl", "max5mbGif", "max2mbGif", "mjpgUrl", "gifUrl",
+            "gifSize", "webmSize", "createDate", "views", "md5", "tags", "nsfw", "sar", "url",
+            "source", "dynamo", "subreddit", "redditId", "redditIdText", "likes", "dislikes",
+            "published", "copyrightClaimaint", "languageText");
+
+    @Override
+    public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+        if (!annotations.isEmpty() || type != GfyItem.class) return null;
+        JsonAdapter<GfyItem> writer = moshi.nextAdapter(this, type, annotations);
+        return new MediaFieldsAdapter<GfyItem>(writer) {
+            @Override
+            public GfyItem fromJson(JsonReader reader) throws IOException {
+                return readGfyItem(reader);
+            }
+        }.nullSafe();
+    }
+
+    private static GfyItem readGfyItem(JsonReader reader) throws IOException {
+        GfyItem item = new GfyItem();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(GFY_ITEM_NAMES);
+            switch (index) {
+                case 0:
+                    item.width = JsonUtils.nextInteger(reader);
+                    break;
+                case 1:
+                    item.height = JsonUtils.nextInteger(reader);
+                    break;
+                case 2:
+                    item.frameRate = JsonUtils.nextDouble(reader);
+                    break;
+                case 3:
+                    item.numFrames = JsonUtils.nextInteger(reader);
+                    break;
+                case 4:
+                    item.mp4Url = JsonUtils.nextString(reader);
+                    break;
+                case 5:
+                    item.mobileUrl = JsonUtils.nextString(reader);
+                    break;
+                case 6:
+                    item.mobilePosterUrl = JsonUtils.nextString(reader);
+                    break;
+                case 7:
+                    item.posterUrl = JsonUtils.nextString(reader);
+                    break;
+                case 8:
+                    item.mp4Size = JsonUtils.nextInteger(reader);
+                    break;
+                case 9:
+                    item.title = JsonUtils.nextString(reader);
+                    break;
+                case 10:
+                    item.description = JsonUtils.nextString(reader);
+                    break;
+                default:
+                    JsonUtils.skipField(reader, index);
+            }
+        }
+        reader.endObject();
+        return item;
+    }
+}
@@ -24,10 +24,13 @@ import com.fernandobarillas.albumparser.exception.InvalidApiKeyException;
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
 import com.fernandobarillas.albumparser.giphy.api.GiphyApi;
 import com.fernandobarillas.albumparser.giphy.model.GiphyMedia;
+import com.fernandobarillas.albumparser.giphy.model.GiphyMediaAdapterFactory;
 import com.fernandobarillas.albumparser.giphy.model.GiphyResponse;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.squareup.moshi.JsonAdapter;
 
 import java.io.IOException;
 import java.net.URL;
@@ -40,17 +43,25 @@ import retrofit2.Response;
  * Parser for the Giphy API
  */
 public class GiphyParser extends AbstractApiParser {
-    private String mGiphyApiKey = null;
+    private static final JsonAdapter.Factory MEDIA_ADAPTER_FACTORY =
+            new GiphyMediaAdapterFactory();
+
+    private final String mGiphyApiKey;
 
     public GiphyParser() {
+        this(null);
     }
 
     public GiphyParser(OkHttpClient client) {
-        super(client);
+        this(client, null);
     }
 
     public GiphyParser(OkHttpClient client, String giphyApiKey) {
-        this(client);
+        this(client, giphyApiKey, false);
+    }
+
+    public GiphyParser(OkHttpClient client, String giphyApiKey, boolean mediaFieldsOnly) {
+        super(client, mediaFieldsOnly);
         mGiphyApiKey = giphyApiKey;
     }
 
@@ -66,22 +77,12 @@ public class GiphyParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) throws InvalidMediaUrlException {
-        if (mediaUrl == null) throw new InvalidMediaUrlException(mediaUrl);
-        String hash;
-        String path = mediaUrl.getPath();
-
-        if (path.startsWith("/gifs/")) {
-            hash = ParseUtils.hashRegex(path, "/gifs/(?:.*-)?(\\w+)\\/?.*$");
-        } else if (path.startsWith("/embed/")) {
-            hash = ParseUtils.hashRegex(path, "/embed/(\\w+)");
-        } else if (path.startsWith("/media/")) {
-            hash = ParseUtils.hashRegex(path, "/media/(\\w+)");
-        } else {
-            hash = ParseUtils.hashRegex(path, "/(\\w+)");
-        }
+        return getHash(ParsedUrl.of(mediaUrl));
+    }
 
-        if (hash == null) throw new InvalidMediaUrlException(mediaUrl);
-        return hash;
+    @Override
+    public ParserResponse getOfflineResponse(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
+        return getOfflineResponse(mediaUrl, getHash(mediaUrl));
     }
 
     @Override
@@ -90,28 +91,61 @@ public class GiphyParser extends AbstractApiParser {
     }
 
     @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
         String hash = getHash(mediaUrl);
-        String apiKey = null;
-        if (mGiphyApiKey != null) {
-            apiKey = mGiphyApiKey.trim();
-            if (apiKey.isEmpty()) {
-                throw new InvalidApiKeyException(mediaUrl,
-                        apiKey,
-                        "Giphy API key cannot be blank. Please set the key to null to use API calls");
-            }
-        }
+        String apiKey = getApiKey(mediaUrl);
         if (apiKey != null) {
-            GiphyApi service = getRetrofit().create(GiphyApi.class);
-            Response<GiphyResponse> serviceResponse = service.getGif(hash, apiKey).execute();
+            GiphyApi service = getServices().get(GiphyApi.class);
+            Response<GiphyResponse> serviceResponse = execute(service.getGif(hash, apiKey));
             GiphyResponse apiResponse = serviceResponse.body();
             return getParserResponse(mediaUrl, apiResponse, serviceResponse);
         }
 
+        return getOfflineResponse(mediaUrl, hash);
+    }
+
+    @Override
+    protected void parseAsync(ParsedUrl mediaUrl, ParserFuture future)
+            throws IOException, RuntimeException {
+        String hash = getHash(mediaUrl);
+        String apiKey = getApiKey(mediaUrl);
+        if (apiKey != null) {
+            GiphyApi service = getServices().get(GiphyApi.class);
+            enqueue(mediaUrl, service.getGif(hash, apiKey), future);
+            return;
+        }
+
+        future.set(getOfflineResponse(mediaUrl, hash));
+    }
+
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
+        String hash = GiphyUtils.getHashFromPath(mediaUrl.getPath());
+        if (hash == null) throw new InvalidMediaUrlException(mediaUrl.getUrl());
+        return hash;
+    }
+
+    @Override
+    protected JsonAdapter.Factory getMediaAdapterFactory() {
+        return MEDIA_ADAPTER_FACTORY;
+    }
+
+    private String getApiKey(ParsedUrl mediaUrl) throws InvalidApiKeyException {
+        if (mGiphyApiKey == null) return null;
+        String apiKey = mGiphyApiKey.trim();
+        if (apiKey.isEmpty()) {
+            throw new InvalidApiKeyException(mediaUrl.getUrl(),
+                    apiKey,
+                    "Giphy API key cannot be blank. Please set the key to null to use API calls");
+        }
+        return apiKey;
+    }
+
+    private ParserResponse getOfflineResponse(ParsedUrl mediaUrl, String hash) {
         // API key was null, try to generate a response anyway. Some of the URLs in the returned
         // media might be invalid since we're guessing
         ParserResponse parserResponse = new ParserResponse(new GiphyMedia(hash));
-        parserResponse.setOriginalUrl(mediaUrl);
+        parserResponse.setOriginalUrl(mediaUrl.getMediaUrl());
         return parserResponse;
     }
 }
@@ -24,11 +24,16 @@ import com.fernandobarillas.albumparser.giphy.api.GiphyApi;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 
 import java.net.URL;
+import java.util.regex.Pattern;
 
 /**
  * Utilities for Giphy URLs
  */
 public class GiphyUtils {
+    private static final Pattern GIFS_PATTERN  = Pattern.compile("/gifs/(?:.*-)?(\\w+)\\/?.*$");
+    private static final Pattern EMBED_PATTERN = Pattern.compile("/embed/(\\w+)");
+    private static final Pattern MEDIA_PATTERN = Pattern.compile("/media/(\\w+)");
+    private static final Pattern HASH_PATTERN  = Pattern.compile("/(\\w+)");
 
     /**
      * @param giphyUrl The Giphy URL to get the hash from
@@ -37,20 +42,17 @@ public class GiphyUtils {
     public static String getHash(String giphyUrl) {
         URL url = ParseUtils.getUrlObject(giphyUrl, GiphyApi.BASE_DOMAIN);
         if (url == null) return null; // Passed in String wasn't a valid URL
-        String path = url.getPath();
-
-        if (path.startsWith("/gifs/")) {
-            return ParseUtils.hashRegex(path, "/gifs/(?:.*-)?(\\w+)\\/?.*$");
-        }
-
-        if (path.startsWith("/embed/")) {
-            return ParseUtils.hashRegex(path, "/embed/(\\w+)");
-        }
-
-        if (path.startsWith("/media/")) {
-            return ParseUtils.hashRegex(path, "/media/(\\w+)");
-        }
+        return getHashFromPath(url.getPath());
+    }
 
-        return ParseUtils.hashRegex(path, "/(\\w+)");
+    /**
+     * @param path The path of a Giphy URL
+     * @return A Giphy hash if the path contained it, null if no hash could be found.
+     */
+    static String getHashFromPath(String path) {
+        if (path.startsWith("/gifs/")) return ParseUtils.hashRegex(path, GIFS_PATTERN);
+        if (path.startsWith("/embed/")) return ParseUtils.hashRegex(path, EMBED_PATTERN);
+        if (path.startsWith("/media/")) return ParseUtils.hashRegex(path, MEDIA_PATTERN);
+        return ParseUtils.hashRegex(path, HASH_PATTERN);
     }
 }
@@ -22,7 +22,7 @@ package com.fernandobarillas.albumparser.giphy.model;
 
 import com.fernandobarillas.albumparser.giphy.api.GiphyApi;
 import com.fernandobarillas.albumparser.media.BaseMedia;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
 import java.net.URL;
 
@@ -30,8 +30,6 @@ import java.net.URL;
  * Model for Giphy media URLs
  */
 public class GiphyMedia extends BaseMedia {
-    private URL    mHighQualityUrl;
-    private URL    mPreviewUrl;
     private String mHash;
 
     public GiphyMedia(String hash) {
@@ -39,18 +37,14 @@ public class GiphyMedia extends BaseMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        if (mPreviewUrl != null) return mPreviewUrl;
-        mPreviewUrl = getMediaUrl(true);
-        return mPreviewUrl;
+    protected MediaUrl createPreviewMediaUrl() {
+        return getGiphyUrl(true);
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    protected MediaUrl createMediaUrl(boolean highQuality) {
         if (mHash == null || !highQuality) return null; // There's no guaranteed URL for low quality
-        if (mHighQualityUrl != null) return mHighQualityUrl;
-        mHighQualityUrl = getMediaUrl(false);
-        return mHighQualityUrl;
+        return getGiphyUrl(false);
     }
 
     @Override
@@ -62,7 +56,7 @@ public class GiphyMedia extends BaseMedia {
      * @param isPreview True to get the preview URL, false to get the MP4 URL
      * @return A URL to a preview or MP4 file
      */
-    private URL getMediaUrl(boolean isPreview) {
+    private MediaUrl getGiphyUrl(boolean isPreview) {
         String filename = "giphy";
         String ext = EXT_MP4;
         if (isPreview) {
@@ -71,8 +65,7 @@ public class GiphyMedia extends BaseMedia {
         }
         // https://media.giphy.com/media/{hash}/giphy_s.gif -- preview
         // https://media.giphy.com/media/{hash}/giphy.mp4   -- mp4
-        String resultUrl =
-                String.format("%s/media/%s/%s.%s", GiphyApi.MEDIA_URL, mHash, filename, ext);
-        return ParseUtils.getUrlObject(resultUrl);
+        String resultUrl = GiphyApi.MEDIA_URL + "/media/" + mHash + "/" + filename + "." + ext;
+        return MediaUrl.parse(resultUrl);
     }
 }
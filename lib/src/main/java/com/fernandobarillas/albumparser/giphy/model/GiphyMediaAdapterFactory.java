@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.giphy.model;
+
+import com.fernandobarillas.albumparser.util.JsonUtils;
+import com.fernandobarillas.albumparser.util.MediaFieldsAdapter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.Moshi;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Set;
+
+/**
+ * Creates Moshi adapters that only read the Giphy fields backing {@link Image}'s IMedia methods.
+ * Only the original, original_still and fixed_height variations out of the 18 Giphy returns are
+ * kept, and every other {@link Data} field is skipped.
+ */
+public final class GiphyMediaAdapterFactory implements JsonAdapter.Factory {
+    private static final JsonReader.Options DATA_NAMES      = JsonReader.Options.of(
+            "images",
+            // Unused, see JsonUtils.skipField()
+            "type", "id", "slug", "url", "bitly_gif_url", "bitly_url", "embed_url", "username",
+            "source", "rating", "content_url", "source_tld", "source_post_url", "is_indexable",
+            "import_datetime", "trending_datetime");
+    private static final JsonReader.Options IMAGE_NAMES     = JsonReader.Options.of(
+            "original", "original_still", "fixed_height",
+            // Unused, see JsonUtils.skipField()
+            "fixed_height_still", "fixed_height_downsampled", "fixed_width", "fixed_width_still",
+            "fixed_width_downsampled", "fixed_height_small", "fixed_height_small_still",
+            "fixed_width_small", "fixed_width_small_still", "downsized", "downsized_still",
+            "downsized_large", "downsized_medium", "looping");
+    private static final JsonReader.Options VARIATION_NAMES = JsonReader.Options.of(
+            "url", "width", "height", "mp4", "mp4_size",
+            // Unused, see JsonUtils.skipField()
+            "size", "frames", "webp", "webp_size");
+
+    @Override
+    public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+        // The images are only ever decoded as part of their Data
+        if (!annotations.isEmpty() || type != Data.class) return null;
+        JsonAdapter<Data> writer = moshi.nextAdapter(this, type, annotations);
+        return new MediaFieldsAdapter<Data>(writer) {
+            @Override
+            public Data fromJson(JsonReader reader) throws IOException {
+                return readData(reader);
+            }
+        }.nullSafe();
+    }
+
+    private static Data readData(JsonReader reader) throws IOException {
+        Data data = new Data();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(DATA_NAMES);
+            if (index == 0) {
+                data.images = readImage(reader);
+            } else {
+                JsonUtils.skipField(reader, index);
+            }
+        }
+        reader.endObject();
+        return data;
+    }
+
+    private static Image readImage(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        Image image = new Image();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(IMAGE_NAMES);
+            switch (index) {
+                case 0:
+                    image.original = readVariation(reader);
+                    break;
+                case 1:
+                    image.originalStill = readVariation(reader);
+                    break;
+                case 2:
+                    image.fixedHeight = readVariation(reader);
+                    break;
+                default:
+                    JsonUtils.skipField(reader, index);
+            }
+        }
+        reader.endObject();
+        return image;
+    }
+
+    private static ImageVariation readVariation(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        ImageVariation variation = new ImageVariation();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(VARIATION_NAMES);
+            switch (index) {
+                case 0:
+                    variation.url = JsonUtils.nextString(reader);
+                    break;
+                case 1:
+                    variation.width = JsonUtils.nextInteger(reader);
+                    break;
+                case 2:
+                    variation.height = JsonUtils.nextInteger(reader);
+                    break;
+                case 3:
+                    variation.mp4 = JsonUtils.nextString(reader);
+                    break;
+                case 4:
+                    variation.mp4Size = JsonUtils.nextInteger(reader);
+                    break;
+                default:
+                    JsonUtils.skipField(reader, index);
+            }
+        }
+        reader.endObject();
+        return variation;
+    }
+}
@@ -1,13 +1,9 @@
 package com.fernandobarillas.albumparser.giphy.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
-
-import static com.fernandobarillas.albumparser.util.ParseUtils.getUrlObject;
-
 public class Image extends BaseMedia {
 
     @Json(name = "fixed_height")
@@ -45,9 +41,6 @@ public class Image extends BaseMedia {
     @Json(name = "looping")
     public ImageVariation looping;
 
-    private URL mp4HighQualityUrl;
-    private URL mp4LowQualityUrl;
-
     @Override
     public int getByteSize(boolean highQuality) {
         ImageVariation variation = highQuality ? original : fixedHeight;
@@ -61,30 +54,28 @@ public class Image extends BaseMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        return originalStill != null ? getUrlObject(originalStill.url) : null;
+    protected MediaUrl createPreviewMediaUrl() {
+        return originalStill != null ? MediaUrl.parse(originalStill.url) : null;
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    protected MediaUrl createMediaUrl(boolean highQuality) {
         if (highQuality) {
-            if (mp4HighQualityUrl != null) return mp4HighQualityUrl;
             if (original != null) {
                 if (original.mp4 != null && !original.mp4.isEmpty()) {
-                    mp4HighQualityUrl = ParseUtils.getUrlObject(original.mp4);
+                    return MediaUrl.parse(original.mp4);
                 } else if (original.url != null && !original.url.isEmpty()) {
                     String newMp4Url = original.url.replace(EXT_GIF, EXT_MP4);
-                    mp4HighQualityUrl = ParseUtils.getUrlObject(newMp4Url);
+                    return MediaUrl.parse(newMp4Url);
                 }
             }
         } else {
-            if (mp4LowQualityUrl != null) return mp4LowQualityUrl;
             if (fixedHeight != null && fixedHeight.mp4 != null && !fixedHeight.mp4.isEmpty()) {
-                mp4LowQualityUrl = ParseUtils.getUrlObject(fixedHeight.mp4);
+                return MediaUrl.parse(fixedHeight.mp4);
             }
         }
 
-        return highQuality ? mp4HighQualityUrl : mp4LowQualityUrl;
+        return null;
     }
 
     @Override
@@ -30,17 +30,28 @@ import com.fernandobarillas.albumparser.imgur.model.Image;
 import com.fernandobarillas.albumparser.imgur.model.ImgurApiError;
 import com.fernandobarillas.albumparser.imgur.model.v3.AlbumResponseV3;
 import com.fernandobarillas.albumparser.imgur.model.v3.GalleryResponseV3;
+import com.fernandobarillas.albumparser.imgur.model.v3.ImageDataV3;
 import com.fernandobarillas.albumparser.imgur.model.v3.ImageResponseV3;
+import com.fernandobarillas.albumparser.imgur.model.v3.ImgurMediaAdapterFactory;
 import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.media.MediaKind;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.MediaStream;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
+import com.fernandobarillas.albumparser.parser.RateLimiter;
 import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.Set;
 import java.util.regex.Pattern;
 
+import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import retrofit2.Response;
 
@@ -68,20 +79,60 @@ public class ImgurParser extends AbstractApiParser {
     private static final Pattern DIRECT_MEDIA_PATTERN =
             Pattern.compile("/" + HASH_PATTERN + "(?:[sbtmlghr]|_d)?\\.[^\\W_]{3,4}/?$");
 
-    private String mImgurClientId = null;
-    private String mPreviewSize;
-    private String mLowQualitySize;
+    private static final JsonAdapter.Factory MEDIA_ADAPTER_FACTORY = new ImgurMediaAdapterFactory();
+
+    private final String mImgurClientId;
+
+    // Volatile since these can still be changed through the setters after the parser is shared
+    private volatile String mPreviewSize;
+    private volatile String mLowQualitySize;
 
     public ImgurParser() {
+        this(null);
     }
 
     public ImgurParser(OkHttpClient client) {
-        super(client);
+        this(client, null);
     }
 
     public ImgurParser(OkHttpClient client, String imgurClientId) {
-        this(client);
+        this(client, imgurClientId, null, null);
+    }
+
+    /**
+     * @param client         The client to use with all the retrofit requests
+     * @param imgurClientId  The client ID to use with the v3 API, null to use the old API
+     * @param previewSize    The default size of the preview URL Imgur returns, see {@link
+     *                       #setPreviewSize(String)}
+     * @param lowQualitySize The default size of the low quality URL Imgur returns, see {@link
+     *                       #setLowQualitySize(String)}
+     */
+    public ImgurParser(OkHttpClient client,
+            String imgurClientId,
+            String previewSize,
+            String lowQualitySize) {
+        this(client, imgurClientId, previewSize, lowQualitySize, false);
+    }
+
+    /**
+     * @param client          The client to use with all the retrofit requests
+     * @param imgurClientId   The client ID to use with the v3 API, null to use the old API
+     * @param previewSize     The default size of the preview URL Imgur returns, see {@link
+     *                        #setPreviewSize(String)}
+     * @param lowQualitySize  The default size of the low quality URL Imgur returns, see {@link
+     *                        #setLowQualitySize(String)}
+     * @param mediaFieldsOnly True to skip the v3 API response fields that the returned media
+     *                        doesn't use while decoding
+     */
+    public ImgurParser(OkHttpClient client,
+            String imgurClientId,
+            String previewSize,
+            String lowQualitySize,
+            boolean mediaFieldsOnly) {
+        super(client, mediaFieldsOnly);
         mImgurClientId = imgurClientId;
+        mPreviewSize = previewSize;
+        mLowQualitySize = lowQualitySize;
     }
 
     @Override
@@ -96,31 +147,14 @@ public class ImgurParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) throws InvalidMediaUrlException {
-        if (!isValidDomain(mediaUrl)) {
-            throw new InvalidMediaUrlException(mediaUrl);
-        }
-        String path = mediaUrl.getPath();
-        String firstSegment = ParseUtils.getFirstPathSegment(mediaUrl);
-        String hash;
-        if (GALLERY_PATH.equalsIgnoreCase(firstSegment)) {
-            // /gallery/{hash} URLs can contain both album and image hashes
-            hash = ParseUtils.hashRegex(path, GALLERY_PATTERN);
-        } else if (ALBUM_PATH.equalsIgnoreCase(firstSegment)) {
-            hash = ParseUtils.hashRegex(path, ALBUM_PATTERN);
-        } else if (SUBREDDIT_PATH.equals(firstSegment) || SUBREDDIT_PATH_2.equals(firstSegment)) {
-            hash = ParseUtils.hashRegex(path, SUBREDDIT_PATTERN);
-        } else {
-            // Probably a gallery URL with no prefix
-            hash = ParseUtils.hashRegex(path, NO_PREFIX_PATTERN);
-
-            // Check if this is a direct media URL
-            if (hash == null) {
-                hash = ParseUtils.hashRegex(path, DIRECT_MEDIA_PATTERN);
-            }
-        }
+        return getHash(ParsedUrl.of(mediaUrl));
+    }
 
-        if (hash == null) throw new InvalidMediaUrlException(mediaUrl);
-        return hash;
+    @Override
+    public ParserResponse getOfflineResponse(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
+        // Albums can't be guessed, single images can since their URLs only need the hash
+        if (isAlbumUrl(mediaUrl)) return null;
+        return getImageResponse(mediaUrl, getHash(mediaUrl));
     }
 
     @Override
@@ -130,82 +164,161 @@ public class ImgurParser extends AbstractApiParser {
 
     @Override
     public boolean isValidDomain(URL mediaUrl) {
-        if (mediaUrl == null) return false;
-        String domain = mediaUrl.getHost();
-        String baseDomain = getBaseDomain();
-        return baseDomain.equalsIgnoreCase(domain) || ParseUtils.isDomainMatch(domain, getValidDomains());
+        return mediaUrl != null && isValidHost(mediaUrl.getHost());
     }
 
     @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
         String hash = getHash(mediaUrl);
-        String clientIdHeader = null;
-        if (mImgurClientId != null) {
-            String apiKey = mImgurClientId.trim();
-            if (apiKey.isEmpty()) {
-                throw new InvalidApiKeyException(mediaUrl,
-                        apiKey,
-                        "Imgur API key cannot be blank. Please set the key to null to not use the v3 API");
+        String clientIdHeader = getClientIdHeader(mediaUrl);
+        boolean isAlbum = isAlbumUrl(mediaUrl);
+
+        ImgurApi service = getServices().get(ImgurApi.class);
+        if (clientIdHeader == null) {
+            if (isAlbum) {
+                // Make an API call to get the album images via the old API
+                return getAlbumDataResponse(mediaUrl, execute(service.getAlbumData(hash)));
+            } else {
+                return getImageResponse(mediaUrl, hash);
             }
-            clientIdHeader = ImgurApi.CLIENT_ID_HEADER_PREFIX + " " + mImgurClientId;
         }
 
-        boolean hasApiKey = clientIdHeader != null;
+        if (!isAlbum) {
+            Response<ImageResponseV3> imageServiceResponse =
+                    execute(service.getV3Image(clientIdHeader, hash));
+            if (imageServiceResponse.body() != null) {
+                return getV3ImageResponse(mediaUrl, imageServiceResponse);
+            }
+
+            // If response was null, will attempt to run the hash as an album/gallery below
+        }
+
+        return getV3AlbumResponse(mediaUrl, execute(service.getV3Album(clientIdHeader, hash)));
+    }
+
+    @Override
+    protected void parseAsync(final ParsedUrl mediaUrl, final ParserFuture future)
+            throws IOException, RuntimeException {
+        final String hash = getHash(mediaUrl);
+        final String clientIdHeader = getClientIdHeader(mediaUrl);
         boolean isAlbum = isAlbumUrl(mediaUrl);
 
-        ImgurApi service = getRetrofit().create(ImgurApi.class);
-        if (!hasApiKey) {
+        final ImgurApi service = getServices().get(ImgurApi.class);
+        if (clientIdHeader == null) {
             if (isAlbum) {
                 // Make an API call to get the album images via the old API
-                Response<AlbumResponse> serviceResponse = service.getAlbumData(hash).execute();
-                checkResponseSuccess(mediaUrl, serviceResponse);
-                AlbumResponse apiResponse = serviceResponse.body();
-                if (apiResponse != null) {
-                    apiResponse.setLowQuality(mLowQualitySize);
-                    apiResponse.setPreviewQuality(mPreviewSize);
-                }
-                return getParserResponse(mediaUrl, apiResponse, serviceResponse);
+                enqueue(service.getAlbumData(hash), future, new ResponseHandler<AlbumResponse>() {
+                    @Override
+                    public void onResponse(Response<AlbumResponse> response) throws IOException {
+                        future.set(getAlbumDataResponse(mediaUrl, response));
+                    }
+                });
             } else {
-                // Generate a new image object for the hash we got without making an API call at all.
-                // The extension is only guessed at if the original extension was null, so even though
-                // you might make a request for {hash}.jpg the Imgur servers might still return a GIF
-                // in the response
-                Image image = new Image();
-                String ext = ParseUtils.getExtension(mediaUrl);
-                if (ext != null) {
-                    image.ext = "." + ext;
+                future.set(getImageResponse(mediaUrl, hash));
+            }
+            return;
+        }
+
+        final ResponseHandler<AlbumResponseV3> albumHandler = new ResponseHandler<AlbumResponseV3>() {
+            @Override
+            public void onResponse(Response<AlbumResponseV3> response) throws IOException {
+                future.set(getV3AlbumResponse(mediaUrl, response));
+            }
+        };
+
+        if (isAlbum) {
+            enqueue(service.getV3Album(clientIdHeader, hash), future, albumHandler);
+            return;
+        }
+
+        enqueue(service.getV3Image(clientIdHeader, hash), future, new ResponseHandler<ImageResponseV3>() {
+            @Override
+            public void onResponse(Response<ImageResponseV3> response) throws IOException {
+                if (response.body() != null) {
+                    future.set(getV3ImageResponse(mediaUrl, response));
+                    return;
                 }
-                image.hash = hash;
-                image.animated = ParseUtils.isVideoExtension(mediaUrl) || ParseUtils.isGifExtension(mediaUrl);
-                image.setLowQuality(mLowQualitySize);
-                image.setPreviewQuality(mPreviewSize);
-                ParserResponse parserResponse = new ParserResponse(image);
-                parserResponse.setOriginalUrl(mediaUrl);
-                return parserResponse;
+
+                // If response was null, attempt to run the hash as an album/gallery
+                enqueue(service.getV3Album(clientIdHeader, hash), future, albumHandler);
             }
+        });
+    }
+
+    @Override
+    protected JsonAdapter.Factory getMediaAdapterFactory() {
+        return MEDIA_ADAPTER_FACTORY;
+    }
+
+    @Override
+    protected MediaStream.Source<? extends IMedia> getStreamSource(ParsedUrl mediaUrl)
+            throws IOException, RuntimeException {
+        // Gallery and other URLs may turn out to be single images, only /a/ URLs are surely albums
+        if (!isAlbumUrl(mediaUrl)) return null;
+        String hash = getHash(mediaUrl);
+        String clientIdHeader = getClientIdHeader(mediaUrl);
+
+        ImgurApi service = getServices().get(ImgurApi.class);
+        if (clientIdHeader == null) {
+            return new MediaStream.Source<>(service.streamAlbumData(hash),
+                    newImageAdapter(),
+                    "data",
+                    "images");
         }
+        return new MediaStream.Source<>(service.streamV3Album(clientIdHeader, hash),
+                newImageDataV3Adapter(),
+                "data",
+                "images");
+    }
 
-        if (!isAlbum) {
-            Response<ImageResponseV3> imageServiceResponse = service.getV3Image(clientIdHeader, hash).execute();
-            ImageResponseV3 imageResponse = imageServiceResponse.body();
-            if (imageResponse != null) {
-                imageResponse.setLowQuality(mLowQualitySize);
-                imageResponse.setPreviewQuality(mPreviewSize);
-                return getParserResponse(mediaUrl, imageResponse, imageServiceResponse);
-            } else {
+    @Override
+    protected void updateRateLimit(RateLimiter rateLimiter, Headers headers) {
+        long userRemaining = getLongHeader(headers, ImgurApi.RATE_LIMIT_USER_REMAINING_HEADER);
+        long clientRemaining = getLongHeader(headers, ImgurApi.RATE_LIMIT_CLIENT_REMAINING_HEADER);
+        if (clientRemaining != RateLimiter.UNKNOWN
+                && (userRemaining == RateLimiter.UNKNOWN || clientRemaining < userRemaining)) {
+            // The daily client credits are the tighter limit, Imgur doesn't say when they reset
+            rateLimiter.updateCredits(getLongHeader(headers,
+                    ImgurApi.RATE_LIMIT_CLIENT_LIMIT_HEADER), clientRemaining, RateLimiter.UNKNOWN);
+        } else if (userRemaining != RateLimiter.UNKNOWN) {
+            long resetInMillis = RateLimiter.UNKNOWN;
+            long resetAtSeconds = getLongHeader(headers, ImgurApi.RATE_LIMIT_USER_RESET_HEADER);
+            if (resetAtSeconds != RateLimiter.UNKNOWN) {
+                resetInMillis = Math.max(resetAtSeconds * 1000 - System.currentTimeMillis(), 0);
             }
+            rateLimiter.updateCredits(getLongHeader(headers, ImgurApi.RATE_LIMIT_USER_LIMIT_HEADER),
+                    userRemaining,
+                    resetInMillis);
+        }
+    }
 
-            // If response was null, will attempt to run the hash as an album/gallery below
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
+        if (!isValidDomain(mediaUrl)) {
+            throw new InvalidMediaUrlException(mediaUrl.getUrl());
         }
+        String path = mediaUrl.getPath();
+        String hash;
+        if (mediaUrl.pathSegmentEqualsIgnoreCase(0, GALLERY_PATH)) {
+            // /gallery/{hash} URLs can contain both album and image hashes
+            hash = ParseUtils.hashRegex(path, GALLERY_PATTERN);
+        } else if (mediaUrl.pathSegmentEqualsIgnoreCase(0, ALBUM_PATH)) {
+            hash = ParseUtils.hashRegex(path, ALBUM_PATTERN);
+        } else if (mediaUrl.pathSegmentEquals(0, SUBREDDIT_PATH)
+                || mediaUrl.pathSegmentEquals(0, SUBREDDIT_PATH_2)) {
+            hash = ParseUtils.hashRegex(path, SUBREDDIT_PATTERN);
+        } else {
+            // Probably a gallery URL with no prefix
+            hash = ParseUtils.hashRegex(path, NO_PREFIX_PATTERN);
 
-        Response<AlbumResponseV3> albumServiceResponse = service.getV3Album(clientIdHeader, hash).execute();
-        AlbumResponseV3 albumResponse = albumServiceResponse.body();
-        if (albumResponse != null) {
-            albumResponse.setLowQuality(mLowQualitySize);
-            albumResponse.setPreviewQuality(mPreviewSize);
+            // Check if this is a direct media URL
+            if (hash == null) {
+                hash = ParseUtils.hashRegex(path, DIRECT_MEDIA_PATTERN);
+            }
         }
 
-        return getParserResponse(mediaUrl, albumResponse, albumServiceResponse);
+        if (hash == null) throw new InvalidMediaUrlException(mediaUrl.getUrl());
+        return hash;
     }
 
     /**
@@ -223,7 +336,7 @@ public class ImgurParser extends AbstractApiParser {
         String newExt = (extension == null) ? IMedia.EXT_JPG : extension;
         if (hash == null) return null;
         if (hash.length() < MIN_ALBUM_HASH_LENGTH || hash.length() > IMAGE_HASH_LENGTH) return null;
-        return String.format("%s/%s%s.%s", ImgurApi.IMAGE_URL, hash, quality, newExt);
+        return ImgurApi.IMAGE_URL + "/" + hash + quality + "." + newExt;
     }
 
     /**
@@ -262,18 +375,145 @@ public class ImgurParser extends AbstractApiParser {
         mPreviewSize = previewSize;
     }
 
-    private void checkResponseSuccess(URL mediaUrl, Response<?> serviceResponse) throws InvalidApiResponseException {
+    private void checkResponseSuccess(ParsedUrl mediaUrl, Response<?> serviceResponse)
+            throws InvalidApiResponseException {
         if (!serviceResponse.isSuccessful()) {
             ImgurApiError apiError = ErrorUtils.getApiError(getRetrofit(), serviceResponse);
-            throw new InvalidApiResponseException(mediaUrl, apiError.getMessage());
+            throw new InvalidApiResponseException(mediaUrl.getUrl(),
+                    serviceResponse.code(),
+                    apiError.getMessage());
         }
     }
 
-    private boolean isAlbumUrl(URL mediaUrl) throws InvalidMediaUrlException {
-        if (!isValidDomain(mediaUrl)) {
-            throw new InvalidMediaUrlException(mediaUrl);
+    private ParserResponse getAlbumDataResponse(ParsedUrl mediaUrl, Response<AlbumResponse> serviceResponse)
+            throws IOException {
+        checkResponseSuccess(mediaUrl, serviceResponse);
+        AlbumResponse apiResponse = serviceResponse.body();
+        if (apiResponse != null) {
+            apiResponse.setLowQuality(mLowQualitySize);
+            apiResponse.setPreviewQuality(mPreviewSize);
         }
-        String firstSegment = ParseUtils.getFirstPathSegment(mediaUrl);
-        return ALBUM_PATH.equalsIgnoreCase(firstSegment);
+        return getParserResponse(mediaUrl, apiResponse, serviceResponse);
+    }
+
+    @Override
+    protected boolean isValidHost(String host) {
+        String baseDomain = getBaseDomain();
+        return baseDomain.equalsIgnoreCase(host)
+                || ParseUtils.isDomainMatch(host, getValidDomains());
+    }
+
+    private String getClientIdHeader(ParsedUrl mediaUrl) throws InvalidApiKeyException {
+        if (mImgurClientId == null) return null;
+        String apiKey = mImgurClientId.trim();
+        if (apiKey.isEmpty()) {
+            throw new InvalidApiKeyException(mediaUrl.getUrl(),
+                    apiKey,
+                    "Imgur API key cannot be blank. Please set the key to null to not use the v3 API");
+        }
+        return ImgurApi.CLIENT_ID_HEADER_PREFIX + " " + mImgurClientId;
+    }
+
+    /**
+     * @return The value of a numeric header, {@link RateLimiter#UNKNOWN} if it's missing or invalid
+     */
+    private static long getLongHeader(Headers headers, String name) {
+        String value = headers.get(name);
+        if (value == null) return RateLimiter.UNKNOWN;
+        try {
+            long number = Long.parseLong(value.trim());
+            return number >= 0 ? number : RateLimiter.UNKNOWN;
+        } catch (NumberFormatException e) {
+            return RateLimiter.UNKNOWN;
+        }
+    }
+
+    private ParserResponse getImageResponse(ParsedUrl mediaUrl, String hash) {
+        // Generate a new image object for the hash we got without making an API call at all.
+        // The extension is only guessed at if the original extension was null, so even though
+        // you might make a request for {hash}.jpg the Imgur servers might still return a GIF
+        // in the response
+        Image image = new Image();
+        String ext = mediaUrl.getExtension();
+        if (ext != null) {
+            image.ext = "." + ext;
+        }
+        image.hash = hash;
+        MediaKind kind = mediaUrl.getMediaKind();
+        image.animated = kind == MediaKind.VIDEO || kind == MediaKind.GIF;
+        image.setLowQuality(mLowQualitySize);
+        image.setPreviewQuality(mPreviewSize);
+        ParserResponse parserResponse = new ParserResponse(image);
+        parserResponse.setOriginalUrl(mediaUrl.getMediaUrl());
+        return parserResponse;
+    }
+
+    private ParserResponse getV3AlbumResponse(ParsedUrl mediaUrl, Response<AlbumResponseV3> albumServiceResponse)
+            throws IOException {
+        AlbumResponseV3 albumResponse = albumServiceResponse.body();
+        if (albumResponse != null) {
+            albumResponse.setLowQuality(mLowQualitySize);
+            albumResponse.setPreviewQuality(mPreviewSize);
+        }
+        return getParserResponse(mediaUrl, albumResponse, albumServiceResponse);
+    }
+
+    private ParserResponse getV3ImageResponse(ParsedUrl mediaUrl, Response<ImageResponseV3> imageServiceResponse)
+            throws IOException {
+        ImageResponseV3 imageResponse = imageServiceResponse.body();
+        imageResponse.setLowQuality(mLowQualitySize);
+        imageResponse.setPreviewQuality(mPreviewSize);
+        return getParserResponse(mediaUrl, imageResponse, imageServiceResponse);
+    }
+
+    /**
+     * @return An adapter that sets this parser's preview and low quality sizes on each image it
+     * decodes, the same as the album does for images that aren't streamed
+     */
+    private JsonAdapter<Image> newImageAdapter() {
+        final JsonAdapter<Image> delegate = getMoshi().adapter(Image.class);
+        return new JsonAdapter<Image>() {
+            @Override
+            public Image fromJson(JsonReader reader) throws IOException {
+                Image image = delegate.fromJson(reader);
+                if (image != null) {
+                    image.setLowQuality(mLowQualitySize);
+                    image.setPreviewQuality(mPreviewSize);
+                }
+                return image;
+            }
+
+            @Override
+            public void toJson(JsonWriter writer, Image value) throws IOException {
+                delegate.toJson(writer, value);
+            }
+        };
+    }
+
+    /**
+     * @see #newImageAdapter()
+     */
+    private JsonAdapter<ImageDataV3> newImageDataV3Adapter() {
+        final JsonAdapter<ImageDataV3> delegate = getMoshi().adapter(ImageDataV3.class);
+        return new JsonAdapter<ImageDataV3>() {
+            @Override
+            public ImageDataV3 fromJson(JsonReader reader) throws IOException {
+                ImageDataV3 image = delegate.fromJson(reader);
+                if (image != null) {
+                    image.setLowQuality(mLowQualitySize);
+                    image.setPreviewQuality(mPreviewSize);
+                }
+                return image;
+            }
+
+            @Override
+            public void toJson(JsonWriter writer, ImageDataV3 value) throws IOException {
+                delegate.toJson(writer, value);
+            }
+        };
+    }
+
+    private boolean isAlbumUrl(ParsedUrl mediaUrl) {
+        return mediaUrl.pathSegmentEqualsIgnoreCase(0, ALBUM_PATH);
     }
 }
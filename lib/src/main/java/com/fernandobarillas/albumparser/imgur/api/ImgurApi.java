@@ -29,10 +29,12 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Header;
 import retrofit2.http.Path;
+import retrofit2.http.Streaming;
 
 /**
  * Retrofit Interface for the Imgur API
@@ -58,14 +60,32 @@ public interface ImgurApi {
     String IMAGE_URL               = "https://i." + BASE_DOMAIN;
     String CLIENT_ID_HEADER_PREFIX = "Client-ID";
 
+    // Credits reported with every API response, see https://apidocs.imgur.com/#rate-limits
+    String RATE_LIMIT_USER_LIMIT_HEADER       = "X-RateLimit-UserLimit";
+    String RATE_LIMIT_USER_REMAINING_HEADER   = "X-RateLimit-UserRemaining";
+    String RATE_LIMIT_USER_RESET_HEADER       = "X-RateLimit-UserReset"; // Epoch seconds
+    String RATE_LIMIT_CLIENT_LIMIT_HEADER     = "X-RateLimit-ClientLimit";
+    String RATE_LIMIT_CLIENT_REMAINING_HEADER = "X-RateLimit-ClientRemaining";
+
     @GET("/ajaxalbums/getimages/{hash}/hit.json?all=true")
     Call<AlbumResponse> getAlbumData(@Path("hash") String hash);
 
+    // Same as getAlbumData() without decoding, the images are read from the body as it arrives
+    @Streaming
+    @GET("/ajaxalbums/getimages/{hash}/hit.json?all=true")
+    Call<ResponseBody> streamAlbumData(@Path("hash") String hash);
+
     // https://api.imgur.com/3/album/{id}
     @GET(API_URL_V3 + "/album/{hash}")
     Call<AlbumResponseV3> getV3Album(@Header("Authorization") String authHeader,
             @Path("hash") String hash);
 
+    // Same as getV3Album() without decoding, the images are read from the body as it arrives
+    @Streaming
+    @GET(API_URL_V3 + "/album/{hash}")
+    Call<ResponseBody> streamV3Album(@Header("Authorization") String authHeader,
+            @Path("hash") String hash);
+
     // https://api.imgur.com/3/image/{id}
     @GET(API_URL_V3 + "/image/{hash}")
     Call<ImageResponseV3> getV3Image(@Header("Authorization") String authHeader,
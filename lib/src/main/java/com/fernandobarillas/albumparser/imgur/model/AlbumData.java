@@ -21,9 +21,9 @@
 package com.fernandobarillas.albumparser.imgur.model;
 
 import com.fernandobarillas.albumparser.media.BaseMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,10 +58,10 @@ public class AlbumData extends BaseMediaAlbum<Image> {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         if (images != null && images.size() > 0) {
             // Return the first image as the preview
-            return getAlbumMedia().get(0).getPreviewUrl();
+            return getAlbumMedia().get(0).getPreviewMediaUrl();
         }
 
         return null;
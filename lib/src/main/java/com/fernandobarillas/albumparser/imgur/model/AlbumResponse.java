@@ -22,10 +22,9 @@ package com.fernandobarillas.albumparser.imgur.model;
 
 import com.fernandobarillas.albumparser.media.BaseApiResponse;
 import com.fernandobarillas.albumparser.media.IMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
-
 public class AlbumResponse extends BaseApiResponse<Image> {
     @Json(name = "data")
     public AlbumData data;
@@ -40,8 +39,8 @@ public class AlbumResponse extends BaseApiResponse<Image> {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        return (data != null) ? data.getPreviewUrl() : null;
+    public MediaUrl getPreviewMediaUrl() {
+        return (data != null) ? data.getPreviewMediaUrl() : null;
     }
 
     @Override
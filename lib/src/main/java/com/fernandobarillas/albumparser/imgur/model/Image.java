@@ -22,11 +22,9 @@ package com.fernandobarillas.albumparser.imgur.model;
 
 import com.fernandobarillas.albumparser.imgur.api.ImgurApi;
 import com.fernandobarillas.albumparser.media.BaseMedia;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
-
 public class Image extends BaseMedia {
     // https://api.imgur.com/models/image
     public static final String SMALL_SQUARE     = "s";
@@ -83,7 +81,7 @@ public class Image extends BaseMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    protected MediaUrl createPreviewMediaUrl() {
         return getImageUrl(mPreviewQuality);
     }
 
@@ -93,7 +91,7 @@ public class Image extends BaseMedia {
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    protected MediaUrl createMediaUrl(boolean highQuality) {
         // Imgur doesn't support low quality animations/video
         if (isVideo()) return highQuality ? getImageUrl(ORIGINAL) : null;
         return (highQuality) ? getImageUrl(ORIGINAL) : getImageUrl(mLowQuality);
@@ -118,7 +116,7 @@ public class Image extends BaseMedia {
      *                small thumbnail image you can pass in {@link #SMALL_THUMBNAIL}
      * @return The URL to the image with the selected quality
      */
-    public URL getImageUrl(String quality) {
+    public MediaUrl getImageUrl(String quality) {
         return getImageUrl(quality, true);
     }
 
@@ -132,7 +130,7 @@ public class Image extends BaseMedia {
      *                  requested
      * @return The URL to the image with the selected quality
      */
-    public URL getImageUrl(String quality, boolean preferMp4) {
+    public MediaUrl getImageUrl(String quality, boolean preferMp4) {
         String newExt = (ext != null) ? ext : "." + EXT_JPG;
         if (!quality.equals(ORIGINAL)) {
             // Imgur returns a JPG image for non-ORIGINAL URLs for animations regardless of the
@@ -146,14 +144,18 @@ public class Image extends BaseMedia {
         }
 
         String resultUrl = ImgurApi.IMAGE_URL + "/" + hash + quality + newExt;
-        return ParseUtils.getUrlObject(resultUrl);
+        return MediaUrl.parse(resultUrl);
     }
 
     public void setLowQuality(String lowQuality) {
-        if (lowQuality != null) mLowQuality = lowQuality;
+        if (lowQuality == null) return;
+        mLowQuality = lowQuality;
+        clearMediaUrls();
     }
 
     public void setPreviewQuality(String previewQuality) {
-        if (previewQuality != null) mPreviewQuality = previewQuality;
+        if (previewQuality == null) return;
+        mPreviewQuality = previewQuality;
+        clearMediaUrls();
     }
 }
@@ -23,9 +23,9 @@ package com.fernandobarillas.albumparser.imgur.model.v3;
 
 
 import com.fernandobarillas.albumparser.media.BaseMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -95,10 +95,10 @@ public class AlbumDataV3 extends BaseMediaAlbum<ImageDataV3> {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         if (images != null && images.size() > 0) {
             // Return the first image as the preview
-            return getAlbumMedia().get(0).getPreviewUrl();
+            return getAlbumMedia().get(0).getPreviewMediaUrl();
         }
 
         return null;
@@ -21,10 +21,9 @@
 package com.fernandobarillas.albumparser.imgur.model.v3;
 
 import com.fernandobarillas.albumparser.media.BaseApiResponse;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
-
 public class AlbumResponseV3 extends BaseApiResponse<ImageDataV3> {
 
     @Json(name = "data")
@@ -40,8 +39,8 @@ public class AlbumResponseV3 extends BaseApiResponse<ImageDataV3> {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        return (data != null) ? data.getPreviewUrl() : null;
+    public MediaUrl getPreviewMediaUrl() {
+        return (data != null) ? data.getPreviewMediaUrl() : null;
     }
 
     @Override
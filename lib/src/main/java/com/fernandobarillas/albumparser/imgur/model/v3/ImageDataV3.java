@@ -23,11 +23,10 @@ package com.fernandobarillas.albumparser.imgur.model.v3;
 import com.fernandobarillas.albumparser.imgur.ImgurParser;
 import com.fernandobarillas.albumparser.media.BaseMedia;
 import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
-
 import static com.fernandobarillas.albumparser.imgur.model.Image.HUGE_THUMBNAIL;
 import static com.fernandobarillas.albumparser.imgur.model.Image.MEDIUM_THUMBNAIL;
 import static com.fernandobarillas.albumparser.imgur.model.Image.ORIGINAL;
@@ -105,7 +104,7 @@ public class ImageDataV3 extends BaseMedia implements IMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    protected MediaUrl createPreviewMediaUrl() {
         return getImageUrl(mPreviewQuality);
     }
 
@@ -115,7 +114,7 @@ public class ImageDataV3 extends BaseMedia implements IMedia {
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    protected MediaUrl createMediaUrl(boolean highQuality) {
         // Imgur doesn't support low quality animations/video
         if (isVideo()) return highQuality ? getImageUrl(ORIGINAL) : null;
         return (highQuality) ? getImageUrl(ORIGINAL) : getImageUrl(mLowQuality);
@@ -193,15 +192,19 @@ public class ImageDataV3 extends BaseMedia implements IMedia {
                 + '}';
     }
 
-    protected void setLowQuality(String lowQualitySize) {
-        if (lowQualitySize != null) mLowQuality = lowQualitySize;
+    public void setLowQuality(String lowQualitySize) {
+        if (lowQualitySize == null) return;
+        mLowQuality = lowQualitySize;
+        clearMediaUrls();
     }
 
-    protected void setPreviewQuality(String previewSize) {
-        if (previewSize != null) mPreviewQuality = previewSize;
+    public void setPreviewQuality(String previewSize) {
+        if (previewSize == null) return;
+        mPreviewQuality = previewSize;
+        clearMediaUrls();
     }
 
-    private URL getImageUrl(String quality) {
+    private MediaUrl getImageUrl(String quality) {
         String extension = ParseUtils.getExtension(link);
         if (isVideo() || EXT_GIF.equalsIgnoreCase(extension)) {
             if (!ORIGINAL.equals(quality)) {
@@ -211,6 +214,6 @@ public class ImageDataV3 extends BaseMedia implements IMedia {
             }
         }
         String resultUrl = ImgurParser.getImageUrl(id, quality, extension);
-        return ParseUtils.getUrlObject(resultUrl);
+        return MediaUrl.parse(resultUrl);
     }
 }
@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.imgur.model.v3;
+
+import com.fernandobarillas.albumparser.util.JsonUtils;
+import com.fernandobarillas.albumparser.util.MediaFieldsAdapter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.Moshi;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Set;
+
+/**
+ * Creates Moshi adapters that only read the v3 API fields backing {@link AlbumDataV3}'s
+ * IMediaAlbum and {@link ImageDataV3}'s IMedia methods, skipping account, view and gallery data
+ */
+public final class ImgurMediaAdapterFactory implements JsonAdapter.Factory {
+    private static final JsonReader.Options ALBUM_NAMES = JsonReader.Options.of(
+            "images", "images_count",
+            // Unused, see JsonUtils.skipField()
+            "id", "title", "description", "datetime", "cover", "cover_width", "cover_height",
+            "account_url", "account_id", "privacy", "layout", "views", "link", "favorite", "nsfw",
+            "section", "in_gallery", "is_ad", "include_album_ads");
+    private static final JsonReader.Options IMAGE_NAMES = JsonReader.Options.of(
+            "id", "title", "description", "animated", "width", "height", "size", "mp4_size", "link",
+            // Unused, see JsonUtils.skipField()
+            "datetime", "type", "views", "bandwidth", "vote", "favorite", "nsfw", "section",
+            "account_url", "account_id", "in_gallery", "gifv", "mp4", "looping", "is_ad",
+            "in_most_viral", "has_sound", "tags", "ad_type", "ad_url");
+
+    @Override
+    public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+        if (!annotations.isEmpty()) return null;
+        if (type == AlbumDataV3.class) {
+            JsonAdapter<AlbumDataV3> writer = moshi.nextAdapter(this, type, annotations);
+            return new MediaFieldsAdapter<AlbumDataV3>(writer) {
+                @Override
+                public AlbumDataV3 fromJson(JsonReader reader) throws IOException {
+                    return readAlbum(reader);
+                }
+            }.nullSafe();
+        }
+        if (type == ImageDataV3.class) {
+            JsonAdapter<ImageDataV3> writer = moshi.nextAdapter(this, type, annotations);
+            return new MediaFieldsAdapter<ImageDataV3>(writer) {
+                @Override
+                public ImageDataV3 fromJson(JsonReader reader) throws IOException {
+                    return readImage(reader);
+                }
+            }.nullSafe();
+        }
+        return null;
+    }
+
+    private static AlbumDataV3 readAlbum(JsonReader reader) throws IOException {
+        AlbumDataV3 album = new AlbumDataV3();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(ALBUM_NAMES);
+            switch (index) {
+                case 0:
+                    if (reader.peek() == JsonReader.Token.NULL) {
+                        album.images = reader.nextNull();
+                        break;
+                    }
+                    album.images = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        album.images.add(readImage(reader));
+                    }
+                    reader.endArray();
+                    break;
+                case 1:
+                    album.imagesCount = JsonUtils.nextInteger(reader);
+                    break;
+                default:
+                    JsonUtils.skipField(reader, index);
+            }
+        }
+        reader.endObject();
+        return album;
+    }
+
+    private static ImageDataV3 readImage(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        ImageDataV3 image = new ImageDataV3();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(IMAGE_NAMES);
+            switch (index) {
+                case 0:
+                    image.id = JsonUtils.nextString(reader);
+                    break;
+                case 1:
+                    image.title = JsonUtils.nextString(reader);
+                    break;
+                case 2:
+                    image.description = JsonUtils.nextString(reader);
+                    break;
+                case 3:
+                    image.animated = JsonUtils.nextBoolean(reader);
+                    break;
+                case 4:
+                    image.width = JsonUtils.nextInteger(reader);
+                    break;
+                case 5:
+                    image.height = JsonUtils.nextInteger(reader);
+                    break;
+                case 6:
+                    image.size = JsonUtils.nextInteger(reader);
+                    break;
+                case 7:
+                    image.mp4Size = JsonUtils.nextInteger(reader);
+                    break;
+                case 8:
+                    image.link = JsonUtils.nextString(reader);
+                    break;
+                default:
+                    JsonUtils.skipField(reader, index);
+            }
+        }
+        reader.endObject();
+        return image;
+    }
+}
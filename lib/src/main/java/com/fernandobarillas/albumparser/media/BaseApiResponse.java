@@ -20,12 +20,15 @@
 
 package com.fernandobarillas.albumparser.media;
 
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
 import java.net.URL;
 
 /**
  * Class that sets default values for the IApiResponse interface
  */
-public abstract class BaseApiResponse<T extends IMedia> implements IApiResponse {
+public abstract class BaseApiResponse<T extends IMedia> implements IApiResponse<T> {
 
     @Override
     public IMediaAlbum<T> getAlbum() {
@@ -43,10 +46,15 @@ public abstract class BaseApiResponse<T extends IMedia> implements IApiResponse
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         return null;
     }
 
+    @Override
+    public URL getPreviewUrl() {
+        return ParseUtils.getUrlObject(getPreviewMediaUrl());
+    }
+
     @Override
     public boolean isAlbum() {
         return false;
@@ -21,12 +21,28 @@
 
 package com.fernandobarillas.albumparser.media;
 
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
 import java.net.URL;
 
 /**
  * Class that sets default values for the IMedia interface
+ * <p>
+ * The media and preview URLs are computed once, by {@link #createMediaUrl(boolean)} and {@link
+ * #createPreviewMediaUrl()}, the first time they're requested and then reused. Subclasses that
+ * derive their URLs from API fields override those methods rather than the getters, and call
+ * {@link #clearMediaUrls()} whenever something the URLs depend on changes.
  */
 public class BaseMedia implements IMedia {
+    /** Stands in for URLs that were already computed and turned out to be null */
+    private static final Object NO_URL = new Object();
+
+    // Two threads may both compute a URL the first time, both results are equal so either can be
+    // kept. Transient so the fields are never mistaken for API fields when decoding JSON.
+    private transient volatile Object mHighQualityUrl;
+    private transient volatile Object mLowQualityUrl;
+    private transient volatile Object mPreviewUrl;
 
     @Override
     public int getByteSize(boolean highQuality) {
@@ -48,9 +64,33 @@ public class BaseMedia implements IMedia {
         return SIZE_UNAVAILABLE;
     }
 
+    @Override
+    public MediaUrl getMediaUrl(boolean highQuality) {
+        Object url = highQuality ? mHighQualityUrl : mLowQualityUrl;
+        if (url == null) {
+            url = wrapUrl(createMediaUrl(highQuality));
+            if (highQuality) {
+                mHighQualityUrl = url;
+            } else {
+                mLowQualityUrl = url;
+            }
+        }
+        return unwrapUrl(url);
+    }
+
+    @Override
+    public MediaUrl getPreviewMediaUrl() {
+        Object url = mPreviewUrl;
+        if (url == null) {
+            url = wrapUrl(createPreviewMediaUrl());
+            mPreviewUrl = url;
+        }
+        return unwrapUrl(url);
+    }
+
     @Override
     public URL getPreviewUrl() {
-        return null;
+        return ParseUtils.getUrlObject(getPreviewMediaUrl());
     }
 
     @Override
@@ -60,7 +100,7 @@ public class BaseMedia implements IMedia {
 
     @Override
     public URL getUrl(boolean highQuality) {
-        return null;
+        return ParseUtils.getUrlObject(getMediaUrl(highQuality));
     }
 
     @Override
@@ -94,17 +134,47 @@ public class BaseMedia implements IMedia {
                 + isVideo()
                 + '\''
                 + ", highQuality='"
-                + getUrl(true)
+                + getMediaUrl(true)
                 + '\''
                 + ", lowQuality='"
-                + getUrl(false)
+                + getMediaUrl(false)
                 + '\''
                 + ", preview='"
-                + getPreviewUrl()
+                + getPreviewMediaUrl()
                 + '\''
                 + '}';
     }
 
+    /**
+     * Forgets the URLs computed so far, they're computed again the next time they're requested
+     */
+    protected void clearMediaUrls() {
+        mHighQualityUrl = null;
+        mLowQualityUrl = null;
+        mPreviewUrl = null;
+    }
+
+    /**
+     * Computes the URL returned by {@link #getMediaUrl(boolean)}. This is called at most once for
+     * each quality unless {@link #clearMediaUrls()} is called.
+     *
+     * @param highQuality True to create the high quality URL, false for the low quality one
+     * @return The URL to the media, null if no URL is available
+     */
+    protected MediaUrl createMediaUrl(boolean highQuality) {
+        return null;
+    }
+
+    /**
+     * Computes the URL returned by {@link #getPreviewMediaUrl()}. This is called at most once
+     * unless {@link #clearMediaUrls()} is called.
+     *
+     * @return A URL to the preview image for this media, null if unavailable
+     */
+    protected MediaUrl createPreviewMediaUrl() {
+        return null;
+    }
+
     protected double defaultDurationIfNull(Double doubleValue) {
         return doubleValue != null ? doubleValue : (double) DURATION_UNAVAILABLE;
     }
@@ -112,4 +182,12 @@ public class BaseMedia implements IMedia {
     protected int defaultSizeIfNull(Integer integerValue) {
         return integerValue != null ? integerValue : SIZE_UNAVAILABLE;
     }
+
+    private static MediaUrl unwrapUrl(Object url) {
+        return url != NO_URL ? (MediaUrl) url : null;
+    }
+
+    private static Object wrapUrl(MediaUrl url) {
+        return url != null ? url : NO_URL;
+    }
 }
@@ -20,7 +20,12 @@
 
 package com.fernandobarillas.albumparser.media;
 
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
 import java.net.URL;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -40,12 +45,23 @@ public abstract class BaseMediaAlbum<T extends IMedia> implements IMediaAlbum<T>
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         return null;
     }
 
+    @Override
+    public URL getPreviewUrl() {
+        return ParseUtils.getUrlObject(getPreviewMediaUrl());
+    }
+
     @Override
     public boolean isEmpty() {
         return getCount() < 1;
     }
+
+    @Override
+    public Iterator<T> iterator() {
+        List<T> albumMedia = getAlbumMedia();
+        return (albumMedia != null) ? albumMedia.iterator() : Collections.<T>emptyIterator();
+    }
 }
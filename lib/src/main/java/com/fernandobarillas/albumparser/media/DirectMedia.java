@@ -20,6 +20,7 @@
 
 package com.fernandobarillas.albumparser.media;
 
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 
 import java.net.URL;
@@ -29,14 +30,18 @@ import java.net.URL;
  * already link directly to some media and the media host isn't directly supported by this library
  */
 public class DirectMedia extends BaseMedia {
-    private URL mUrl;
+    private MediaUrl mUrl;
 
-    public DirectMedia(URL url) {
+    public DirectMedia(MediaUrl url) {
         mUrl = url;
     }
 
+    public DirectMedia(URL url) {
+        this(MediaUrl.of(url));
+    }
+
     @Override
-    public URL getUrl(boolean highQuality) {
+    public MediaUrl getMediaUrl(boolean highQuality) {
         return mUrl;
     }
 
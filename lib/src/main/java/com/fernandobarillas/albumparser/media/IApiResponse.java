@@ -20,6 +20,8 @@
 
 package com.fernandobarillas.albumparser.media;
 
+import com.fernandobarillas.albumparser.util.MediaUrl;
+
 import java.net.URL;
 
 /**
@@ -45,6 +47,11 @@ public interface IApiResponse<T extends IMedia> {
     /**
      * @return A URL to the media's preview image, null if no preview is available
      */
+    MediaUrl getPreviewMediaUrl();
+
+    /**
+     * @return The {@link #getPreviewMediaUrl()} as a {@link URL}
+     */
     URL getPreviewUrl();
 
     /**
@@ -20,6 +20,8 @@
 
 package com.fernandobarillas.albumparser.media;
 
+import com.fernandobarillas.albumparser.util.MediaUrl;
+
 import java.net.URL;
 
 /**
@@ -71,9 +73,21 @@ public interface IMedia {
      */
     int getHeight(boolean highQuality);
 
+    /**
+     * @param highQuality True to get high quality media, false to attempt to get the low quality
+     *                    version
+     * @return The URL to the media, null if no URL is available
+     */
+    MediaUrl getMediaUrl(boolean highQuality);
+
     /**
      * @return A URL to the preview image for this media, null if unavailable
      */
+    MediaUrl getPreviewMediaUrl();
+
+    /**
+     * @return The {@link #getPreviewMediaUrl()} as a {@link URL}
+     */
     URL getPreviewUrl();
 
     /**
@@ -84,7 +98,7 @@ public interface IMedia {
     /**
      * @param highQuality True to get high quality media, false to attempt to get the low quality
      *                    version
-     * @return The URL to the media, null if no URL is available
+     * @return The {@link #getMediaUrl(boolean)} as a {@link URL}
      */
     URL getUrl(boolean highQuality);
 
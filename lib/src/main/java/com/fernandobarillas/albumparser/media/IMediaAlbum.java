@@ -20,13 +20,18 @@
 
 package com.fernandobarillas.albumparser.media;
 
+import com.fernandobarillas.albumparser.util.MediaUrl;
+
 import java.net.URL;
 import java.util.List;
 
 /**
  * Created by fb on 5/11/16.
+ * <p>
+ * Albums are Iterable over their media. To get the media of a large album without decoding all of
+ * it first, see {@link com.fernandobarillas.albumparser.parser.MediaStream}.
  */
-public interface IMediaAlbum<T extends IMedia> {
+public interface IMediaAlbum<T extends IMedia> extends Iterable<T> {
     int COUNT_UNAVAILABLE = -1;
 
     /**
@@ -42,6 +47,11 @@ public interface IMediaAlbum<T extends IMedia> {
     /**
      * @return The URL to the preview image for this album
      */
+    MediaUrl getPreviewMediaUrl();
+
+    /**
+     * @return The {@link #getPreviewMediaUrl()} as a {@link URL}
+     */
     URL getPreviewUrl();
 
     /**
@@ -0,0 +1,48 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.media;
+
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
+/**
+ * The kind of media a URL links to, based on the extension of the file in its path
+ *
+ * @see ParseUtils#getMediaKind(java.net.URL)
+ */
+public enum MediaKind {
+    /** bmp, jpg, jpeg, png or webp */
+    IMAGE,
+    /** gif */
+    GIF,
+    /** 3gp, gifv, mkv, mp4 or webm */
+    VIDEO,
+    /** No extension, or an extension for something other than an image or video */
+    UNKNOWN;
+
+    /**
+     * @return True when URLs of this kind likely link directly to an image or video, false
+     * otherwise
+     */
+    public boolean isDirect() {
+        return this != UNKNOWN;
+    }
+}
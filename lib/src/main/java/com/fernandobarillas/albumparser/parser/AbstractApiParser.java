@@ -20,6 +20,7 @@
 
 package com.fernandobarillas.albumparser.parser;
 
+import com.fernandobarillas.albumparser.exception.DeadlineExceededException;
 import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
 import com.fernandobarillas.albumparser.media.IApiResponse;
@@ -29,29 +30,67 @@ import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Type;
 import java.net.URL;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
 import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.converter.moshi.MoshiConverterFactory;
 
 /**
  * Abstract class for parsers for API responses. This defines a few helper methods to make getting
- * the correct Retrofit service instance easier such as {@link #getRetrofit()}
+ * the correct Retrofit service instance easier such as {@link #getServices()}
+ * <p>
+ * Parsers keep no per-request state, so a single instance can be shared by any number of threads.
+ * Their rate limiter, retry and hedging policies can be changed at any time, each API call uses the
+ * ones that were set when it was started.
  */
 public abstract class AbstractApiParser<T extends IMedia> {
-    private OkHttpClient mClient;
+    /** Moshi is immutable and caches its adapters, so every parser shares the same instance */
+    private static final Moshi MOSHI = newMoshi(null);
+
+    private static final JsonAdapter<Map<String, Object>> ERROR_ADAPTER;
+
+    static {
+        Type map = Types.newParameterizedType(Map.class, String.class, Object.class);
+        ERROR_ADAPTER = MOSHI.adapter(map);
+    }
+
+    private final OkHttpClient mClient;
+    private final boolean      mMediaFieldsOnly;
+
+    /** Lazily created by {@link #getServices()} */
+    private volatile RetrofitServices mServices;
+
+    /** Limits the API calls made by this parser, null when they aren't limited */
+    private volatile RateLimiter mRateLimiter;
+
+    /** Retries API calls that failed with a transient error, null when they aren't retried */
+    private volatile RetryPolicy mRetryPolicy;
+
+    /** Hedges slow API calls that are safe to make twice, null when they aren't hedged */
+    private volatile HedgingPolicy mHedgingPolicy;
 
     /**
      * Instantiates the parser using the default OkHttpClient in Retrofit
      */
     public AbstractApiParser() {
+        this(null);
     }
 
     /**
@@ -60,11 +99,24 @@ public abstract class AbstractApiParser<T extends IMedia> {
      * @param client The client to use with all the retrofit requests
      */
     public AbstractApiParser(OkHttpClient client) {
+        this(client, false);
+    }
+
+    /**
+     * Instantiates the parser using the passed-in OkHttpClient
+     *
+     * @param client          The client to use with all the retrofit requests
+     * @param mediaFieldsOnly True to only decode the API response fields that back the returned
+     *                        IMedia and IMediaAlbum, see {@link #getMediaAdapterFactory()}. The
+     *                        other public fields of the API models are left null
+     */
+    public AbstractApiParser(OkHttpClient client, boolean mediaFieldsOnly) {
         mClient = client;
+        mMediaFieldsOnly = mediaFieldsOnly;
     }
 
     public boolean canParse(String mediaUrl) {
-        return canParse(ParseUtils.getUrlObject(mediaUrl));
+        return canParse(ParsedUrl.of(mediaUrl));
     }
 
     /**
@@ -76,6 +128,18 @@ public abstract class AbstractApiParser<T extends IMedia> {
      * @return True if this parser can properly parse the passed-in media URL, false otherwise.
      */
     public boolean canParse(URL mediaUrl) {
+        return canParse(ParsedUrl.of(mediaUrl));
+    }
+
+    /**
+     * Checks whether the passed-in media URL can be parsed based on the URL alone, see {@link
+     * #canParse(URL)}. The hash found while checking is kept in the ParsedUrl for {@link
+     * #parse(ParsedUrl)} to reuse.
+     *
+     * @param mediaUrl The URL to check whether the parser can attempt to call the API for
+     * @return True if this parser can properly parse the passed-in media URL, false otherwise.
+     */
+    public boolean canParse(ParsedUrl mediaUrl) {
         if (!isValidDomain(mediaUrl)) return false;
         try {
             // The parser can actually produce a hash, we can attempt to call the API
@@ -83,7 +147,7 @@ public abstract class AbstractApiParser<T extends IMedia> {
         } catch (InvalidMediaUrlException ignored) {
         }
         // See if it's a direct media URL to the Service's domain
-        return ParseUtils.isDirectUrl(mediaUrl);
+        return mediaUrl.getMediaKind().isDirect();
     }
 
     /**
@@ -105,7 +169,7 @@ public abstract class AbstractApiParser<T extends IMedia> {
      * @return A hash that can be used in an API call if the URL can be parsed, null otherwise
      */
     public String getHash(String mediaUrl) {
-        return getHash(ParseUtils.getUrlObject(mediaUrl));
+        return getHash(ParsedUrl.of(mediaUrl));
     }
 
     /**
@@ -116,11 +180,76 @@ public abstract class AbstractApiParser<T extends IMedia> {
      */
     public abstract String getHash(URL mediaUrl) throws InvalidMediaUrlException;
 
+    /**
+     * Gets the hash for the passed-in media URL. The hash, or the Exception thrown when there is
+     * none, is only computed once for each ParsedUrl and reused by later calls.
+     *
+     * @param mediaUrl The URL to get the hash for
+     * @return A hash that can be used in an API call if the URL can be parsed
+     * @throws InvalidMediaUrlException When the URL is null or has no hash this parser can use
+     */
+    public String getHash(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
+        if (mediaUrl == null) throw new InvalidMediaUrlException(null);
+        ParsedUrl.Resolution resolution = mediaUrl.getResolution(this);
+        if (resolution == null) {
+            try {
+                resolution = new ParsedUrl.Resolution(this, findHash(mediaUrl), null);
+            } catch (InvalidMediaUrlException e) {
+                resolution = new ParsedUrl.Resolution(this, null, e);
+            }
+            mediaUrl.setResolution(resolution);
+        }
+        return resolution.getHash();
+    }
+
+    /**
+     * @return The policy for hedging this parser's slow API calls, null if they aren't hedged
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return mHedgingPolicy;
+    }
+
+    /**
+     * Builds a response for the passed-in media URL without making any API calls, for when the
+     * provider's API can't be reached. The media URLs in it are guessed from the URL's hash, so
+     * some of them may not work.
+     *
+     * @param mediaUrl The URL to build a response for
+     * @return A response guessed from the URL, null if this parser can't guess one
+     * @throws InvalidMediaUrlException When the URL has no hash this parser can use
+     */
+    public ParserResponse<T> getOfflineResponse(ParsedUrl mediaUrl)
+            throws InvalidMediaUrlException {
+        return null;
+    }
+
     /**
      * @return A Set of domain names that this parser can parse
      */
     public abstract Set<String> getValidDomains();
 
+    /**
+     * @return The limiter for this parser's API calls, null if they aren't limited
+     */
+    public RateLimiter getRateLimiter() {
+        return mRateLimiter;
+    }
+
+    /**
+     * @return The policy for retrying this parser's failed API calls, null if they aren't retried
+     */
+    public RetryPolicy getRetryPolicy() {
+        return mRetryPolicy;
+    }
+
+    /**
+     * @return True if this parser decodes API responses with the adapters from {@link
+     * #getMediaAdapterFactory()}, false if it decodes every field of the API models
+     */
+    public boolean isMediaFieldsOnly() {
+        return mMediaFieldsOnly && getMediaAdapterFactory() != null;
+    }
+
     /**
      * Parses a media URL and attempts to get a response from the respective API
      *
@@ -131,77 +260,1061 @@ public abstract class AbstractApiParser<T extends IMedia> {
      *                          API returns a null response or a response which the library could
      *                          not parse.
      */
-    public abstract ParserResponse<T> parse(URL mediaUrl) throws IOException, RuntimeException;
+    public ParserResponse<T> parse(URL mediaUrl) throws IOException, RuntimeException {
+        return parse(ParsedUrl.of(mediaUrl));
+    }
 
-    protected ParserResponse<T> getParserResponse(final URL mediaUrl,
-            final IApiResponse<T> apiResponse,
-            final Response httpResponse) throws IOException, InvalidApiResponseException {
-        if (httpResponse != null && !httpResponse.isSuccessful()) {
-            ResponseBody errorBody = httpResponse.errorBody();
-            String errorBodyString = "";
-            if (errorBody != null) {
-                errorBodyString = errorBody.string();
-                decodeError(errorBodyString);
+    /**
+     * Parses a media URL and attempts to get a response from the respective API, reusing any
+     * classification already done for the URL
+     *
+     * @param mediaUrl The URL to attempt to parse and get an API response for, null URLs are
+     *                 passed on from {@link #parse(URL)} and are invalid
+     * @return The parsed API response for the passed-in mediaUrl
+     * @throws IOException      When there was an error during the HTTP call
+     * @throws RuntimeException When the passed-in media URL was not supported by the parser, the
+     *                          API returns a null response or a response which the library could
+     *                          not parse.
+     */
+    public abstract ParserResponse<T> parse(ParsedUrl mediaUrl)
+            throws IOException, RuntimeException;
+
+    /**
+     * Parses a media URL like {@link #parse(ParsedUrl)}, giving up once the deadline passes or it
+     * is canceled. All the API calls the parse makes, including retries, share the deadline's
+     * budget.
+     *
+     * @param mediaUrl The URL to attempt to parse and get an API response for
+     * @param deadline The time budget for the parse
+     * @return The parsed API response for the passed-in mediaUrl
+     * @throws DeadlineExceededException When the deadline passed before the parse was done
+     * @throws InterruptedIOException    When the deadline was canceled
+     * @throws IOException               When there was an error during the HTTP call
+     * @throws RuntimeException          When the passed-in media URL was not supported by the
+     *                                   parser or the API returned an error
+     */
+    public ParserResponse<T> parse(ParsedUrl mediaUrl, Deadline deadline)
+            throws IOException, RuntimeException {
+        deadline.check();
+        Deadline previous = Deadline.enter(deadline);
+        try {
+            return parse(mediaUrl);
+        } finally {
+            Deadline.exit(previous);
+        }
+    }
+
+    /**
+     * Parses a media URL without blocking the calling thread. API calls are made with Retrofit's
+     * enqueue() so no thread is held while waiting for the API to respond.
+     *
+     * @param mediaUrl The URL to attempt to parse and get an API response for
+     * @return A future that completes with the parsed API response, or fails with the same
+     * Exception {@link #parse(URL)} would have thrown
+     */
+    public ParserFuture<T> parseAsync(URL mediaUrl) {
+        return parseAsync(ParsedUrl.of(mediaUrl));
+    }
+
+    /**
+     * Parses a media URL without blocking the calling thread, see {@link #parseAsync(URL)}
+     *
+     * @param mediaUrl The URL to attempt to parse and get an API response for
+     * @return A future that completes with the parsed API response, or fails with the same
+     * Exception {@link #parse(ParsedUrl)} would have thrown
+     */
+    public ParserFuture<T> parseAsync(ParsedUrl mediaUrl) {
+        ParserFuture<T> future = new ParserFuture<>();
+        try {
+            parseAsync(mediaUrl, future);
+        } catch (IOException | RuntimeException e) {
+            future.setException(e);
+        }
+        return future;
+    }
+
+    /**
+     * Parses a media URL and returns its media one at a time, see {@link #parseStream(ParsedUrl)}
+     *
+     * @param mediaUrl The URL to attempt to parse and get the media for
+     * @return The media of the URL, the stream must be read to the end or closed
+     * @throws IOException      When there was an error during the HTTP call
+     * @throws RuntimeException When the passed-in media URL was not supported by the parser or the
+     *                          API returned an error
+     */
+    public MediaStream<T> parseStream(URL mediaUrl) throws IOException, RuntimeException {
+        return parseStream(ParsedUrl.of(mediaUrl));
+    }
+
+    /**
+     * Parses a media URL and returns its media one at a time. Albums of parsers that support it,
+     * see {@link #getStreamSource(ParsedUrl)}, are decoded while the API response is read, so the
+     * first media can be used before the rest of a very large album has arrived. Other URLs are
+     * parsed with {@link #parse(ParsedUrl)} and their media returned from the parsed response.
+     *
+     * @param mediaUrl The URL to attempt to parse and get the media for
+     * @return The media of the URL, the stream must be read to the end or closed
+     * @throws IOException      When there was an error during the HTTP call
+     * @throws RuntimeException When the passed-in media URL was not supported by the parser or the
+     *                          API returned an error
+     */
+    public MediaStream<T> parseStream(ParsedUrl mediaUrl) throws IOException, RuntimeException {
+        MediaStream.Source<T> source = getStreamSource(mediaUrl);
+        if (source == null) return MediaStream.of(parse(mediaUrl));
+        return newMediaStream(mediaUrl, source, execute(source.getCall()));
+    }
+
+    /**
+     * Parses a media URL without blocking the calling thread and passes each media to the
+     * callback as soon as it has been decoded, see {@link #parseStream(ParsedUrl)}
+     *
+     * @param mediaUrl The URL to attempt to parse and get the media for
+     * @param callback Receives the media, then either onComplete() or onFailure()
+     */
+    public void parseStreamAsync(final ParsedUrl mediaUrl,
+            final MediaStream.Callback<T> callback) {
+        openStreamAsync(mediaUrl, new MediaStream.OpenCallback<T>() {
+            @Override
+            public void onOpen(MediaStream<T> stream) {
+                stream.readAll(callback);
             }
-            String errorString = String.format("API Error %d\nMessage: %s\nError Body:%s",
-                    httpResponse.code(),
-                    httpResponse.message(),
-                    errorBodyString);
-            throw new InvalidApiResponseException(mediaUrl, errorString);
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                callback.onFailure(throwable);
+            }
+        });
+    }
+
+    /**
+     * Parses a media URL without blocking the calling thread and passes its stream to the
+     * callback once the API has responded, the same point {@link #parseStream(ParsedUrl)} returns
+     * at. The callback may be called from the OkHttpClient's dispatcher.
+     *
+     * @param mediaUrl The URL to attempt to parse and get the media for
+     * @param callback Receives the stream or the reason the parse failed
+     */
+    public void openStreamAsync(final ParsedUrl mediaUrl,
+            final MediaStream.OpenCallback<T> callback) {
+        final MediaStream.Source<T> source;
+        try {
+            source = getStreamSource(mediaUrl);
+        } catch (IOException | RuntimeException e) {
+            callback.onFailure(e);
+            return;
+        }
+
+        if (source == null) {
+            parseAsync(mediaUrl).addCallback(new ParserCallback<T>() {
+                @Override
+                public void onSuccess(ParserResponse<T> response) {
+                    callback.onOpen(MediaStream.of(response));
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    callback.onFailure(throwable);
+                }
+            });
+            return;
         }
 
+        try {
+            enqueueWithRetries(source.getCall(), null, new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    MediaStream<T> stream;
+                    try {
+                        stream = newMediaStream(mediaUrl, source, response);
+                    } catch (IOException | RuntimeException e) {
+                        callback.onFailure(e);
+                        return;
+                    }
+                    callback.onOpen(stream);
+                }
+
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    callback.onFailure(t);
+                }
+            });
+        } catch (IOException e) {
+            callback.onFailure(e);
+        }
+    }
+
+    /**
+     * Hedges the API calls this parser makes: a call that hasn't responded once the policy's
+     * delay has passed is made a second time, the first successful response is used and the other
+     * call is canceled. Only calls that {@link #isHedgeable(Call)} allows are hedged. Hedged calls
+     * are made from the OkHttpClient's dispatcher, even for blocking parses, so its per-host limit
+     * on concurrent requests applies to them. Calls that already started keep their policy.
+     *
+     * @param hedgingPolicy The policy to use, it shouldn't be shared with parsers for other
+     *                      providers. Null to never hedge API calls
+     */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        mHedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * Limits the rate of the API calls this parser makes. Calls that would have to wait too long
+     * fail with a {@link com.fernandobarillas.albumparser.exception.RateLimitExceededException}.
+     * Calls that already started keep their limiter.
+     *
+     * @param rateLimiter The limiter to use, it can be shared with other parsers for the same
+     *                    provider. Null to stop limiting the API calls
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        mRateLimiter = rateLimiter;
+    }
+
+    /**
+     * Retries the API calls this parser makes when they fail with a transient error, such as a
+     * 503 response or a connection failure. Calls that already started keep their policy.
+     *
+     * @param retryPolicy The policy to use, null to never retry API calls
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        mRetryPolicy = retryPolicy;
+    }
+
+    /**
+     * Starts parsing the passed-in media URL and completes the future once done. Parsers that make
+     * API calls should override this and use {@link #enqueue(Call, ParserFuture, ResponseHandler)},
+     * the default implementation runs {@link #parse(ParsedUrl)} on the calling thread.
+     *
+     * @param mediaUrl The URL to attempt to parse and get an API response for
+     * @param future   The future to complete with the parsed response
+     * @throws IOException      When there was an error before any HTTP call was made
+     * @throws RuntimeException When the passed-in media URL was not supported by the parser
+     */
+    protected void parseAsync(ParsedUrl mediaUrl, ParserFuture<T> future)
+            throws IOException, RuntimeException {
+        future.set(parse(mediaUrl));
+    }
+
+    /**
+     * Makes a synchronous API call. All of the blocking calls a parser makes go through here.
+     *
+     * @param call The call to execute
+     * @return The HTTP response for the call, the last attempt's response if it was retried
+     * @throws IOException When there was an error during the HTTP call
+     */
+    protected <R> Response<R> execute(Call<R> call) throws IOException {
+        Deadline deadline = Deadline.current();
+        RetryPolicy retryPolicy = mRetryPolicy;
+        if (retryPolicy == null) return executeWhenPermitted(call, deadline);
+
+        long startNanos = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            long delayMillis;
+            try {
+                Response<R> response = executeWhenPermitted(call, deadline);
+                delayMillis = retryPolicy.getRetryDelayMillis(attempt,
+                        startNanos,
+                        deadline,
+                        response.code(),
+                        response.headers());
+                if (delayMillis == RetryPolicy.NO_RETRY || call.isCanceled()) {
+                    retryPolicy.recordResult(attempt, response.isSuccessful());
+                    return response;
+                }
+                closeErrorBody(response);
+            } catch (IOException e) {
+                delayMillis = retryPolicy.getRetryDelayMillis(attempt, startNanos, deadline, e);
+                if (delayMillis == RetryPolicy.NO_RETRY || call.isCanceled()) {
+                    retryPolicy.recordResult(attempt, false);
+                    throw e;
+                }
+            }
+
+            retryPolicy.recordRetry(delayMillis);
+            try {
+                if (deadline != null) {
+                    // Canceling the parse ends the wait
+                    deadline.sleep(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+                } else {
+                    TimeUnit.MILLISECONDS.sleep(delayMillis);
+                }
+            } catch (InterruptedIOException e) {
+                retryPolicy.recordResult(attempt, false);
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                retryPolicy.recordResult(attempt, false);
+                throw new InterruptedIOException("Interrupted while waiting to retry");
+            }
+            call = call.clone();
+        }
+    }
+
+    /**
+     * Makes an asynchronous API call, passing the response to the handler. Any Exception thrown by
+     * the handler or the HTTP call fails the future.
+     *
+     * @param call    The call to enqueue
+     * @param future  The future for the parse this call is being made for
+     * @param handler Handles the HTTP response, usually by completing the future or enqueueing
+     *                another call
+     */
+    protected <R> void enqueue(final Call<R> call,
+            final ParserFuture<T> future,
+            final ResponseHandler<R> handler) {
+        future.setCall(call);
+        try {
+            enqueueWithRetries(call, future, new Callback<R>() {
+                @Override
+                public void onResponse(Call<R> call, Response<R> response) {
+                    try {
+                        handler.onResponse(response);
+                    } catch (IOException | RuntimeException e) {
+                        future.setException(e);
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<R> call, Throwable t) {
+                    future.setException(t);
+                }
+            });
+        } catch (IOException e) {
+            future.setException(e);
+        }
+    }
+
+    /**
+     * Makes an asynchronous API call and completes the future with the result of {@link
+     * #getParserResponse(ParsedUrl, IApiResponse, Response)}
+     *
+     * @param mediaUrl The URL being parsed
+     * @param call     The call to enqueue
+     * @param future   The future for the parse this call is being made for
+     */
+    protected <R extends IApiResponse<T>> void enqueue(final ParsedUrl mediaUrl,
+            final Call<R> call,
+            final ParserFuture<T> future) {
+        enqueue(call, future, new ResponseHandler<R>() {
+            @Override
+            public void onResponse(Response<R> response) throws IOException {
+                future.set(getParserResponse(mediaUrl, response.body(), response));
+            }
+        });
+    }
+
+    /**
+     * Checks the API and HTTP responses for errors and wraps the API response
+     *
+     * @param parsedUrl    The URL being parsed
+     * @param apiResponse  The decoded API response
+     * @param httpResponse The HTTP response the API response came from, may be null
+     * @return The response for the parsed URL
+     * @throws IOException                 When the error body couldn't be read
+     * @throws InvalidApiResponseException When the API returned an error or a null response
+     */
+    protected ParserResponse<T> getParserResponse(final ParsedUrl parsedUrl,
+            final IApiResponse<T> apiResponse,
+            final Response httpResponse) throws IOException, InvalidApiResponseException {
+        checkHttpResponse(parsedUrl, httpResponse);
+
         if (apiResponse == null) {
-            throw new InvalidApiResponseException(mediaUrl, "The API response was null");
+            throw new InvalidApiResponseException(getUrl(parsedUrl), "The API response was null");
         }
 
         if (!apiResponse.isSuccessful()) {
-            throw new InvalidApiResponseException(mediaUrl, apiResponse.getErrorMessage());
+            throw new InvalidApiResponseException(getUrl(parsedUrl),
+                    apiResponse.getErrorMessage());
         }
         ParserResponse<T> parserResponse = new ParserResponse<>(apiResponse);
-        parserResponse.setOriginalUrl(mediaUrl);
+        parserResponse.setOriginalUrl(parsedUrl != null ? parsedUrl.getMediaUrl() : null);
         parserResponse.setApiProviderName(getBaseDomain());
-        parserResponse.setHash(getHash(mediaUrl));
+        parserResponse.setHash(getHash(parsedUrl));
         return parserResponse;
     }
 
     /**
-     * @return A Retrofit instance for the passed-in API URL.
+     * Parsers whose API models have many fields that IMedia doesn't use can return adapters that
+     * only read the fields that are needed and skip the rest of the JSON, which saves decoding
+     * time and memory. They're used when the parser was created with mediaFieldsOnly set.
+     *
+     * @return A factory for Moshi adapters of this parser's API models, null to always decode
+     * every field
+     */
+    protected JsonAdapter.Factory getMediaAdapterFactory() {
+        return null;
+    }
+
+    /**
+     * @return The Moshi instance this parser's API responses are decoded with
+     * @see #getServices()
+     */
+    protected Moshi getMoshi() {
+        return getServices().getMoshi();
+    }
+
+    /**
+     * @return The Retrofit instance for this parser's API URL
+     * @see #getServices()
      */
     protected Retrofit getRetrofit() {
-        Moshi moshi = new Moshi.Builder().add(new URLAdapter()).build();
-        Retrofit.Builder retrofitBuilder = new Retrofit.Builder()
-                .baseUrl(getApiUrl())
-                .addConverterFactory(MoshiConverterFactory.create(moshi));
-        if (mClient != null) {
-            retrofitBuilder = retrofitBuilder.client(mClient);
+        return getServices().getRetrofit();
+    }
+
+    /**
+     * Gets the Retrofit instance and service implementations for this parser's API. They are
+     * created on first use and reused for every later request, which also keeps the service method
+     * cache Retrofit builds internally.
+     *
+     * @return The services for this parser's API URL and OkHttpClient
+     */
+    protected RetrofitServices getServices() {
+        RetrofitServices services = mServices;
+        if (services == null) {
+            synchronized (this) {
+                services = mServices;
+                if (services == null) {
+                    Moshi moshi = isMediaFieldsOnly() ? newMoshi(getMediaAdapterFactory()) : MOSHI;
+                    Retrofit.Builder retrofitBuilder = new Retrofit.Builder()
+                            .baseUrl(getApiUrl())
+                            .addConverterFactory(MoshiConverterFactory.create(moshi));
+                    if (mClient != null) {
+                        retrofitBuilder = retrofitBuilder.client(mClient);
+                    }
+                    services = new RetrofitServices(retrofitBuilder.build(), moshi);
+                    mServices = services;
+                }
+            }
         }
-        return retrofitBuilder.build();
+        return services;
+    }
+
+    /**
+     * Parsers whose albums can be too large to decode all at once return where the album's media
+     * are in the API response, which lets {@link #parseStream(ParsedUrl)} decode the media one at
+     * a time while the response is being read.
+     *
+     * @param mediaUrl The URL being parsed
+     * @return The source of the album media, null to parse the URL with {@link
+     * #parse(ParsedUrl)} instead
+     * @throws IOException      When there was an error before any HTTP call was made
+     * @throws RuntimeException When the passed-in media URL was not supported by the parser
+     */
+    protected MediaStream.Source<T> getStreamSource(ParsedUrl mediaUrl)
+            throws IOException, RuntimeException {
+        return null;
     }
 
     /**
+     * Decides whether a call can be hedged, which makes it a second time while the first attempt
+     * is still in flight. The default implementation allows GET requests, parsers whose API has
+     * GET requests that change something on the server override this to exclude them.
+     *
+     * @param call The call about to be made
+     * @return True if making the call twice is harmless, false to never hedge it
+     */
+    protected boolean isHedgeable(Call<?> call) {
+        return "GET".equals(call.request().method());
+    }
+
+    /**
+     * Updates the rate limiter from the headers of an API response. Providers that report their
+     * remaining credits or quota in response headers override this and call {@link
+     * RateLimiter#updateCredits(long, long, long)}, the default implementation does nothing.
+     *
+     * @param rateLimiter The limiter for this parser's API calls
+     * @param headers     The headers of the API response
+     */
+    protected void updateRateLimit(RateLimiter rateLimiter, Headers headers) {
+    }
+
+    /**
+     * Finds the hash for the passed-in media URL. This is only called once for each ParsedUrl, use
+     * {@link #getHash(ParsedUrl)} to get the hash. The default implementation calls {@link
+     * #getHash(URL)}, parsers that look at the URL's path segments should override this instead.
+     *
+     * @param mediaUrl The URL to find the hash for
+     * @return A hash that can be used in an API call
+     * @throws InvalidMediaUrlException When the URL has no hash this parser can use
+     */
+    protected String findHash(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
+        return getHash(mediaUrl.getUrl());
+    }
+
+    /**
+     * Checks the domain of the passed-in URL with {@link #isValidHost(String)}. A valid domain is
+     * remembered in the ParsedUrl so later checks by this parser don't repeat the work.
+     *
      * @param mediaUrl The URL to check for a valid domain/host
      * @return True if the domain for the passed-in URL can be parsed by this parser, false
      * otherwise
      */
-    protected boolean isValidDomain(final URL mediaUrl) {
+    protected final boolean isValidDomain(final ParsedUrl mediaUrl) {
         if (mediaUrl == null) return false;
-        String domain = mediaUrl.getHost();
+        if (mediaUrl.isValidDomainFor(this)) return true;
+        if (!isValidHost(mediaUrl.getHost())) return false;
+        mediaUrl.setValidDomainFor(this);
+        return true;
+    }
+
+    /**
+     * @param mediaUrl The URL to check for a valid domain/host
+     * @return True if the domain for the passed-in URL can be parsed by this parser, false
+     * otherwise
+     */
+    protected boolean isValidDomain(final URL mediaUrl) {
+        return mediaUrl != null && isValidHost(mediaUrl.getHost());
+    }
 
+    /**
+     * Parsers that only accept some of their domains override this rather than {@link
+     * #isValidDomain(URL)}, so checking a {@link ParsedUrl} doesn't need a {@link URL}
+     *
+     * @param host The host of the URL to check
+     * @return True if URLs with the passed-in host can be parsed by this parser, false otherwise
+     */
+    protected boolean isValidHost(String host) {
         // @formatter:off
-        return ParseUtils.isDomainMatch(domain, getBaseDomain())
-                || ParseUtils.isDomainMatch(domain, getValidDomains());
+        return ParseUtils.isDomainMatch(host, getBaseDomain())
+                || ParseUtils.isDomainMatch(host, getValidDomains());
         // @formatter:on
     }
 
+    /**
+     * Handles the response for a call made with {@link #enqueue(Call, ParserFuture,
+     * ResponseHandler)}
+     */
+    protected interface ResponseHandler<R> {
+        void onResponse(Response<R> response) throws IOException;
+    }
+
+    /**
+     * Moshi uses the first factory that returns an adapter for a type, so the media adapters go
+     * ahead of the generated ones and both go ahead of Moshi's reflection
+     *
+     * @param mediaAdapterFactory The factory from {@link #getMediaAdapterFactory()}, null to
+     *                            decode every field
+     */
+    private static Moshi newMoshi(JsonAdapter.Factory mediaAdapterFactory) {
+        Moshi.Builder builder = new Moshi.Builder();
+        if (mediaAdapterFactory != null) builder.add(mediaAdapterFactory);
+        builder.add(new URLAdapter());
+        if (GeneratedCode.ADAPTER_FACTORY != null) builder.add(GeneratedCode.ADAPTER_FACTORY);
+        return builder.build();
+    }
+
+    /**
+     * @throws IOException                 When the error body couldn't be read
+     * @throws InvalidApiResponseException When the HTTP response has an error status code
+     */
+    private void checkHttpResponse(ParsedUrl mediaUrl, Response httpResponse)
+            throws IOException {
+        if (httpResponse == null || httpResponse.isSuccessful()) return;
+        ResponseBody errorBody = httpResponse.errorBody();
+        String errorBodyString = "";
+        if (errorBody != null) {
+            errorBodyString = errorBody.string();
+            decodeError(errorBodyString);
+        }
+        String errorString = String.format("API Error %d\nMessage: %s\nError Body:%s",
+                httpResponse.code(),
+                httpResponse.message(),
+                errorBodyString);
+        throw new InvalidApiResponseException(getUrl(mediaUrl), httpResponse.code(), errorString);
+    }
+
     private void decodeError(String jsonString) throws IOException {
         System.err.println("AbstractApiParser.decodeError: " + jsonString);
 
-        Moshi moshi = new Moshi.Builder().build();
+        Map<String, Object> blackjackHand = ERROR_ADAPTER.fromJson(jsonString);
+        System.err.println(blackjackHand);
+    }
 
-        Type map = Types.newParameterizedType(Map.class, String.class, Object.class);
-        JsonAdapter<Map<String, Object>> jsonAdapter = moshi.adapter(map);
+    private static void closeErrorBody(Response<?> response) {
+        ResponseBody errorBody = response.errorBody();
+        if (errorBody != null) errorBody.close();
+    }
 
-        Map<String, Object> blackjackHand = jsonAdapter.fromJson(jsonString);
-        System.err.println(blackjackHand);
+    /**
+     * Closes a response that won't be used, whether or not its body has been converted already
+     */
+    private static void closeResponse(Response<?> response) {
+        closeErrorBody(response);
+        Object body = response.body();
+        if (body instanceof Closeable) {
+            try {
+                ((Closeable) body).close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * @return The passed-in URL as a {@link URL} for the Exceptions that need one, null if it's
+     * null
+     */
+    private static URL getUrl(ParsedUrl mediaUrl) {
+        return mediaUrl != null ? mediaUrl.getUrl() : null;
+    }
+
+    /**
+     * Enqueues a call, retrying it with a clone of the call when the retry policy allows
+     *
+     * @param future The future for the parse the call is made for, it's given every retried call
+     *               so canceling it cancels the current attempt. Null if there's no future
+     * @throws IOException When the rate limiter sheds the first attempt
+     */
+    private <R> void enqueueWithRetries(Call<R> call,
+            ParserFuture<?> future,
+            Callback<R> callback) throws IOException {
+        RetryPolicy retryPolicy = mRetryPolicy;
+        if (retryPolicy == null) {
+            enqueueWhenPermitted(call, callback);
+            return;
+        }
+        enqueueWhenPermitted(call, new RetryingCallback<>(retryPolicy, future, callback));
+    }
+
+    /**
+     * Executes a call once the rate limiter permits it, updating the limiter with the response
+     *
+     * @param deadline The deadline of the parse making the call, null if it has none
+     */
+    private <R> Response<R> executeWhenPermitted(Call<R> call, Deadline deadline)
+            throws IOException {
+        RateLimiter rateLimiter = mRateLimiter;
+        HedgingPolicy hedgingPolicy = getHedgingPolicyFor(call);
+        if (rateLimiter != null && deadline != null) {
+            rateLimiter.acquire(deadline);
+        } else if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+        Response<R> response;
+        if (hedgingPolicy != null) {
+            response = executeHedged(call, hedgingPolicy, deadline);
+        } else {
+            response = deadline != null ? deadline.execute(call) : call.execute();
+        }
+        if (rateLimiter != null) updateRateLimit(rateLimiter, response.headers());
+        return response;
+    }
+
+    /**
+     * Makes a call and its hedge, if it needs one, blocking until the response to use arrives
+     *
+     * @param deadline The deadline of the parse making the call, null if it has none
+     */
+    private <R> Response<R> executeHedged(Call<R> call,
+            HedgingPolicy hedgingPolicy,
+            Deadline deadline) throws IOException {
+        if (deadline != null) deadline.start(call);
+        BlockingCallback<R> callback = new BlockingCallback<>();
+        HedgedCall<R> hedgedCall = new HedgedCall<>(call, hedgingPolicy, deadline, callback);
+        hedgedCall.start();
+        try {
+            callback.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            hedgedCall.cancel();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        }
+        return callback.getResponse(deadline);
+    }
+
+    /**
+     * Enqueues a call once the rate limiter permits it, updating the limiter with the response
+     *
+     * @throws IOException When the rate limiter sheds the call
+     */
+    private <R> void enqueueWhenPermitted(final Call<R> call, final Callback<R> callback)
+            throws IOException {
+        final RateLimiter rateLimiter = mRateLimiter;
+        final HedgingPolicy hedgingPolicy = getHedgingPolicyFor(call);
+        if (rateLimiter == null) {
+            startCall(call, hedgingPolicy, callback);
+            return;
+        }
+        final Callback<R> updatingCallback = new Callback<R>() {
+            @Override
+            public void onResponse(Call<R> call, Response<R> response) {
+                updateRateLimit(rateLimiter, response.headers());
+                callback.onResponse(call, response);
+            }
+
+            @Override
+            public void onFailure(Call<R> call, Throwable t) {
+                callback.onFailure(call, t);
+            }
+        };
+        rateLimiter.acquire(new Runnable() {
+            @Override
+            public void run() {
+                startCall(call, hedgingPolicy, updatingCallback);
+            }
+        });
+    }
+
+    /**
+     * Runs a callback where the callbacks of enqueued calls run: on Retrofit's callback executor
+     * when it has one, otherwise on the OkHttpClient's dispatcher. Keeps slow callbacks off
+     * {@link ParserTimer}'s single thread.
+     */
+    private void dispatchCallback(Runnable callback) {
+        Retrofit retrofit = getRetrofit();
+        Executor executor = retrofit.callbackExecutor();
+        if (executor == null && retrofit.callFactory() instanceof OkHttpClient) {
+            executor = ((OkHttpClient) retrofit.callFactory()).dispatcher().executorService();
+        }
+        if (executor != null) {
+            try {
+                executor.execute(callback);
+                return;
+            } catch (RejectedExecutionException ignored) {
+                // The executor was shut down, the callback still has to run
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * @return The hedging policy to make the call with, null if it shouldn't be hedged
+     */
+    private HedgingPolicy getHedgingPolicyFor(Call<?> call) {
+        HedgingPolicy hedgingPolicy = mHedgingPolicy;
+        if (hedgingPolicy == null || !isHedgeable(call)) return null;
+        return hedgingPolicy;
+    }
+
+    /**
+     * Enqueues a call, hedging it when it has a hedging policy
+     */
+    private <R> void startCall(Call<R> call, HedgingPolicy hedgingPolicy, Callback<R> callback) {
+        if (hedgingPolicy == null) {
+            call.enqueue(callback);
+            return;
+        }
+        new HedgedCall<>(call, hedgingPolicy, null, callback).start();
+    }
+
+    private MediaStream<T> newMediaStream(ParsedUrl mediaUrl,
+            MediaStream.Source<T> source,
+            Response<ResponseBody> response) throws IOException {
+        checkHttpResponse(mediaUrl, response);
+        ResponseBody body = response.body();
+        if (body == null) {
+            throw new InvalidApiResponseException(mediaUrl.getUrl(), "The API response was null");
+        }
+        return new MediaStream<>(mediaUrl.getMediaUrl(), body, source);
+    }
+
+    /**
+     * Lets a blocking parse wait for the outcome of a {@link HedgedCall}
+     */
+    private static class BlockingCallback<R> implements Callback<R> {
+        private final CountDownLatch mLatch = new CountDownLatch(1);
+
+        private Call<R>     mCall;
+        private Response<R> mResponse;
+        private Throwable   mFailure;
+
+        @Override
+        public void onResponse(Call<R> call, Response<R> response) {
+            mCall = call;
+            mResponse = response;
+            mLatch.countDown();
+        }
+
+        @Override
+        public void onFailure(Call<R> call, Throwable t) {
+            mCall = call;
+            mFailure = t;
+            mLatch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            mLatch.await();
+        }
+
+        /**
+         * @param deadline The deadline of the parse that made the call, null if it has none
+         * @return The response of the call, once {@link #await()} has returned
+         * @throws IOException When the call failed, with the same Exception execute() would throw
+         */
+        Response<R> getResponse(Deadline deadline) throws IOException {
+            if (mFailure == null) return mResponse;
+            if (mFailure instanceof IOException) {
+                IOException failure = (IOException) mFailure;
+                throw deadline != null ? deadline.getFailure(mCall, failure) : failure;
+            }
+            if (mFailure instanceof RuntimeException) throw (RuntimeException) mFailure;
+            if (mFailure instanceof Error) throw (Error) mFailure;
+            throw new IOException(mFailure);
+        }
+    }
+
+    /**
+     * Enqueues a call and, if it hasn't responded once the hedging policy's delay has passed, a
+     * clone of it. The first successful response is passed to the wrapped callback and the other
+     * call is canceled. When neither call succeeds the last outcome is passed on, an error
+     * response is preferred over an exception since it says more about what went wrong.
+     */
+    private class HedgedCall<R> implements Callback<R> {
+        private final Call<R>       mPrimary;
+        private final HedgingPolicy mHedgingPolicy;
+        private final Deadline      mDeadline;
+        private final Callback<R>   mCallback;
+        private final long          mStartNanos = System.nanoTime();
+        /** The parser's limiter when the call started, the hedge is limited by it too */
+        private final RateLimiter   mRateLimiter = AbstractApiParser.this.mRateLimiter;
+
+        private Call<R>            mHedge;
+        private long               mHedgeStartNanos;
+        private ScheduledFuture<?> mTimer;
+        private int                mPending = 1;
+        private boolean            mIsDone;
+        /** An error response kept while the other call may still succeed */
+        private Call<R>            mHeldCall;
+        private Response<R>        mHeldResponse;
+
+        /**
+         * @param deadline The deadline the primary call was started with, its hedge is started
+         *                 with it too. Null if there's no deadline
+         */
+        HedgedCall(Call<R> primary,
+                HedgingPolicy hedgingPolicy,
+                Deadline deadline,
+                Callback<R> callback) {
+            mPrimary = primary;
+            mHedgingPolicy = hedgingPolicy;
+            mDeadline = deadline;
+            mCallback = callback;
+        }
+
+        @Override
+        public void onResponse(Call<R> call, Response<R> response) {
+            if (mDeadline != null) mDeadline.finish(call);
+            Call<R> loser;
+            Response<R> heldResponse;
+            synchronized (this) {
+                if (mIsDone) {
+                    // The other call's outcome was already passed on
+                    closeResponse(response);
+                    return;
+                }
+                long startNanos = call == mHedge ? mHedgeStartNanos : mStartNanos;
+                mHedgingPolicy.recordLatency(System.nanoTime() - startNanos);
+                mPending--;
+                if (!response.isSuccessful() && mPending > 0) {
+                    // The other call may still succeed
+                    mHeldCall = call;
+                    mHeldResponse = response;
+                    return;
+                }
+                heldResponse = mHeldResponse;
+                loser = complete(call, response.isSuccessful());
+            }
+            if (loser != null) cancel(loser);
+            if (heldResponse != null) closeResponse(heldResponse);
+            mCallback.onResponse(call, response);
+        }
+
+        @Override
+        public void onFailure(Call<R> call, Throwable t) {
+            if (mDeadline != null) mDeadline.finish(call);
+            Call<R> loser;
+            Call<R> heldCall;
+            Response<R> heldResponse;
+            synchronized (this) {
+                if (mIsDone) return;
+                mPending--;
+                // A call canceled by the deadline or the parse's future takes the other one with
+                // it, any other failure waits for the other call
+                if (mPending > 0 && !call.isCanceled()) return;
+                heldCall = mHeldCall;
+                heldResponse = mHeldResponse;
+                loser = complete(call, false);
+            }
+            if (loser != null) cancel(loser);
+            if (heldResponse != null && !call.isCanceled()) {
+                mCallback.onResponse(heldCall, heldResponse);
+                return;
+            }
+            if (heldResponse != null) closeResponse(heldResponse);
+            mCallback.onFailure(call, t);
+        }
+
+        /**
+         * Cancels both calls without passing anything on to the wrapped callback
+         */
+        void cancel() {
+            Call<R> hedge;
+            synchronized (this) {
+                mIsDone = true;
+                cancelTimer();
+                hedge = mHedge;
+            }
+            cancel(mPrimary);
+            if (hedge != null) cancel(hedge);
+        }
+
+        /**
+         * Enqueues the primary call and schedules its hedge
+         */
+        void start() {
+            mHedgingPolicy.recordRequest();
+            long delayMillis = mHedgingPolicy.getHedgeDelayMillis();
+            mPrimary.enqueue(this);
+            ScheduledFuture<?> timer = ParserTimer.EXECUTOR.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    hedge();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+            synchronized (this) {
+                if (mIsDone) {
+                    timer.cancel(false);
+                } else {
+                    mTimer = timer;
+                }
+            }
+        }
+
+        private void cancel(Call<R> call) {
+            call.cancel();
+            if (mDeadline != null) mDeadline.finish(call);
+        }
+
+        private void cancelTimer() {
+            if (mTimer == null) return;
+            mTimer.cancel(false);
+            mTimer = null;
+        }
+
+        /**
+         * Marks the hedged call as done, must be called while holding the lock
+         *
+         * @param call       The call whose outcome is passed on
+         * @param successful True if the call got a successful response
+         * @return The other call if it's still in flight, null otherwise
+         */
+        private Call<R> complete(Call<R> call, boolean successful) {
+            mIsDone = true;
+            cancelTimer();
+            if (mHedge != null) mHedgingPolicy.recordHedge(successful && call == mHedge);
+            if (mPending == 0) return null;
+            return call == mPrimary ? mHedge : mPrimary;
+        }
+
+        /**
+         * Sends the hedge if the primary call is still in flight and the budget, the rate limiter
+         * and the deadline all allow it. Runs on the timer thread.
+         */
+        private void hedge() {
+            synchronized (this) {
+                mTimer = null;
+                if (mIsDone || mPrimary.isCanceled()) return;
+            }
+            if (!mHedgingPolicy.tryHedge()) return;
+            RateLimiter rateLimiter = mRateLimiter;
+            if (rateLimiter != null && !rateLimiter.tryAcquire()) return;
+
+            Call<R> hedge = mPrimary.clone();
+            if (mDeadline != null) {
+                try {
+                    mDeadline.start(hedge);
+                } catch (InterruptedIOException e) {
+                    // The primary call is being canceled by the deadline too
+                    return;
+                }
+            }
+            boolean isSent;
+            synchronized (this) {
+                isSent = !mIsDone;
+                if (isSent) {
+                    mHedge = hedge;
+                    mHedgeStartNanos = System.nanoTime();
+                    mPending++;
+                }
+            }
+            if (!isSent) {
+                if (mDeadline != null) mDeadline.finish(hedge);
+                return;
+            }
+            hedge.enqueue(this);
+        }
+    }
+
+    /**
+     * Passes the response or failure of the last attempt of a call to the wrapped callback,
+     * enqueueing clones of the call from the timer thread while the retry policy allows it
+     */
+    private class RetryingCallback<R> implements Callback<R> {
+        private final RetryPolicy     mRetryPolicy;
+        private final ParserFuture<?> mFuture;
+        private final Callback<R>     mCallback;
+        private final long            mStartNanos = System.nanoTime();
+
+        private int mAttempt = 1;
+
+        RetryingCallback(RetryPolicy retryPolicy, ParserFuture<?> future, Callback<R> callback) {
+            mRetryPolicy = retryPolicy;
+            mFuture = future;
+            mCallback = callback;
+        }
+
+        @Override
+        public void onResponse(Call<R> call, Response<R> response) {
+            long delayMillis = mRetryPolicy.getRetryDelayMillis(mAttempt,
+                    mStartNanos,
+                    null,
+                    response.code(),
+                    response.headers());
+            if (delayMillis == RetryPolicy.NO_RETRY || call.isCanceled()) {
+                mRetryPolicy.recordResult(mAttempt, response.isSuccessful());
+                mCallback.onResponse(call, response);
+                return;
+            }
+            closeErrorBody(response);
+            retry(call, delayMillis);
+        }
+
+        @Override
+        public void onFailure(Call<R> call, Throwable t) {
+            long delayMillis = RetryPolicy.NO_RETRY;
+            if (t instanceof IOException) {
+                delayMillis = mRetryPolicy.getRetryDelayMillis(mAttempt,
+                        mStartNanos,
+                        null,
+                        (IOException) t);
+            }
+            if (delayMillis == RetryPolicy.NO_RETRY || call.isCanceled()) {
+                mRetryPolicy.recordResult(mAttempt, false);
+                mCallback.onFailure(call, t);
+                return;
+            }
+            retry(call, delayMillis);
+        }
+
+        private void retry(Call<R> call, long delayMillis) {
+            mRetryPolicy.recordRetry(delayMillis);
+            mAttempt++;
+            final Call<R> nextCall = call.clone();
+            if (mFuture != null) mFuture.setCall(nextCall);
+            ParserTimer.EXECUTOR.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        enqueueWhenPermitted(nextCall, RetryingCallback.this);
+                    } catch (final IOException e) {
+                        mRetryPolicy.recordResult(mAttempt, false);
+                        dispatchCallback(new Runnable() {
+                            @Override
+                            public void run() {
+                                mCallback.onFailure(nextCall, e);
+                            }
+                        });
+                    }
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
     }
 }
@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
+import java.io.IOException;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Sends a provider's API calls to a different server, such as a local server that replays
+ * recorded responses for load testing. Every request to the provider's base domain or one of its
+ * subdomains is rewritten, including API hosts the parser hard codes in its Retrofit interface
+ * like api.imgur.com and upload.gfycat.com. The scheme, host and port are replaced with the ones
+ * of the API URL and its path is prepended to the request's path, the query is kept as is.
+ * <p>
+ * For example, with an API URL of http://localhost:8080/imgur a request to
+ * https://api.imgur.com/3/album/kvNbA is sent to http://localhost:8080/imgur/3/album/kvNbA
+ */
+public class ApiUrlInterceptor implements Interceptor {
+    private final String  mBaseDomain;
+    private final HttpUrl mApiUrl;
+    private final String  mPathPrefix;
+
+    /**
+     * @param baseDomain The base domain of the provider, for example: imgur.com, gfycat.com
+     * @param apiUrl     The URL of the server to send the provider's API calls to
+     * @throws IllegalArgumentException When the API URL isn't a valid http or https URL
+     */
+    public ApiUrlInterceptor(String baseDomain, String apiUrl) {
+        HttpUrl url = apiUrl != null ? HttpUrl.parse(apiUrl) : null;
+        if (baseDomain == null || url == null) {
+            throw new IllegalArgumentException("Invalid API URL for " + baseDomain + ": " + apiUrl);
+        }
+        mBaseDomain = baseDomain;
+        mApiUrl = url;
+        String path = url.encodedPath();
+        mPathPrefix = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    /**
+     * @return The URL of the server the provider's API calls are sent to
+     */
+    public HttpUrl getApiUrl() {
+        return mApiUrl;
+    }
+
+    /**
+     * @return The base domain of the provider whose API calls are rewritten
+     */
+    public String getBaseDomain() {
+        return mBaseDomain;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        HttpUrl url = request.url();
+        if (!ParseUtils.isDomainMatch(url.host(), mBaseDomain)) return chain.proceed(request);
+
+        HttpUrl newUrl = url.newBuilder()
+                .scheme(mApiUrl.scheme())
+                .host(mApiUrl.host())
+                .port(mApiUrl.port())
+                .encodedPath(mPathPrefix + url.encodedPath())
+                .build();
+        return chain.proceed(request.newBuilder().url(newUrl).build());
+    }
+
+    @Override
+    public String toString() {
+        return "ApiUrlInterceptor{" + mBaseDomain + " -> " + mApiUrl + '}';
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.CircuitBreakerOpenException;
+import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
+import com.fernandobarillas.albumparser.exception.RateLimitExceededException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops sending requests to a provider that is down, so callers fail right away instead of each
+ * waiting for a timeout. The breaker tracks the outcome of the provider's most recent requests
+ * and opens once the share of them that failed reaches the failure rate threshold. While open,
+ * every request is rejected without being sent.
+ * <p>
+ * After the open duration the breaker is half-open and lets a few probe requests through. If they
+ * all succeed the breaker closes and requests flow again, if any of them fails it opens for
+ * another open duration.
+ * <p>
+ * Only network errors, timeouts and 5xx responses count as failures. Other errors, such as a 404
+ * for a deleted image, show that the provider is up and count as successes.
+ */
+public class CircuitBreaker {
+    /** The default number of recent requests the failure rate is calculated over */
+    public static final int    DEFAULT_WINDOW_SIZE          = 20;
+    /** The default number of requests needed in the window before the breaker can open */
+    public static final int    DEFAULT_MINIMUM_REQUESTS     = 10;
+    /** The default share of failed requests in the window that opens the breaker */
+    public static final double DEFAULT_FAILURE_RATE         = 0.5;
+    /** The default time the breaker stays open before letting probe requests through */
+    public static final long   DEFAULT_OPEN_DURATION_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    /** The default number of probe requests that must succeed to close the breaker */
+    public static final int    DEFAULT_PROBE_REQUESTS       = 3;
+
+    private final String mProviderName;
+    private final int    mMinimumRequests;
+    private final double mFailureRateThreshold;
+    private final long   mOpenDurationNanos;
+    private final int    mProbeRequests;
+
+    /** The outcomes of the most recent requests, true for failures, used as a ring buffer */
+    private final boolean[] mWindow;
+    private       int       mWindowIndex;
+    private       int       mWindowCount;
+    private       int       mWindowFailures;
+
+    private State mState = State.CLOSED;
+    private long  mOpenedAt;
+    private int   mProbesInFlight;
+    private int   mProbeSuccesses;
+
+    private long mOpenedCount;
+    private long mRejectedCount;
+
+    private CircuitBreaker(String providerName,
+            int windowSize,
+            int minimumRequests,
+            double failureRateThreshold,
+            long openDurationMillis,
+            int probeRequests) {
+        mProviderName = providerName;
+        mWindow = new boolean[windowSize];
+        mMinimumRequests = minimumRequests;
+        mFailureRateThreshold = failureRateThreshold;
+        mOpenDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        mProbeRequests = probeRequests;
+    }
+
+    /**
+     * @param throwable The reason a request failed
+     * @return True if the failure suggests the provider is down
+     */
+    public static boolean isFailure(Throwable throwable) {
+        if (throwable instanceof InvalidApiResponseException) {
+            return ((InvalidApiResponseException) throwable).getStatusCode() >= 500;
+        }
+        return throwable instanceof IOException && !isIgnored(throwable);
+    }
+
+    /**
+     * Checks whether a request can be sent. Every request that was let through must have its
+     * outcome passed to {@link #onResult(Throwable)}.
+     *
+     * @throws CircuitBreakerOpenException When the breaker is open or already has the maximum
+     *                                     number of probe requests in flight
+     */
+    public synchronized void acquire() throws CircuitBreakerOpenException {
+        long now = nanoTime();
+        if (mState == State.OPEN) {
+            long openNanos = now - mOpenedAt;
+            if (openNanos < mOpenDurationNanos) {
+                mRejectedCount++;
+                throw new CircuitBreakerOpenException(mProviderName,
+                        TimeUnit.NANOSECONDS.toMillis(mOpenDurationNanos - openNanos));
+            }
+            mState = State.HALF_OPEN;
+            mProbesInFlight = 0;
+            mProbeSuccesses = 0;
+        }
+        if (mState == State.HALF_OPEN) {
+            if (mProbesInFlight + mProbeSuccesses >= mProbeRequests) {
+                mRejectedCount++;
+                throw new CircuitBreakerOpenException(mProviderName, 0);
+            }
+            mProbesInFlight++;
+        }
+    }
+
+    /**
+     * @return The share of the recent requests that failed, from 0 to 1
+     */
+    public synchronized double getFailureRate() {
+        return mWindowCount > 0 ? (double) mWindowFailures / mWindowCount : 0;
+    }
+
+    /**
+     * @return The number of times the breaker opened
+     */
+    public synchronized long getOpenedCount() {
+        return mOpenedCount;
+    }
+
+    /**
+     * @return The base domain of the provider this breaker is for, for example: gfycat.com
+     */
+    public String getProviderName() {
+        return mProviderName;
+    }
+
+    /**
+     * @return The number of requests rejected without being sent
+     */
+    public synchronized long getRejectedCount() {
+        return mRejectedCount;
+    }
+
+    /**
+     * @return The current state of the breaker
+     */
+    public synchronized State getState() {
+        if (mState == State.OPEN && nanoTime() - mOpenedAt >= mOpenDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return mState;
+    }
+
+    /**
+     * Records the outcome of a request that {@link #acquire()} let through
+     *
+     * @param throwable The reason the request failed, null if it succeeded
+     */
+    public synchronized void onResult(Throwable throwable) {
+        boolean ignored = throwable != null && isIgnored(throwable);
+        boolean failed = throwable != null && isFailure(throwable);
+        if (mState == State.HALF_OPEN) {
+            // Requests let through before the breaker opened can finish after it half-opened
+            if (mProbesInFlight > 0) mProbesInFlight--;
+            if (ignored) return;
+            if (failed) {
+                open();
+            } else if (++mProbeSuccesses >= mProbeRequests) {
+                close();
+            }
+            return;
+        }
+        // Requests that finish while the breaker is open were sent before it opened
+        if (ignored || mState == State.OPEN) return;
+
+        if (mWindowCount == mWindow.length) {
+            if (mWindow[mWindowIndex]) mWindowFailures--;
+        } else {
+            mWindowCount++;
+        }
+        mWindow[mWindowIndex] = failed;
+        if (failed) mWindowFailures++;
+        mWindowIndex = (mWindowIndex + 1) % mWindow.length;
+
+        if (mWindowCount >= mMinimumRequests
+                && mWindowFailures >= mFailureRateThreshold * mWindowCount) {
+            open();
+        }
+    }
+
+    /**
+     * Closes the breaker and forgets the outcome of every earlier request
+     */
+    public synchronized void reset() {
+        close();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker{"
+                + "providerName="
+                + mProviderName
+                + ", state="
+                + getState()
+                + ", failureRate="
+                + getFailureRate()
+                + ", opened="
+                + mOpenedCount
+                + ", rejected="
+                + mRejectedCount
+                + '}';
+    }
+
+    /**
+     * @return The current time in nanoseconds, overridden by tests
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Rejected, canceled and interrupted requests say nothing about the provider's health
+     */
+    private static boolean isIgnored(Throwable throwable) {
+        if (throwable instanceof CancellationException
+                || throwable instanceof CircuitBreakerOpenException
+                || throwable instanceof RateLimitExceededException) {
+            return true;
+        }
+        return throwable instanceof InterruptedIOException
+                && !(throwable instanceof SocketTimeoutException);
+    }
+
+    private void close() {
+        mState = State.CLOSED;
+        mWindowIndex = 0;
+        mWindowCount = 0;
+        mWindowFailures = 0;
+        mProbesInFlight = 0;
+        mProbeSuccesses = 0;
+    }
+
+    private void open() {
+        mState = State.OPEN;
+        mOpenedAt = nanoTime();
+        mOpenedCount++;
+    }
+
+    public enum State {
+        /** Requests are sent and their outcomes tracked */
+        CLOSED,
+        /** Requests are rejected without being sent */
+        OPEN,
+        /** A few probe requests are sent to check whether the provider is back */
+        HALF_OPEN
+    }
+
+    public static class Builder {
+        private int    newWindowSize         = DEFAULT_WINDOW_SIZE;
+        private int    newMinimumRequests    = DEFAULT_MINIMUM_REQUESTS;
+        private double newFailureRate        = DEFAULT_FAILURE_RATE;
+        private long   newOpenDurationMillis = DEFAULT_OPEN_DURATION_MILLIS;
+        private int    newProbeRequests      = DEFAULT_PROBE_REQUESTS;
+
+        public Builder() {
+        }
+
+        /**
+         * @param providerName The base domain of the provider the breaker is for, reported by
+         *                     the exceptions it throws
+         * @return A new CircuitBreaker instance with all the requested options set.
+         */
+        public CircuitBreaker build(String providerName) {
+            return new CircuitBreaker(providerName,
+                    newWindowSize,
+                    Math.min(newMinimumRequests, newWindowSize),
+                    newFailureRate,
+                    newOpenDurationMillis,
+                    newProbeRequests);
+        }
+
+        /**
+         * Sets the share of failed requests that opens the breaker. Defaults to {@link
+         * #DEFAULT_FAILURE_RATE}.
+         *
+         * @param failureRate     The failure rate, greater than 0 and at most 1
+         * @param windowSize      The number of recent requests the rate is calculated over
+         * @param minimumRequests How many requests need to be in the window before the breaker
+         *                        can open, it's capped at the window size
+         * @return The Builder instance with the new failure rate set.
+         */
+        public Builder failureRate(double failureRate, int windowSize, int minimumRequests) {
+            if (!(failureRate > 0 && failureRate <= 1)) {
+                throw new IllegalArgumentException(
+                        "failureRate must be greater than 0 and at most 1: " + failureRate);
+            }
+            if (windowSize < 1) {
+                throw new IllegalArgumentException(
+                        "windowSize must be at least 1: " + windowSize);
+            }
+            if (minimumRequests < 1) {
+                throw new IllegalArgumentException(
+                        "minimumRequests must be at least 1: " + minimumRequests);
+            }
+            newFailureRate = failureRate;
+            newWindowSize = windowSize;
+            newMinimumRequests = minimumRequests;
+            return this;
+        }
+
+        /**
+         * Sets how long the breaker stays open before letting probe requests through. Defaults to
+         * {@link #DEFAULT_OPEN_DURATION_MILLIS}.
+         *
+         * @param openDuration How long the breaker stays open
+         * @param unit         The unit of the passed-in duration
+         * @return The Builder instance with the new open duration set.
+         */
+        public Builder openDuration(long openDuration, TimeUnit unit) {
+            if (openDuration < 0) {
+                throw new IllegalArgumentException(
+                        "openDuration must not be negative: " + openDuration);
+            }
+            newOpenDurationMillis = unit.toMillis(openDuration);
+            return this;
+        }
+
+        /**
+         * Sets how many probe requests a half-open breaker lets through, all of them must succeed
+         * for the breaker to close. Defaults to {@link #DEFAULT_PROBE_REQUESTS}.
+         *
+         * @param probeRequests The number of probe requests
+         * @return The Builder instance with the new number of probes set.
+         */
+        public Builder probeRequests(int probeRequests) {
+            if (probeRequests < 1) {
+                throw new IllegalArgumentException(
+                        "probeRequests must be at least 1: " + probeRequests);
+            }
+            newProbeRequests = probeRequests;
+            return this;
+        }
+    }
+}
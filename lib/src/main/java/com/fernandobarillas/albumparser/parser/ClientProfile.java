@@ -0,0 +1,292 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Connection settings for the API calls made to a single provider. A profile derives its client
+ * from a base OkHttpClient with {@link OkHttpClient#newBuilder()}, so interceptors, proxies and
+ * caches set on the base client still apply, but gives it its own connection pool and dispatcher.
+ * That way a slow provider can only tie up its own connections and request slots, never another
+ * provider's.
+ * <p>
+ * Dispatchers created by a profile share the base client's executor, so the threads running
+ * asynchronous calls are still pooled between all providers.
+ */
+public class ClientProfile {
+    /** The default maximum number of idle connections kept open, the same as OkHttp's */
+    public static final int  DEFAULT_MAX_IDLE_CONNECTIONS  = 5;
+    /** The default time idle connections are kept open for, the same as OkHttp's */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS     = TimeUnit.MINUTES.toMillis(5);
+    /** The default maximum number of calls in flight at once, the same as OkHttp's */
+    public static final int  DEFAULT_MAX_REQUESTS          = 64;
+    /** The default maximum number of calls in flight to a single host, the same as OkHttp's */
+    public static final int  DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+
+    /** Used for timeouts that aren't set, which keep the base client's timeout */
+    private static final long INHERIT_TIMEOUT = -1;
+
+    private static final List<Protocol> HTTP_1_1_ONLY =
+            Collections.singletonList(Protocol.HTTP_1_1);
+    private static final List<Protocol> HTTP_2        =
+            Collections.unmodifiableList(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+
+    private final int     mMaxIdleConnections;
+    private final long    mKeepAliveMillis;
+    private final long    mConnectTimeoutMillis;
+    private final long    mReadTimeoutMillis;
+    private final int     mMaxRequests;
+    private final int     mMaxRequestsPerHost;
+    private final Boolean mHttp2;
+
+    private ClientProfile(int maxIdleConnections,
+            long keepAliveMillis,
+            long connectTimeoutMillis,
+            long readTimeoutMillis,
+            int maxRequests,
+            int maxRequestsPerHost,
+            Boolean http2) {
+        mMaxIdleConnections = maxIdleConnections;
+        mKeepAliveMillis = keepAliveMillis;
+        mConnectTimeoutMillis = connectTimeoutMillis;
+        mReadTimeoutMillis = readTimeoutMillis;
+        mMaxRequests = maxRequests;
+        mMaxRequestsPerHost = maxRequestsPerHost;
+        mHttp2 = http2;
+    }
+
+    /**
+     * @return The connect timeout in milliseconds, -1 if the base client's timeout is kept
+     */
+    public long getConnectTimeoutMillis() {
+        return mConnectTimeoutMillis;
+    }
+
+    /**
+     * @return The time in milliseconds idle connections are kept open for
+     */
+    public long getKeepAliveMillis() {
+        return mKeepAliveMillis;
+    }
+
+    /**
+     * @return The maximum number of idle connections kept open
+     */
+    public int getMaxIdleConnections() {
+        return mMaxIdleConnections;
+    }
+
+    /**
+     * @return The maximum number of asynchronous calls in flight at once
+     */
+    public int getMaxRequests() {
+        return mMaxRequests;
+    }
+
+    /**
+     * @return The maximum number of asynchronous calls in flight to a single host at once
+     */
+    public int getMaxRequestsPerHost() {
+        return mMaxRequestsPerHost;
+    }
+
+    /**
+     * @return The read timeout in milliseconds, -1 if the base client's timeout is kept
+     */
+    public long getReadTimeoutMillis() {
+        return mReadTimeoutMillis;
+    }
+
+    /**
+     * Creates a client with this profile's settings. Each call returns a client with a new
+     * connection pool and dispatcher.
+     *
+     * @param baseClient The client to derive the new client from
+     * @return A new client with this profile's settings and everything else from the base client
+     */
+    public OkHttpClient newClient(OkHttpClient baseClient) {
+        Dispatcher dispatcher = new Dispatcher(baseClient.dispatcher().executorService());
+        dispatcher.setMaxRequests(mMaxRequests);
+        dispatcher.setMaxRequestsPerHost(mMaxRequestsPerHost);
+
+        OkHttpClient.Builder builder = baseClient.newBuilder()
+                .connectionPool(new ConnectionPool(mMaxIdleConnections,
+                        mKeepAliveMillis,
+                        TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher);
+        if (mConnectTimeoutMillis != INHERIT_TIMEOUT) {
+            builder.connectTimeout(mConnectTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        if (mReadTimeoutMillis != INHERIT_TIMEOUT) {
+            builder.readTimeout(mReadTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        if (mHttp2 != null) builder.protocols(mHttp2 ? HTTP_2 : HTTP_1_1_ONLY);
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "ClientProfile{"
+                + "maxIdleConnections="
+                + mMaxIdleConnections
+                + ", keepAliveMillis="
+                + mKeepAliveMillis
+                + ", connectTimeoutMillis="
+                + mConnectTimeoutMillis
+                + ", readTimeoutMillis="
+                + mReadTimeoutMillis
+                + ", maxRequests="
+                + mMaxRequests
+                + ", maxRequestsPerHost="
+                + mMaxRequestsPerHost
+                + ", http2="
+                + mHttp2
+                + '}';
+    }
+
+    public static class Builder {
+        private int     newMaxIdleConnections   = DEFAULT_MAX_IDLE_CONNECTIONS;
+        private long    newKeepAliveMillis      = DEFAULT_KEEP_ALIVE_MILLIS;
+        private long    newConnectTimeoutMillis = INHERIT_TIMEOUT;
+        private long    newReadTimeoutMillis    = INHERIT_TIMEOUT;
+        private int     newMaxRequests          = DEFAULT_MAX_REQUESTS;
+        private int     newMaxRequestsPerHost   = DEFAULT_MAX_REQUESTS_PER_HOST;
+        private Boolean newHttp2;
+
+        public Builder() {
+        }
+
+        /**
+         * @return A new ClientProfile instance with all the requested options set.
+         */
+        public ClientProfile build() {
+            return new ClientProfile(newMaxIdleConnections,
+                    newKeepAliveMillis,
+                    newConnectTimeoutMillis,
+                    newReadTimeoutMillis,
+                    newMaxRequests,
+                    newMaxRequestsPerHost,
+                    newHttp2);
+        }
+
+        /**
+         * Sets the maximum number of idle connections to keep open and how long to keep them.
+         * Defaults to {@link #DEFAULT_MAX_IDLE_CONNECTIONS} connections for {@link
+         * #DEFAULT_KEEP_ALIVE_MILLIS}.
+         *
+         * @param maxIdleConnections The maximum number of idle connections, 0 to close connections
+         *                           as soon as they're idle
+         * @param keepAlive          How long an idle connection is kept open for
+         * @param unit               The unit of the passed-in keep-alive
+         * @return The Builder instance with the new connection pool settings set.
+         */
+        public Builder connectionPool(int maxIdleConnections, long keepAlive, TimeUnit unit) {
+            if (maxIdleConnections < 0) {
+                throw new IllegalArgumentException(
+                        "maxIdleConnections must not be negative: " + maxIdleConnections);
+            }
+            if (keepAlive <= 0) {
+                throw new IllegalArgumentException("keepAlive must be positive: " + keepAlive);
+            }
+            newMaxIdleConnections = maxIdleConnections;
+            newKeepAliveMillis = unit.toMillis(keepAlive);
+            return this;
+        }
+
+        /**
+         * Sets the connect timeout. Defaults to the base client's timeout.
+         *
+         * @param timeout The connect timeout, 0 for no timeout
+         * @param unit    The unit of the passed-in timeout
+         * @return The Builder instance with the new timeout set.
+         */
+        public Builder connectTimeout(long timeout, TimeUnit unit) {
+            newConnectTimeoutMillis = checkTimeout(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Sets whether HTTP/2 is negotiated with providers that support it. HTTP/2 multiplexes
+         * every call to a host over a single connection, turning it off makes each call in
+         * flight use its own connection. Defaults to the base client's protocols.
+         *
+         * @param http2 True to allow HTTP/2 and HTTP/1.1, false to only use HTTP/1.1
+         * @return The Builder instance with the new protocols set.
+         */
+        public Builder http2(boolean http2) {
+            newHttp2 = http2;
+            return this;
+        }
+
+        /**
+         * Sets how many asynchronous calls can be in flight at once, more are queued. Defaults to
+         * {@link #DEFAULT_MAX_REQUESTS} calls and {@link #DEFAULT_MAX_REQUESTS_PER_HOST} calls per
+         * host.
+         *
+         * @param maxRequests        The maximum number of calls in flight
+         * @param maxRequestsPerHost The maximum number of calls in flight to a single host
+         * @return The Builder instance with the new limits set.
+         */
+        public Builder maxRequests(int maxRequests, int maxRequestsPerHost) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException(
+                        "maxRequests must be at least 1: " + maxRequests);
+            }
+            if (maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException(
+                        "maxRequestsPerHost must be at least 1: " + maxRequestsPerHost);
+            }
+            newMaxRequests = maxRequests;
+            newMaxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets the read timeout, which applies to each read from the connection rather than the
+         * whole response. Defaults to the base client's timeout.
+         *
+         * @param timeout The read timeout, 0 for no timeout
+         * @param unit    The unit of the passed-in timeout
+         * @return The Builder instance with the new timeout set.
+         */
+        public Builder readTimeout(long timeout, TimeUnit unit) {
+            newReadTimeoutMillis = checkTimeout(timeout, unit);
+            return this;
+        }
+
+        private static long checkTimeout(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+            }
+            return unit.toMillis(timeout);
+        }
+    }
+}
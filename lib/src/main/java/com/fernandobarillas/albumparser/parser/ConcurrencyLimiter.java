@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.media.IMedia;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Limits how many asynchronous parses can be in flight at once. Parses submitted while the limit
+ * is reached are queued and started in submission order as earlier parses finish.
+ * <p>
+ * Cancelling a queued parse removes it from the queue, cancelling a running parse cancels its HTTP
+ * call.
+ */
+public class ConcurrencyLimiter {
+    private final int               mMaxInFlight;
+    private final Queue<Pending<?>> mQueue = new ArrayDeque<>();
+
+    private int     mInFlight;
+    private boolean mIsDraining;
+
+    /**
+     * @param maxInFlight The maximum number of parses that can be running at the same time
+     */
+    public ConcurrencyLimiter(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
+        }
+        mMaxInFlight = maxInFlight;
+    }
+
+    /**
+     * @return The maximum number of parses that can be running at the same time
+     */
+    public int getMaxInFlight() {
+        return mMaxInFlight;
+    }
+
+    /**
+     * @return The number of parses currently running
+     */
+    public synchronized int getInFlight() {
+        return mInFlight;
+    }
+
+    /**
+     * @return The number of parses waiting for a free slot
+     */
+    public synchronized int getQueued() {
+        return mQueue.size();
+    }
+
+    /**
+     * Submits a parse, starting it right away if there's a free slot
+     *
+     * @param task Starts the parse once a slot is free
+     * @return A future that completes with the result of the parse
+     */
+    public <T extends IMedia> ParserFuture<T> submit(Task<T> task) {
+        Pending<T> pending = new Pending<>(task);
+        synchronized (this) {
+            mQueue.add(pending);
+        }
+        drain();
+        return pending.mFuture;
+    }
+
+    private void drain() {
+        // Parses that finish synchronously release their slot from within start(), looping here
+        // instead of recursing keeps the stack flat when a long queue completes that way
+        while (true) {
+            Pending<?> next;
+            synchronized (this) {
+                if (mIsDraining || mInFlight >= mMaxInFlight) return;
+                next = mQueue.poll();
+                if (next == null) return;
+                mInFlight++;
+                mIsDraining = true;
+            }
+            try {
+                next.start();
+            } finally {
+                synchronized (this) {
+                    mIsDraining = false;
+                }
+            }
+        }
+    }
+
+    private void release() {
+        synchronized (this) {
+            mInFlight--;
+        }
+        drain();
+    }
+
+    /**
+     * Starts a parse once the limiter has a free slot for it
+     */
+    public interface Task<T extends IMedia> {
+        ParserFuture<T> start();
+    }
+
+    private class Pending<T extends IMedia> {
+        private final Task<T>         mTask;
+        private final ParserFuture<T> mFuture = new ParserFuture<>();
+
+        private Pending(Task<T> task) {
+            mTask = task;
+        }
+
+        private void start() {
+            if (mFuture.isDone()) {
+                // Cancelled while it was queued
+                release();
+                return;
+            }
+
+            final ParserFuture<T> running;
+            try {
+                running = mTask.start();
+            } catch (RuntimeException e) {
+                mFuture.setException(e);
+                release();
+                return;
+            }
+            running.addCallback(new ParserCallback<T>() {
+                @Override
+                public void onSuccess(ParserResponse<T> response) {
+                    mFuture.set(response);
+                    release();
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    mFuture.setException(throwable);
+                    release();
+                }
+            });
+            mFuture.addCallback(new ParserCallback<T>() {
+                @Override
+                public void onSuccess(ParserResponse<T> response) {
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    if (throwable instanceof CancellationException) running.cancel(true);
+                }
+            });
+        }
+    }
+}
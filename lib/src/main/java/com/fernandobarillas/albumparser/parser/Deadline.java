@@ -0,0 +1,278 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.DeadlineExceededException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * A time budget shared by every API call a parse makes, along with a handle to cancel the parse.
+ * Each call only gets the part of the budget that the calls before it didn't use up, a call still
+ * in flight when the deadline passes is canceled and the parse fails with a {@link
+ * DeadlineExceededException}. Retries aren't made when their delay would end past the deadline.
+ * <p>
+ * Canceling the deadline from another thread aborts the call in flight, or ends the wait for a
+ * rate limit permit or a retry, and fails the parse with an InterruptedIOException. Rate limit
+ * permits that would only come after the deadline aren't waited for. A deadline can be shared by
+ * several parses, for example all the URLs parsed for a single request, and it's thread-safe.
+ */
+public class Deadline {
+    /** The deadline of the parse running on each thread, see {@link #enter(Deadline)} */
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long mTimeoutMillis;
+    private final long mDeadlineNanos;
+
+    /** The calls in flight, canceled when the deadline passes */
+    private final List<Call<?>>      mCalls = new ArrayList<>();
+    private       ScheduledFuture<?> mTimer;
+    private       boolean            mIsCancelled;
+
+    private Deadline(long timeoutMillis) {
+        mTimeoutMillis = timeoutMillis;
+        mDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * @param timeout How long from now the parse has
+     * @param unit    The unit of the passed-in timeout
+     * @return A new deadline that passes once the timeout has elapsed
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+        }
+        return new Deadline(unit.toMillis(timeout));
+    }
+
+    /**
+     * @return The deadline of the parse running on the calling thread, null if it has none
+     */
+    static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the passed-in deadline apply to the API calls made on the calling thread
+     *
+     * @param deadline The deadline of the parse about to run, null for none
+     * @return The deadline that applied before, to pass back to {@link #exit(Deadline)}
+     */
+    static Deadline enter(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        return previous;
+    }
+
+    /**
+     * Restores the deadline that applied before {@link #enter(Deadline)}
+     */
+    static void exit(Deadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Cancels the parse. The API call in flight is aborted and later calls fail without being made.
+     */
+    public void cancel() {
+        List<Call<?>> calls;
+        synchronized (this) {
+            if (mIsCancelled) return;
+            mIsCancelled = true;
+            calls = new ArrayList<>(mCalls);
+            // Wake up the threads waiting in sleep()
+            notifyAll();
+        }
+        for (Call<?> call : calls) {
+            call.cancel();
+        }
+    }
+
+    /**
+     * @return The time left in milliseconds, 0 once the deadline has passed
+     */
+    public long getRemainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getRemainingNanos());
+    }
+
+    /**
+     * @return The timeout this deadline was created with in milliseconds
+     */
+    public long getTimeoutMillis() {
+        return mTimeoutMillis;
+    }
+
+    /**
+     * @return True if {@link #cancel()} was called
+     */
+    public synchronized boolean isCancelled() {
+        return mIsCancelled;
+    }
+
+    /**
+     * @return True once the deadline has passed
+     */
+    public boolean isExpired() {
+        return mDeadlineNanos - System.nanoTime() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{"
+                + "timeoutMillis="
+                + mTimeoutMillis
+                + ", remainingMillis="
+                + getRemainingMillis()
+                + ", cancelled="
+                + isCancelled()
+                + '}';
+    }
+
+    /**
+     * Checks that the parse can go on
+     *
+     * @throws DeadlineExceededException When the deadline has passed
+     * @throws InterruptedIOException    When the parse was canceled
+     */
+    void check() throws InterruptedIOException {
+        if (isCancelled()) throw new InterruptedIOException("Parse canceled");
+        if (isExpired()) throw new DeadlineExceededException(mTimeoutMillis);
+    }
+
+    /**
+     * Executes a call, canceling it if it's still in flight when the deadline passes
+     *
+     * @throws DeadlineExceededException When the deadline passed before or during the call
+     * @throws InterruptedIOException    When the parse was canceled before or during the call
+     * @throws IOException               When the call failed for any other reason
+     */
+    <R> Response<R> execute(Call<R> call) throws IOException {
+        start(call);
+        try {
+            return call.execute();
+        } catch (IOException e) {
+            throw getFailure(call, e);
+        } finally {
+            finish(call);
+        }
+    }
+
+    /**
+     * @return The time left in nanoseconds, 0 once the deadline has passed
+     */
+    long getRemainingNanos() {
+        return Math.max(mDeadlineNanos - System.nanoTime(), 0);
+    }
+
+    /**
+     * Waits on the calling thread, such as for a rate limit permit or before a retry. Unlike
+     * Thread.sleep() the wait ends as soon as the parse is canceled.
+     *
+     * @param nanos How long to wait in nanoseconds
+     * @throws DeadlineExceededException When the deadline has passed by the end of the wait
+     * @throws InterruptedIOException    When the parse was canceled or the thread was interrupted
+     *                                   while waiting
+     */
+    synchronized void sleep(long nanos) throws InterruptedIOException {
+        long endNanos = System.nanoTime() + nanos;
+        try {
+            for (long waitNanos = nanos; waitNanos > 0; waitNanos = endNanos - System.nanoTime()) {
+                check();
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting");
+        }
+        check();
+    }
+
+    /**
+     * Stops canceling a call started with {@link #start(Call)}, once it's done
+     */
+    synchronized void finish(Call<?> call) {
+        mCalls.remove(call);
+        if (mCalls.isEmpty() && mTimer != null) {
+            mTimer.cancel(false);
+            mTimer = null;
+        }
+    }
+
+    /**
+     * @param call    A call started with {@link #start(Call)}
+     * @param failure The reason the call failed
+     * @return Why the call failed: the passed-in failure, or the reason it was canceled if the
+     * deadline canceled it
+     */
+    IOException getFailure(Call<?> call, IOException failure) {
+        if (!call.isCanceled()) return failure;
+        InterruptedIOException reason;
+        if (isCancelled()) {
+            reason = new InterruptedIOException("Parse canceled");
+        } else {
+            reason = new DeadlineExceededException(mTimeoutMillis);
+        }
+        reason.initCause(failure);
+        return reason;
+    }
+
+    /**
+     * Registers a call that's about to be made so it's canceled if it's still in flight when the
+     * deadline passes. Calls that aren't made with {@link #execute(Call)} must be passed to
+     * {@link #finish(Call)} once they're done.
+     *
+     * @throws DeadlineExceededException When the deadline has passed
+     * @throws InterruptedIOException    When the parse was canceled
+     */
+    synchronized void start(Call<?> call) throws InterruptedIOException {
+        check();
+        mCalls.add(call);
+        if (mTimer == null) {
+            mTimer = ParserTimer.EXECUTOR.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    expire();
+                }
+            }, mDeadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void expire() {
+        mTimer = null;
+        for (Call<?> call : mCalls) {
+            call.cancel();
+        }
+    }
+}
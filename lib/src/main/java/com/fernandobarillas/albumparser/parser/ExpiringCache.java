@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded map whose entries expire after a per-entry time-to-live. Once the map is full the
+ * least recently used entry is evicted. Hits, misses and evictions are counted. This backs both
+ * {@link ResponseCache} and {@link FailureCache}.
+ *
+ * @param <V> The type of the cached values
+ */
+class ExpiringCache<V> {
+    private final int                           mMaxEntries;
+    private final Map<String, ExpiringValue<V>> mEntries;
+
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+    // No value expires before this, so sweeping for expired values earlier finds nothing
+    private long mEarliestExpiresAt;
+    // Puts of a full cache left until it can be swept again
+    private int  mPutsUntilSweep;
+
+    ExpiringCache(int maxEntries) {
+        mMaxEntries = maxEntries;
+        // Access ordered, so the eldest entry is always the least recently used one
+        mEntries = new LinkedHashMap<String, ExpiringValue<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ExpiringValue<V>> eldest) {
+                if (size() <= mMaxEntries) return false;
+                mEvictionCount++;
+                return true;
+            }
+        };
+    }
+
+    synchronized void clear() {
+        mEntries.clear();
+    }
+
+    /**
+     * @param key The key to look up
+     * @return The value for the key, null if there is none or it expired
+     */
+    synchronized V get(String key) {
+        ExpiringValue<V> entry = mEntries.get(key);
+        if (entry != null && entry.mExpiresAt - now() <= 0) {
+            mEntries.remove(key);
+            mEvictionCount++;
+            entry = null;
+        }
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        return entry.mValue;
+    }
+
+    synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    int getMaxEntries() {
+        return mMaxEntries;
+    }
+
+    synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @param key       The key to store the value under
+     * @param value     The value to store
+     * @param ttlMillis How long to keep the value for, values with a TTL of 0 or less aren't stored
+     */
+    void put(String key, V value, long ttlMillis) {
+        if (ttlMillis <= 0) return;
+        // Expiry times are compared by their difference, capping the TTL keeps it from overflowing
+        long ttlNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(ttlMillis), Long.MAX_VALUE / 2);
+        synchronized (this) {
+            long now = now();
+            if (mEntries.size() >= mMaxEntries) {
+                if (mPutsUntilSweep > 0) mPutsUntilSweep--;
+                // Drop expired values before evicting one that could still be used
+                if (mPutsUntilSweep == 0 && now - mEarliestExpiresAt >= 0) removeExpired(now);
+            }
+            long expiresAt = now + ttlNanos;
+            if (mEntries.isEmpty() || expiresAt - mEarliestExpiresAt < 0) {
+                mEarliestExpiresAt = expiresAt;
+            }
+            mEntries.put(key, new ExpiringValue<>(value, expiresAt));
+        }
+    }
+
+    synchronized int size() {
+        return mEntries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "size="
+                + mEntries.size()
+                + ", hits="
+                + mHitCount
+                + ", misses="
+                + mMissCount
+                + ", evictions="
+                + mEvictionCount;
+    }
+
+    private static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Removes every expired value. This scans the whole map, so a full cache is swept at most once
+     * every {@link #mMaxEntries} puts, which keeps puts O(1) amortized. Expired values in between
+     * are removed when they're looked up or evicted as the least recently used.
+     */
+    private void removeExpired(long now) {
+        mPutsUntilSweep = mMaxEntries;
+        Iterator<ExpiringValue<V>> iterator = mEntries.values().iterator();
+        boolean isFirst = true;
+        while (iterator.hasNext()) {
+            long expiresAt = iterator.next().mExpiresAt;
+            if (expiresAt - now <= 0) {
+                iterator.remove();
+                mEvictionCount++;
+            } else if (isFirst || expiresAt - mEarliestExpiresAt < 0) {
+                mEarliestExpiresAt = expiresAt;
+                isFirst = false;
+            }
+        }
+    }
+
+    private static class ExpiringValue<V> {
+        private final V    mValue;
+        private final long mExpiresAt;
+
+        private ExpiringValue(V value, long expiresAt) {
+            mValue = value;
+            mExpiresAt = expiresAt;
+        }
+    }
+}
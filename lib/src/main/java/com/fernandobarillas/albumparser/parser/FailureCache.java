@@ -0,0 +1,249 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
+import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded in-memory cache of failed parses, so dead links and unsupported URLs that keep showing
+ * up don't hit the network every time. Failures are keyed by the API provider name and the media
+ * hash, or the URL itself when the URL has no hash.
+ * <p>
+ * Only {@link InvalidMediaUrlException} and {@link InvalidApiResponseException} failures are
+ * cached. Each {@link Kind} of failure has its own time-to-live, so transient server errors can be
+ * retried much sooner than links that are gone for good. Network errors are never cached.
+ */
+public class FailureCache {
+    /** The default maximum number of failures to keep */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Map<Kind, Long>        mTtlMillis;
+    private final ExpiringCache<Failure> mEntries;
+
+    private FailureCache(int maxEntries, Map<Kind, Long> ttlMillis) {
+        mTtlMillis = ttlMillis;
+        mEntries = new ExpiringCache<>(maxEntries);
+    }
+
+    /**
+     * Gets the kind of a failure, which decides how long it's cached
+     *
+     * @param throwable The reason the parse failed
+     * @return The kind of failure, null if the failure should not be cached
+     */
+    public static Kind getKind(Throwable throwable) {
+        if (throwable instanceof InvalidMediaUrlException) return Kind.UNSUPPORTED_URL;
+        if (!(throwable instanceof InvalidApiResponseException)) return null;
+
+        int statusCode = ((InvalidApiResponseException) throwable).getStatusCode();
+        if (statusCode == InvalidApiResponseException.NO_STATUS_CODE) return Kind.INVALID_RESPONSE;
+        // Rate limiting is transient even though it's reported with a 4xx status
+        if (statusCode >= 500 || statusCode == 429) return Kind.SERVER_ERROR;
+        if (statusCode >= 400) return Kind.CLIENT_ERROR;
+        return Kind.INVALID_RESPONSE;
+    }
+
+    /**
+     * Removes every failure from the cache. The counters are not reset.
+     */
+    public void clear() {
+        mEntries.clear();
+    }
+
+    /**
+     * Gets a cached failure
+     *
+     * @param providerName The name of the API provider, for example: imgur.com
+     * @param hash         The hash of the media, null or blank if the URL has no hash
+     * @param mediaUrl     The URL that is being parsed
+     * @return A new Exception equivalent to the cached failure for the passed-in URL, null if no
+     * failure was cached or it expired
+     */
+    public RuntimeException get(String providerName, String hash, MediaUrl mediaUrl) {
+        if (providerName == null || mediaUrl == null) return null;
+        Failure failure = mEntries.get(getKey(providerName, hash, mediaUrl));
+        return failure != null ? failure.newException(mediaUrl) : null;
+    }
+
+    /**
+     * @return The number of failures that were removed because they expired or the cache was full
+     */
+    public long getEvictionCount() {
+        return mEntries.getEvictionCount();
+    }
+
+    /**
+     * @return The number of lookups that returned a cached failure
+     */
+    public long getHitCount() {
+        return mEntries.getHitCount();
+    }
+
+    /**
+     * @return The number of lookups that didn't find a cached failure
+     */
+    public long getMissCount() {
+        return mEntries.getMissCount();
+    }
+
+    /**
+     * @param kind The kind of failure
+     * @return The time-to-live in milliseconds of failures of the passed-in kind
+     */
+    public long getTtlMillis(Kind kind) {
+        Long ttlMillis = mTtlMillis.get(kind);
+        return ttlMillis != null ? ttlMillis : 0;
+    }
+
+    /**
+     * Caches a failure. Failures that can't be cached are ignored.
+     *
+     * @param providerName The name of the API provider, for example: imgur.com
+     * @param hash         The hash of the media, null or blank if the URL has no hash
+     * @param mediaUrl     The URL that failed to parse
+     * @param throwable    The reason the parse failed
+     */
+    public void put(String providerName, String hash, MediaUrl mediaUrl, Throwable throwable) {
+        Kind kind = getKind(throwable);
+        if (kind == null || providerName == null || mediaUrl == null) return;
+        mEntries.put(getKey(providerName, hash, mediaUrl),
+                new Failure(throwable),
+                getTtlMillis(kind));
+    }
+
+    /**
+     * @return The number of failures currently cached, including ones that expired but haven't
+     * been removed yet
+     */
+    public int size() {
+        return mEntries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "FailureCache{" + mEntries + '}';
+    }
+
+    private static String getKey(String providerName, String hash, MediaUrl mediaUrl) {
+        if (hash == null || hash.isEmpty()) return providerName + ' ' + mediaUrl;
+        return providerName + '/' + hash;
+    }
+
+    /**
+     * The kinds of failures that can be cached
+     */
+    public enum Kind {
+        /** The URL is not supported by its parser, see {@link InvalidMediaUrlException} */
+        UNSUPPORTED_URL,
+        /** The API responded with a 4xx status, for example when the media was deleted */
+        CLIENT_ERROR,
+        /** The API responded with a 5xx status or asked for requests to slow down */
+        SERVER_ERROR,
+        /** The HTTP call succeeded but the API response was empty or reported an error */
+        INVALID_RESPONSE
+    }
+
+    public static class Builder {
+        private int             newMaxEntries = DEFAULT_MAX_ENTRIES;
+        private Map<Kind, Long> newTtlMillis  = new EnumMap<>(Kind.class);
+
+        public Builder() {
+            newTtlMillis.put(Kind.UNSUPPORTED_URL, TimeUnit.HOURS.toMillis(1));
+            newTtlMillis.put(Kind.CLIENT_ERROR, TimeUnit.MINUTES.toMillis(10));
+            newTtlMillis.put(Kind.SERVER_ERROR, TimeUnit.SECONDS.toMillis(30));
+            // Covers Streamable videos that are still processing, which succeed soon after
+            newTtlMillis.put(Kind.INVALID_RESPONSE, TimeUnit.MINUTES.toMillis(1));
+        }
+
+        /**
+         * @return A new FailureCache instance with all the requested options set.
+         */
+        public FailureCache build() {
+            return new FailureCache(newMaxEntries, new EnumMap<>(newTtlMillis));
+        }
+
+        /**
+         * Sets the maximum number of failures to keep. Defaults to {@link #DEFAULT_MAX_ENTRIES}.
+         *
+         * @param maxEntries The maximum number of failures to keep
+         * @return The Builder instance with the new maximum set.
+         */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries must be at least 1: " + maxEntries);
+            }
+            newMaxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sets how long failures of a kind are cached. By default unsupported URLs are cached for
+         * an hour, 4xx errors for 10 minutes, invalid responses for a minute and 5xx errors for 30
+         * seconds.
+         *
+         * @param kind The kind of failure
+         * @param ttl  How long to keep failures of the passed-in kind, 0 to not cache them
+         * @param unit The unit of the passed-in TTL
+         * @return The Builder instance with the new TTL set.
+         */
+        public Builder ttl(Kind kind, long ttl, TimeUnit unit) {
+            newTtlMillis.put(kind, unit.toMillis(ttl));
+            return this;
+        }
+    }
+
+    private static class Failure {
+        private final boolean mIsUnsupportedUrl;
+        private final String  mErrorMessage;
+        private final int     mStatusCode;
+
+        private Failure(Throwable throwable) {
+            if (throwable instanceof InvalidMediaUrlException) {
+                mIsUnsupportedUrl = true;
+                mErrorMessage = ((InvalidMediaUrlException) throwable).getErrorMessage();
+                mStatusCode = InvalidApiResponseException.NO_STATUS_CODE;
+            } else {
+                InvalidApiResponseException exception = (InvalidApiResponseException) throwable;
+                mIsUnsupportedUrl = false;
+                mErrorMessage = exception.getErrorMessage();
+                mStatusCode = exception.getStatusCode();
+            }
+        }
+
+        private RuntimeException newException(MediaUrl originalUrl) {
+            URL mediaUrl = ParseUtils.getUrlObject(originalUrl);
+            if (mIsUnsupportedUrl) {
+                return mErrorMessage != null
+                        ? new InvalidMediaUrlException(mediaUrl, mErrorMessage)
+                        : new InvalidMediaUrlException(mediaUrl);
+            }
+            return new InvalidApiResponseException(mediaUrl, mStatusCode, mErrorMessage);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.squareup.moshi.JsonAdapter;
+
+import retrofit2.Retrofit;
+
+/**
+ * Loads the JsonAdapters and Retrofit service clients generated at build time by the codegen
+ * annotation processor. Parsers use them instead of Moshi's and Retrofit's reflection, which is
+ * slow the first time each API model and interface is used. Whatever wasn't generated, or all of
+ * it when the "albumparser.codegen" system property is false, falls back to reflection.
+ */
+final class GeneratedCode {
+    /** Set this system property to false to always use reflection */
+    static final String ENABLED_PROPERTY = "albumparser.codegen";
+
+    /** The generated JsonAdapters, null if there are none */
+    static final JsonAdapter.Factory ADAPTER_FACTORY;
+
+    /** The generated service clients, null if there are none */
+    static final ServiceFactory SERVICE_FACTORY;
+
+    static {
+        boolean enabled = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+        ADAPTER_FACTORY = enabled ? GeneratedCode.<JsonAdapter.Factory>newInstance(
+                "GeneratedJsonAdapters") : null;
+        SERVICE_FACTORY = enabled ? GeneratedCode.<ServiceFactory>newInstance(
+                "GeneratedServices") : null;
+    }
+
+    private GeneratedCode() {
+    }
+
+    /**
+     * Creates the generated client for the passed-in API interface
+     *
+     * @param serviceClass The Retrofit interface for the API, for example: ImgurApi.class
+     * @param retrofit     The Retrofit instance the client makes its calls with
+     * @param <S>          The type of the Retrofit interface
+     * @return The generated client, null if the interface has none
+     */
+    static <S> S createService(Class<S> serviceClass, Retrofit retrofit) {
+        return SERVICE_FACTORY != null ? SERVICE_FACTORY.create(serviceClass, retrofit) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newInstance(String simpleName) {
+        try {
+            String packageName = GeneratedCode.class.getName();
+            packageName = packageName.substring(0, packageName.lastIndexOf('.') + 1);
+            return (T) Class.forName(packageName + simpleName).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            // Built without the annotation processor
+            return null;
+        }
+    }
+
+    /**
+     * Implemented by the generated class that creates the service clients
+     */
+    interface ServiceFactory {
+        /**
+         * @return The generated client for the passed-in API interface, null if it has none
+         */
+        <S> S create(Class<S> service, Retrofit retrofit);
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a slow API call gets a duplicate, or hedge, request. The hedge is sent once the
+ * call has taken longer than a percentile of the provider's recent response times, the first
+ * successful response of the two is used and the other call is canceled. This trims the tail
+ * latency caused by the occasional slow connection at the cost of some extra requests.
+ * <p>
+ * The extra load is capped by a budget: each call earns a fraction of a hedge, up to the maximum
+ * hedge ratio, and a hedge is only sent when a whole one has been earned. Only calls that are safe
+ * to make twice are hedged, see {@link AbstractApiParser#isHedgeable(retrofit2.Call)}, and hedges
+ * are only sent when the parser's {@link RateLimiter} has a permit available right away.
+ * <p>
+ * The delay is learned from the response times of the calls made with this policy, so each
+ * provider needs its own policy.
+ */
+public class HedgingPolicy {
+    /** The default percentile of recent response times a call can take before it's hedged */
+    public static final double DEFAULT_PERCENTILE           = 0.95;
+    /** The default shortest time a call is given before it's hedged */
+    public static final long   DEFAULT_MIN_DELAY_MILLIS     = 50;
+    /** The default longest time a call is given before it's hedged */
+    public static final long   DEFAULT_MAX_DELAY_MILLIS     = TimeUnit.SECONDS.toMillis(2);
+    /** The default delay used until enough response times have been recorded */
+    public static final long   DEFAULT_INITIAL_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    /** The default largest fraction of calls that can be hedged */
+    public static final double DEFAULT_MAX_HEDGE_RATIO      = 0.1;
+    /** The default number of recent response times the delay is computed from */
+    public static final int    DEFAULT_SAMPLE_SIZE          = 100;
+
+    /** The response times needed before the percentile is trusted over the initial delay */
+    private static final int    MIN_SAMPLES      = 20;
+    /** Caps the budget so a long quiet stretch can't save up a burst of hedges */
+    private static final double MAX_HEDGE_TOKENS = 10;
+
+    private final double mPercentile;
+    private final long   mMinDelayMillis;
+    private final long   mMaxDelayMillis;
+    private final long   mInitialDelayMillis;
+    private final double mMaxHedgeRatio;
+
+    /** Ring buffer of the most recent response times in nanoseconds */
+    private final long[]  mSamples;
+    private       int     mSampleCount;
+    private       int     mNextSample;
+    private       long    mDelayMillis;
+    private       boolean mIsDelayStale = true;
+
+    private double mHedgeTokens;
+
+    private long mRequestCount;
+    private long mHedgeCount;
+    private long mHedgeWonCount;
+    private long mSkippedCount;
+
+    private HedgingPolicy(double percentile,
+            long minDelayMillis,
+            long maxDelayMillis,
+            long initialDelayMillis,
+            double maxHedgeRatio,
+            int sampleSize) {
+        mPercentile = percentile;
+        mMinDelayMillis = minDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+        mInitialDelayMillis = initialDelayMillis;
+        mMaxHedgeRatio = maxHedgeRatio;
+        mSamples = new long[sampleSize];
+    }
+
+    /**
+     * @return The number of hedges sent
+     */
+    public synchronized long getHedgeCount() {
+        return mHedgeCount;
+    }
+
+    /**
+     * @return How long in milliseconds a call is currently given before it's hedged
+     */
+    public synchronized long getHedgeDelayMillis() {
+        if (mSampleCount < MIN_SAMPLES) return clampDelay(mInitialDelayMillis);
+        if (mIsDelayStale) {
+            long[] samples = Arrays.copyOf(mSamples, mSampleCount);
+            Arrays.sort(samples);
+            int index = (int) Math.ceil(mPercentile * samples.length) - 1;
+            long percentileNanos = samples[Math.max(index, 0)];
+            mDelayMillis = clampDelay(TimeUnit.NANOSECONDS.toMillis(percentileNanos));
+            mIsDelayStale = false;
+        }
+        return mDelayMillis;
+    }
+
+    /**
+     * @return The number of hedges whose response was used because it came back first
+     */
+    public synchronized long getHedgeWonCount() {
+        return mHedgeWonCount;
+    }
+
+    /**
+     * @return The number of hedgeable calls made with this policy, not counting the hedges
+     */
+    public synchronized long getRequestCount() {
+        return mRequestCount;
+    }
+
+    /**
+     * @return The number of hedges that weren't sent because the budget was used up
+     */
+    public synchronized long getSkippedCount() {
+        return mSkippedCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "HedgingPolicy{"
+                + "percentile="
+                + mPercentile
+                + ", maxHedgeRatio="
+                + mMaxHedgeRatio
+                + ", delayMillis="
+                + getHedgeDelayMillis()
+                + ", requests="
+                + mRequestCount
+                + ", hedges="
+                + mHedgeCount
+                + ", hedgesWon="
+                + mHedgeWonCount
+                + ", skipped="
+                + mSkippedCount
+                + '}';
+    }
+
+    /**
+     * Counts a hedge that was sent
+     *
+     * @param won True if the hedge's response was the one used
+     */
+    synchronized void recordHedge(boolean won) {
+        mHedgeCount++;
+        if (won) mHedgeWonCount++;
+    }
+
+    /**
+     * Records the response time of a call, which the hedge delay is computed from
+     *
+     * @param latencyNanos How long the call took to get a response in nanoseconds
+     */
+    synchronized void recordLatency(long latencyNanos) {
+        mSamples[mNextSample] = latencyNanos;
+        mNextSample = (mNextSample + 1) % mSamples.length;
+        if (mSampleCount < mSamples.length) mSampleCount++;
+        mIsDelayStale = true;
+    }
+
+    /**
+     * Counts a hedgeable call, which adds its share of a hedge to the budget
+     */
+    synchronized void recordRequest() {
+        mRequestCount++;
+        mHedgeTokens = Math.min(mHedgeTokens + mMaxHedgeRatio, MAX_HEDGE_TOKENS);
+    }
+
+    /**
+     * Takes a hedge from the budget
+     *
+     * @return True if the hedge can be sent, false if the budget is used up
+     */
+    synchronized boolean tryHedge() {
+        if (mHedgeTokens < 1) {
+            mSkippedCount++;
+            return false;
+        }
+        mHedgeTokens--;
+        return true;
+    }
+
+    private long clampDelay(long delayMillis) {
+        return Math.min(Math.max(delayMillis, mMinDelayMillis), mMaxDelayMillis);
+    }
+
+    public static class Builder {
+        private double newPercentile         = DEFAULT_PERCENTILE;
+        private long   newMinDelayMillis     = DEFAULT_MIN_DELAY_MILLIS;
+        private long   newMaxDelayMillis     = DEFAULT_MAX_DELAY_MILLIS;
+        private long   newInitialDelayMillis = DEFAULT_INITIAL_DELAY_MILLIS;
+        private double newMaxHedgeRatio      = DEFAULT_MAX_HEDGE_RATIO;
+        private int    newSampleSize         = DEFAULT_SAMPLE_SIZE;
+
+        public Builder() {
+        }
+
+        /**
+         * @return A new HedgingPolicy instance with all the requested options set.
+         */
+        public HedgingPolicy build() {
+            return new HedgingPolicy(newPercentile,
+                    newMinDelayMillis,
+                    newMaxDelayMillis,
+                    newInitialDelayMillis,
+                    newMaxHedgeRatio,
+                    newSampleSize);
+        }
+
+        /**
+         * Sets the range the hedge delay is kept in, whatever the recent response times are.
+         * Defaults to {@link #DEFAULT_MIN_DELAY_MILLIS} and {@link #DEFAULT_MAX_DELAY_MILLIS}.
+         *
+         * @param minDelay The shortest time a call is given before it's hedged
+         * @param maxDelay The longest time a call is given before it's hedged
+         * @param unit     The unit of the passed-in delays
+         * @return The Builder instance with the new delay range set.
+         */
+        public Builder delayRange(long minDelay, long maxDelay, TimeUnit unit) {
+            if (minDelay < 0) {
+                throw new IllegalArgumentException("minDelay must not be negative: " + minDelay);
+            }
+            if (maxDelay < minDelay) {
+                throw new IllegalArgumentException(
+                        "maxDelay must be at least minDelay: " + maxDelay);
+            }
+            newMinDelayMillis = unit.toMillis(minDelay);
+            newMaxDelayMillis = unit.toMillis(maxDelay);
+            return this;
+        }
+
+        /**
+         * Sets the hedge delay used until enough response times have been recorded to compute the
+         * percentile. It's kept in the delay range. Defaults to {@link
+         * #DEFAULT_INITIAL_DELAY_MILLIS}.
+         *
+         * @param initialDelay The time a call is given before it's hedged at first
+         * @param unit         The unit of the passed-in delay
+         * @return The Builder instance with the new initial delay set.
+         */
+        public Builder initialDelay(long initialDelay, TimeUnit unit) {
+            if (initialDelay < 0) {
+                throw new IllegalArgumentException(
+                        "initialDelay must not be negative: " + initialDelay);
+            }
+            newInitialDelayMillis = unit.toMillis(initialDelay);
+            return this;
+        }
+
+        /**
+         * Sets the largest fraction of calls that can be hedged, which caps the extra load hedging
+         * puts on the provider. Defaults to {@link #DEFAULT_MAX_HEDGE_RATIO}.
+         *
+         * @param maxHedgeRatio From 0 to never hedge, up to 1 to allow hedging every call
+         * @return The Builder instance with the new ratio set.
+         */
+        public Builder maxHedgeRatio(double maxHedgeRatio) {
+            if (!(maxHedgeRatio >= 0 && maxHedgeRatio <= 1)) {
+                throw new IllegalArgumentException(
+                        "maxHedgeRatio must be between 0 and 1: " + maxHedgeRatio);
+            }
+            newMaxHedgeRatio = maxHedgeRatio;
+            return this;
+        }
+
+        /**
+         * Sets the percentile of recent response times a call can take before it's hedged. Lower
+         * percentiles hedge sooner and more often. Defaults to {@link #DEFAULT_PERCENTILE}.
+         *
+         * @param percentile The percentile as a fraction, for example 0.95 for the p95
+         * @return The Builder instance with the new percentile set.
+         */
+        public Builder percentile(double percentile) {
+            if (!(percentile > 0 && percentile <= 1)) {
+                throw new IllegalArgumentException(
+                        "percentile must be greater than 0 and at most 1: " + percentile);
+            }
+            newPercentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets how many recent response times the percentile is computed from. Defaults to {@link
+         * #DEFAULT_SAMPLE_SIZE}.
+         *
+         * @param sampleSize The number of response times to keep
+         * @return The Builder instance with the new sample size set.
+         */
+        public Builder sampleSize(int sampleSize) {
+            if (sampleSize < MIN_SAMPLES) {
+                throw new IllegalArgumentException(
+                        "sampleSize must be at least " + MIN_SAMPLES + ": " + sampleSize);
+            }
+            newSampleSize = sampleSize;
+            return this;
+        }
+    }
+}
@@ -23,6 +23,7 @@ package com.fernandobarillas.albumparser.parser;
 import com.fernandobarillas.albumparser.media.IApiResponse;
 import com.fernandobarillas.albumparser.media.IMedia;
 import com.fernandobarillas.albumparser.media.IMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
 import java.net.URL;
 
@@ -62,6 +63,11 @@ public interface IParserResponse<T extends IMedia> {
      * @return The original URL used by the parser before the request was made to the API. For
      * example, an Imgur original URL might be: https://imgur.com/gallery/PBTrqAA
      */
+    MediaUrl getOriginalMediaUrl();
+
+    /**
+     * @return The {@link #getOriginalMediaUrl()} as a {@link URL}
+     */
     URL getOriginalUrl();
 
     /**
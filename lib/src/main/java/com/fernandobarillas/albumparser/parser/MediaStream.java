@@ -0,0 +1,315 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.media.IMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+
+/**
+ * The media of a parsed URL, returned one at a time. Album media is decoded straight from the API
+ * response body as it's read, so the first media is available before the rest of the album has
+ * been downloaded and memory use stays the same no matter how large the album is. Parsers that
+ * can't stream a response return the media of a regular {@link ParserResponse} instead.
+ * <p>
+ * Streams hold on to their HTTP connection until every media has been read or the stream is
+ * closed. They aren't thread safe.
+ *
+ * @param <T> The type of media in the stream
+ */
+public class MediaStream<T extends IMedia> implements Closeable {
+    private final MediaUrl                 mOriginalUrl;
+    private final Iterator<? extends T>    mMediaIterator;
+    private final ResponseBody             mBody;
+    private final JsonReader               mReader;
+    private final JsonAdapter<? extends T> mMediaAdapter;
+    private final String[]                 mArrayPath;
+
+    private boolean mInArray;
+    private boolean mClosed;
+    private T       mNext;
+
+    /**
+     * Creates a stream that reads the media in a JSON array of an API response
+     *
+     * @param originalUrl The URL that was parsed
+     * @param body        The API response body, it's closed once the stream is done with it
+     * @param source      Where the album media is in the response body
+     */
+    MediaStream(MediaUrl originalUrl, ResponseBody body, Source<? extends T> source) {
+        mOriginalUrl = originalUrl;
+        mMediaIterator = null;
+        mBody = body;
+        mReader = JsonReader.of(body.source());
+        mMediaAdapter = source.mMediaAdapter;
+        mArrayPath = source.mArrayPath;
+    }
+
+    /**
+     * Creates a stream of the media in a response that was already parsed
+     */
+    private MediaStream(ParserResponse<T> response) {
+        mOriginalUrl = response.getOriginalMediaUrl();
+        IMediaAlbum<T> album = response.getAlbum();
+        if (album != null) {
+            mMediaIterator = album.iterator();
+        } else if (response.getMedia() != null) {
+            mMediaIterator = Collections.singletonList(response.getMedia()).iterator();
+        } else {
+            mMediaIterator = Collections.<T>emptyList().iterator();
+        }
+        mBody = null;
+        mReader = null;
+        mMediaAdapter = null;
+        mArrayPath = null;
+    }
+
+    /**
+     * @param response A response that was already parsed
+     * @return A stream of the album media or single media in the response
+     */
+    public static <T extends IMedia> MediaStream<T> of(ParserResponse<T> response) {
+        return new MediaStream<>(response);
+    }
+
+    /**
+     * Stops reading the API response and releases its HTTP connection. Media already returned
+     * stay valid.
+     */
+    @Override
+    public void close() {
+        if (mClosed) return;
+        mClosed = true;
+        mNext = null;
+        if (mBody != null) mBody.close();
+    }
+
+    /**
+     * @return The URL that was parsed
+     */
+    public MediaUrl getOriginalMediaUrl() {
+        return mOriginalUrl;
+    }
+
+    /**
+     * @return The URL that was parsed
+     */
+    public URL getOriginalUrl() {
+        return ParseUtils.getUrlObject(mOriginalUrl);
+    }
+
+    /**
+     * Reads ahead to the next media in the response, blocking until it has been received
+     *
+     * @return True if there is another media, false once the stream is done. The stream is closed
+     * when this returns false
+     * @throws IOException                 When the HTTP connection failed while reading
+     * @throws InvalidApiResponseException When the response doesn't have the JSON the parser
+     *                                     expected. The stream is closed when this is thrown
+     */
+    public boolean hasNext() throws IOException {
+        if (mNext != null) return true;
+        if (mClosed) return false;
+        try {
+            if (mReader != null) {
+                mNext = readNext();
+            } else {
+                while (mNext == null && mMediaIterator.hasNext()) {
+                    mNext = mMediaIterator.next();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        if (mNext == null) close();
+        return mNext != null;
+    }
+
+    /**
+     * @return The next media in the response
+     * @throws IOException            When the HTTP connection failed while reading
+     * @throws NoSuchElementException When the stream has no more media
+     * @see #hasNext()
+     */
+    public T next() throws IOException {
+        if (!hasNext()) throw new NoSuchElementException();
+        T next = mNext;
+        mNext = null;
+        return next;
+    }
+
+    /**
+     * Reads the rest of the stream, passing each media to the callback as soon as it has been
+     * decoded. The stream is closed once this returns.
+     *
+     * @param callback Receives the media, then either onComplete() or onFailure()
+     */
+    public void readAll(Callback<T> callback) {
+        try {
+            while (hasNext()) {
+                callback.onMedia(next());
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            callback.onFailure(e);
+            return;
+        }
+        callback.onComplete();
+    }
+
+    /**
+     * Moves the reader into the media array the first time it's called
+     *
+     * @return The next non-null media in the array, null once the array ends
+     */
+    private T readNext() throws IOException {
+        if (!mInArray) {
+            if (!findArray(0)) {
+                throw new InvalidApiResponseException(getOriginalUrl(),
+                        "The API response has no album media");
+            }
+            mInArray = true;
+        }
+        while (mReader.hasNext()) {
+            T media = mMediaAdapter.fromJson(mReader);
+            if (media != null) return media;
+        }
+        // The rest of the response has nothing else the stream needs, don't bother reading it
+        return null;
+    }
+
+    /**
+     * Walks into the objects along the array path, skipping every other value on the way
+     *
+     * @return True if the reader is now inside the array, false if the response doesn't have it
+     */
+    private boolean findArray(int depth) throws IOException {
+        if (mReader.peek() != JsonReader.Token.BEGIN_OBJECT) return false;
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            if (!mReader.nextName().equals(mArrayPath[depth])) {
+                mReader.skipValue();
+                continue;
+            }
+            if (depth + 1 < mArrayPath.length) return findArray(depth + 1);
+            if (mReader.peek() != JsonReader.Token.BEGIN_ARRAY) return false;
+            mReader.beginArray();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Callback for {@link AbstractApiParser#parseStreamAsync(ParsedUrl, Callback)}. Methods are
+     * called on the thread that reads the API response, so media should be handed off rather than
+     * processed in {@link #onMedia(IMedia)}.
+     */
+    public interface Callback<T extends IMedia> {
+        /**
+         * Called for each media as soon as it has been decoded
+         *
+         * @param media The next media in the response
+         */
+        void onMedia(T media);
+
+        /**
+         * Called once every media was passed to {@link #onMedia(IMedia)}
+         */
+        void onComplete();
+
+        /**
+         * Called when the parse failed, no more media follow. This is the same Exception the
+         * synchronous parse method would have thrown
+         *
+         * @param throwable The reason the parse failed
+         */
+        void onFailure(Throwable throwable);
+    }
+
+    /**
+     * Receives a stream once the API has responded, see
+     * {@link AbstractApiParser#openStreamAsync(ParsedUrl, OpenCallback)}
+     *
+     * @param <T> The type of media in the stream
+     */
+    public interface OpenCallback<T extends IMedia> {
+        /**
+         * Called once the API responded, before any album media has been read
+         *
+         * @param stream The media of the parsed URL, it must be read to the end or closed
+         */
+        void onOpen(MediaStream<T> stream);
+
+        /**
+         * Called when the parse failed before the stream could be opened. This is the same
+         * Exception the synchronous parse method would have thrown
+         *
+         * @param throwable The reason the parse failed
+         */
+        void onFailure(Throwable throwable);
+    }
+
+    /**
+     * Describes where a parser can find the media of an album in an API response
+     *
+     * @param <T> The type of media in the album
+     */
+    public static class Source<T extends IMedia> {
+        private final Call<ResponseBody>       mCall;
+        private final JsonAdapter<? extends T> mMediaAdapter;
+        private final String[]                 mArrayPath;
+
+        /**
+         * @param call         The API call that returns the album, it should be a @Streaming
+         *                     method so Retrofit doesn't buffer the whole response
+         * @param mediaAdapter Decodes each element of the media array
+         * @param arrayPath    The names of the nested objects leading to the media array, the last
+         *                     name is the array's, for example: "data", "images"
+         */
+        public Source(Call<ResponseBody> call,
+                JsonAdapter<? extends T> mediaAdapter,
+                String... arrayPath) {
+            mCall = call;
+            mMediaAdapter = mediaAdapter;
+            mArrayPath = arrayPath;
+        }
+
+        Call<ResponseBody> getCall() {
+            return mCall;
+        }
+    }
+}
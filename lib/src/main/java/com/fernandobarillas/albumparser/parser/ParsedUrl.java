@@ -0,0 +1,308 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.media.MediaKind;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A media URL that has been split up once so it can be passed through routing, hashing and
+ * parsing without each step taking the URL apart again. The host is lower-cased, the path
+ * segments are kept as offsets into the path and the media kind is classified up front, while
+ * the extension and query map are only built when asked for.
+ * <p>
+ * The first parser to check a ParsedUrl's domain or hash remembers the result in it, so a single
+ * lookup never validates the domain or computes the hash more than once. Both only depend on the
+ * URL, so any instance of the same parser class reuses them. Create one ParsedUrl for each lookup
+ * rather than keeping them around.
+ * <p>
+ * The URL is held as a {@link MediaUrl}, a {@link URL} is only created if {@link #getUrl()} is
+ * called.
+ */
+public final class ParsedUrl {
+    private final MediaUrl  mUrl;
+    private final String    mHost;
+    private final String    mPath;
+    private final int[]     mSegmentBounds;
+    private final int       mSegmentCount;
+    private final int       mExtensionStart;
+    private final MediaKind mMediaKind;
+
+    // Built on first use, racing threads build equal values
+    private String              mExtension;
+    private Map<String, String> mQueryMap;
+
+    private volatile Class<?>             mValidDomainParser;
+    private volatile Resolution           mResolution;
+
+    private ParsedUrl(MediaUrl url) {
+        mUrl = url;
+        mHost = url.getHost();
+        mPath = url.getPath();
+
+        int length = mPath.length();
+        int slashCount = 0;
+        int lastSlash = -1;
+        for (int i = 0; i < length; i++) {
+            if (mPath.charAt(i) == '/') {
+                slashCount++;
+                lastSlash = i;
+            }
+        }
+
+        // Every segment follows a slash. Paths always start with one so the first is skipped, and
+        // trailing empty segments are dropped, the same way ParseUtils.getSplitPath() splits
+        mSegmentBounds = new int[slashCount * 2];
+        int segmentCount = 0;
+        int nonEmptyCount = 0;
+        int segmentStart = 1;
+        for (int i = 1; i <= length; i++) {
+            if (i == length || mPath.charAt(i) == '/') {
+                mSegmentBounds[segmentCount * 2] = segmentStart;
+                mSegmentBounds[segmentCount * 2 + 1] = i;
+                segmentCount++;
+                if (i > segmentStart) nonEmptyCount = segmentCount;
+                segmentStart = i + 1;
+            }
+        }
+        mSegmentCount = nonEmptyCount;
+
+        int extensionDot = mPath.lastIndexOf('.');
+        mExtensionStart = extensionDot > lastSlash ? extensionDot + 1 : -1;
+        mMediaKind = ParseUtils.getMediaKind(url);
+    }
+
+    /**
+     * @param url The URL to parse
+     * @return The parsed URL, null if the passed-in URL was null
+     */
+    public static ParsedUrl of(URL url) {
+        return of(MediaUrl.of(url));
+    }
+
+    /**
+     * @param url The URL to parse
+     * @return The parsed URL, null if the passed-in URL was null
+     */
+    public static ParsedUrl of(MediaUrl url) {
+        return url != null ? new ParsedUrl(url) : null;
+    }
+
+    /**
+     * @param urlString The URL to parse
+     * @return The parsed URL, null if the passed-in String was not a valid URL
+     */
+    public static ParsedUrl of(String urlString) {
+        return of(MediaUrl.parse(urlString));
+    }
+
+    /**
+     * @return The lower-case extension of the file the URL links to, with no . prefix, null if the
+     * last path segment has no extension
+     */
+    public String getExtension() {
+        if (mExtensionStart < 0) return null;
+        String extension = mExtension;
+        if (extension == null) {
+            extension = mPath.substring(mExtensionStart).toLowerCase();
+            mExtension = extension;
+        }
+        return extension;
+    }
+
+    /**
+     * @return The hash found for this URL by the parser that resolved it, null if no parser has
+     * found a hash for it yet
+     * @see AbstractApiParser#getHash(ParsedUrl)
+     */
+    public String getHash() {
+        Resolution resolution = mResolution;
+        return resolution != null ? resolution.mHash : null;
+    }
+
+    /**
+     * @return The host of the URL in lower case
+     */
+    public String getHost() {
+        return mHost;
+    }
+
+    /**
+     * @return The kind of media the URL links to, based on its extension
+     */
+    public MediaKind getMediaKind() {
+        return mMediaKind;
+    }
+
+    /**
+     * @return The path of the URL
+     */
+    public String getPath() {
+        return mPath;
+    }
+
+    /**
+     * Gets a path segment of the URL. For example, segment 0 of https://example.com/one/two is
+     * "one"
+     *
+     * @param index The index of the segment, starting at 0
+     * @return The path segment, null if the path doesn't have that many segments
+     */
+    public String getPathSegment(int index) {
+        if (index < 0 || index >= mSegmentCount) return null;
+        return mPath.substring(mSegmentBounds[index * 2], mSegmentBounds[index * 2 + 1]);
+    }
+
+    /**
+     * @return The number of segments in the path, not counting trailing empty segments
+     */
+    public int getPathSegmentCount() {
+        return mSegmentCount;
+    }
+
+    /**
+     * @return The base domain of the parser that found a hash for this URL, null if no parser has
+     * found a hash for it yet
+     */
+    public String getProviderName() {
+        Resolution resolution = mResolution;
+        if (resolution == null || resolution.mHash == null) return null;
+        return resolution.mParser.getBaseDomain();
+    }
+
+    /**
+     * @return An unmodifiable map of the URL's query parameters, null if the URL has no query
+     * @see ParseUtils#getQueryMap(MediaUrl)
+     */
+    public Map<String, String> getQueryMap() {
+        if (mUrl.getQuery() == null) return null;
+        Map<String, String> queryMap = mQueryMap;
+        if (queryMap == null) {
+            queryMap = Collections.unmodifiableMap(ParseUtils.getQueryMap(mUrl));
+            mQueryMap = queryMap;
+        }
+        return queryMap;
+    }
+
+    /**
+     * @return The URL that was parsed
+     */
+    public MediaUrl getMediaUrl() {
+        return mUrl;
+    }
+
+    /**
+     * @return The URL that was parsed as a {@link URL}, created the first time it's needed
+     * @see MediaUrl#toUrl()
+     */
+    public URL getUrl() {
+        return mUrl.toUrl();
+    }
+
+    /**
+     * Compares a path segment against a String without creating a substring for the segment
+     *
+     * @param index   The index of the segment, starting at 0
+     * @param segment The String to compare the segment to
+     * @return True if the path has a segment at the index that is equal to the passed-in String
+     */
+    public boolean pathSegmentEquals(int index, String segment) {
+        return pathSegmentMatches(index, segment, false);
+    }
+
+    /**
+     * Compares a path segment against a String, ignoring case, without creating a substring for
+     * the segment
+     *
+     * @param index   The index of the segment, starting at 0
+     * @param segment The String to compare the segment to
+     * @return True if the path has a segment at the index that is equal to the passed-in String,
+     * ignoring case
+     */
+    public boolean pathSegmentEqualsIgnoreCase(int index, String segment) {
+        return pathSegmentMatches(index, segment, true);
+    }
+
+    @Override
+    public String toString() {
+        return mUrl.toString();
+    }
+
+    /**
+     * @return True if a parser of the same class already found this URL's domain to be valid
+     */
+    boolean isValidDomainFor(AbstractApiParser<?> parser) {
+        return mValidDomainParser == parser.getClass();
+    }
+
+    void setValidDomainFor(AbstractApiParser<?> parser) {
+        mValidDomainParser = parser.getClass();
+    }
+
+    /**
+     * @return The earlier attempt at getting this URL's hash by a parser of the same class, null
+     * if there wasn't one
+     */
+    Resolution getResolution(AbstractApiParser<?> parser) {
+        Resolution resolution = mResolution;
+        if (resolution == null || resolution.mParser.getClass() != parser.getClass()) return null;
+        return resolution;
+    }
+
+    void setResolution(Resolution resolution) {
+        mResolution = resolution;
+    }
+
+    private boolean pathSegmentMatches(int index, String segment, boolean ignoreCase) {
+        if (segment == null || index < 0 || index >= mSegmentCount) return false;
+        int start = mSegmentBounds[index * 2];
+        int length = mSegmentBounds[index * 2 + 1] - start;
+        return length == segment.length()
+                && mPath.regionMatches(ignoreCase, start, segment, 0, length);
+    }
+
+    /**
+     * The outcome of a parser getting the hash for a URL, either the hash or the Exception thrown
+     * because the URL has none
+     */
+    static final class Resolution {
+        private final AbstractApiParser<?>     mParser;
+        private final String                   mHash;
+        private final InvalidMediaUrlException mException;
+
+        Resolution(AbstractApiParser<?> parser, String hash, InvalidMediaUrlException exception) {
+            mParser = parser;
+            mHash = hash;
+            mException = exception;
+        }
+
+        String getHash() throws InvalidMediaUrlException {
+            if (mException != null) throw mException;
+            return mHash;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.media.IMedia;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import retrofit2.Call;
+
+/**
+ * The pending result of an asynchronous parse. Callers can either block on {@link #get()} or
+ * register a {@link ParserCallback} that is notified once the parse finishes. Callbacks usually run
+ * on one of OkHttp's dispatcher threads, so they shouldn't block.
+ * <p>
+ * Cancelling the future also cancels the HTTP call that is currently in flight for it.
+ */
+public class ParserFuture<T extends IMedia> implements Future<ParserResponse<T>> {
+    private final CountDownLatch          mDoneLatch = new CountDownLatch(1);
+    private final List<ParserCallback<T>> mCallbacks = new ArrayList<>();
+
+    private ParserResponse<T> mResponse;
+    private Throwable         mThrowable;
+    private boolean           mIsDone;
+    private boolean           mIsCancelled;
+    private Call<?>           mCall;
+
+    /**
+     * @param response The response to complete the future with
+     * @return A future that has already completed with the passed-in response
+     */
+    public static <T extends IMedia> ParserFuture<T> completed(ParserResponse<T> response) {
+        ParserFuture<T> future = new ParserFuture<>();
+        future.set(response);
+        return future;
+    }
+
+    /**
+     * @param throwable The reason the parse failed
+     * @return A future that has already failed with the passed-in Throwable
+     */
+    public static <T extends IMedia> ParserFuture<T> failed(Throwable throwable) {
+        ParserFuture<T> future = new ParserFuture<>();
+        future.setException(throwable);
+        return future;
+    }
+
+    /**
+     * Registers a callback to be notified when the parse finishes. If the parse already finished
+     * the callback is called immediately on the calling thread.
+     *
+     * @param callback The callback to notify
+     */
+    public void addCallback(ParserCallback<T> callback) {
+        synchronized (this) {
+            if (!mIsDone) {
+                mCallbacks.add(callback);
+                return;
+            }
+        }
+        notifyCallback(callback);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return complete(null, new CancellationException("Parse cancelled"), true);
+    }
+
+    @Override
+    public ParserResponse<T> get() throws InterruptedException, ExecutionException {
+        mDoneLatch.await();
+        return getResult();
+    }
+
+    @Override
+    public ParserResponse<T> get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!mDoneLatch.await(timeout, unit)) {
+            throw new TimeoutException("Parse did not finish in " + timeout + " " + unit);
+        }
+        return getResult();
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return mIsCancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return mIsDone;
+    }
+
+    /**
+     * Completes the future with a response
+     *
+     * @param response The parsed response
+     * @return True if the future was completed, false if it had already finished
+     */
+    public boolean set(ParserResponse<T> response) {
+        return complete(response, null, false);
+    }
+
+    /**
+     * Completes the future with an error
+     *
+     * @param throwable The reason the parse failed
+     * @return True if the future was completed, false if it had already finished
+     */
+    public boolean setException(Throwable throwable) {
+        return complete(null, throwable, false);
+    }
+
+    /**
+     * Sets the HTTP call currently being made for this parse so it can be cancelled along with the
+     * future. If the future was already cancelled the call is cancelled immediately.
+     *
+     * @param call The call that was just enqueued
+     */
+    void setCall(Call<?> call) {
+        synchronized (this) {
+            if (!mIsCancelled) {
+                mCall = call;
+                return;
+            }
+        }
+        call.cancel();
+    }
+
+    private boolean complete(ParserResponse<T> response, Throwable throwable, boolean isCancelled) {
+        List<ParserCallback<T>> callbacks;
+        Call<?> call;
+        synchronized (this) {
+            if (mIsDone) return false;
+            mIsDone = true;
+            mIsCancelled = isCancelled;
+            mResponse = response;
+            mThrowable = throwable;
+            call = mCall;
+            mCall = null;
+            callbacks = new ArrayList<>(mCallbacks);
+            mCallbacks.clear();
+        }
+        // Only cancel the call once the future is cancelled, a response that arrives in between
+        // can no longer complete it
+        if (isCancelled && call != null) call.cancel();
+        mDoneLatch.countDown();
+        for (ParserCallback<T> callback : callbacks) {
+            notifyCallback(callback);
+        }
+        return true;
+    }
+
+    private synchronized ParserResponse<T> getResult() throws ExecutionException {
+        if (mIsCancelled) throw new CancellationException("Parse cancelled");
+        if (mThrowable != null) throw new ExecutionException(mThrowable);
+        return mResponse;
+    }
+
+    private void notifyCallback(ParserCallback<T> callback) {
+        ParserResponse<T> response;
+        Throwable throwable;
+        synchronized (this) {
+            response = mResponse;
+            throwable = mThrowable;
+        }
+        if (throwable != null) {
+            callback.onFailure(throwable);
+        } else {
+            callback.onSuccess(response);
+        }
+    }
+}
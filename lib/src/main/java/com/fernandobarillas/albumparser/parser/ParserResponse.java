@@ -23,6 +23,8 @@ package com.fernandobarillas.albumparser.parser;
 import com.fernandobarillas.albumparser.media.IApiResponse;
 import com.fernandobarillas.albumparser.media.IMedia;
 import com.fernandobarillas.albumparser.media.IMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
 
 import java.net.URL;
 
@@ -36,7 +38,7 @@ public class ParserResponse<T extends IMedia> implements IParserResponse {
     private String          mHash;
     private T               mMedia;
     private String          mProviderName;
-    private URL             mOriginalUrl;
+    private MediaUrl        mOriginalUrl;
 
     /**
      * Constructor for direct IMedia objects
@@ -92,10 +94,15 @@ public class ParserResponse<T extends IMedia> implements IParserResponse {
     }
 
     @Override
-    public URL getOriginalUrl() {
+    public MediaUrl getOriginalMediaUrl() {
         return mOriginalUrl;
     }
 
+    @Override
+    public URL getOriginalUrl() {
+        return ParseUtils.getUrlObject(mOriginalUrl);
+    }
+
     @Override
     public boolean isAlbum() {
         return getAlbum() != null;
@@ -118,6 +125,31 @@ public class ParserResponse<T extends IMedia> implements IParserResponse {
                 + '}';
     }
 
+    /**
+     * @param originalUrl The URL the copy is being returned for
+     * @return A copy of this response with its original URL set to the passed-in URL
+     * @see #copy(MediaUrl)
+     */
+    public ParserResponse<T> copy(URL originalUrl) {
+        return copy(MediaUrl.of(originalUrl));
+    }
+
+    /**
+     * Creates a copy of this response for another URL that points to the same media. The copy
+     * shares the API response and media with this one.
+     *
+     * @param originalUrl The URL the copy is being returned for
+     * @return A copy of this response with its original URL set to the passed-in URL
+     */
+    public ParserResponse<T> copy(MediaUrl originalUrl) {
+        ParserResponse<T> copy = new ParserResponse<>(mMedia);
+        copy.mApiResponse = mApiResponse;
+        copy.mHash = mHash;
+        copy.mProviderName = mProviderName;
+        copy.mOriginalUrl = originalUrl;
+        return copy;
+    }
+
     public void setApiProviderName(String providerName) {
         mProviderName = providerName;
     }
@@ -126,7 +158,11 @@ public class ParserResponse<T extends IMedia> implements IParserResponse {
         mHash = hash;
     }
 
-    public void setOriginalUrl(URL originalUrl) {
+    public void setOriginalUrl(MediaUrl originalUrl) {
         mOriginalUrl = originalUrl;
     }
+
+    public void setOriginalUrl(URL originalUrl) {
+        mOriginalUrl = MediaUrl.of(originalUrl);
+    }
 }
@@ -0,0 +1,297 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.RateLimitExceededException;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that limits the rate of API calls made to a single provider. Up to the burst
+ * size of requests can be made at once, after that requests are spaced out at the permitted rate.
+ * Requests that would have to wait longer than the maximum wait are shed right away with a {@link
+ * RateLimitExceededException} instead of being queued.
+ * <p>
+ * Providers that report their remaining credits, like Imgur, update the limiter after each
+ * response, see {@link #updateCredits(long, long, long)}. Once the reported credits run out
+ * requests wait for the credits to reset, or are shed if that's too far away, so the provider
+ * never has to reject them. Each request uses up a credit until the next response says otherwise.
+ * <p>
+ * Asynchronous requests never block a thread while they wait, they're started from a shared timer
+ * thread once permitted.
+ */
+public class RateLimiter {
+    /** Returned by the credit getters until the provider reports its credits */
+    public static final long UNKNOWN = -1;
+
+    /**
+     * How long reported credits are trusted for when the provider doesn't say when they reset.
+     * Requests held back because the credits ran out are let through after this long.
+     */
+    public static final long DEFAULT_CREDITS_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final double mPermitsPerNano;
+    private final double mBurst;
+    private final long   mMaxWaitNanos;
+
+    /** Can go negative, requests waiting for a permit have already reserved a future token */
+    private double mTokens;
+    private long   mRefilledAt;
+
+    private long mCreditLimit      = UNKNOWN;
+    private long mRemainingCredits = UNKNOWN;
+    private long mCreditsResetAt;
+
+    private long mAcquiredCount;
+    private long mDelayedCount;
+    private long mShedCount;
+
+    /**
+     * @param permitsPerSecond How many requests can be made per second on average
+     * @param burst            How many requests can be made at once after the limiter was idle
+     * @param maxWait          How long a request can wait for a permit before it's shed, 0 to
+     *                         shed requests instead of making them wait at all
+     * @param unit             The unit of the passed-in maximum wait
+     */
+    public RateLimiter(double permitsPerSecond, int burst, long maxWait, TimeUnit unit) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException(
+                    "permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        if (burst < 1) throw new IllegalArgumentException("burst must be at least 1: " + burst);
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("maxWait must not be negative: " + maxWait);
+        }
+        mPermitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        mBurst = burst;
+        mMaxWaitNanos = unit.toNanos(maxWait);
+        mTokens = burst;
+        mRefilledAt = nanoTime();
+    }
+
+    /**
+     * Waits for a permit to make a request, blocking the calling thread
+     *
+     * @throws RateLimitExceededException When the request would have to wait longer than the
+     *                                    maximum wait
+     * @throws InterruptedIOException     When the thread was interrupted while waiting
+     */
+    public void acquire() throws RateLimitExceededException, InterruptedIOException {
+        long waitNanos = reserve(mMaxWaitNanos);
+        if (waitNanos == 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a rate limit permit");
+        }
+    }
+
+    /**
+     * Waits for a permit to make a request within the deadline of the parse making it, blocking
+     * the calling thread. Requests that would have to wait past the deadline are shed right away
+     * instead of waiting for it to pass, and canceling the deadline ends the wait.
+     *
+     * @param deadline The deadline of the parse making the request
+     * @throws RateLimitExceededException When the request would have to wait longer than the
+     *                                    maximum wait or the time left before the deadline
+     * @throws InterruptedIOException     When the deadline was canceled or passed, or the thread
+     *                                    was interrupted while waiting
+     */
+    public void acquire(Deadline deadline)
+            throws RateLimitExceededException, InterruptedIOException {
+        deadline.check();
+        long waitNanos = reserve(Math.min(mMaxWaitNanos, deadline.getRemainingNanos()));
+        if (waitNanos == 0) return;
+        deadline.sleep(waitNanos);
+    }
+
+    /**
+     * Runs a request once it's permitted without blocking the calling thread. Requests that are
+     * permitted right away run on the calling thread, others on a shared timer thread.
+     *
+     * @param request Makes the request, it should return quickly
+     * @throws RateLimitExceededException When the request would have to wait longer than the
+     *                                    maximum wait, the request is not run
+     */
+    public void acquire(Runnable request) throws RateLimitExceededException {
+        long waitNanos = reserve(mMaxWaitNanos);
+        if (waitNanos == 0) {
+            request.run();
+        } else {
+            ParserTimer.EXECUTOR.schedule(request, waitNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return The number of requests that were permitted, including the ones that had to wait
+     */
+    public synchronized long getAcquiredCount() {
+        return mAcquiredCount;
+    }
+
+    /**
+     * @return The number of requests that can be made right now without waiting
+     */
+    public synchronized int getAvailablePermits() {
+        refill(nanoTime());
+        if (isOutOfCredits()) return 0;
+        int permits = (int) Math.max(mTokens, 0);
+        return mRemainingCredits != UNKNOWN ? (int) Math.min(permits, mRemainingCredits) : permits;
+    }
+
+    /**
+     * @return The total number of credits the provider last reported, {@link #UNKNOWN} if it
+     * hasn't reported its limit
+     */
+    public synchronized long getCreditLimit() {
+        return mCreditLimit;
+    }
+
+    /**
+     * @return How long in milliseconds until the remaining credits reset, {@link #UNKNOWN} if the
+     * remaining credits are unknown
+     */
+    public synchronized long getCreditsResetMillis() {
+        long now = nanoTime();
+        refill(now);
+        if (mRemainingCredits == UNKNOWN) return UNKNOWN;
+        return TimeUnit.NANOSECONDS.toMillis(mCreditsResetAt - now);
+    }
+
+    /**
+     * @return The number of requests that had to wait for a permit
+     */
+    public synchronized long getDelayedCount() {
+        return mDelayedCount;
+    }
+
+    /**
+     * @return The number of credits the provider has left, counting the requests made since it
+     * last reported them, {@link #UNKNOWN} if the provider hasn't reported them recently
+     */
+    public synchronized long getRemainingCredits() {
+        refill(nanoTime());
+        return mRemainingCredits;
+    }
+
+    /**
+     * @return The number of requests that were shed because they would have waited too long
+     */
+    public synchronized long getShedCount() {
+        return mShedCount;
+    }
+
+    /**
+     * Updates the credits the provider has left, usually from the headers of an API response
+     *
+     * @param limit         The total number of credits, {@link #UNKNOWN} if not reported
+     * @param remaining     The number of credits left, {@link #UNKNOWN} if not reported
+     * @param resetInMillis How long until the remaining credits reset, {@link #UNKNOWN} to trust
+     *                      them for {@link #DEFAULT_CREDITS_TTL_MILLIS}
+     */
+    public synchronized void updateCredits(long limit, long remaining, long resetInMillis) {
+        if (limit != UNKNOWN) mCreditLimit = limit;
+        if (remaining == UNKNOWN) return;
+        long ttlMillis = resetInMillis != UNKNOWN ? resetInMillis : DEFAULT_CREDITS_TTL_MILLIS;
+        mRemainingCredits = Math.max(remaining, 0);
+        mCreditsResetAt = nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMillis, 0));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RateLimiter{"
+                + "availablePermits="
+                + getAvailablePermits()
+                + ", remainingCredits="
+                + mRemainingCredits
+                + ", creditLimit="
+                + mCreditLimit
+                + ", acquired="
+                + mAcquiredCount
+                + ", delayed="
+                + mDelayedCount
+                + ", shed="
+                + mShedCount
+                + '}';
+    }
+
+    /**
+     * @return The current time in nanoseconds, overridden by tests
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Takes a permit only if one is available right away, for optional requests such as hedges
+     * that aren't worth waiting for
+     *
+     * @return True if a permit was taken, false if the request shouldn't be made
+     */
+    synchronized boolean tryAcquire() {
+        refill(nanoTime());
+        if (mTokens < 1 || isOutOfCredits()) return false;
+        mTokens--;
+        if (mRemainingCredits > 0) mRemainingCredits--;
+        mAcquiredCount++;
+        return true;
+    }
+
+    private boolean isOutOfCredits() {
+        return mRemainingCredits != UNKNOWN && mRemainingCredits <= 0;
+    }
+
+    private void refill(long now) {
+        mTokens = Math.min(mBurst, mTokens + (now - mRefilledAt) * mPermitsPerNano);
+        mRefilledAt = now;
+        // Credits are only trusted until they reset, the next response reports the new ones
+        if (mRemainingCredits != UNKNOWN && now - mCreditsResetAt >= 0) {
+            mRemainingCredits = UNKNOWN;
+        }
+    }
+
+    /**
+     * Takes a permit, which may be in the future
+     *
+     * @param maxWaitNanos How long the request can wait for the permit before it's shed
+     * @return How long in nanoseconds to wait before making the request
+     */
+    private synchronized long reserve(long maxWaitNanos) throws RateLimitExceededException {
+        long now = nanoTime();
+        refill(now);
+        long waitNanos = 0;
+        if (mTokens < 1) waitNanos = (long) Math.ceil((1 - mTokens) / mPermitsPerNano);
+        if (isOutOfCredits()) waitNanos = Math.max(waitNanos, mCreditsResetAt - now);
+        if (waitNanos > maxWaitNanos) {
+            mShedCount++;
+            throw new RateLimitExceededException(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+
+        mTokens--;
+        if (mRemainingCredits > 0) mRemainingCredits--;
+        mAcquiredCount++;
+        if (waitNanos > 0) mDelayedCount++;
+        return waitNanos;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.streamable.api.StreamableApi;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.xkcd.api.XkcdApi;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded in-memory cache of successful parser responses, keyed by the API provider name and the
+ * media hash. Entries expire after a time-to-live that can be set per provider, and the least
+ * recently used entry is evicted once the cache is full.
+ * <p>
+ * Only responses the API reported as successful are ever cached, for example a Streamable video is
+ * not cached until it has finished processing.
+ */
+public class ResponseCache {
+    /** The default maximum number of responses to keep */
+    public static final int  DEFAULT_MAX_ENTRIES = 1000;
+    /** The default time-to-live for providers without their own TTL */
+    public static final long DEFAULT_TTL_MILLIS  = TimeUnit.MINUTES.toMillis(10);
+
+    private final long                             mDefaultTtlMillis;
+    private final Map<String, Long>                mProviderTtlMillis;
+    private final ExpiringCache<ParserResponse<?>> mEntries;
+
+    private ResponseCache(int maxEntries,
+            long defaultTtlMillis,
+            Map<String, Long> providerTtlMillis) {
+        mDefaultTtlMillis = defaultTtlMillis;
+        mProviderTtlMillis = providerTtlMillis;
+        mEntries = new ExpiringCache<>(maxEntries);
+    }
+
+    /**
+     * Removes every response from the cache. The counters are not reset.
+     */
+    public void clear() {
+        mEntries.clear();
+    }
+
+    /**
+     * Gets a cached response
+     *
+     * @param providerName The name of the API provider, for example: imgur.com
+     * @param hash         The hash of the media
+     * @param originalUrl  The URL the response is being returned for
+     * @return A copy of the cached response with its original URL set to the passed-in URL, null
+     * if no response was cached or it expired
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends IMedia> ParserResponse<T> get(String providerName,
+            String hash,
+            MediaUrl originalUrl) {
+        if (providerName == null || hash == null || hash.isEmpty()) return null;
+        ParserResponse<T> response =
+                (ParserResponse<T>) mEntries.get(getKey(providerName, hash));
+        return response != null ? response.copy(originalUrl) : null;
+    }
+
+    /**
+     * @return The number of responses that were removed because they expired or the cache was full
+     */
+    public long getEvictionCount() {
+        return mEntries.getEvictionCount();
+    }
+
+    /**
+     * @return The number of lookups that returned a cached response
+     */
+    public long getHitCount() {
+        return mEntries.getHitCount();
+    }
+
+    /**
+     * @return The maximum number of responses this cache keeps
+     */
+    public int getMaxEntries() {
+        return mEntries.getMaxEntries();
+    }
+
+    /**
+     * @return The number of lookups that didn't find a cached response
+     */
+    public long getMissCount() {
+        return mEntries.getMissCount();
+    }
+
+    /**
+     * @param providerName The name of the API provider, for example: imgur.com
+     * @return The time-to-live in milliseconds of responses from the provider
+     */
+    public long getTtlMillis(String providerName) {
+        Long ttlMillis = mProviderTtlMillis.get(providerName);
+        return ttlMillis != null ? ttlMillis : mDefaultTtlMillis;
+    }
+
+    /**
+     * Caches a response. Responses without a provider name or hash, and responses from providers
+     * with a TTL of 0, are ignored.
+     *
+     * @param response The response to cache
+     */
+    public void put(ParserResponse<?> response) {
+        if (response == null) return;
+        String providerName = response.getApiProviderName();
+        String hash = response.getHash();
+        if (providerName == null || hash == null || hash.isEmpty()) return;
+        mEntries.put(getKey(providerName, hash), response, getTtlMillis(providerName));
+    }
+
+    /**
+     * @return The number of responses currently cached, including ones that expired but haven't
+     * been removed yet
+     */
+    public int size() {
+        return mEntries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{" + mEntries + '}';
+    }
+
+    private static String getKey(String providerName, String hash) {
+        return providerName + '/' + hash;
+    }
+
+    public static class Builder {
+        private int               newMaxEntries        = DEFAULT_MAX_ENTRIES;
+        private long              newDefaultTtlMillis  = DEFAULT_TTL_MILLIS;
+        private Map<String, Long> newProviderTtlMillis = new HashMap<>();
+
+        public Builder() {
+            // xkcd comics never change once published
+            newProviderTtlMillis.put(XkcdApi.BASE_DOMAIN, Long.MAX_VALUE);
+            // Streamable videos can be deleted or re-processed, don't keep them around for long
+            newProviderTtlMillis.put(StreamableApi.BASE_DOMAIN, TimeUnit.MINUTES.toMillis(1));
+        }
+
+        /**
+         * @return A new ResponseCache instance with all the requested options set.
+         */
+        public ResponseCache build() {
+            return new ResponseCache(newMaxEntries,
+                    newDefaultTtlMillis,
+                    new HashMap<>(newProviderTtlMillis));
+        }
+
+        /**
+         * Sets the time-to-live for providers that don't have their own TTL. Defaults to {@link
+         * #DEFAULT_TTL_MILLIS}.
+         *
+         * @param ttl  How long to keep responses, 0 to not cache them
+         * @param unit The unit of the passed-in TTL
+         * @return The Builder instance with the new default TTL set.
+         */
+        public Builder defaultTtl(long ttl, TimeUnit unit) {
+            newDefaultTtlMillis = unit.toMillis(ttl);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of responses to keep. Defaults to {@link #DEFAULT_MAX_ENTRIES}.
+         *
+         * @param maxEntries The maximum number of responses to keep
+         * @return The Builder instance with the new maximum set.
+         */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries must be at least 1: " + maxEntries);
+            }
+            newMaxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sets the time-to-live for a single provider. By default xkcd responses never expire and
+         * Streamable responses expire after a minute.
+         *
+         * @param providerName The name of the API provider, for example: imgur.com
+         * @param ttl          How long to keep responses from the provider, 0 to not cache them
+         * @param unit         The unit of the passed-in TTL
+         * @return The Builder instance with the new provider TTL set.
+         */
+        public Builder ttl(String providerName, long ttl, TimeUnit unit) {
+            newProviderTtlMillis.put(providerName, unit.toMillis(ttl));
+            return this;
+        }
+    }
+}
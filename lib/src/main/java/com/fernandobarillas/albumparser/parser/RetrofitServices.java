@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.squareup.moshi.Moshi;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import retrofit2.Retrofit;
+
+/**
+ * Holds a Retrofit instance along with the service implementations it created so they can be
+ * reused between requests instead of being rebuilt for every API call. Safe to use from any thread.
+ */
+public class RetrofitServices {
+    private final Retrofit                        mRetrofit;
+    private final Moshi                           mMoshi;
+    private final ConcurrentMap<Class<?>, Object> mServices = new ConcurrentHashMap<>();
+
+    RetrofitServices(Retrofit retrofit, Moshi moshi) {
+        mRetrofit = retrofit;
+        mMoshi = moshi;
+    }
+
+    /**
+     * Gets the implementation for the passed-in API interface, creating it on the first call. The
+     * client generated at build time is used when there is one, otherwise Retrofit creates a proxy
+     *
+     * @param serviceClass The Retrofit interface for the API, for example: ImgurApi.class
+     * @param <S>          The type of the Retrofit interface
+     * @return The implementation of the passed-in interface
+     */
+    public <S> S get(Class<S> serviceClass) {
+        Object service = mServices.get(serviceClass);
+        if (service == null) {
+            service = GeneratedCode.createService(serviceClass, mRetrofit);
+            if (service == null) service = mRetrofit.create(serviceClass);
+            Object existing = mServices.putIfAbsent(serviceClass, service);
+            if (existing != null) service = existing;
+        }
+        return serviceClass.cast(service);
+    }
+
+    /**
+     * @return The Moshi instance Retrofit decodes the API responses with
+     */
+    public Moshi getMoshi() {
+        return mMoshi;
+    }
+
+    /**
+     * @return The Retrofit instance used to create the services
+     */
+    public Retrofit getRetrofit() {
+        return mRetrofit;
+    }
+}
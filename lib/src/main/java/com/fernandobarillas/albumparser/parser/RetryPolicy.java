@@ -0,0 +1,402 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.RateLimitExceededException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Headers;
+
+/**
+ * Decides whether an API call that failed with a transient error is retried and how long to wait
+ * before retrying it. Connection failures, timeouts and 408, 429, 500, 502, 503 and 504 responses
+ * are retried with exponential backoff until the maximum number of attempts or the time budget is
+ * used up, or the {@link Deadline} of the parse would pass before the retry. A Retry-After header
+ * on the response is waited out before retrying.
+ * <p>
+ * Requests shed by a {@link RateLimiter} and calls that were canceled aren't retried. Each retry
+ * acquires a new permit from the parser's rate limiter, if it has one.
+ * <p>
+ * The counters cover every call made with this policy, share a policy between providers only if
+ * their retries don't need to be told apart.
+ */
+public class RetryPolicy {
+    /** The default number of times a call is made, including the first attempt */
+    public static final int    DEFAULT_MAX_ATTEMPTS         = 3;
+    /** The default delay before the first retry, it doubles with each retry after that */
+    public static final long   DEFAULT_INITIAL_DELAY_MILLIS = 200;
+    /** The default longest delay between two attempts, ignoring Retry-After */
+    public static final long   DEFAULT_MAX_DELAY_MILLIS     = TimeUnit.SECONDS.toMillis(5);
+    /** The default fraction of each delay that is randomized */
+    public static final double DEFAULT_JITTER               = 0.5;
+    /** The default time from the first attempt after which no more retries are made */
+    public static final long   DEFAULT_BUDGET_MILLIS        = TimeUnit.SECONDS.toMillis(15);
+
+    /** Returned by the delay getters when a call shouldn't be retried */
+    static final long NO_RETRY = -1;
+
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private final int     mMaxAttempts;
+    private final long    mInitialDelayMillis;
+    private final long    mMaxDelayMillis;
+    private final double  mJitter;
+    private final long    mBudgetMillis;
+    private final boolean mHonorRetryAfter;
+
+    private final AtomicLong mRetryCount       = new AtomicLong();
+    private final AtomicLong mRetryDelayMillis = new AtomicLong();
+    private final AtomicLong mRecoveredCount   = new AtomicLong();
+    private final AtomicLong mExhaustedCount   = new AtomicLong();
+
+    private RetryPolicy(int maxAttempts,
+            long initialDelayMillis,
+            long maxDelayMillis,
+            double jitter,
+            long budgetMillis,
+            boolean honorRetryAfter) {
+        mMaxAttempts = maxAttempts;
+        mInitialDelayMillis = initialDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+        mJitter = jitter;
+        mBudgetMillis = budgetMillis;
+        mHonorRetryAfter = honorRetryAfter;
+    }
+
+    /**
+     * @param statusCode The HTTP status code of an API response
+     * @return True if the status code reports an error that may go away when the call is retried
+     */
+    public static boolean isRetryableStatus(int statusCode) {
+        switch (statusCode) {
+            case 408: // Request Timeout
+            case 429: // Too Many Requests
+            case 500: // Internal Server Error
+            case 502: // Bad Gateway
+            case 503: // Service Unavailable
+            case 504: // Gateway Timeout
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return The time in milliseconds from the first attempt after which no more retries are made
+     */
+    public long getBudgetMillis() {
+        return mBudgetMillis;
+    }
+
+    /**
+     * @return The number of calls that failed even though they were retried
+     */
+    public long getExhaustedCount() {
+        return mExhaustedCount.get();
+    }
+
+    /**
+     * @return The maximum number of times a call is made, including the first attempt
+     */
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    /**
+     * @return The number of calls that succeeded after being retried
+     */
+    public long getRecoveredCount() {
+        return mRecoveredCount.get();
+    }
+
+    /**
+     * @return The number of retries made, a call retried twice counts twice
+     */
+    public long getRetryCount() {
+        return mRetryCount.get();
+    }
+
+    /**
+     * @return The total time in milliseconds calls spent waiting to be retried, which is the
+     * latency retries added on top of the time the retried attempts themselves took
+     */
+    public long getRetryDelayMillis() {
+        return mRetryDelayMillis.get();
+    }
+
+    /**
+     * @return True if Retry-After headers are waited out before retrying
+     */
+    public boolean isHonoringRetryAfter() {
+        return mHonorRetryAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{"
+                + "maxAttempts="
+                + mMaxAttempts
+                + ", initialDelayMillis="
+                + mInitialDelayMillis
+                + ", maxDelayMillis="
+                + mMaxDelayMillis
+                + ", jitter="
+                + mJitter
+                + ", budgetMillis="
+                + mBudgetMillis
+                + ", honorRetryAfter="
+                + mHonorRetryAfter
+                + ", retries="
+                + mRetryCount
+                + ", recovered="
+                + mRecoveredCount
+                + ", exhausted="
+                + mExhaustedCount
+                + '}';
+    }
+
+    /**
+     * Decides whether a call that failed with an exception is retried. The retry isn't counted
+     * until {@link #recordRetry(long)} is called, so calls canceled in the meantime aren't counted
+     *
+     * @param attempt    The attempt that failed, starting at 1
+     * @param startNanos The {@link System#nanoTime()} of the first attempt
+     * @param deadline   The deadline of the parse making the call, null if it has none
+     * @param failure    The reason the attempt failed
+     * @return How long in milliseconds to wait before the next attempt, {@link #NO_RETRY} if the
+     * call shouldn't be retried
+     */
+    long getRetryDelayMillis(int attempt,
+            long startNanos,
+            Deadline deadline,
+            IOException failure) {
+        if (failure instanceof RateLimitExceededException) return NO_RETRY;
+        // Timeouts are worth retrying, interrupted threads are not
+        if (failure instanceof InterruptedIOException
+                && !(failure instanceof SocketTimeoutException)) {
+            return NO_RETRY;
+        }
+        return getRetryDelayMillis(attempt, startNanos, deadline, 0);
+    }
+
+    /**
+     * Decides whether a call that got an HTTP response is retried. The retry isn't counted until
+     * {@link #recordRetry(long)} is called, so calls canceled in the meantime aren't counted
+     *
+     * @param attempt    The attempt that got the response, starting at 1
+     * @param startNanos The {@link System#nanoTime()} of the first attempt
+     * @param deadline   The deadline of the parse making the call, null if it has none
+     * @param statusCode The HTTP status code of the response
+     * @param headers    The headers of the response
+     * @return How long in milliseconds to wait before the next attempt, {@link #NO_RETRY} if the
+     * call shouldn't be retried
+     */
+    long getRetryDelayMillis(int attempt,
+            long startNanos,
+            Deadline deadline,
+            int statusCode,
+            Headers headers) {
+        if (!isRetryableStatus(statusCode)) return NO_RETRY;
+        return getRetryDelayMillis(attempt,
+                startNanos,
+                deadline,
+                mHonorRetryAfter ? getRetryAfterMillis(headers) : 0);
+    }
+
+    /**
+     * Counts the outcome of a call once no more attempts will be made
+     *
+     * @param attempts   The number of times the call was made
+     * @param successful True if the last attempt succeeded
+     */
+    void recordResult(int attempts, boolean successful) {
+        if (attempts <= 1) return;
+        if (successful) {
+            mRecoveredCount.incrementAndGet();
+        } else {
+            mExhaustedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts a retry that is about to be made
+     *
+     * @param delayMillis The delay before the retry, as returned by getRetryDelayMillis()
+     */
+    void recordRetry(long delayMillis) {
+        mRetryCount.incrementAndGet();
+        mRetryDelayMillis.addAndGet(delayMillis);
+    }
+
+    /**
+     * @return The delay the Retry-After header asks for in milliseconds, 0 if there is none
+     */
+    private static long getRetryAfterMillis(Headers headers) {
+        String retryAfter = headers != null ? headers.get(RETRY_AFTER_HEADER) : null;
+        if (retryAfter == null) return 0;
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(Long.parseLong(retryAfter.trim()), 0));
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, it can also be an HTTP date
+        }
+        Date retryAt = headers.getDate(RETRY_AFTER_HEADER);
+        if (retryAt == null) return 0;
+        return Math.max(retryAt.getTime() - System.currentTimeMillis(), 0);
+    }
+
+    private long getRetryDelayMillis(int attempt,
+            long startNanos,
+            Deadline deadline,
+            long minDelayMillis) {
+        if (attempt >= mMaxAttempts) return NO_RETRY;
+
+        // Doubles with each attempt, the shift is capped so it can't overflow
+        long backoffMillis = mInitialDelayMillis << Math.min(attempt - 1, 30);
+        if (backoffMillis > mMaxDelayMillis || backoffMillis < 0) backoffMillis = mMaxDelayMillis;
+        // Spread out the retries of calls that failed at the same time
+        double random = ThreadLocalRandom.current().nextDouble();
+        long delayMillis = backoffMillis - (long) (backoffMillis * mJitter * random);
+        delayMillis = Math.max(delayMillis, minDelayMillis);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (elapsedMillis + delayMillis > mBudgetMillis) return NO_RETRY;
+        // The parse would run out of time before the retry could be made
+        if (deadline != null && delayMillis >= deadline.getRemainingMillis()) return NO_RETRY;
+        return delayMillis;
+    }
+
+    public static class Builder {
+        private int     newMaxAttempts        = DEFAULT_MAX_ATTEMPTS;
+        private long    newInitialDelayMillis = DEFAULT_INITIAL_DELAY_MILLIS;
+        private long    newMaxDelayMillis     = DEFAULT_MAX_DELAY_MILLIS;
+        private double  newJitter             = DEFAULT_JITTER;
+        private long    newBudgetMillis       = DEFAULT_BUDGET_MILLIS;
+        private boolean newHonorRetryAfter    = true;
+
+        public Builder() {
+        }
+
+        /**
+         * Sets the exponential backoff between attempts. The first retry waits the initial delay,
+         * each retry after that waits twice as long as the previous one, up to the maximum delay.
+         * Defaults to {@link #DEFAULT_INITIAL_DELAY_MILLIS} and {@link #DEFAULT_MAX_DELAY_MILLIS}.
+         *
+         * @param initialDelay The delay before the first retry
+         * @param maxDelay     The longest delay between two attempts
+         * @param unit         The unit of the passed-in delays
+         * @return The Builder instance with the new backoff set.
+         */
+        public Builder backoff(long initialDelay, long maxDelay, TimeUnit unit) {
+            if (initialDelay < 0) {
+                throw new IllegalArgumentException(
+                        "initialDelay must not be negative: " + initialDelay);
+            }
+            if (maxDelay < initialDelay) {
+                throw new IllegalArgumentException(
+                        "maxDelay must be at least initialDelay: " + maxDelay);
+            }
+            newInitialDelayMillis = unit.toMillis(initialDelay);
+            newMaxDelayMillis = unit.toMillis(maxDelay);
+            return this;
+        }
+
+        /**
+         * Sets how long after the first attempt retries can still be made. A retry whose delay
+         * would end past the budget isn't made. Defaults to {@link #DEFAULT_BUDGET_MILLIS}.
+         *
+         * @param budget The time budget for all the attempts of a call
+         * @param unit   The unit of the passed-in budget
+         * @return The Builder instance with the new budget set.
+         */
+        public Builder budget(long budget, TimeUnit unit) {
+            if (budget < 0) {
+                throw new IllegalArgumentException("budget must not be negative: " + budget);
+            }
+            newBudgetMillis = unit.toMillis(budget);
+            return this;
+        }
+
+        /**
+         * @return A new RetryPolicy instance with all the requested options set.
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(newMaxAttempts,
+                    newInitialDelayMillis,
+                    newMaxDelayMillis,
+                    newJitter,
+                    newBudgetMillis,
+                    newHonorRetryAfter);
+        }
+
+        /**
+         * Sets whether a Retry-After header on a retryable response is waited out before
+         * retrying. A Retry-After past the time budget means the call isn't retried. Defaults to
+         * true.
+         *
+         * @param honorRetryAfter True to wait at least as long as Retry-After asks for
+         * @return The Builder instance with the new setting set.
+         */
+        public Builder honorRetryAfter(boolean honorRetryAfter) {
+            newHonorRetryAfter = honorRetryAfter;
+            return this;
+        }
+
+        /**
+         * Sets the fraction of each delay that is randomized, so calls that failed together aren't
+         * all retried at the same moment. Defaults to {@link #DEFAULT_JITTER}.
+         *
+         * @param jitter From 0 to always wait the full delay, up to 1 to wait anywhere between no
+         *               time and the full delay
+         * @return The Builder instance with the new jitter set.
+         */
+        public Builder jitter(double jitter) {
+            if (!(jitter >= 0 && jitter <= 1)) {
+                throw new IllegalArgumentException("jitter must be between 0 and 1: " + jitter);
+            }
+            newJitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets how many times a call is made at most, including the first attempt. Defaults to
+         * {@link #DEFAULT_MAX_ATTEMPTS}.
+         *
+         * @param maxAttempts The maximum number of attempts, 1 to never retry
+         * @return The Builder instance with the new maximum set.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException(
+                        "maxAttempts must be at least 1: " + maxAttempts);
+            }
+            newMaxAttempts = maxAttempts;
+            return this;
+        }
+    }
+}
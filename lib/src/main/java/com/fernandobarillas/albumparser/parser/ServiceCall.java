@@ -0,0 +1,341 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.Executor;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Converter;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+/**
+ * The Call returned by the generated service clients. It makes the HTTP call and converts the
+ * response exactly like the Call Retrofit's proxies return, including running callbacks on the
+ * Retrofit instance's callback executor when it has one.
+ *
+ * @param <T> The type of the decoded response body
+ */
+final class ServiceCall<T> implements Call<T> {
+    private static final Converter<ResponseBody, ResponseBody> STREAMING_CONVERTER =
+            new Converter<ResponseBody, ResponseBody>() {
+                @Override
+                public ResponseBody convert(ResponseBody value) {
+                    return value;
+                }
+            };
+
+    private final Retrofit         mRetrofit;
+    private final ServiceRequest   mRequest;
+    private final BodyConverter<T> mConverter;
+
+    private volatile boolean mCanceled;
+
+    // Guarded by this
+    private okhttp3.Call mRawCall;
+    private Throwable    mCreationFailure;
+    private boolean      mExecuted;
+
+    ServiceCall(Retrofit retrofit, ServiceRequest request, BodyConverter<T> converter) {
+        mRetrofit = retrofit;
+        mRequest = request;
+        mConverter = converter;
+    }
+
+    @Override
+    public void cancel() {
+        mCanceled = true;
+        okhttp3.Call call;
+        synchronized (this) {
+            call = mRawCall;
+        }
+        if (call != null) call.cancel();
+    }
+
+    @Override
+    public ServiceCall<T> clone() {
+        return new ServiceCall<>(mRetrofit, mRequest, mConverter);
+    }
+
+    @Override
+    public void enqueue(final Callback<T> callback) {
+        if (callback == null) throw new NullPointerException("callback == null");
+
+        okhttp3.Call call;
+        Throwable failure;
+        synchronized (this) {
+            if (mExecuted) throw new IllegalStateException("Already executed.");
+            mExecuted = true;
+            call = mRawCall;
+            failure = mCreationFailure;
+            if (call == null && failure == null) {
+                try {
+                    call = mRawCall = createRawCall();
+                } catch (Throwable t) {
+                    failure = mCreationFailure = t;
+                }
+            }
+        }
+
+        if (failure != null) {
+            callFailure(callback, failure);
+            return;
+        }
+        if (mCanceled) call.cancel();
+
+        call.enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(okhttp3.Call call, IOException e) {
+                callFailure(callback, e);
+            }
+
+            @Override
+            public void onResponse(okhttp3.Call call, okhttp3.Response rawResponse) {
+                Response<T> response;
+                try {
+                    response = parseResponse(rawResponse);
+                } catch (Throwable t) {
+                    callFailure(callback, t);
+                    return;
+                }
+                callSuccess(callback, response);
+            }
+        });
+    }
+
+    @Override
+    public Response<T> execute() throws IOException {
+        okhttp3.Call call;
+        synchronized (this) {
+            if (mExecuted) throw new IllegalStateException("Already executed.");
+            mExecuted = true;
+            throwCreationFailure();
+            call = mRawCall;
+            if (call == null) {
+                try {
+                    call = mRawCall = createRawCall();
+                } catch (RuntimeException e) {
+                    mCreationFailure = e;
+                    throw e;
+                }
+            }
+        }
+
+        if (mCanceled) call.cancel();
+        return parseResponse(call.execute());
+    }
+
+    @Override
+    public boolean isCanceled() {
+        if (mCanceled) return true;
+        synchronized (this) {
+            return mRawCall != null && mRawCall.isCanceled();
+        }
+    }
+
+    @Override
+    public synchronized boolean isExecuted() {
+        return mExecuted;
+    }
+
+    @Override
+    public synchronized Request request() {
+        if (mRawCall != null) return mRawCall.request();
+        throwCreationFailure();
+        try {
+            mRawCall = createRawCall();
+            return mRawCall.request();
+        } catch (RuntimeException e) {
+            mCreationFailure = e;
+            throw e;
+        }
+    }
+
+    private void callFailure(final Callback<T> callback, final Throwable t) {
+        runCallback(new Runnable() {
+            @Override
+            public void run() {
+                callback.onFailure(ServiceCall.this, t);
+            }
+        });
+    }
+
+    private void callSuccess(final Callback<T> callback, final Response<T> response) {
+        // Retrofit only checks for a cancel made while the callback was waiting on an executor
+        final boolean checkCanceled = mRetrofit.callbackExecutor() != null;
+        runCallback(new Runnable() {
+            @Override
+            public void run() {
+                if (checkCanceled && mCanceled) {
+                    callback.onFailure(ServiceCall.this, new IOException("Canceled"));
+                } else {
+                    callback.onResponse(ServiceCall.this, response);
+                }
+            }
+        });
+    }
+
+    private okhttp3.Call createRawCall() {
+        return mRetrofit.callFactory().newCall(mRequest.build());
+    }
+
+    private Response<T> parseResponse(okhttp3.Response rawResponse) throws IOException {
+        ResponseBody rawBody = rawResponse.body();
+
+        // Remove the body's source (the only stateful object) so we can pass the response along
+        rawResponse = rawResponse.newBuilder()
+                .body(new NoContentResponseBody(rawBody.contentType(), rawBody.contentLength()))
+                .build();
+
+        int code = rawResponse.code();
+        if (code < 200 || code >= 300) {
+            try {
+                Buffer buffer = new Buffer();
+                rawBody.source().readAll(buffer);
+                ResponseBody bufferedBody =
+                        ResponseBody.create(rawBody.contentType(), rawBody.contentLength(), buffer);
+                return Response.error(bufferedBody, rawResponse);
+            } finally {
+                rawBody.close();
+            }
+        }
+
+        if (code == 204 || code == 205) {
+            rawBody.close();
+            return Response.success(null, rawResponse);
+        }
+
+        return Response.success(mConverter.get().convert(rawBody), rawResponse);
+    }
+
+    /**
+     * Runs a callback on the Retrofit instance's callback executor, or on the calling thread when
+     * it has none. Exceptions thrown by the callback are printed like Retrofit does.
+     */
+    private void runCallback(final Runnable callback) {
+        Runnable guarded = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    callback.run();
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                }
+            }
+        };
+        Executor executor = mRetrofit.callbackExecutor();
+        if (executor != null) {
+            executor.execute(guarded);
+        } else {
+            guarded.run();
+        }
+    }
+
+    private void throwCreationFailure() {
+        if (mCreationFailure == null) return;
+        if (mCreationFailure instanceof RuntimeException) {
+            throw (RuntimeException) mCreationFailure;
+        }
+        throw new RuntimeException("Unable to create request.", mCreationFailure);
+    }
+
+    /**
+     * Looks up the Retrofit converter for a service method's response type the first time it's
+     * needed and keeps it for every later call
+     *
+     * @param <T> The type of the decoded response body
+     */
+    static final class BodyConverter<T> {
+        private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+        private final Retrofit mRetrofit;
+        private final Type     mType;
+        private final boolean  mStreaming;
+
+        private volatile Converter<ResponseBody, T> mConverter;
+
+        BodyConverter(Retrofit retrofit, Type type) {
+            this(retrofit, type, false);
+        }
+
+        /**
+         * @param streaming True for @Streaming methods, which return the ResponseBody unread
+         *                  instead of buffering it like Retrofit's built-in converter
+         */
+        BodyConverter(Retrofit retrofit, Type type, boolean streaming) {
+            mRetrofit = retrofit;
+            mType = type;
+            mStreaming = streaming;
+        }
+
+        @SuppressWarnings("unchecked")
+        Converter<ResponseBody, T> get() {
+            Converter<ResponseBody, T> converter = mConverter;
+            if (converter == null) {
+                if (mStreaming) {
+                    converter = (Converter<ResponseBody, T>) (Converter<?, ?>) STREAMING_CONVERTER;
+                } else {
+                    converter = mRetrofit.responseBodyConverter(mType, NO_ANNOTATIONS);
+                }
+                mConverter = converter;
+            }
+            return converter;
+        }
+    }
+
+    /**
+     * Stands in for the body of a response that was already read, see Retrofit's OkHttpCall
+     */
+    private static final class NoContentResponseBody extends ResponseBody {
+        private final MediaType mContentType;
+        private final long      mContentLength;
+
+        NoContentResponseBody(MediaType contentType, long contentLength) {
+            mContentType = contentType;
+            mContentLength = contentLength;
+        }
+
+        @Override
+        public long contentLength() {
+            return mContentLength;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mContentType;
+        }
+
+        @Override
+        public BufferedSource source() {
+            throw new IllegalStateException("Cannot read raw response body of a converted body.");
+        }
+    }
+}
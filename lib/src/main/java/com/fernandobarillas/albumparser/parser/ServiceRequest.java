@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okio.Buffer;
+
+/**
+ * Builds the GET requests of the generated service clients the same way Retrofit builds them from
+ * the annotations of an API interface, so both send byte for byte the same request. A parameter
+ * Retrofit would reject is remembered and thrown by {@link #build()}, which is when Retrofit
+ * throws it too.
+ */
+final class ServiceRequest {
+    private static final char[] HEX_DIGITS                     = "0123456789ABCDEF".toCharArray();
+    private static final String PATH_SEGMENT_ALWAYS_ENCODE_SET = " \"<>^`{}|\\?#";
+
+    private final HttpUrl         mBaseUrl;
+    private final Headers.Builder mHeaders = new Headers.Builder();
+
+    private String           mRelativeUrl;
+    private HttpUrl.Builder  mUrlBuilder;
+    private RuntimeException mFailure;
+
+    /**
+     * @param baseUrl     The base URL of the Retrofit instance making the request
+     * @param relativeUrl The URL from the @GET annotation, with its path parameters left in
+     */
+    ServiceRequest(HttpUrl baseUrl, String relativeUrl) {
+        mBaseUrl = baseUrl;
+        mRelativeUrl = relativeUrl;
+    }
+
+    void addHeader(String name, String value) {
+        if (value == null) return;
+        try {
+            mHeaders.add(name, value);
+        } catch (IllegalArgumentException e) {
+            // Header values with characters OkHttp doesn't allow
+            fail(e);
+        }
+    }
+
+    /**
+     * Replaces a {name} placeholder in the relative URL. Path parameters must be added before any
+     * query parameters, which Retrofit also requires.
+     */
+    void addPathParam(String name, String value) {
+        if (value == null) {
+            fail(new IllegalArgumentException(
+                    "Path parameter \"" + name + "\" value must not be null."));
+            return;
+        }
+        if (mRelativeUrl == null) return;
+        mRelativeUrl = mRelativeUrl.replace("{" + name + "}", canonicalizeForPath(value));
+    }
+
+    void addQueryParam(String name, String value) {
+        if (value == null) return;
+        if (mRelativeUrl != null) {
+            mUrlBuilder = mBaseUrl.newBuilder(mRelativeUrl);
+            if (mUrlBuilder == null) {
+                fail(new IllegalArgumentException(
+                        "Malformed URL. Base: " + mBaseUrl + ", Relative: " + mRelativeUrl));
+            }
+            mRelativeUrl = null;
+        }
+        if (mUrlBuilder != null) mUrlBuilder.addQueryParameter(name, value);
+    }
+
+    /**
+     * @return The request for the parameters added so far
+     * @throws IllegalArgumentException When a parameter had a value Retrofit doesn't accept or the
+     *                                  resulting URL is malformed
+     */
+    Request build() {
+        if (mFailure != null) throw mFailure;
+        HttpUrl url = mUrlBuilder != null ? mUrlBuilder.build() : mBaseUrl.resolve(mRelativeUrl);
+        if (url == null) {
+            throw new IllegalArgumentException(
+                    "Malformed URL. Base: " + mBaseUrl + ", Relative: " + mRelativeUrl);
+        }
+        return new Request.Builder().url(url).headers(mHeaders.build()).get().build();
+    }
+
+    /**
+     * Percent-encodes a path parameter value, see Retrofit's RequestBuilder
+     */
+    private static String canonicalizeForPath(String input) {
+        int codePoint;
+        for (int i = 0, limit = input.length(); i < limit; i += Character.charCount(codePoint)) {
+            codePoint = input.codePointAt(i);
+            if (isEncoded(codePoint)) {
+                Buffer out = new Buffer();
+                out.writeUtf8(input, 0, i);
+                canonicalizeForPath(out, input, i, limit);
+                return out.readUtf8();
+            }
+        }
+        // Most values need no encoding, skip the copy
+        return input;
+    }
+
+    private static void canonicalizeForPath(Buffer out, String input, int pos, int limit) {
+        Buffer utf8Buffer = null;
+        int codePoint;
+        for (int i = pos; i < limit; i += Character.charCount(codePoint)) {
+            codePoint = input.codePointAt(i);
+            if (!isEncoded(codePoint)) {
+                out.writeUtf8CodePoint(codePoint);
+                continue;
+            }
+            if (utf8Buffer == null) utf8Buffer = new Buffer();
+            utf8Buffer.writeUtf8CodePoint(codePoint);
+            while (!utf8Buffer.exhausted()) {
+                int b = utf8Buffer.readByte() & 0xff;
+                out.writeByte('%');
+                out.writeByte(HEX_DIGITS[(b >> 4) & 0xf]);
+                out.writeByte(HEX_DIGITS[b & 0xf]);
+            }
+        }
+    }
+
+    private static boolean isEncoded(int codePoint) {
+        return codePoint < 0x20
+                || codePoint >= 0x7f
+                || PATH_SEGMENT_ALWAYS_ENCODE_SET.indexOf(codePoint) != -1
+                || codePoint == '/'
+                || codePoint == '%';
+    }
+
+    private void fail(RuntimeException failure) {
+        if (mFailure == null) mFailure = failure;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent parses of the same media, so only one of them calls the API and every
+ * caller shares its response or Exception. Callers that join a parse already in flight get a copy
+ * of the response with their own original URL.
+ * <p>
+ * A parse started asynchronously is cancelled once every caller waiting on it has cancelled its
+ * future. A synchronous parse always runs to completion on the thread that started it.
+ */
+public class SingleFlight {
+    private final ConcurrentMap<String, Flight> mFlights        = new ConcurrentHashMap<>();
+    private final AtomicLong                    mCoalescedCount = new AtomicLong();
+
+    /**
+     * Runs a parse synchronously, unless a parse for the same key is already in flight, in which
+     * case this waits for that parse instead
+     *
+     * @param key         Identifies the media being parsed, for example the provider and hash
+     * @param originalUrl The URL being parsed
+     * @param parse       Runs the parse on the calling thread
+     * @return The parsed response
+     * @throws IOException      When there was an error during the HTTP call, or this thread was
+     *                          interrupted while waiting for another caller's parse
+     * @throws RuntimeException When the parse failed
+     */
+    public ParserResponse<IMedia> call(String key, MediaUrl originalUrl, Parse parse)
+            throws IOException, RuntimeException {
+        Flight flight = new Flight(key);
+        // Synchronous parses can't be cancelled, keep them from being abandoned by async callers
+        flight.mWaiters = 1;
+        while (true) {
+            Flight existing = mFlights.putIfAbsent(key, flight);
+            if (existing == null) break;
+            if (existing.join()) {
+                mCoalescedCount.incrementAndGet();
+                return await(existing.mShared, originalUrl);
+            }
+            mFlights.remove(key, existing);
+        }
+
+        try {
+            ParserResponse<IMedia> response = parse.call();
+            flight.mShared.set(response);
+            return response;
+        } catch (IOException | RuntimeException | Error e) {
+            flight.mShared.setException(e);
+            throw e;
+        } finally {
+            mFlights.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return The number of parses that joined a parse already in flight instead of making their
+     * own API calls
+     */
+    public long getCoalescedCount() {
+        return mCoalescedCount.get();
+    }
+
+    /**
+     * @return The number of distinct parses currently in flight
+     */
+    public int getInFlightCount() {
+        return mFlights.size();
+    }
+
+    /**
+     * Starts a parse asynchronously, unless a parse for the same key is already in flight, in which
+     * case the returned future completes along with that parse
+     *
+     * @param key         Identifies the media being parsed, for example the provider and hash
+     * @param originalUrl The URL being parsed
+     * @param task        Starts the parse
+     * @return A future for the parse. Cancelling it only cancels the API call when no other caller
+     * is waiting for it.
+     */
+    public ParserFuture<IMedia> join(String key,
+            MediaUrl originalUrl,
+            ConcurrencyLimiter.Task<IMedia> task) {
+        final Flight flight = new Flight(key);
+        while (true) {
+            Flight existing = mFlights.putIfAbsent(key, flight);
+            if (existing == null) break;
+            if (existing.join()) {
+                mCoalescedCount.incrementAndGet();
+                return existing.follow(originalUrl, true);
+            }
+            mFlights.remove(key, existing);
+        }
+
+        flight.join();
+        // Register the follower first, the parse may complete before start() returns
+        ParserFuture<IMedia> follower = flight.follow(originalUrl, false);
+        flight.mShared.addCallback(new ParserCallback<IMedia>() {
+            @Override
+            public void onSuccess(ParserResponse<IMedia> response) {
+                mFlights.remove(flight.mKey, flight);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                mFlights.remove(flight.mKey, flight);
+            }
+        });
+
+        ParserFuture<IMedia> running;
+        try {
+            running = task.start();
+        } catch (RuntimeException e) {
+            flight.mShared.setException(e);
+            return follower;
+        }
+        flight.setRunning(running);
+        running.addCallback(new ParserCallback<IMedia>() {
+            @Override
+            public void onSuccess(ParserResponse<IMedia> response) {
+                flight.mShared.set(response);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                flight.mShared.setException(throwable);
+            }
+        });
+        return follower;
+    }
+
+    private static ParserResponse<IMedia> await(ParserFuture<IMedia> shared, MediaUrl originalUrl)
+            throws IOException {
+        try {
+            return shared.get().copy(originalUrl);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + originalUrl);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Runs a parse on the calling thread
+     */
+    public interface Parse {
+        ParserResponse<IMedia> call() throws IOException, RuntimeException;
+    }
+
+    private static class Flight {
+        private final String               mKey;
+        private final ParserFuture<IMedia> mShared = new ParserFuture<>();
+
+        private int                  mWaiters;
+        private boolean              mIsAbandoned;
+        private ParserFuture<IMedia> mRunning;
+
+        private Flight(String key) {
+            mKey = key;
+        }
+
+        /**
+         * Creates a future that completes along with the shared parse
+         *
+         * @param originalUrl The URL of the caller
+         * @param copy        True to give the caller a copy of the response with its own URL
+         */
+        private ParserFuture<IMedia> follow(final MediaUrl originalUrl, final boolean copy) {
+            final ParserFuture<IMedia> follower = new ParserFuture<>();
+            mShared.addCallback(new ParserCallback<IMedia>() {
+                @Override
+                public void onSuccess(ParserResponse<IMedia> response) {
+                    follower.set(copy && response != null ? response.copy(originalUrl) : response);
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    follower.setException(throwable);
+                }
+            });
+            follower.addCallback(new ParserCallback<IMedia>() {
+                @Override
+                public void onSuccess(ParserResponse<IMedia> response) {
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    if (throwable instanceof CancellationException) leave();
+                }
+            });
+            return follower;
+        }
+
+        /**
+         * @return True if the caller joined the flight, false if it was already abandoned
+         */
+        private synchronized boolean join() {
+            if (mIsAbandoned) return false;
+            mWaiters++;
+            return true;
+        }
+
+        private void leave() {
+            ParserFuture<IMedia> running;
+            synchronized (this) {
+                if (--mWaiters > 0 || mShared.isDone()) return;
+                mIsAbandoned = true;
+                running = mRunning;
+            }
+            // Nobody is waiting for the response anymore
+            mShared.cancel(true);
+            if (running != null) running.cancel(true);
+        }
+
+        private void setRunning(ParserFuture<IMedia> running) {
+            boolean isAbandoned;
+            synchronized (this) {
+                mRunning = running;
+                isAbandoned = mIsAbandoned;
+            }
+            if (isAbandoned) running.cancel(true);
+        }
+    }
+}
@@ -20,28 +20,73 @@
 
 package com.fernandobarillas.albumparser.parser;
 
-import com.squareup.moshi.FromJson;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.JsonDataException;
-import com.squareup.moshi.ToJson;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import com.squareup.moshi.Moshi;
 
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Set;
 
 /**
- * A Moshi Adapter to convert java.net.URL Objects
+ * A Moshi Adapter to convert java.net.URL and {@link MediaUrl} Objects. This is a plain
+ * JsonAdapter.Factory rather than a class with @FromJson methods so Moshi doesn't have to find the
+ * adapter methods with reflection.
  */
-class URLAdapter {
-    @FromJson
-    URL fromJson(String urlString) {
-        try {
-            return new URL(urlString);
-        } catch (MalformedURLException e) {
-            throw new JsonDataException("Invalid URL: " + urlString);
+class URLAdapter implements JsonAdapter.Factory {
+    private static final JsonAdapter<URL> URL_ADAPTER = new JsonAdapter<URL>() {
+        @Override
+        public URL fromJson(JsonReader reader) throws IOException {
+            String urlString = reader.nextString();
+            try {
+                return new URL(urlString);
+            } catch (MalformedURLException e) {
+                throw new JsonDataException("Invalid URL: " + urlString);
+            }
         }
-    }
 
-    @ToJson
-    String toJson(URL url) {
-        return url != null ? url.toString() : null;
+        @Override
+        public void toJson(JsonWriter writer, URL url) throws IOException {
+            writer.value(url.toString());
+        }
+
+        @Override
+        public String toString() {
+            return "JsonAdapter(URL)";
+        }
+    }.nullSafe();
+
+    private static final JsonAdapter<MediaUrl> MEDIA_URL_ADAPTER = new JsonAdapter<MediaUrl>() {
+        @Override
+        public MediaUrl fromJson(JsonReader reader) throws IOException {
+            String urlString = reader.nextString();
+            MediaUrl url = MediaUrl.parse(urlString);
+            if (url == null) throw new JsonDataException("Invalid URL: " + urlString);
+            return url;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, MediaUrl url) throws IOException {
+            writer.value(url.toString());
+        }
+
+        @Override
+        public String toString() {
+            return "JsonAdapter(MediaUrl)";
+        }
+    }.nullSafe();
+
+    @Override
+    public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+        if (!annotations.isEmpty()) return null;
+        if (type == URL.class) return URL_ADAPTER;
+        if (type == MediaUrl.class) return MEDIA_URL_ADAPTER;
+        return null;
     }
 }
@@ -0,0 +1,640 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.gfycat.api.GfycatApi;
+import com.fernandobarillas.albumparser.giphy.api.GiphyApi;
+import com.fernandobarillas.albumparser.imgur.api.ImgurApi;
+import com.fernandobarillas.albumparser.media.MediaKind;
+import com.fernandobarillas.albumparser.streamable.api.StreamableApi;
+import com.fernandobarillas.albumparser.tumblr.api.TumblrApi;
+import com.fernandobarillas.albumparser.util.DomainTrie;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.vidble.api.VidbleApi;
+import com.fernandobarillas.albumparser.vidme.api.VidmeApi;
+import com.fernandobarillas.albumparser.xkcd.api.XkcdApi;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Classifies large numbers of URLs by provider and hash without calling any APIs. Every provider
+ * whose hash comes from the URL path is compiled into a single host trie, and each provider's
+ * path rules are hand-written matchers that agree with its parser's getHash(). URLs are scanned
+ * directly as CharSequences, so no URL, ParsedUrl or Matcher objects are created, and a String is
+ * only built for a hash when {@link Classification#getHash()} is called.
+ * <p>
+ * Only http and https URLs are classified. DeviantArt and reddit URLs never are since their
+ * hashes can't be found from the URL alone.
+ */
+public final class UrlClassifier {
+    private static final int IMGUR      = 0;
+    private static final int GFYCAT     = 1;
+    private static final int GIPHY      = 2;
+    private static final int STREAMABLE = 3;
+    private static final int TUMBLR     = 4;
+    private static final int VIDBLE     = 5;
+    private static final int VIDME      = 6;
+    private static final int XKCD       = 7;
+
+    private static final String[] PROVIDER_NAMES = {
+            ImgurApi.BASE_DOMAIN,
+            GfycatApi.BASE_DOMAIN,
+            GiphyApi.BASE_DOMAIN,
+            StreamableApi.BASE_DOMAIN,
+            TumblrApi.BASE_DOMAIN,
+            VidbleApi.BASE_DOMAIN,
+            VidmeApi.BASE_DOMAIN,
+            XkcdApi.BASE_DOMAIN,
+    };
+
+    private static final String HTTP_SCHEME  = "http://";
+    private static final String HTTPS_SCHEME = "https://";
+    private static final String XKCD_COMICS  = "comics";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Maps a host name to the provider constant that accepts that host */
+    private static final DomainTrie<Integer> PROVIDER_ROUTER = new DomainTrie<>();
+
+    static {
+        // Imgur and xkcd only accept their exact domains, the rest also accept any subdomain of
+        // their base domain, the same as their parsers' isValidDomain()
+        for (String domain : ImgurApi.VALID_DOMAINS) {
+            PROVIDER_ROUTER.put(domain, IMGUR);
+        }
+        for (String domain : XkcdApi.VALID_DOMAINS) {
+            PROVIDER_ROUTER.put(domain, XKCD);
+        }
+        PROVIDER_ROUTER.putWithSubdomains(GfycatApi.BASE_DOMAIN, GFYCAT);
+        PROVIDER_ROUTER.putWithSubdomains(GiphyApi.BASE_DOMAIN, GIPHY);
+        PROVIDER_ROUTER.putWithSubdomains(StreamableApi.BASE_DOMAIN, STREAMABLE);
+        PROVIDER_ROUTER.putWithSubdomains(TumblrApi.BASE_DOMAIN, TUMBLR);
+        PROVIDER_ROUTER.putWithSubdomains(VidbleApi.BASE_DOMAIN, VIDBLE);
+        PROVIDER_ROUTER.putWithSubdomains(VidmeApi.BASE_DOMAIN, VIDME);
+    }
+
+    private UrlClassifier() {
+    }
+
+    /**
+     * Classifies a single URL
+     *
+     * @param url    The URL to classify, leading and trailing whitespace is ignored
+     * @param result Where to store the provider and hash, any previous classification is cleared
+     * @return True if the URL belongs to a provider and a hash was found in it, false otherwise
+     */
+    public static boolean classify(CharSequence url, Classification result) {
+        result.clear();
+        if (url == null) return false;
+        int start = 0;
+        int end = url.length();
+        while (start < end && url.charAt(start) <= ' ') start++;
+        while (end > start && url.charAt(end - 1) <= ' ') end--;
+
+        int hostStart;
+        if (regionMatchesIgnoreCase(url, start, end, HTTPS_SCHEME)) {
+            hostStart = start + HTTPS_SCHEME.length();
+        } else if (regionMatchesIgnoreCase(url, start, end, HTTP_SCHEME)) {
+            hostStart = start + HTTP_SCHEME.length();
+        } else {
+            return false;
+        }
+
+        boolean hasUserInfo = false;
+        int pathStart = hostStart;
+        while (pathStart < end) {
+            char c = url.charAt(pathStart);
+            if (c == '/' || c == '?' || c == '#') break;
+            if (c == '@') {
+                // Skip the user info, like java.net.URL it may only be given once
+                if (hasUserInfo) return false;
+                hasUserInfo = true;
+                hostStart = pathStart + 1;
+            }
+            pathStart++;
+        }
+        int hostEnd = hostStart;
+        while (hostEnd < pathStart && url.charAt(hostEnd) != ':') hostEnd++;
+        for (int i = hostEnd + 1; i < pathStart; i++) {
+            if (!isDigit(url.charAt(i))) return false; // Invalid port
+        }
+        // The parsers don't accept fully qualified host names
+        if (hostEnd > hostStart && url.charAt(hostEnd - 1) == '.') return false;
+
+        Integer provider = PROVIDER_ROUTER.get(url, hostStart, hostEnd);
+        if (provider == null) return false;
+
+        int pathEnd = pathStart;
+        while (pathEnd < end) {
+            char c = url.charAt(pathEnd);
+            if (c == '?' || c == '#') break;
+            pathEnd++;
+        }
+        // java.net.URL paths always start with a slash unless they're empty
+        if (pathStart == pathEnd) return false;
+
+        result.mUrl = url;
+        boolean found;
+        switch (provider) {
+            case IMGUR:
+                found = findImgurHash(url, pathStart, pathEnd, result);
+                break;
+            case GFYCAT:
+                found = findGfycatHash(url, pathStart, pathEnd, result);
+                break;
+            case GIPHY:
+                found = findGiphyHash(url, pathStart, pathEnd, result);
+                break;
+            case STREAMABLE:
+                found = findStreamableHash(url, pathStart, pathEnd, result);
+                break;
+            case TUMBLR:
+                found = findTumblrHash(url, pathStart, pathEnd, result);
+                break;
+            case VIDBLE:
+                found = findVidbleHash(url, pathStart, pathEnd, result);
+                break;
+            case VIDME:
+                found = findVidmeHash(url, pathStart, pathEnd, result);
+                break;
+            case XKCD:
+                found = findXkcdHash(url, pathStart, pathEnd, result);
+                break;
+            default:
+                found = false;
+        }
+        if (!found) {
+            result.clear();
+            return false;
+        }
+        result.mProviderName = PROVIDER_NAMES[provider];
+        return true;
+    }
+
+    /**
+     * Classifies every URL in the passed-in Iterable, reusing a single {@link Classification}
+     *
+     * @param urls     The URLs to classify
+     * @param listener Called once for each URL, whether or not it could be classified
+     * @return The number of URLs that were classified
+     */
+    public static long classify(Iterable<? extends CharSequence> urls, Listener listener) {
+        Classification result = new Classification();
+        long classified = 0;
+        for (CharSequence url : urls) {
+            if (classify(url, result)) classified++;
+            listener.onUrl(url, result);
+        }
+        return classified;
+    }
+
+    /**
+     * Classifies a stream with one URL per line, such as an archived link dump. Lines are read
+     * into a single reused buffer so only the hashes that are asked for are ever copied. Blank
+     * lines are skipped.
+     *
+     * @param reader   The stream to read URLs from, it isn't closed
+     * @param listener Called once for each URL, whether or not it could be classified. The
+     *                 CharSequence passed to the listener is reused for the next line, copy it
+     *                 before returning if it's needed later
+     * @return The number of URLs that were classified
+     * @throws IOException If the stream couldn't be read
+     */
+    public static long classify(Reader reader, Listener listener) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        StringBuilder line = new StringBuilder();
+        Classification result = new Classification();
+        long classified = 0;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            int lineStart = 0;
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == '\n' || c == '\r') {
+                    line.append(buffer, lineStart, i - lineStart);
+                    classified += classifyLine(line, result, listener);
+                    line.setLength(0);
+                    lineStart = i + 1;
+                }
+            }
+            line.append(buffer, lineStart, read - lineStart);
+        }
+        classified += classifyLine(line, result, listener);
+        return classified;
+    }
+
+    /**
+     * Receives the URLs handled by the bulk classify() methods
+     */
+    public interface Listener {
+        /**
+         * @param url    The URL that was classified
+         * @param result The classification of the URL, {@link Classification#isClassified()} is
+         *               false if it couldn't be classified. The result is reused for the next URL
+         */
+        void onUrl(CharSequence url, Classification result);
+    }
+
+    /**
+     * The provider and hash found for a URL. The hash is stored as offsets into the classified
+     * URL, so getHash() must be called before the URL's CharSequence is modified.
+     */
+    public static final class Classification {
+        private String       mProviderName;
+        private CharSequence mUrl;
+        private String       mHashPrefix;
+        private int          mHashStart;
+        private int          mHashEnd;
+
+        /**
+         * @return The hash found for the URL, the same one the provider's parser returns from
+         * getHash(). Null if the URL wasn't classified
+         */
+        public String getHash() {
+            if (mProviderName == null) return null;
+            String hash = mUrl.subSequence(mHashStart, mHashEnd).toString();
+            return mHashPrefix != null ? mHashPrefix + hash : hash;
+        }
+
+        /**
+         * @return The base domain of the provider the URL belongs to, for example: imgur.com. Null
+         * if the URL wasn't classified
+         */
+        public String getProviderName() {
+            return mProviderName;
+        }
+
+        /**
+         * @return True if a provider and hash were found for the URL, false otherwise
+         */
+        public boolean isClassified() {
+            return mProviderName != null;
+        }
+
+        private void clear() {
+            mProviderName = null;
+            mUrl = null;
+            mHashPrefix = null;
+        }
+
+        private boolean setHash(int start, int end) {
+            mHashStart = start;
+            mHashEnd = end;
+            return true;
+        }
+    }
+
+    private static int classifyLine(CharSequence line, Classification result, Listener listener) {
+        if (line.length() == 0) return 0;
+        boolean classified = classify(line, result);
+        listener.onUrl(line, result);
+        return classified ? 1 : 0;
+    }
+
+    // Mirrors GfycatParser.findHash()
+    private static boolean findGfycatHash(CharSequence s, int path, int end,
+            Classification result) {
+        int segmentCount = getSegmentCount(s, path, end);
+        int segment0End = getSegmentEnd(s, path + 1, end);
+        if (segmentCount >= 3) {
+            int segment1End = getSegmentEnd(s, segment0End + 1, end);
+            if (!regionEqualsIgnoreCase(s, path + 1, segment0End, "gifs")
+                    || !regionEqualsIgnoreCase(s, segment0End + 1, segment1End, "detail")) {
+                return false;
+            }
+            return findWordRun(s, segment1End + 1, getSegmentEnd(s, segment1End + 1, end), result);
+        }
+        return segmentCount >= 1 && findWordRun(s, path + 1, segment0End, result);
+    }
+
+    // Mirrors GiphyUtils.getHashFromPath()
+    private static boolean findGiphyHash(CharSequence s, int path, int end, Classification result) {
+        if (regionMatches(s, path, end, "/gifs/")) {
+            // "/gifs/(?:.*-)?(\w+)", the hash is after the last dash that's followed by one
+            for (int i = path; i >= 0; i = indexOf(s, "/gifs/", i + 1, end)) {
+                int hashStart = i + "/gifs/".length();
+                for (int dash = end - 2; dash >= hashStart; dash--) {
+                    if (s.charAt(dash) == '-' && isWordChar(s.charAt(dash + 1))) {
+                        return result.setHash(dash + 1, getWordEnd(s, dash + 1, end));
+                    }
+                }
+                if (hashStart < end && isWordChar(s.charAt(hashStart))) {
+                    return result.setHash(hashStart, getWordEnd(s, hashStart, end));
+                }
+            }
+            return false;
+        }
+        if (regionMatches(s, path, end, "/embed/")) {
+            return findWordAfter(s, path, end, "/embed/", result);
+        }
+        if (regionMatches(s, path, end, "/media/")) {
+            return findWordAfter(s, path, end, "/media/", result);
+        }
+        return findWordAfter(s, path, end, "/", result);
+    }
+
+    // Mirrors ImgurParser.findHash()
+    private static boolean findImgurHash(CharSequence s, int path, int end, Classification result) {
+        int segment0End = getSegmentEnd(s, path + 1, end);
+        if (regionEqualsIgnoreCase(s, path + 1, segment0End, "gallery")) {
+            // "^/gallery/{hash}", the prefix itself is case-sensitive
+            return regionMatches(s, path, end, "/gallery/")
+                    && findImgurHashAt(s, segment0End + 1, end, result);
+        }
+        if (regionEqualsIgnoreCase(s, path + 1, segment0End, "a")) {
+            // "/([^\W_]{5,7})(?:/.*?|)$", the first segment with a 5 to 7 character hash
+            for (int i = path; i < end; i++) {
+                if (s.charAt(i) != '/') continue;
+                int hashEnd = getAlnumEnd(s, i + 1, end);
+                int length = hashEnd - i - 1;
+                if (length >= 5 && length <= 7 && (hashEnd == end || s.charAt(hashEnd) == '/')) {
+                    return result.setHash(i + 1, hashEnd);
+                }
+            }
+            return false;
+        }
+        if (regionEquals(s, path + 1, segment0End, "r")
+                || regionEquals(s, path + 1, segment0End, "t")) {
+            // "^/[rt]/\w+/{hash}"
+            if (segment0End == end) return false;
+            int subredditEnd = getWordEnd(s, segment0End + 1, end);
+            if (subredditEnd == segment0End + 1 || subredditEnd == end) return false;
+            return s.charAt(subredditEnd) == '/'
+                    && findImgurHashAt(s, subredditEnd + 1, end, result);
+        }
+        return findImgurHashAt(s, path + 1, end, result)
+                || findImgurDirectHash(s, path, end, result);
+    }
+
+    // "/{hash}(?:[sbtmlghr]|_d)?\.[^\W_]{3,4}/?$", the last segment of a direct media URL
+    private static boolean findImgurDirectHash(CharSequence s, int path, int end,
+            Classification result) {
+        if (s.charAt(end - 1) == '/') end--;
+        int extensionStart = end;
+        while (extensionStart > path && isAlnum(s.charAt(extensionStart - 1))) extensionStart--;
+        int extensionLength = end - extensionStart;
+        if (extensionLength < 3 || extensionLength > 4) return false;
+        int dot = extensionStart - 1;
+        if (s.charAt(dot) != '.') return false;
+        int hashStart = dot;
+        while (s.charAt(hashStart - 1) != '/') hashStart--;
+
+        int hashLength;
+        switch (dot - hashStart) {
+            case 5:
+                hashLength = 5;
+                break;
+            case 6:
+                if (!isImgurSizeSuffix(s.charAt(dot - 1))) return false;
+                hashLength = 5;
+                break;
+            case 7:
+                hashLength = s.charAt(dot - 2) == '_' && s.charAt(dot - 1) == 'd' ? 5 : 7;
+                break;
+            case 8:
+                if (!isImgurSizeSuffix(s.charAt(dot - 1))) return false;
+                hashLength = 7;
+                break;
+            case 9:
+                if (s.charAt(dot - 2) != '_' || s.charAt(dot - 1) != 'd') return false;
+                hashLength = 7;
+                break;
+            default:
+                return false;
+        }
+        int hashEnd = hashStart + hashLength;
+        return getAlnumEnd(s, hashStart, hashEnd) == hashEnd && result.setHash(hashStart, hashEnd);
+    }
+
+    // "{hash}(?:/.*?|)$" where a hash is exactly 5 or 7 letters and digits
+    private static boolean findImgurHashAt(CharSequence s, int start, int end,
+            Classification result) {
+        if (start > end) return false;
+        int hashEnd = getAlnumEnd(s, start, end);
+        int length = hashEnd - start;
+        return (length == 5 || length == 7)
+                && (hashEnd == end || s.charAt(hashEnd) == '/')
+                && result.setHash(start, hashEnd);
+    }
+
+    // Mirrors StreamableUtils.getHash()
+    private static boolean findStreamableHash(CharSequence s, int path, int end,
+            Classification result) {
+        if (indexOf(s, "/mp4/", path, end) >= 0) {
+            return findFixedWordAfter(s, path, end, "/mp4/", 4, result);
+        }
+        if (indexOf(s, "/mp4-mobile/", path, end) >= 0) {
+            return findFixedWordAfter(s, path, end, "/mp4-mobile/", 4, result);
+        }
+        return findWordAfter(s, path, end, "/", result);
+    }
+
+    // Mirrors TumblrParser.getHash()
+    private static boolean findTumblrHash(CharSequence s, int path, int end,
+            Classification result) {
+        if (regionMatches(s, path, end, "/post/")) {
+            return findDigitsAfter(s, path, end, "/post/", result);
+        }
+        return findDigitsAfter(s, path, end, "/image/", result);
+    }
+
+    // Mirrors VidbleUtils.getHash()
+    private static boolean findVidbleHash(CharSequence s, int path, int end,
+            Classification result) {
+        if (regionMatches(s, path, end, "/album/")) {
+            return findFixedWordAfter(s, path, end, "/album/", VidbleApi.ALBUM_HASH_LENGTH, result);
+        }
+        if (regionMatches(s, path, end, "/show/")) {
+            return findFixedWordAfter(s, path, end, "/show/", VidbleApi.IMAGE_HASH_LENGTH, result);
+        }
+        return findFixedWordAfter(s, path, end, "/", VidbleApi.IMAGE_HASH_LENGTH, result);
+    }
+
+    // Mirrors VidmeUtils.getHash()
+    private static boolean findVidmeHash(CharSequence s, int path, int end, Classification result) {
+        if (regionMatches(s, path, end, "/e/")) return findWordAfter(s, path, end, "/e/", result);
+        return findWordAfter(s, path, end, "/", result);
+    }
+
+    // Mirrors XkcdParser.findHash()
+    private static boolean findXkcdHash(CharSequence s, int path, int end, Classification result) {
+        int segmentCount = getSegmentCount(s, path, end);
+        if (segmentCount < 1) return false;
+        int segment0End = getSegmentEnd(s, path + 1, end);
+        if (segmentCount >= 2
+                && regionEqualsIgnoreCase(s, path + 1, segment0End, XKCD_COMICS)
+                && ParseUtils.getMediaKindFromPath(s, path, end) == MediaKind.IMAGE) {
+            // "/comics/" followed by the first run of "[\w.]+" in the image's file name
+            int segment1End = getSegmentEnd(s, segment0End + 1, end);
+            for (int i = segment0End + 1; i < segment1End; i++) {
+                if (!isWordChar(s.charAt(i)) && s.charAt(i) != '.') continue;
+                int hashEnd = i;
+                while (hashEnd < segment1End
+                        && (isWordChar(s.charAt(hashEnd)) || s.charAt(hashEnd) == '.')) {
+                    hashEnd++;
+                }
+                result.mHashPrefix = "/" + XKCD_COMICS + "/";
+                return result.setHash(i, hashEnd);
+            }
+            return false;
+        }
+
+        // "^(\d+)$", a comic number that fits in a long and is at least 1
+        if (segment0End == path + 1 || getDigitEnd(s, path + 1, end) != segment0End) return false;
+        long comicNumber = 0;
+        for (int i = path + 1; i < segment0End; i++) {
+            int digit = s.charAt(i) - '0';
+            if (comicNumber > (Long.MAX_VALUE - digit) / 10) return false; // Too big for a long
+            comicNumber = comicNumber * 10 + digit;
+        }
+        return comicNumber >= 1 && result.setHash(path + 1, segment0End);
+    }
+
+    // prefix(\d+), at the first occurrence of the prefix followed by a digit
+    private static boolean findDigitsAfter(CharSequence s, int path, int end, String prefix,
+            Classification result) {
+        for (int i = indexOf(s, prefix, path, end); i >= 0; i = indexOf(s, prefix, i + 1, end)) {
+            int hashStart = i + prefix.length();
+            int hashEnd = getDigitEnd(s, hashStart, end);
+            if (hashEnd > hashStart) return result.setHash(hashStart, hashEnd);
+        }
+        return false;
+    }
+
+    // prefix(\w{length}), at the first occurrence of the prefix followed by enough word characters
+    private static boolean findFixedWordAfter(CharSequence s, int path, int end, String prefix,
+            int length, Classification result) {
+        for (int i = indexOf(s, prefix, path, end); i >= 0; i = indexOf(s, prefix, i + 1, end)) {
+            int hashStart = i + prefix.length();
+            if (getWordEnd(s, hashStart, end) - hashStart >= length) {
+                return result.setHash(hashStart, hashStart + length);
+            }
+        }
+        return false;
+    }
+
+    // (\w+), the first run of word characters between start and end
+    private static boolean findWordRun(CharSequence s, int start, int end, Classification result) {
+        for (int i = start; i < end; i++) {
+            if (isWordChar(s.charAt(i))) return result.setHash(i, getWordEnd(s, i, end));
+        }
+        return false;
+    }
+
+    // prefix(\w+), at the first occurrence of the prefix followed by a word character
+    private static boolean findWordAfter(CharSequence s, int path, int end, String prefix,
+            Classification result) {
+        for (int i = indexOf(s, prefix, path, end); i >= 0; i = indexOf(s, prefix, i + 1, end)) {
+            int hashStart = i + prefix.length();
+            int hashEnd = getWordEnd(s, hashStart, end);
+            if (hashEnd > hashStart) return result.setHash(hashStart, hashEnd);
+        }
+        return false;
+    }
+
+    private static int getAlnumEnd(CharSequence s, int start, int end) {
+        while (start < end && isAlnum(s.charAt(start))) start++;
+        return start;
+    }
+
+    private static int getDigitEnd(CharSequence s, int start, int end) {
+        while (start < end && isDigit(s.charAt(start))) start++;
+        return start;
+    }
+
+    /** Counts path segments the same way {@link ParsedUrl#getPathSegmentCount()} does */
+    private static int getSegmentCount(CharSequence s, int path, int end) {
+        int segmentCount = 0;
+        int nonEmptyCount = 0;
+        int segmentStart = path + 1;
+        for (int i = path + 1; i <= end; i++) {
+            if (i == end || s.charAt(i) == '/') {
+                segmentCount++;
+                if (i > segmentStart) nonEmptyCount = segmentCount;
+                segmentStart = i + 1;
+            }
+        }
+        return nonEmptyCount;
+    }
+
+    private static int getSegmentEnd(CharSequence s, int start, int end) {
+        while (start < end && s.charAt(start) != '/') start++;
+        return start;
+    }
+
+    private static int getWordEnd(CharSequence s, int start, int end) {
+        while (start < end && isWordChar(s.charAt(start))) start++;
+        return start;
+    }
+
+    private static int indexOf(CharSequence s, String str, int from, int end) {
+        for (int i = from; i <= end - str.length(); i++) {
+            if (regionMatches(s, i, end, str)) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isAlnum(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isImgurSizeSuffix(char c) {
+        return "sbtmlghr".indexOf(c) >= 0;
+    }
+
+    private static boolean isWordChar(char c) {
+        return isAlnum(c) || c == '_';
+    }
+
+    private static boolean regionEquals(CharSequence s, int start, int end, String str) {
+        return end - start == str.length() && regionMatches(s, start, end, str);
+    }
+
+    private static boolean regionEqualsIgnoreCase(CharSequence s, int start, int end, String str) {
+        return end - start == str.length() && regionMatchesIgnoreCase(s, start, end, str);
+    }
+
+    /** Checks if the region from start to end begins with the passed-in String */
+    private static boolean regionMatches(CharSequence s, int start, int end, String str) {
+        if (end - start < str.length()) return false;
+        for (int i = 0; i < str.length(); i++) {
+            if (s.charAt(start + i) != str.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int start, int end, String str) {
+        if (end - start < str.length()) return false;
+        for (int i = 0; i < str.length(); i++) {
+            char c = s.charAt(start + i);
+            char other = str.charAt(i);
+            if (c != other && Character.toLowerCase(c) != Character.toLowerCase(other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
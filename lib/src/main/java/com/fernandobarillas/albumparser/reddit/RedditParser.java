@@ -22,6 +22,7 @@ package com.fernandobarillas.albumparser.reddit;
 
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
 import com.fernandobarillas.albumparser.reddit.api.RedditMediaApi;
 import com.fernandobarillas.albumparser.reddit.model.ReddItMedia;
@@ -50,12 +51,7 @@ public class RedditParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) {
-        if (isValidDomain(mediaUrl)) {
-            // Reddit media has no API to get media information. Just return blank string if domain
-            // was valid
-            return "";
-        }
-        throw new InvalidMediaUrlException(mediaUrl);
+        return getHash(ParsedUrl.of(mediaUrl));
     }
 
     @Override
@@ -64,20 +60,30 @@ public class RedditParser extends AbstractApiParser {
     }
 
     @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
-        if (!isValidDomain(mediaUrl)) {
-            throw new InvalidMediaUrlException(mediaUrl);
-        }
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
+        // Throws for URLs with invalid domains
+        getHash(mediaUrl);
 
         String domain = mediaUrl.getHost();
-        if (domain.equalsIgnoreCase(RedditMediaApi.REDDITMEDIA_G_DOMAIN) || domain.equalsIgnoreCase(
+        URL url = mediaUrl.getUrl();
+        if (domain.equals(RedditMediaApi.REDDITMEDIA_G_DOMAIN) || domain.equals(
                 RedditMediaApi.REDDITMEDIA_I_DOMAIN)) {
-            return new ParserResponse(new RedditMediaMedia(mediaUrl));
-        } else if (domain.equalsIgnoreCase(RedditMediaApi.REDDITUPLOADS_I_DOMAIN)) {
-            return new ParserResponse(new RedditUploadsMedia(mediaUrl));
+            return new ParserResponse(new RedditMediaMedia(url));
+        } else if (domain.equals(RedditMediaApi.REDDITUPLOADS_I_DOMAIN)) {
+            return new ParserResponse(new RedditUploadsMedia(url));
         }
 
         // i.redd.it media
-        return new ParserResponse(new ReddItMedia(mediaUrl));
+        return new ParserResponse(new ReddItMedia(url));
+    }
+
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) {
+        if (isValidDomain(mediaUrl)) {
+            // Reddit media has no API to get media information. Just return blank string if domain
+            // was valid
+            return "";
+        }
+        throw new InvalidMediaUrlException(mediaUrl.getUrl());
     }
 }
@@ -21,6 +21,7 @@
 package com.fernandobarillas.albumparser.reddit.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 
 import java.net.URL;
@@ -30,16 +31,16 @@ import java.net.URL;
  */
 public class ReddItMedia extends BaseMedia {
 
-    private boolean mIsGif;
-    private URL     mMediaUrl;
+    private boolean  mIsGif;
+    private MediaUrl mMediaUrl;
 
     public ReddItMedia(URL mediaUrl) {
         mIsGif = ParseUtils.isGifExtension(mediaUrl);
-        mMediaUrl = mediaUrl;
+        mMediaUrl = MediaUrl.of(mediaUrl);
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    public MediaUrl getMediaUrl(boolean highQuality) {
         // No low quality URL available
         return highQuality ? mMediaUrl : null;
     }
@@ -21,6 +21,7 @@
 package com.fernandobarillas.albumparser.reddit.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 
 import java.net.URL;
@@ -33,12 +34,12 @@ public class RedditMediaMedia extends BaseMedia {
     /** reddit URLs sometimes contain the fm={some_extension} param in the URL */
     private static final String FORMAT_PARAM = "fm";
     private static final String WIDTH_PARAM  = "w";
-    private URL     mUrl;
-    private boolean mIsVideo;
+    private MediaUrl mUrl;
+    private boolean  mIsVideo;
     private int mWidth = SIZE_UNAVAILABLE;
 
     public RedditMediaMedia(URL url) {
-        this.mUrl = url;
+        this.mUrl = MediaUrl.of(url);
         Map<String, String> queryMap = ParseUtils.getQueryMap(mUrl);
         if (queryMap.containsKey(FORMAT_PARAM)) {
             mIsVideo = EXT_MP4.equalsIgnoreCase(queryMap.get(FORMAT_PARAM));
@@ -53,7 +54,7 @@ public class RedditMediaMedia extends BaseMedia {
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    public MediaUrl getMediaUrl(boolean highQuality) {
         return highQuality ? mUrl : null;
     }
 
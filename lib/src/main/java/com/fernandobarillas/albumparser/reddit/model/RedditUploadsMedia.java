@@ -21,6 +21,7 @@
 package com.fernandobarillas.albumparser.reddit.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
 import java.net.URL;
 
@@ -28,14 +29,14 @@ import java.net.URL;
  * Model for redditmuploads.com media URLs
  */
 public class RedditUploadsMedia extends BaseMedia {
-    private URL mUrl;
+    private MediaUrl mUrl;
 
     public RedditUploadsMedia(URL url) {
-        this.mUrl = url;
+        this.mUrl = MediaUrl.of(url);
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    public MediaUrl getMediaUrl(boolean highQuality) {
         return highQuality ? mUrl : null;
     }
 }
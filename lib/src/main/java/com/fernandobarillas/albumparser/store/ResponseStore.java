@@ -0,0 +1,661 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.store;
+
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.parser.ParserResponse;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.xkcd.api.XkcdApi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A persistent store of successful parser responses, so a restarted process can answer for links
+ * it already resolved without calling the APIs again. Responses are stored as {@link
+ * StoredApiResponse} copies, keyed by the API provider name and the media hash.
+ * <p>
+ * Responses are appended to memory-mapped segment files in the store's directory and located
+ * through an in-memory hash index, so a lookup is a map lookup plus a read from the page cache.
+ * When a segment fills up a new one is started. Once more than half of the stored bytes belong to
+ * responses that were replaced or expired the live responses are copied to new segments and the
+ * old ones are deleted. This compaction runs on a background thread, the store stays usable while
+ * the responses are copied.
+ * <p>
+ * Every record is checksummed. When the store is opened the index is rebuilt by scanning the
+ * segments, stopping at the first record in a segment that was only partially written before a
+ * crash. Records are not flushed to disk one by one, so an operating system crash can lose the
+ * most recent responses, but it can't corrupt older ones.
+ * <p>
+ * Only one store should have a directory open at a time.
+ */
+public class ResponseStore implements Closeable {
+    /** The default size of each segment file */
+    public static final int  DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    /** The default time-to-live for providers without their own TTL */
+    public static final long DEFAULT_TTL_MILLIS   = TimeUnit.DAYS.toMillis(1);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final File                  mDirectory;
+    private final int                   mSegmentSize;
+    private final long                  mDefaultTtlMillis;
+    private final Map<String, Long>     mProviderTtlMillis;
+    private final Map<String, Location> mIndex          = new HashMap<>();
+    private final List<Segment>         mSegments       = new ArrayList<>();
+    /** Held for a whole compaction, the store itself is only locked while it's updated */
+    private final Object                mCompactionLock = new Object();
+
+    private ExecutorService mCompactor;
+    private Segment         mActiveSegment;
+    private long            mNextSequence = 1;
+    private long            mLiveBytes;
+    private long            mDeadBytes;
+    private long            mHitCount;
+    private long            mMissCount;
+    private boolean         mIsCompacting;
+    /** Volatile so a compaction copying responses can stop once the store is closed */
+    private volatile boolean mIsClosed;
+
+    private ResponseStore(File directory,
+            int segmentSize,
+            long defaultTtlMillis,
+            Map<String, Long> providerTtlMillis) {
+        mDirectory = directory;
+        mSegmentSize = segmentSize;
+        mDefaultTtlMillis = defaultTtlMillis;
+        mProviderTtlMillis = providerTtlMillis;
+    }
+
+    /**
+     * Flushes all stored responses to disk and closes the segment files. The store can't be used
+     * after it's closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (mIsClosed) return;
+            mIsClosed = true;
+            if (mCompactor != null) mCompactor.shutdown();
+        }
+        // Wait for a compaction in progress to stop and delete its copies
+        synchronized (mCompactionLock) {
+            synchronized (this) {
+                IOException exception = null;
+                for (Segment segment : mSegments) {
+                    try {
+                        segment.force();
+                        segment.close();
+                    } catch (IOException e) {
+                        exception = e;
+                    }
+                }
+                mSegments.clear();
+                mIndex.clear();
+                if (exception != null) throw exception;
+            }
+        }
+    }
+
+    /**
+     * Copies all the live responses to new segments and deletes the old segments, reclaiming the
+     * space used by responses that were replaced or expired. This happens automatically on a
+     * background thread once more than half of the stored bytes are garbage.
+     * <p>
+     * The store is only locked while the compaction starts and finishes, responses can be stored
+     * and looked up while they're being copied. Responses stored in the meantime go to segments
+     * after the copies and aren't compacted until the next time.
+     *
+     * @throws IOException When the store is closed or the new segments can't be written, the old
+     *                     segments are kept in that case
+     */
+    public void compact() throws IOException {
+        synchronized (mCompactionLock) {
+            List<Segment> sealedSegments;
+            Map<String, Location> sealedIndex;
+            long sequence;
+            long endSequence;
+            synchronized (this) {
+                checkOpen();
+                // Seal the current segments, later responses are appended to a new segment
+                sealedSegments = new ArrayList<>(mSegments);
+                sealedIndex = new HashMap<>(mIndex);
+                mActiveSegment = null;
+                // Reserve sequence numbers for the copies between the sealed segments and the
+                // segments started from now on, so the copies win over the sealed segments but
+                // not over later responses when the store is opened again. Each copy segment but
+                // the last is more than half full, so twice the sealed segments is always enough.
+                sequence = mNextSequence;
+                endSequence = sequence + 2L * sealedSegments.size();
+                mNextSequence = endSequence;
+            }
+
+            // Copy without holding the lock, the sealed segments are no longer written to. The
+            // copies go to new segments and the store only switches to them once they're all on
+            // disk, so a failure partway through leaves the store as it was.
+            List<Segment> newSegments = new ArrayList<>();
+            Map<String, Location> copies = new HashMap<>();
+            long now = System.currentTimeMillis();
+            try {
+                Segment activeSegment = null;
+                for (Map.Entry<String, Location> entry : sealedIndex.entrySet()) {
+                    checkOpen();
+                    Location location = entry.getValue();
+                    if (location.mExpiresAt <= now) continue;
+                    byte[] body = location.mSegment.read(location.mOffset);
+                    if (body == null) continue;
+                    Location copy = new Location(location.mExpiresAt);
+                    Segment segment = append(newSegments, activeSegment, sequence, body, copy);
+                    if (segment != activeSegment && ++sequence > endSequence) {
+                        throw new IOException("Ran out of sequence numbers for the copies");
+                    }
+                    activeSegment = segment;
+                    copies.put(entry.getKey(), copy);
+                }
+                // The new segments have later sequence numbers, so if we crash before the old
+                // ones are deleted the copies still win when the store is opened again
+                for (Segment segment : newSegments) {
+                    segment.force();
+                }
+                synchronized (this) {
+                    checkOpen();
+                    swapSegments(sealedSegments, sealedIndex, newSegments, copies);
+                }
+            } catch (IOException | RuntimeException e) {
+                deleteQuietly(newSegments);
+                throw e;
+            }
+            for (Segment segment : sealedSegments) {
+                segment.delete();
+            }
+        }
+    }
+
+    /**
+     * Gets a stored response
+     *
+     * @param providerName The name of the API provider, for example: imgur.com
+     * @param hash         The hash of the media
+     * @param originalUrl  The URL the response is being returned for
+     * @return A response restored from disk with its original URL set to the passed-in URL, null
+     * if no response was stored or it expired
+     */
+    public synchronized ParserResponse<IMedia> get(String providerName,
+            String hash,
+            MediaUrl originalUrl) {
+        if (mIsClosed || providerName == null || hash == null || hash.isEmpty()) return null;
+        String key = getKey(providerName, hash);
+        Location location = mIndex.get(key);
+        if (location != null && location.mExpiresAt <= System.currentTimeMillis()) {
+            removeLocation(key);
+            location = null;
+        }
+        byte[] body = location != null ? location.mSegment.read(location.mOffset) : null;
+        StoredApiResponse apiResponse = body != null ? decode(body) : null;
+        if (apiResponse == null) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+
+        ParserResponse<IMedia> response = new ParserResponse<>(apiResponse);
+        response.setApiProviderName(providerName);
+        response.setHash(hash);
+        response.setOriginalUrl(originalUrl);
+        return response;
+    }
+
+    /**
+     * @return The directory the segment files are stored in
+     */
+    public File getDirectory() {
+        return mDirectory;
+    }
+
+    /**
+     * @return The number of lookups that returned a stored response
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return The number of lookups that didn't find a stored response
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return The number of segment files currently in use
+     */
+    public synchronized int getSegmentCount() {
+        return mSegments.size();
+    }
+
+    /**
+     * @param providerName The name of the API provider, for example: imgur.com
+     * @return The time-to-live in milliseconds of responses from the provider
+     */
+    public long getTtlMillis(String providerName) {
+        Long ttlMillis = mProviderTtlMillis.get(providerName);
+        return ttlMillis != null ? ttlMillis : mDefaultTtlMillis;
+    }
+
+    /**
+     * Stores a response, replacing any response stored for the same provider and hash. Responses
+     * without a provider name or hash, responses from providers with a TTL of 0 and responses
+     * that don't fit in a single segment are ignored.
+     *
+     * @param response The response to store
+     * @return True if the response was stored
+     * @throws IOException When a new segment file can't be created
+     */
+    public synchronized boolean put(ParserResponse<?> response) throws IOException {
+        if (mIsClosed || response == null) return false;
+        String providerName = response.getApiProviderName();
+        String hash = response.getHash();
+        if (providerName == null || hash == null || hash.isEmpty()) return false;
+        long ttlMillis = getTtlMillis(providerName);
+        if (ttlMillis <= 0) return false;
+        long now = System.currentTimeMillis();
+        long expiresAt = ttlMillis >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttlMillis;
+
+        String key = getKey(providerName, hash);
+        byte[] body = encode(key, expiresAt, new StoredApiResponse(response));
+        if (body.length > mSegmentSize - Segment.FILE_HEADER_SIZE - Segment.RECORD_HEADER_SIZE) {
+            return false;
+        }
+
+        removeLocation(key);
+        Location location = new Location(expiresAt);
+        Segment segment = append(mSegments, mActiveSegment, mNextSequence, body, location);
+        if (segment != mActiveSegment) mNextSequence++;
+        mActiveSegment = segment;
+        mIndex.put(key, location);
+        mLiveBytes += location.mSize;
+
+        if (mDeadBytes > mLiveBytes && mSegments.size() > 1 && !mIsCompacting) {
+            scheduleCompaction();
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of responses currently stored, including ones that expired but haven't
+     * been removed yet
+     */
+    public synchronized int size() {
+        return mIndex.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResponseStore{"
+                + "directory="
+                + mDirectory
+                + ", size="
+                + mIndex.size()
+                + ", segments="
+                + mSegments.size()
+                + ", hits="
+                + mHitCount
+                + ", misses="
+                + mMissCount
+                + '}';
+    }
+
+    private static StoredApiResponse decode(byte[] body) {
+        try {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(body));
+            input.readLong();
+            StoredMedia.readString(input);
+            return StoredApiResponse.read(input);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(String key, long expiresAt, StoredApiResponse apiResponse)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeLong(expiresAt);
+        StoredMedia.writeString(output, key);
+        apiResponse.write(output);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static String getKey(String providerName, String hash) {
+        return providerName + '/' + hash;
+    }
+
+    private static long getSequence(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Deletes segments that were never used, ignoring failures so the caller can report its own
+     */
+    private static void deleteQuietly(List<Segment> segments) {
+        for (Segment segment : segments) {
+            try {
+                segment.delete();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Appends a record to the active segment, starting a new segment when it's full
+     *
+     * @param segments      The segments to add a new segment to
+     * @param activeSegment The segment to append to, null to start a new one
+     * @param sequence      The sequence number to give a new segment
+     * @param location      Set to where the record was written
+     * @return The segment the record was appended to, a new segment if it isn't the passed-in one
+     */
+    private Segment append(List<Segment> segments,
+            Segment activeSegment,
+            long sequence,
+            byte[] body,
+            Location location) throws IOException {
+        int offset = activeSegment != null ? activeSegment.append(body) : -1;
+        if (offset < 0) {
+            // The active segment is full, seal it and start a new one
+            if (activeSegment != null) activeSegment.force();
+            activeSegment = Segment.create(sequence, getSegmentFile(sequence), mSegmentSize);
+            segments.add(activeSegment);
+            offset = activeSegment.append(body);
+        }
+        location.mSegment = activeSegment;
+        location.mOffset = offset;
+        location.mSize = Segment.RECORD_HEADER_SIZE + body.length;
+        return activeSegment;
+    }
+
+    private void checkOpen() throws IOException {
+        if (mIsClosed) throw new IOException("ResponseStore is closed: " + mDirectory);
+    }
+
+    private File getSegmentFile(long sequence) {
+        String name = String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+        return new File(mDirectory, name);
+    }
+
+    private void open() throws IOException {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Can't create the ResponseStore directory: " + mDirectory);
+        }
+        File[] files = mDirectory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        List<File> segmentFiles = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                if (getSequence(file) > 0) segmentFiles.add(file);
+            }
+        }
+        Collections.sort(segmentFiles, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                long firstSequence = getSequence(first);
+                long secondSequence = getSequence(second);
+                if (firstSequence == secondSequence) return 0;
+                return firstSequence < secondSequence ? -1 : 1;
+            }
+        });
+
+        final long now = System.currentTimeMillis();
+        Segment.Visitor visitor = new Segment.Visitor() {
+            @Override
+            public void onRecord(Segment segment, int offset, byte[] body) {
+                String key;
+                long expiresAt;
+                try {
+                    DataInputStream input = new DataInputStream(new ByteArrayInputStream(body));
+                    expiresAt = input.readLong();
+                    key = StoredMedia.readString(input);
+                } catch (IOException e) {
+                    return;
+                }
+                // Later records replace earlier ones for the same key, including expired ones
+                removeLocation(key);
+                Location location = new Location(expiresAt);
+                location.mSegment = segment;
+                location.mOffset = offset;
+                location.mSize = Segment.RECORD_HEADER_SIZE + body.length;
+                if (expiresAt > now) {
+                    mIndex.put(key, location);
+                    mLiveBytes += location.mSize;
+                } else {
+                    mDeadBytes += location.mSize;
+                }
+            }
+        };
+        for (File file : segmentFiles) {
+            long sequence = getSequence(file);
+            mNextSequence = Math.max(mNextSequence, sequence + 1);
+            Segment segment = Segment.open(sequence, file);
+            if (segment == null) continue;
+            segment.recover(visitor);
+            mSegments.add(segment);
+            mActiveSegment = segment;
+        }
+    }
+
+    private void removeLocation(String key) {
+        Location location = mIndex.remove(key);
+        if (location == null) return;
+        mLiveBytes -= location.mSize;
+        mDeadBytes += location.mSize;
+    }
+
+    private void scheduleCompaction() {
+        if (mCompactor == null) {
+            mCompactor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ResponseStore Compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        mIsCompacting = true;
+        mCompactor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    compact();
+                } catch (IOException ignored) {
+                    // The old segments are kept, a later put schedules another compaction
+                } finally {
+                    synchronized (ResponseStore.this) {
+                        mIsCompacting = false;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Switches the store from the sealed segments to the copies made by {@link #compact()}
+     *
+     * @param sealedSegments The segments that were copied
+     * @param sealedIndex    The index when the segments were sealed
+     * @param newSegments    The segments the copies were written to
+     * @param copies         Where each response from the sealed index was copied to
+     */
+    private void swapSegments(List<Segment> sealedSegments,
+            Map<String, Location> sealedIndex,
+            List<Segment> newSegments,
+            Map<String, Location> copies) {
+        for (Map.Entry<String, Location> entry : sealedIndex.entrySet()) {
+            String key = entry.getKey();
+            // Responses replaced or removed while copying keep their newer location
+            if (mIndex.get(key) != entry.getValue()) continue;
+            Location copy = copies.get(key);
+            if (copy != null) {
+                mIndex.put(key, copy);
+            } else {
+                mIndex.remove(key);
+            }
+        }
+        mSegments.removeAll(sealedSegments);
+        mSegments.addAll(0, newSegments);
+        if (mActiveSegment == null && !newSegments.isEmpty()) {
+            // Nothing was stored while copying, keep appending to the last copy segment
+            mActiveSegment = newSegments.get(newSegments.size() - 1);
+        }
+
+        mLiveBytes = 0;
+        for (Location location : mIndex.values()) {
+            mLiveBytes += location.mSize;
+        }
+        long storedBytes = 0;
+        for (Segment segment : mSegments) {
+            storedBytes += segment.getWritePosition() - Segment.FILE_HEADER_SIZE;
+        }
+        mDeadBytes = storedBytes - mLiveBytes;
+    }
+
+    public static class Builder {
+        private final File mDirectory;
+
+        private int               newSegmentSize       = DEFAULT_SEGMENT_SIZE;
+        private long              newDefaultTtlMillis  = DEFAULT_TTL_MILLIS;
+        private Map<String, Long> newProviderTtlMillis = new HashMap<>();
+
+        /**
+         * @param directory The directory to keep the segment files in, created if it's missing
+         */
+        public Builder(File directory) {
+            mDirectory = directory;
+            // xkcd comics never change once published
+            newProviderTtlMillis.put(XkcdApi.BASE_DOMAIN, Long.MAX_VALUE);
+        }
+
+        /**
+         * Opens the store, recovering every response stored in the directory
+         *
+         * @return The opened ResponseStore
+         * @throws IOException When the directory or its segment files can't be read
+         */
+        public ResponseStore build() throws IOException {
+            ResponseStore store = new ResponseStore(mDirectory,
+                    newSegmentSize,
+                    newDefaultTtlMillis,
+                    new HashMap<>(newProviderTtlMillis));
+            try {
+                store.open();
+            } catch (IOException | RuntimeException e) {
+                store.close();
+                throw e;
+            }
+            return store;
+        }
+
+        /**
+         * Sets the time-to-live for providers that don't have their own TTL. Defaults to {@link
+         * #DEFAULT_TTL_MILLIS}.
+         *
+         * @param ttl  How long to keep responses, 0 to not store them
+         * @param unit The unit of the passed-in TTL
+         * @return The Builder instance with the new default TTL set.
+         */
+        public Builder defaultTtl(long ttl, TimeUnit unit) {
+            newDefaultTtlMillis = unit.toMillis(ttl);
+            return this;
+        }
+
+        /**
+         * Sets the size of each segment file. Responses larger than a segment aren't stored.
+         * Defaults to {@link #DEFAULT_SEGMENT_SIZE}.
+         *
+         * @param segmentSize The size in bytes of each segment file
+         * @return The Builder instance with the new segment size set.
+         */
+        public Builder segmentSize(int segmentSize) {
+            if (segmentSize < 1024) {
+                throw new IllegalArgumentException("segmentSize must be at least 1024: "
+                        + segmentSize);
+            }
+            newSegmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets the time-to-live for a single provider. By default xkcd responses never expire.
+         *
+         * @param providerName The name of the API provider, for example: imgur.com
+         * @param ttl          How long to keep responses from the provider, 0 to not store them
+         * @param unit         The unit of the passed-in TTL
+         * @return The Builder instance with the new provider TTL set.
+         */
+        public Builder ttl(String providerName, long ttl, TimeUnit unit) {
+            newProviderTtlMillis.put(providerName, unit.toMillis(ttl));
+            return this;
+        }
+    }
+
+    /**
+     * Where a response is stored
+     */
+    private static class Location {
+        private final long mExpiresAt;
+
+        private Segment mSegment;
+        private int     mOffset;
+        private int     mSize;
+
+        private Location(long expiresAt) {
+            mExpiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A single append-only, memory-mapped file of records. Every record is laid out as:
+ * <pre>
+ * int  length  The length of the body, written last so a record only exists once it's complete
+ * int  crc32   Checksum of the body, catches records torn by a crash
+ * byte body[length]
+ * </pre>
+ * The file starts with a magic number and a format version. Files are created at their full size
+ * and the unused tail is zeroed, so a length of 0 marks the end of the records.
+ */
+class Segment implements Closeable {
+    static final int MAGIC              = 0x41505347; // "APSG"
+    static final int VERSION            = 1;
+    static final int FILE_HEADER_SIZE   = 8;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private final long             mSequence;
+    private final File             mFile;
+    private final RandomAccessFile mRandomAccessFile;
+    private final MappedByteBuffer mBuffer;
+
+    private int mWritePosition = FILE_HEADER_SIZE;
+
+    private Segment(long sequence, File file, RandomAccessFile randomAccessFile, int size)
+            throws IOException {
+        mSequence = sequence;
+        mFile = file;
+        mRandomAccessFile = randomAccessFile;
+        mBuffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Creates a new, empty segment file
+     *
+     * @param sequence The sequence number of the segment, later segments override earlier ones
+     * @param file     The file to create
+     * @param size     The size of the file in bytes
+     * @return The new segment
+     * @throws IOException When the file can't be created or already exists
+     */
+    static Segment create(long sequence, File file, int size) throws IOException {
+        if (!file.createNewFile()) throw new IOException("Segment file already exists: " + file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(size);
+            Segment segment = new Segment(sequence, file, randomAccessFile, size);
+            segment.mBuffer.putInt(0, MAGIC);
+            segment.mBuffer.putInt(4, VERSION);
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing segment file. Call {@link #recover(Visitor)} before appending to it.
+     *
+     * @param sequence The sequence number of the segment
+     * @param file     The file to open
+     * @return The segment, null if the file is not a segment file this version can read
+     * @throws IOException When the file can't be read
+     */
+    static Segment open(long sequence, File file) throws IOException {
+        long length = file.length();
+        if (length < FILE_HEADER_SIZE || length > Integer.MAX_VALUE) return null;
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            Segment segment = new Segment(sequence, file, randomAccessFile, (int) length);
+            if (segment.mBuffer.getInt(0) != MAGIC || segment.mBuffer.getInt(4) != VERSION) {
+                randomAccessFile.close();
+                return null;
+            }
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a record to the segment
+     *
+     * @param body The body of the record
+     * @return The offset of the new record, -1 if there isn't enough space left for it
+     */
+    int append(byte[] body) {
+        int offset = mWritePosition;
+        int end = offset + RECORD_HEADER_SIZE + body.length;
+        if (end > mBuffer.capacity() || end < 0) return -1;
+
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(offset + RECORD_HEADER_SIZE);
+        buffer.put(body);
+        buffer.putInt(offset + 4, checksum(body, 0, body.length));
+        buffer.putInt(offset, body.length);
+        mWritePosition = end;
+        return offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mRandomAccessFile.close();
+    }
+
+    /**
+     * Closes and deletes the segment file
+     *
+     * @return True if the file was deleted
+     */
+    boolean delete() throws IOException {
+        close();
+        return mFile.delete();
+    }
+
+    /**
+     * Flushes all the records written so far to the disk
+     */
+    void force() {
+        mBuffer.force();
+    }
+
+    long getSequence() {
+        return mSequence;
+    }
+
+    int getWritePosition() {
+        return mWritePosition;
+    }
+
+    /**
+     * Reads the body of a record
+     *
+     * @param offset The offset of the record, as returned by {@link #append(byte[])}
+     * @return The body of the record, null if the record is corrupted
+     */
+    byte[] read(int offset) {
+        return readBody(offset, mBuffer.capacity());
+    }
+
+    /**
+     * Scans the segment for records, stopping at the first incomplete or corrupted one. The rest
+     * of the file after that point is zeroed, so new records can be appended safely.
+     *
+     * @param visitor Called with every valid record in the order they were written
+     */
+    void recover(Visitor visitor) {
+        int limit = mBuffer.capacity();
+        int offset = FILE_HEADER_SIZE;
+        while (true) {
+            byte[] body = readBody(offset, limit);
+            if (body == null) break;
+            visitor.onRecord(this, offset, body);
+            offset += RECORD_HEADER_SIZE + body.length;
+        }
+        mWritePosition = offset;
+
+        // Anything left after a torn record is garbage, clear it so it isn't mistaken for records
+        for (int i = offset; i < limit; i++) {
+            if (mBuffer.get(i) != 0) {
+                for (int j = i; j < limit; j++) {
+                    mBuffer.put(j, (byte) 0);
+                }
+                break;
+            }
+        }
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private byte[] readBody(int offset, int limit) {
+        if (offset < FILE_HEADER_SIZE || offset > limit - RECORD_HEADER_SIZE) return null;
+        int length = mBuffer.getInt(offset);
+        if (length <= 0 || length > limit - offset - RECORD_HEADER_SIZE) return null;
+
+        byte[] body = new byte[length];
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(offset + RECORD_HEADER_SIZE);
+        buffer.get(body);
+        if (checksum(body, 0, length) != mBuffer.getInt(offset + 4)) return null;
+        return body;
+    }
+
+    /**
+     * Receives the records found by {@link #recover(Visitor)}
+     */
+    interface Visitor {
+        void onRecord(Segment segment, int offset, byte[] body);
+    }
+}
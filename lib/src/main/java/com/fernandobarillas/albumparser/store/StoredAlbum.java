@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.store;
+
+import com.fernandobarillas.albumparser.media.BaseMediaAlbum;
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.media.IMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable copy of an {@link IMediaAlbum} and all of its media. Every media in the album is a
+ * {@link StoredMedia}.
+ */
+public class StoredAlbum extends BaseMediaAlbum<IMedia> {
+    private final List<StoredMedia> mStoredMedia;
+    private final List<IMedia>      mAlbumMedia;
+    private final MediaUrl          mPreviewUrl;
+
+    /**
+     * @param album The album to copy
+     */
+    public StoredAlbum(IMediaAlbum<? extends IMedia> album) {
+        List<? extends IMedia> albumMedia = album.getAlbumMedia();
+        List<StoredMedia> storedMedia = null;
+        if (albumMedia != null) {
+            storedMedia = new ArrayList<>(albumMedia.size());
+            for (IMedia media : albumMedia) {
+                storedMedia.add(new StoredMedia(media));
+            }
+        }
+        mStoredMedia = storedMedia;
+        mAlbumMedia = unmodifiable(storedMedia);
+        mPreviewUrl = album.getPreviewMediaUrl();
+    }
+
+    StoredAlbum(List<StoredMedia> albumMedia, MediaUrl previewUrl) {
+        mStoredMedia = albumMedia;
+        mAlbumMedia = unmodifiable(albumMedia);
+        mPreviewUrl = previewUrl;
+    }
+
+    @Override
+    public List<IMedia> getAlbumMedia() {
+        return mAlbumMedia;
+    }
+
+    @Override
+    public MediaUrl getPreviewMediaUrl() {
+        return mPreviewUrl;
+    }
+
+    /**
+     * @return The media of the album, null if the copied album had none
+     */
+    List<StoredMedia> getStoredMedia() {
+        return mStoredMedia;
+    }
+
+    private static List<IMedia> unmodifiable(List<StoredMedia> albumMedia) {
+        return albumMedia != null ? Collections.<IMedia>unmodifiableList(albumMedia) : null;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.store;
+
+import com.fernandobarillas.albumparser.media.IApiResponse;
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.media.IMediaAlbum;
+import com.fernandobarillas.albumparser.parser.ParserResponse;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A successful API response restored from a {@link ResponseStore}. Only the fields exposed through
+ * the media interfaces are kept, none of the provider specific models.
+ * <p>
+ * It's an IApiResponse of IMedia rather than of StoredMedia so that restored responses can be
+ * returned wherever a parsed ParserResponse&lt;IMedia&gt; is.
+ */
+public class StoredApiResponse implements IApiResponse<IMedia> {
+    private static final int NO_ALBUM = -1;
+
+    private final StoredAlbum mAlbum;
+    private final StoredMedia mMedia;
+    private final MediaUrl    mPreviewUrl;
+
+    /**
+     * @param response The response to copy
+     */
+    public StoredApiResponse(ParserResponse<? extends IMedia> response) {
+        IMediaAlbum<? extends IMedia> album = response.getAlbum();
+        IMedia media = response.getMedia();
+        mAlbum = album != null ? new StoredAlbum(album) : null;
+        mMedia = media != null ? new StoredMedia(media) : null;
+        mPreviewUrl = response.getApiResponse() != null
+                ? response.getApiResponse().getPreviewMediaUrl()
+                : null;
+    }
+
+    private StoredApiResponse(StoredAlbum album, StoredMedia media, MediaUrl previewUrl) {
+        mAlbum = album;
+        mMedia = media;
+        mPreviewUrl = previewUrl;
+    }
+
+    @Override
+    public StoredAlbum getAlbum() {
+        return mAlbum;
+    }
+
+    @Override
+    public String getErrorMessage() {
+        return null;
+    }
+
+    @Override
+    public StoredMedia getMedia() {
+        return mMedia;
+    }
+
+    @Override
+    public MediaUrl getPreviewMediaUrl() {
+        return mPreviewUrl;
+    }
+
+    @Override
+    public URL getPreviewUrl() {
+        return ParseUtils.getUrlObject(mPreviewUrl);
+    }
+
+    @Override
+    public boolean isAlbum() {
+        return mAlbum != null;
+    }
+
+    @Override
+    public boolean isSuccessful() {
+        return true;
+    }
+
+    static StoredApiResponse read(DataInput input) throws IOException {
+        MediaUrl previewUrl = StoredMedia.readUrl(input);
+        StoredMedia media = input.readBoolean() ? StoredMedia.read(input) : null;
+        StoredAlbum album = null;
+        int albumSize = input.readInt();
+        if (albumSize != NO_ALBUM) {
+            MediaUrl albumPreviewUrl = StoredMedia.readUrl(input);
+            List<StoredMedia> albumMedia = new ArrayList<>(albumSize);
+            for (int i = 0; i < albumSize; i++) {
+                albumMedia.add(StoredMedia.read(input));
+            }
+            album = new StoredAlbum(albumMedia, albumPreviewUrl);
+        }
+        return new StoredApiResponse(album, media, previewUrl);
+    }
+
+    void write(DataOutput output) throws IOException {
+        StoredMedia.writeUrl(output, mPreviewUrl);
+        output.writeBoolean(mMedia != null);
+        if (mMedia != null) mMedia.write(output);
+        if (mAlbum == null) {
+            output.writeInt(NO_ALBUM);
+            return;
+        }
+        List<StoredMedia> albumMedia = mAlbum.getStoredMedia();
+        output.writeInt(albumMedia != null ? albumMedia.size() : 0);
+        StoredMedia.writeUrl(output, mAlbum.getPreviewMediaUrl());
+        if (albumMedia == null) return;
+        for (StoredMedia media : albumMedia) {
+            media.write(output);
+        }
+    }
+}
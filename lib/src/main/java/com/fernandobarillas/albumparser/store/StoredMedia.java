@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.store;
+
+import com.fernandobarillas.albumparser.media.BaseMedia;
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * An immutable copy of the fields of an {@link IMedia}, independent of the API that returned it.
+ * This is what {@link ResponseStore} writes to disk.
+ */
+public class StoredMedia extends BaseMedia {
+    private final String   mTitle;
+    private final String   mDescription;
+    private final double   mDuration;
+    private final boolean  mIsGif;
+    private final boolean  mIsVideo;
+    private final MediaUrl mPreviewUrl;
+    private final MediaUrl mHighQualityUrl;
+    private final MediaUrl mLowQualityUrl;
+    private final int      mHighQualityByteSize;
+    private final int      mLowQualityByteSize;
+    private final int      mHighQualityWidth;
+    private final int      mLowQualityWidth;
+    private final int      mHighQualityHeight;
+    private final int      mLowQualityHeight;
+
+    /**
+     * @param media The media to copy the fields of
+     */
+    public StoredMedia(IMedia media) {
+        this(media.getTitle(),
+                media.getDescription(),
+                media.getDuration(),
+                media.isGif(),
+                media.isVideo(),
+                media.getPreviewMediaUrl(),
+                media.getMediaUrl(true),
+                media.getMediaUrl(false),
+                media.getByteSize(true),
+                media.getByteSize(false),
+                media.getWidth(true),
+                media.getWidth(false),
+                media.getHeight(true),
+                media.getHeight(false));
+    }
+
+    private StoredMedia(String title,
+            String description,
+            double duration,
+            boolean isGif,
+            boolean isVideo,
+            MediaUrl previewUrl,
+            MediaUrl highQualityUrl,
+            MediaUrl lowQualityUrl,
+            int highQualityByteSize,
+            int lowQualityByteSize,
+            int highQualityWidth,
+            int lowQualityWidth,
+            int highQualityHeight,
+            int lowQualityHeight) {
+        mTitle = title;
+        mDescription = description;
+        mDuration = duration;
+        mIsGif = isGif;
+        mIsVideo = isVideo;
+        mPreviewUrl = previewUrl;
+        mHighQualityUrl = highQualityUrl;
+        mLowQualityUrl = lowQualityUrl;
+        mHighQualityByteSize = highQualityByteSize;
+        mLowQualityByteSize = lowQualityByteSize;
+        mHighQualityWidth = highQualityWidth;
+        mLowQualityWidth = lowQualityWidth;
+        mHighQualityHeight = highQualityHeight;
+        mLowQualityHeight = lowQualityHeight;
+    }
+
+    @Override
+    public int getByteSize(boolean highQuality) {
+        return highQuality ? mHighQualityByteSize : mLowQualityByteSize;
+    }
+
+    @Override
+    public String getDescription() {
+        return mDescription;
+    }
+
+    @Override
+    public double getDuration() {
+        return mDuration;
+    }
+
+    @Override
+    public int getHeight(boolean highQuality) {
+        return highQuality ? mHighQualityHeight : mLowQualityHeight;
+    }
+
+    @Override
+    public MediaUrl getPreviewMediaUrl() {
+        return mPreviewUrl;
+    }
+
+    @Override
+    public String getTitle() {
+        return mTitle;
+    }
+
+    @Override
+    public MediaUrl getMediaUrl(boolean highQuality) {
+        return highQuality ? mHighQualityUrl : mLowQualityUrl;
+    }
+
+    @Override
+    public int getWidth(boolean highQuality) {
+        return highQuality ? mHighQualityWidth : mLowQualityWidth;
+    }
+
+    @Override
+    public boolean isGif() {
+        return mIsGif;
+    }
+
+    @Override
+    public boolean isVideo() {
+        return mIsVideo;
+    }
+
+    static StoredMedia read(DataInput input) throws IOException {
+        return new StoredMedia(readString(input),
+                readString(input),
+                input.readDouble(),
+                input.readBoolean(),
+                input.readBoolean(),
+                readUrl(input),
+                readUrl(input),
+                readUrl(input),
+                input.readInt(),
+                input.readInt(),
+                input.readInt(),
+                input.readInt(),
+                input.readInt(),
+                input.readInt());
+    }
+
+    static String readString(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    static MediaUrl readUrl(DataInput input) throws IOException {
+        String url = readString(input);
+        return MediaUrl.parse(url);
+    }
+
+    static void writeString(DataOutput output, String string) throws IOException {
+        // writeUTF() is limited to 64KB, which long descriptions can go over
+        if (string == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes("UTF-8");
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    static void writeUrl(DataOutput output, MediaUrl url) throws IOException {
+        writeString(output, url != null ? url.toString() : null);
+    }
+
+    void write(DataOutput output) throws IOException {
+        writeString(output, mTitle);
+        writeString(output, mDescription);
+        output.writeDouble(mDuration);
+        output.writeBoolean(mIsGif);
+        output.writeBoolean(mIsVideo);
+        writeUrl(output, mPreviewUrl);
+        writeUrl(output, mHighQualityUrl);
+        writeUrl(output, mLowQualityUrl);
+        output.writeInt(mHighQualityByteSize);
+        output.writeInt(mLowQualityByteSize);
+        output.writeInt(mHighQualityWidth);
+        output.writeInt(mLowQualityWidth);
+        output.writeInt(mHighQualityHeight);
+        output.writeInt(mLowQualityHeight);
+    }
+}
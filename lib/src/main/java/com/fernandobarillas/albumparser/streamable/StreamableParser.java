@@ -22,6 +22,8 @@ package com.fernandobarillas.albumparser.streamable;
 
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
 import com.fernandobarillas.albumparser.streamable.api.StreamableApi;
 import com.fernandobarillas.albumparser.streamable.model.StreamableResponse;
@@ -57,11 +59,7 @@ public class StreamableParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) throws InvalidMediaUrlException {
-        if (mediaUrl == null) throw new InvalidMediaUrlException(mediaUrl);
-        String hash =
-                StreamableUtils.getHash(mediaUrl.toString()); // TODO: Implement me in this method
-        if (hash == null) throw new InvalidMediaUrlException(mediaUrl);
-        return hash;
+        return getHash(ParsedUrl.of(mediaUrl));
     }
 
     @Override
@@ -70,12 +68,27 @@ public class StreamableParser extends AbstractApiParser {
     }
 
     @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
         String hash = getHash(mediaUrl);
 
-        StreamableApi service = getRetrofit().create(StreamableApi.class);
-        Response<StreamableResponse> serviceResponse = service.getVideo(hash).execute();
+        StreamableApi service = getServices().get(StreamableApi.class);
+        Response<StreamableResponse> serviceResponse = execute(service.getVideo(hash));
         StreamableResponse apiResponse = serviceResponse.body();
         return getParserResponse(mediaUrl, apiResponse, serviceResponse);
     }
+
+    @Override
+    protected void parseAsync(ParsedUrl mediaUrl, ParserFuture future)
+            throws IOException, RuntimeException {
+        String hash = getHash(mediaUrl);
+        StreamableApi service = getServices().get(StreamableApi.class);
+        enqueue(mediaUrl, service.getVideo(hash), future);
+    }
+
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
+        String hash = StreamableUtils.getHash(mediaUrl.getMediaUrl());
+        if (hash == null) throw new InvalidMediaUrlException(mediaUrl.getUrl());
+        return hash;
+    }
 }
@@ -22,9 +22,11 @@ package com.fernandobarillas.albumparser.streamable;
 
 import com.fernandobarillas.albumparser.media.IMedia;
 import com.fernandobarillas.albumparser.streamable.api.StreamableApi;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 
 import java.net.URL;
+import java.util.regex.Pattern;
 
 /**
  * Created by fb on 5/10/16.
@@ -34,6 +36,12 @@ public class StreamableUtils {
     private static final String MP4_URL           = "/mp4/";
     private static final String MP4_MOBILE_URL    = "/mp4-mobile/";
 
+    private static final Pattern MP4_PATTERN        =
+            Pattern.compile(MP4_URL + "(\\w{" + VIDEO_HASH_LENGTH + "})");
+    private static final Pattern MP4_MOBILE_PATTERN =
+            Pattern.compile(MP4_MOBILE_URL + "(\\w{" + VIDEO_HASH_LENGTH + "})");
+    private static final Pattern HASH_PATTERN       = Pattern.compile("/(\\w+)");
+
     /**
      * Attempts to get a Streamable hash for a passed in URL String
      *
@@ -41,19 +49,41 @@ public class StreamableUtils {
      * @return An Imgur album or URL hash if the passed in URL was a valid Imgur URL, null otherwise
      */
     public static String getHash(String streamableUrl) {
-        URL url = ParseUtils.getUrlObject(streamableUrl, StreamableApi.BASE_DOMAIN);
-        if (url == null) return null; // Passed in String wasn't a valid URL
+        return getHash(ParseUtils.getUrlObject(streamableUrl, StreamableApi.BASE_DOMAIN));
+    }
+
+    /**
+     * Attempts to get a Streamable hash for a passed in URL
+     *
+     * @param url The URL to attempt to get a hash from
+     * @return A Streamable video hash if the passed in URL was a valid Streamable URL, null
+     * otherwise
+     */
+    public static String getHash(URL url) {
+        return getHash(MediaUrl.of(url));
+    }
+
+    /**
+     * Attempts to get a Streamable hash for a passed in URL
+     *
+     * @param url The URL to attempt to get a hash from
+     * @return A Streamable video hash if the passed in URL was a valid Streamable URL, null
+     * otherwise
+     */
+    public static String getHash(MediaUrl url) {
+        if (url == null) return null;
+        if (!ParseUtils.isDomainMatch(url.getHost(), StreamableApi.BASE_DOMAIN)) return null;
         String path = url.getPath();
 
         if (path.contains(MP4_URL)) {
-            return ParseUtils.hashRegex(path, MP4_URL + "(\\w{" + VIDEO_HASH_LENGTH + "})");
+            return ParseUtils.hashRegex(path, MP4_PATTERN);
         }
 
         if (path.contains(MP4_MOBILE_URL)) {
-            return ParseUtils.hashRegex(path, MP4_MOBILE_URL + "(\\w{" + VIDEO_HASH_LENGTH + "})");
+            return ParseUtils.hashRegex(path, MP4_MOBILE_PATTERN);
         }
 
-        return ParseUtils.hashRegex(path, "/(\\w+)");
+        return ParseUtils.hashRegex(path, HASH_PATTERN);
     }
 
     /**
@@ -80,10 +110,6 @@ public class StreamableUtils {
     public static String getMp4Url(String hash, boolean highQuality) {
         if (hash == null) return null;
         String quality = (highQuality) ? MP4_URL : MP4_MOBILE_URL;
-        return String.format("%s%s%s.%s",
-                StreamableApi.CDN_VIDEO_URL,
-                quality,
-                hash,
-                IMedia.EXT_MP4);
+        return StreamableApi.CDN_VIDEO_URL + quality + hash + "." + IMedia.EXT_MP4;
     }
 }
@@ -22,9 +22,7 @@
 package com.fernandobarillas.albumparser.streamable.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
-import com.fernandobarillas.albumparser.util.ParseUtils;
-
-import java.net.URL;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
 /**
  * Created by fb on 5/11/16.
@@ -32,9 +30,9 @@ import java.net.URL;
 public class StreamableMedia extends BaseMedia {
     Mp4       mMp4;
     Mp4Mobile mMp4Mobile;
-    URL       mPreviewUrl;
+    MediaUrl  mPreviewUrl;
 
-    public StreamableMedia(Mp4 mp4, Mp4Mobile mp4Mobile, URL previewUrl) {
+    public StreamableMedia(Mp4 mp4, Mp4Mobile mp4Mobile, MediaUrl previewUrl) {
         mMp4 = mp4;
         mMp4Mobile = mp4Mobile;
         mPreviewUrl = previewUrl;
@@ -53,17 +51,17 @@ public class StreamableMedia extends BaseMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         return mPreviewUrl;
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    protected MediaUrl createMediaUrl(boolean highQuality) {
         BaseMp4 baseMp4 = highQuality ? mMp4 : mMp4Mobile;
         if (baseMp4 == null || baseMp4.url == null) return null;
         String mediaUrl = baseMp4.url;
         String resultUrl = mediaUrl.startsWith("http") ? mediaUrl : PROTOCOL_HTTPS + ":" + mediaUrl;
-        return ParseUtils.getUrlObject(resultUrl);
+        return MediaUrl.parse(resultUrl);
     }
 
     @Override
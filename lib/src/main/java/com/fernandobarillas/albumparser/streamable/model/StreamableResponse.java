@@ -21,10 +21,9 @@
 package com.fernandobarillas.albumparser.streamable.model;
 
 import com.fernandobarillas.albumparser.media.BaseApiResponse;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.List;
 
 import static com.fernandobarillas.albumparser.media.IMedia.PROTOCOL_HTTPS;
@@ -63,18 +62,15 @@ public class StreamableResponse extends BaseApiResponse<StreamableMedia> {
         if (files == null) return null;
 
         if (mStreamableMedia == null) {
-            mStreamableMedia = new StreamableMedia(files.mp4, files.mp4Mobile, getPreviewUrl());
+            mStreamableMedia =
+                    new StreamableMedia(files.mp4, files.mp4Mobile, getPreviewMediaUrl());
         }
         return mStreamableMedia;
     }
 
     @Override
-    public URL getPreviewUrl() {
-        try {
-            return new URL(PROTOCOL_HTTPS + ":" + thumbnailUrl);
-        } catch (MalformedURLException ignored) {
-        }
-        return null;
+    public MediaUrl getPreviewMediaUrl() {
+        return MediaUrl.parse(PROTOCOL_HTTPS + ":" + thumbnailUrl);
     }
 
     @Override
@@ -24,14 +24,19 @@ import com.fernandobarillas.albumparser.exception.InvalidApiKeyException;
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
 import com.fernandobarillas.albumparser.media.DirectMedia;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
 import com.fernandobarillas.albumparser.tumblr.api.TumblrApi;
+import com.fernandobarillas.albumparser.tumblr.model.TumblrMediaAdapterFactory;
 import com.fernandobarillas.albumparser.tumblr.model.TumblrResponse;
 import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.squareup.moshi.JsonAdapter;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import okhttp3.OkHttpClient;
 import retrofit2.Response;
@@ -40,13 +45,24 @@ import retrofit2.Response;
  * Parser for Imgur API responses
  */
 public class TumblrParser extends AbstractApiParser {
-    private String mTumblrApiKey = null;
+    private static final Pattern IMAGE_PATTERN = Pattern.compile("/image/(\\d+)");
+    private static final Pattern POST_PATTERN  = Pattern.compile("/post/(\\d+)");
+
+    private static final JsonAdapter.Factory MEDIA_ADAPTER_FACTORY =
+            new TumblrMediaAdapterFactory();
+
+    private final String mTumblrApiKey;
 
     public TumblrParser() {
+        this(null, null);
     }
 
     public TumblrParser(OkHttpClient client, String tumblrApiKey) {
-        super(client);
+        this(client, tumblrApiKey, false);
+    }
+
+    public TumblrParser(OkHttpClient client, String tumblrApiKey, boolean mediaFieldsOnly) {
+        super(client, mediaFieldsOnly);
         mTumblrApiKey = tumblrApiKey;
     }
 
@@ -62,25 +78,65 @@ public class TumblrParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) throws InvalidMediaUrlException {
-        if (mediaUrl == null) throw new InvalidMediaUrlException(mediaUrl);
+        return getHash(ParsedUrl.of(mediaUrl));
+    }
+
+    @Override
+    public Set<String> getValidDomains() {
+        return TumblrApi.VALID_DOMAINS_SET;
+    }
+
+    @Override
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
+        checkApiKey(mediaUrl);
+
+        if (mediaUrl != null && mediaUrl.getMediaKind().isDirect()) {
+            return getDirectResponse(mediaUrl);
+        }
+
+        String hash = getHash(mediaUrl);
+        TumblrApi service = getServices().get(TumblrApi.class);
+        Response<TumblrResponse> serviceResponse =
+                execute(service.getPost(mediaUrl.getHost(), hash, mTumblrApiKey));
+        TumblrResponse apiResponse = serviceResponse.body();
+        return getParserResponse(mediaUrl, apiResponse, serviceResponse);
+    }
+
+    @Override
+    protected void parseAsync(ParsedUrl mediaUrl, ParserFuture future)
+            throws IOException, RuntimeException {
+        checkApiKey(mediaUrl);
+
+        if (mediaUrl != null && mediaUrl.getMediaKind().isDirect()) {
+            future.set(getDirectResponse(mediaUrl));
+            return;
+        }
+
+        String hash = getHash(mediaUrl);
+        TumblrApi service = getServices().get(TumblrApi.class);
+        enqueue(mediaUrl, service.getPost(mediaUrl.getHost(), hash, mTumblrApiKey), future);
+    }
+
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
         String path = mediaUrl.getPath();
-        String hash = ParseUtils.hashRegex(path, "/image/(\\d+)");
+        String hash = ParseUtils.hashRegex(path, IMAGE_PATTERN);
 
         if (path.startsWith("/post/")) {
-            hash = ParseUtils.hashRegex(path, "/post/(\\d+)");
+            hash = ParseUtils.hashRegex(path, POST_PATTERN);
         }
 
-        if (hash == null) throw new InvalidMediaUrlException(mediaUrl);
+        if (hash == null) throw new InvalidMediaUrlException(mediaUrl.getUrl());
         return hash;
     }
 
     @Override
-    public Set<String> getValidDomains() {
-        return TumblrApi.VALID_DOMAINS_SET;
+    protected JsonAdapter.Factory getMediaAdapterFactory() {
+        return MEDIA_ADAPTER_FACTORY;
     }
 
-    @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
+    private void checkApiKey(ParsedUrl parsedUrl) throws InvalidApiKeyException {
+        URL mediaUrl = parsedUrl != null ? parsedUrl.getUrl() : null;
         if (mTumblrApiKey == null) {
             // Tumblr requires all API requests to use an API key
             throw new InvalidApiKeyException(mediaUrl, mTumblrApiKey, "Tumblr API key is not set");
@@ -90,18 +146,12 @@ public class TumblrParser extends AbstractApiParser {
         if (apiKey.isEmpty()) {
             throw new InvalidApiKeyException(mediaUrl, apiKey, "Tumblr API key cannot be blank");
         }
+    }
 
-        if (ParseUtils.isDirectUrl(mediaUrl)) {
-            ParserResponse parserResponse = new ParserResponse(new DirectMedia(mediaUrl));
-            parserResponse.setOriginalUrl(mediaUrl);
-            return parserResponse;
-        }
-
-        String hash = getHash(mediaUrl);
-        TumblrApi service = getRetrofit().create(TumblrApi.class);
-        Response<TumblrResponse> serviceResponse =
-                service.getPost(mediaUrl.getHost(), hash, mTumblrApiKey).execute();
-        TumblrResponse apiResponse = serviceResponse.body();
-        return getParserResponse(mediaUrl, apiResponse, serviceResponse);
+    private ParserResponse getDirectResponse(ParsedUrl mediaUrl) {
+        ParserResponse parserResponse =
+                new ParserResponse(new DirectMedia(mediaUrl.getMediaUrl()));
+        parserResponse.setOriginalUrl(mediaUrl.getMediaUrl());
+        return parserResponse;
     }
 }
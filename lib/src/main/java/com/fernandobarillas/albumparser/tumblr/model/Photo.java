@@ -1,10 +1,9 @@
 package com.fernandobarillas.albumparser.tumblr.model;
 
 import com.fernandobarillas.albumparser.tumblr.api.TumblrApi;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
 import java.util.List;
 
 public class Photo extends BaseTumblrMedia {
@@ -32,16 +31,16 @@ public class Photo extends BaseTumblrMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    protected MediaUrl createPreviewMediaUrl() {
         parseAltSizes();
-        return mPreview != null ? ParseUtils.getUrlObject(mPreview.url) : null;
+        return mPreview != null ? MediaUrl.parse(mPreview.url) : null;
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    protected MediaUrl createMediaUrl(boolean highQuality) {
         parseAltSizes();
         BaseSize baseSize = highQuality ? originalSize : mLowQuality;
-        return baseSize != null ? ParseUtils.getUrlObject(baseSize.url) : null;
+        return baseSize != null ? MediaUrl.parse(baseSize.url) : null;
     }
 
     @Override
@@ -1,10 +1,9 @@
 package com.fernandobarillas.albumparser.tumblr.model;
 
 import com.fernandobarillas.albumparser.media.BaseMediaAlbum;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -96,11 +95,11 @@ public class Post extends BaseMediaAlbum<BaseTumblrMedia> {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        if (thumbnailUrl != null) return ParseUtils.getUrlObject(thumbnailUrl);
+    public MediaUrl getPreviewMediaUrl() {
+        if (thumbnailUrl != null) return MediaUrl.parse(thumbnailUrl);
         if (photos != null && photos.size() > 0) {
             // Return the first image as the preview
-            return photos.get(0).getPreviewUrl();
+            return photos.get(0).getPreviewMediaUrl();
         }
         return null;
     }
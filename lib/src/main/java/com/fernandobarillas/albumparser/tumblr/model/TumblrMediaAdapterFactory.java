@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.tumblr.model;
+
+import com.fernandobarillas.albumparser.util.JsonUtils;
+import com.fernandobarillas.albumparser.util.MediaFieldsAdapter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.Moshi;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Set;
+
+/**
+ * Creates Moshi adapters that only read the {@link Post} fields that make up its album, the
+ * photos and video, and skip the blog, reblog and note data
+ */
+public final class TumblrMediaAdapterFactory implements JsonAdapter.Factory {
+    private static final JsonReader.Options POST_NAMES  = JsonReader.Options.of(
+            "photos", "caption", "video_url", "thumbnail_url", "duration",
+            // Unused, see JsonUtils.skipField()
+            "blog_name", "id", "post_url", "slug", "type", "date", "timestamp", "state", "format",
+            "reblog_key", "tags", "short_url", "summary", "recommended_source", "recommended_color",
+            "highlighted", "note_count", "html5_capable", "thumbnail_width", "thumbnail_height",
+            "video_type", "can_send_in_message", "can_like", "can_reblog", "display_avatar",
+            "can_reply", "is_blocks_post_format", "image_permalink", "reblog", "trail", "player",
+            "video");
+    private static final JsonReader.Options PHOTO_NAMES = JsonReader.Options.of(
+            "caption", "alt_sizes", "original_size",
+            // Unused, see JsonUtils.skipField()
+            "exif");
+    private static final JsonReader.Options SIZE_NAMES  =
+            JsonReader.Options.of("url", "width", "height");
+
+    @Override
+    public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+        // Photos are only ever decoded as part of their Post
+        if (!annotations.isEmpty() || type != Post.class) return null;
+        JsonAdapter<Post> writer = moshi.nextAdapter(this, type, annotations);
+        return new MediaFieldsAdapter<Post>(writer) {
+            @Override
+            public Post fromJson(JsonReader reader) throws IOException {
+                return readPost(reader);
+            }
+        }.nullSafe();
+    }
+
+    private static Photo readPhoto(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        Photo photo = new Photo();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(PHOTO_NAMES);
+            switch (index) {
+                case 0:
+                    photo.caption = JsonUtils.nextString(reader);
+                    break;
+                case 1:
+                    if (reader.peek() == JsonReader.Token.NULL) {
+                        photo.altSizes = reader.nextNull();
+                        break;
+                    }
+                    photo.altSizes = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        photo.altSizes.add(readSize(reader, new AltSize()));
+                    }
+                    reader.endArray();
+                    break;
+                case 2:
+                    photo.originalSize = readSize(reader, new OriginalSize());
+                    break;
+                default:
+                    JsonUtils.skipField(reader, index);
+            }
+        }
+        reader.endObject();
+        return photo;
+    }
+
+    private static Post readPost(JsonReader reader) throws IOException {
+        Post post = new Post();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(POST_NAMES);
+            switch (index) {
+                case 0:
+                    if (reader.peek() == JsonReader.Token.NULL) {
+                        post.photos = reader.nextNull();
+                        break;
+                    }
+                    post.photos = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        post.photos.add(readPhoto(reader));
+                    }
+                    reader.endArray();
+                    break;
+                case 1:
+                    post.caption = JsonUtils.nextString(reader);
+                    break;
+                case 2:
+                    post.videoUrl = JsonUtils.nextString(reader);
+                    break;
+                case 3:
+                    post.thumbnailUrl = JsonUtils.nextString(reader);
+                    break;
+                case 4:
+                    post.duration = JsonUtils.nextInteger(reader);
+                    break;
+                default:
+                    JsonUtils.skipField(reader, index);
+            }
+        }
+        reader.endObject();
+        return post;
+    }
+
+    private static <S extends BaseSize> S readSize(JsonReader reader, S size) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(SIZE_NAMES);
+            switch (index) {
+                case 0:
+                    size.url = JsonUtils.nextString(reader);
+                    break;
+                case 1:
+                    size.width = JsonUtils.nextInteger(reader);
+                    break;
+                case 2:
+                    size.height = JsonUtils.nextInteger(reader);
+                    break;
+                default:
+                    JsonUtils.skipField(reader, index);
+            }
+        }
+        reader.endObject();
+        return size;
+    }
+}
@@ -2,10 +2,9 @@ package com.fernandobarillas.albumparser.tumblr.model;
 
 import com.fernandobarillas.albumparser.media.BaseApiResponse;
 import com.fernandobarillas.albumparser.media.IMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
-
 public class TumblrResponse extends BaseApiResponse<BaseTumblrMedia> {
 
     @Json(name = "response")
@@ -26,9 +25,9 @@ public class TumblrResponse extends BaseApiResponse<BaseTumblrMedia> {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         IMediaAlbum album = getAlbum();
-        return album != null ? album.getPreviewUrl() : null;
+        return album != null ? album.getPreviewMediaUrl() : null;
     }
 
     @Override
@@ -20,20 +20,18 @@
 
 package com.fernandobarillas.albumparser.tumblr.model;
 
-import com.fernandobarillas.albumparser.util.ParseUtils;
-
-import java.net.URL;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
 public class Video extends BaseTumblrMedia {
 
-    private URL    mUrl;
-    private URL    mPreviewUrl;
-    private double mDuration;
-    private String mDescription;
+    private MediaUrl mUrl;
+    private MediaUrl mPreviewUrl;
+    private double   mDuration;
+    private String   mDescription;
 
     public Video(String videoUrl, String previewUrl, String description, Double duration) {
-        mUrl = ParseUtils.getUrlObject(videoUrl);
-        mPreviewUrl = ParseUtils.getUrlObject(previewUrl);
+        mUrl = MediaUrl.parse(videoUrl);
+        mPreviewUrl = MediaUrl.parse(previewUrl);
         mDescription = description;
         mDuration = defaultDurationIfNull(duration);
     }
@@ -49,12 +47,12 @@ public class Video extends BaseTumblrMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         return mPreviewUrl;
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    public MediaUrl getMediaUrl(boolean highQuality) {
         return highQuality ? mUrl : null;
     }
 
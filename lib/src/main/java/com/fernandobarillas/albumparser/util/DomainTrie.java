@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.util;
+
+import java.util.Arrays;
+
+/**
+ * A case-insensitive trie of domain names stored with their characters reversed, so a host name
+ * can be matched against every registered domain in a single right-to-left pass. Domains can be
+ * registered as exact matches ("imgur.com") or as wildcards that match any subdomain
+ * ("*.tumblr.com"). When several entries match a host, the longest one wins.
+ * <p>
+ * Lookups never allocate. The trie is not synchronized, so populate it before sharing it between
+ * threads and don't modify it afterwards.
+ *
+ * @param <V> The type of value to return for a matched domain
+ */
+public class DomainTrie<V> {
+    private static final String WILDCARD_PREFIX = "*.";
+
+    private final Node<V> mRoot = new Node<>();
+
+    /**
+     * Looks up the value registered for the passed-in host
+     *
+     * @param host The host name to look up, for example: i.imgur.com
+     * @return The value for the longest exact or wildcard domain matching the host, null if no
+     * registered domain matches
+     */
+    public V get(CharSequence host) {
+        if (host == null) return null;
+        return get(host, 0, host.length());
+    }
+
+    /**
+     * Looks up the value registered for a host that is part of a longer CharSequence, such as a
+     * whole URL, without copying the host out of it
+     *
+     * @param text  The text containing the host name
+     * @param start The index of the first character of the host
+     * @param end   The index after the last character of the host
+     * @return The value for the longest exact or wildcard domain matching the host, null if no
+     * registered domain matches
+     */
+    public V get(CharSequence text, int start, int end) {
+        if (text == null) return null;
+        // Fully qualified host names may end with a dot, ignore it
+        if (end > start && text.charAt(end - 1) == '.') end--;
+        if (end <= start) return null;
+
+        Node<V> node = mRoot;
+        V bestMatch = null;
+        for (int i = end - 1; i >= start; i--) {
+            char c = toLowerCase(text.charAt(i));
+            // Reaching a label boundary with labels still left means the host is a subdomain of the
+            // domain matched so far
+            if (c == '.' && i > start && node.mWildcardValue != null) {
+                bestMatch = node.mWildcardValue;
+            }
+            node = node.getChild(c);
+            if (node == null) return bestMatch;
+        }
+
+        return node.mExactValue != null ? node.mExactValue : bestMatch;
+    }
+
+    /**
+     * Registers a domain with this trie
+     *
+     * @param domain The domain to register. Domains starting with "*." will match any subdomain
+     *               of the remainder of the domain but not the domain itself
+     * @param value  The value to return when a host matches the domain
+     */
+    public void put(String domain, V value) {
+        if (domain == null || value == null) return;
+        if (domain.startsWith(WILDCARD_PREFIX)) {
+            getOrCreateNode(domain.substring(WILDCARD_PREFIX.length())).mWildcardValue = value;
+        } else {
+            getOrCreateNode(domain).mExactValue = value;
+        }
+    }
+
+    /**
+     * Registers a domain and all of its subdomains with this trie. This matches the behavior of
+     * {@link ParseUtils#isDomainMatch(String, String)}
+     *
+     * @param domain The domain to register, for example: gfycat.com
+     * @param value  The value to return when a host matches the domain or one of its subdomains
+     */
+    public void putWithSubdomains(String domain, V value) {
+        if (domain == null || value == null) return;
+        Node<V> node = getOrCreateNode(domain);
+        node.mExactValue = value;
+        node.mWildcardValue = value;
+    }
+
+    private static char toLowerCase(char c) {
+        if (c >= 'A' && c <= 'Z') return (char) (c + ('a' - 'A'));
+        if (c < 128) return c;
+        return Character.toLowerCase(c);
+    }
+
+    private Node<V> getOrCreateNode(String domain) {
+        Node<V> node = mRoot;
+        for (int i = domain.length() - 1; i >= 0; i--) {
+            char c = toLowerCase(domain.charAt(i));
+            Node<V> child = node.getChild(c);
+            if (child == null) child = node.addChild(c);
+            node = child;
+        }
+        return node;
+    }
+
+    private static class Node<V> {
+        private char[]    mKeys     = new char[0];
+        private Node<V>[] mChildren = newArray(0);
+        private V         mExactValue;
+        private V         mWildcardValue;
+
+        @SuppressWarnings("unchecked")
+        private static <V> Node<V>[] newArray(int size) {
+            return (Node<V>[]) new Node[size];
+        }
+
+        private Node<V> addChild(char key) {
+            int count = mKeys.length;
+            mKeys = Arrays.copyOf(mKeys, count + 1);
+            mChildren = Arrays.copyOf(mChildren, count + 1);
+            Node<V> child = new Node<>();
+            mKeys[count] = key;
+            mChildren[count] = child;
+            return child;
+        }
+
+        private Node<V> getChild(char key) {
+            // Domain names only fan out a handful of ways per character, a linear scan is fastest
+            char[] keys = mKeys;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) return mChildren[i];
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.util;
+
+import com.squareup.moshi.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Helpers for hand-written Moshi adapters that read JSON values into boxed model fields. Like
+ * Moshi's built-in adapters, a JSON null is read as a null field and numbers may be quoted.
+ */
+public final class JsonUtils {
+
+    private JsonUtils() {
+    }
+
+    /**
+     * @param reader The reader positioned at the value to read
+     * @return The next boolean, null if the value was null
+     * @throws IOException If the value isn't a boolean or null
+     */
+    public static Boolean nextBoolean(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextBoolean();
+    }
+
+    /**
+     * @param reader The reader positioned at the value to read
+     * @return The next double, null if the value was null
+     * @throws IOException If the value isn't a number or null
+     */
+    public static Double nextDouble(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextDouble();
+    }
+
+    /**
+     * @param reader The reader positioned at the value to read
+     * @return The next int, null if the value was null
+     * @throws IOException If the value isn't an int or null
+     */
+    public static Integer nextInteger(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextInt();
+    }
+
+    /**
+     * @param reader The reader positioned at the value to read
+     * @return The next long, null if the value was null
+     * @throws IOException If the value isn't a long or null
+     */
+    public static Long nextLong(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextLong();
+    }
+
+    /**
+     * @param reader The reader positioned at the value to read
+     * @return The next String or number as a String, null if the value was null
+     * @throws IOException If the value isn't a String, number or null
+     */
+    public static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextString();
+    }
+
+    /**
+     * Skips an unneeded object field after {@link JsonReader#selectName(JsonReader.Options)}. A
+     * name selectName() doesn't match is read into a String, so adapters that skip most fields
+     * should also list the names they expect to skip in their options to avoid those allocations.
+     *
+     * @param reader    The reader positioned after selecting the field's name
+     * @param nameIndex The index selectName() returned, -1 if the name wasn't matched and still
+     *                  has to be skipped
+     * @throws IOException If the field couldn't be read
+     */
+    public static void skipField(JsonReader reader, int nameIndex) throws IOException {
+        if (nameIndex == -1) reader.nextName();
+        reader.skipValue();
+    }
+}
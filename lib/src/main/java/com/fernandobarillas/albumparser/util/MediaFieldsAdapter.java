@@ -0,0 +1,49 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.util;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Base class for Moshi adapters that only read the fields of an API model that back its IMedia or
+ * IMediaAlbum methods and skip the rest. Writing is left to the adapter Moshi would otherwise
+ * use, so serialized models still contain every field that was read.
+ *
+ * @param <T> The type of model the adapter reads
+ */
+public abstract class MediaFieldsAdapter<T> extends JsonAdapter<T> {
+    private final JsonAdapter<T> mWriter;
+
+    /**
+     * @param writer The adapter to write models with, usually from Moshi.nextAdapter()
+     */
+    protected MediaFieldsAdapter(JsonAdapter<T> writer) {
+        mWriter = writer;
+    }
+
+    @Override
+    public void toJson(JsonWriter writer, T value) throws IOException {
+        mWriter.toJson(writer, value);
+    }
+}
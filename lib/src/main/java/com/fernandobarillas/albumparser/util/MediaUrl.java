@@ -0,0 +1,273 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.util;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Locale;
+
+/**
+ * An immutable media URL split into its scheme, host, path and query when it's parsed. Unlike
+ * {@link URL}, equality and hash codes are based only on the URL String so comparing MediaUrls or
+ * using them as Map keys never resolves host names. The scheme and host are lower-cased when
+ * parsing so URLs that only differ in their case are equal.
+ * <p>
+ * Use {@link #toUrl()} when a {@link URL} is needed, it's created once and then reused.
+ */
+public final class MediaUrl {
+    private static final int NO_PORT = -1;
+
+    private final String mUrl;
+    private final String mScheme;
+    private final String mHost;
+    private final int    mPort;
+    private final String mPath;
+    private final String mQuery;
+    private final String mRef;
+
+    /** Created by {@link #toUrl()} the first time it's needed */
+    private volatile URL mJavaUrl;
+
+    private MediaUrl(String url,
+            String scheme,
+            String host,
+            int port,
+            String path,
+            String query,
+            String ref) {
+        mUrl = url;
+        mScheme = scheme;
+        mHost = host;
+        mPort = port;
+        mPath = path;
+        mQuery = query;
+        mRef = ref;
+    }
+
+    /**
+     * Converts a {@link URL} to a MediaUrl
+     *
+     * @param url The URL to convert
+     * @return A MediaUrl for the passed-in URL, null if the URL is null or uses an unsupported
+     * scheme
+     */
+    public static MediaUrl of(URL url) {
+        if (url == null) return null;
+        MediaUrl mediaUrl = parse(url.toExternalForm());
+        if (mediaUrl != null) mediaUrl.mJavaUrl = url;
+        return mediaUrl;
+    }
+
+    /**
+     * Parses a URL String. Only the http, https, ftp and file schemes are accepted, the same ones
+     * {@link URL} always has handlers for.
+     *
+     * @param urlString The String to attempt to parse as a URL
+     * @return A MediaUrl if the passed-in String is a valid URL, null otherwise
+     */
+    public static MediaUrl parse(String urlString) {
+        if (urlString == null) return null;
+        // Surrounding whitespace is ignored, the same as in URL's constructor
+        int start = 0;
+        int end = urlString.length();
+        while (start < end && urlString.charAt(start) <= ' ') start++;
+        while (end > start && urlString.charAt(end - 1) <= ' ') end--;
+
+        int schemeEnd = urlString.indexOf(':', start);
+        if (schemeEnd < 0 || schemeEnd >= end) return null;
+        String scheme = getScheme(urlString, start, schemeEnd);
+        if (scheme == null) return null;
+
+        int refStart = indexOf(urlString, '#', schemeEnd + 1, end);
+        if (refStart < 0) refStart = end;
+        int queryStart = indexOf(urlString, '?', schemeEnd + 1, refStart);
+        int pathEnd = queryStart < 0 ? refStart : queryStart;
+
+        int hostStart = schemeEnd + 1;
+        int hostEnd = hostStart;
+        int pathStart = hostStart;
+        int port = NO_PORT;
+        if (urlString.startsWith("//", hostStart) && hostStart + 2 <= pathEnd) {
+            hostStart += 2;
+            int authorityEnd = indexOf(urlString, '/', hostStart, pathEnd);
+            if (authorityEnd < 0) authorityEnd = pathEnd;
+            // Skip any user info
+            int userInfoEnd = urlString.lastIndexOf('@', authorityEnd - 1);
+            if (userInfoEnd >= hostStart) hostStart = userInfoEnd + 1;
+            hostEnd = authorityEnd;
+            pathStart = authorityEnd;
+            int bracketEnd = urlString.lastIndexOf(']', authorityEnd - 1);
+            int portStart = urlString.lastIndexOf(':', authorityEnd - 1);
+            if (portStart >= hostStart && portStart > bracketEnd) {
+                hostEnd = portStart;
+                if (portStart + 1 < authorityEnd) {
+                    port = getPort(urlString, portStart + 1, authorityEnd);
+                    if (port == NO_PORT) return null;
+                }
+            }
+        }
+        String host = urlString.substring(hostStart, hostEnd);
+        String lowerCaseHost = toLowerCase(host);
+
+        String url;
+        if (start == 0 && end == urlString.length()
+                && urlString.startsWith(scheme)
+                && host.equals(lowerCaseHost)) {
+            // Already canonical, which is almost always the case
+            url = urlString;
+        } else {
+            url = new StringBuilder(end - start).append(scheme)
+                    .append(urlString, schemeEnd, hostStart)
+                    .append(lowerCaseHost)
+                    .append(urlString, hostEnd, end)
+                    .toString();
+        }
+
+        String path = urlString.substring(pathStart, pathEnd);
+        String query = queryStart < 0 ? null : urlString.substring(queryStart + 1, refStart);
+        String ref = refStart == end ? null : urlString.substring(refStart + 1, end);
+        return new MediaUrl(url, scheme, lowerCaseHost, port, path, query, ref);
+    }
+
+    /**
+     * @return The file name at the end of this URL's path, an empty String if the path ends with a
+     * slash
+     */
+    public String getFileName() {
+        return mPath.substring(mPath.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * @return The lower-cased host of this URL, an empty String if the URL has no host
+     */
+    public String getHost() {
+        return mHost;
+    }
+
+    /**
+     * @return The path of this URL, an empty String if the URL has no path
+     */
+    public String getPath() {
+        return mPath;
+    }
+
+    /**
+     * @return The port of this URL, -1 if no port was set
+     */
+    public int getPort() {
+        return mPort;
+    }
+
+    /**
+     * @return The query of this URL with no leading ?, null if the URL has no query
+     */
+    public String getQuery() {
+        return mQuery;
+    }
+
+    /**
+     * @return The fragment of this URL with no leading #, null if the URL has no fragment
+     */
+    public String getRef() {
+        return mRef;
+    }
+
+    /**
+     * @return The lower-cased scheme of this URL, for example: "https"
+     */
+    public String getScheme() {
+        return mScheme;
+    }
+
+    /**
+     * Gets this URL as a {@link URL}. Avoid calling equals() or hashCode() on the result, they
+     * resolve the URL's host.
+     *
+     * @return The URL for this MediaUrl, null in the rare case that {@link URL} can't parse it
+     */
+    public URL toUrl() {
+        URL url = mJavaUrl;
+        if (url == null) {
+            try {
+                url = new URL(mUrl);
+                mJavaUrl = url;
+            } catch (MalformedURLException ignored) {
+            }
+        }
+        return url;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof MediaUrl && mUrl.equals(((MediaUrl) o).mUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        return mUrl.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mUrl;
+    }
+
+    private static int getPort(String s, int start, int end) {
+        if (end - start > 5) return NO_PORT;
+        int port = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return NO_PORT;
+            port = port * 10 + (c - '0');
+        }
+        return port <= 65535 ? port : NO_PORT;
+    }
+
+    private static String getScheme(String s, int start, int end) {
+        switch (end - start) {
+            case 4:
+                if (s.regionMatches(true, start, "http", 0, 4)) return "http";
+                if (s.regionMatches(true, start, "file", 0, 4)) return "file";
+                return null;
+            case 5:
+                return s.regionMatches(true, start, "https", 0, 5) ? "https" : null;
+            case 3:
+                return s.regionMatches(true, start, "ftp", 0, 3) ? "ftp" : null;
+            default:
+                return null;
+        }
+    }
+
+    private static int indexOf(String s, char c, int start, int end) {
+        int index = s.indexOf(c, start);
+        return index < end ? index : -1;
+    }
+
+    private static String toLowerCase(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || c >= 128) return s.toLowerCase(Locale.US);
+        }
+        return s;
+    }
+}
@@ -21,6 +21,7 @@
 package com.fernandobarillas.albumparser.util;
 
 import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.media.MediaKind;
 
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -45,9 +46,18 @@ public class ParseUtils {
      * found, null otherwise
      */
     public static String getExtension(URL url) {
-        String filename = getFileName(url);
-        if (filename == null || !filename.contains(".")) return null;
-        return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
+        return getExtensionFromFileName(getFileName(url));
+    }
+
+    /**
+     * Tries to get the extension of the passed-in URL
+     *
+     * @param url The URL to get an extension from
+     * @return A String containing only the extension with no . prefix if an extension could be
+     * found, null otherwise
+     */
+    public static String getExtension(MediaUrl url) {
+        return url != null ? getExtensionFromFileName(url.getFileName()) : null;
     }
 
     /**
@@ -58,7 +68,7 @@ public class ParseUtils {
      * found, null otherwise
      */
     public static String getExtension(String urlString) {
-        return getExtension(ParseUtils.getUrlObject(urlString));
+        return getExtension(MediaUrl.parse(urlString));
     }
 
     public static String getFileName(URL url) {
@@ -82,6 +92,93 @@ public class ParseUtils {
         return splitPath[0];
     }
 
+    /**
+     * Classifies the file the URL links to by its extension. This makes a single pass over the
+     * end of the URL's path and doesn't allocate.
+     *
+     * @param url The URL to classify
+     * @return The kind of media the URL links to, {@link MediaKind#UNKNOWN} if the URL is null or
+     * its extension isn't for an image or video
+     */
+    public static MediaKind getMediaKind(URL url) {
+        return url != null ? getMediaKindFromPath(url.getPath()) : MediaKind.UNKNOWN;
+    }
+
+    /**
+     * @param url The URL to classify
+     * @return The kind of media the URL links to
+     * @see #getMediaKind(URL)
+     */
+    public static MediaKind getMediaKind(MediaUrl url) {
+        return url != null ? getMediaKindFromPath(url.getPath()) : MediaKind.UNKNOWN;
+    }
+
+    /**
+     * @param urlString The URL to classify
+     * @return The kind of media the URL links to, {@link MediaKind#UNKNOWN} if the String isn't a
+     * valid URL
+     * @see #getMediaKind(URL)
+     */
+    public static MediaKind getMediaKind(String urlString) {
+        return getMediaKind(MediaUrl.parse(urlString));
+    }
+
+    /**
+     * Classifies the file a URL path links to by its extension, for paths that are part of a
+     * longer CharSequence. Like {@link #getMediaKind(URL)} this doesn't allocate.
+     *
+     * @param text  The text containing the path
+     * @param start The index of the first character of the path
+     * @param end   The index after the last character of the path
+     * @return The kind of media the path links to
+     */
+    public static MediaKind getMediaKindFromPath(CharSequence text, int start, int end) {
+        // Find the extension of the last path segment
+        int extensionStart = end;
+        while (extensionStart > start) {
+            char c = text.charAt(extensionStart - 1);
+            if (c == '/') return MediaKind.UNKNOWN;
+            if (c == '.') break;
+            extensionStart--;
+        }
+        if (extensionStart == start) return MediaKind.UNKNOWN;
+
+        int length = end - extensionStart;
+        if (length != 3 && length != 4) return MediaKind.UNKNOWN;
+        switch (text.charAt(extensionStart) | 0x20) { // Lower-case ASCII letters
+            case '3':
+                if (matches(text, extensionStart, length, IMedia.EXT_3GP)) return MediaKind.VIDEO;
+                break;
+            case 'b':
+                if (matches(text, extensionStart, length, IMedia.EXT_BMP)) return MediaKind.IMAGE;
+                break;
+            case 'g':
+                if (matches(text, extensionStart, length, IMedia.EXT_GIF)) return MediaKind.GIF;
+                if (matches(text, extensionStart, length, IMedia.EXT_GIFV)) return MediaKind.VIDEO;
+                break;
+            case 'j':
+                if (matches(text, extensionStart, length, IMedia.EXT_JPG)
+                        || matches(text, extensionStart, length, IMedia.EXT_JPEG)) {
+                    return MediaKind.IMAGE;
+                }
+                break;
+            case 'm':
+                if (matches(text, extensionStart, length, IMedia.EXT_MP4)
+                        || matches(text, extensionStart, length, IMedia.EXT_MKV)) {
+                    return MediaKind.VIDEO;
+                }
+                break;
+            case 'p':
+                if (matches(text, extensionStart, length, IMedia.EXT_PNG)) return MediaKind.IMAGE;
+                break;
+            case 'w':
+                if (matches(text, extensionStart, length, IMedia.EXT_WEBP)) return MediaKind.IMAGE;
+                if (matches(text, extensionStart, length, IMedia.EXT_WEBM)) return MediaKind.VIDEO;
+                break;
+        }
+        return MediaKind.UNKNOWN;
+    }
+
     /**
      * Parses a URLs query parameters into a Map for easier parsing of options.
      * For example, a URL http://example.com?one=1&amp;two=true
@@ -94,7 +191,18 @@ public class ParseUtils {
      * values contained in the URL query parameters
      */
     public static Map<String, String> getQueryMap(String urlString) {
-        return getQueryMap(getUrlObject(urlString));
+        return getQueryMap(MediaUrl.parse(urlString));
+    }
+
+    /**
+     * @param url The URL to attempt to map the query parameters for
+     * @return Null if an invalid URL is passed in, otherwise a Map containing all the keys and
+     * values contained in the URL query parameters
+     * @see #getQueryMap(String)
+     */
+    public static Map<String, String> getQueryMap(MediaUrl url) {
+        if (url == null) return null;
+        return buildQueryMap(url.getQuery());
     }
 
     /**
@@ -185,6 +293,16 @@ public class ParseUtils {
         return null;
     }
 
+    /**
+     * Gets the {@link URL} for a MediaUrl
+     *
+     * @param url The MediaUrl to convert, may be null
+     * @return The URL for the passed-in MediaUrl, null if the MediaUrl is null
+     */
+    public static URL getUrlObject(MediaUrl url) {
+        return url != null ? url.toUrl() : null;
+    }
+
     /**
      * Get a URL Object from a passed in String
      *
@@ -203,13 +321,15 @@ public class ParseUtils {
      * Tries to find the regex in the haystack
      *
      * @param haystack    A String target for the regex
-     * @param needleRegex A regex String with exactly 1 capturing group
+     * @param needleRegex A regex String with exactly 1 capturing group. Compiled patterns are
+     *                    cached, but callers with a fixed regex should keep their own compiled
+     *                    {@link Pattern} and use {@link #hashRegex(String, Pattern)} instead
      * @return The text captured by the needledRegex capturing group if the regex matched, null
      * otherwise
      */
     public static String hashRegex(String haystack, String needleRegex) {
         if (haystack == null || needleRegex == null) return null;
-        Pattern pattern = Pattern.compile(needleRegex);
+        Pattern pattern = PatternCache.get(needleRegex);
         return hashRegex(haystack, pattern);
     }
 
@@ -235,7 +355,7 @@ public class ParseUtils {
      * @return True when the URL likely links to an image or video, false otherwise
      */
     public static boolean isDirectUrl(String mediaUrl) {
-        return isDirectUrl(ParseUtils.getUrlObject(mediaUrl));
+        return isDirectUrl(MediaUrl.parse(mediaUrl));
     }
 
     /**
@@ -243,9 +363,15 @@ public class ParseUtils {
      * @return True when the URL likely links to an image or video, false otherwise
      */
     public static boolean isDirectUrl(URL mediaUrl) {
-        return ParseUtils.isVideoExtension(mediaUrl)
-                || ParseUtils.isImageExtension(mediaUrl)
-                || isGifExtension(mediaUrl);
+        return getMediaKind(mediaUrl).isDirect();
+    }
+
+    /**
+     * @param mediaUrl The URL to check
+     * @return True when the URL likely links to an image or video, false otherwise
+     */
+    public static boolean isDirectUrl(MediaUrl mediaUrl) {
+        return getMediaKind(mediaUrl).isDirect();
     }
 
     public static boolean isDomainMatch(String domain, Set<String> providerDomains) {
@@ -272,7 +398,7 @@ public class ParseUtils {
      * @return True if the extension of the file in the URL appears to be for a GIF, false otherwise
      */
     public static boolean isGifExtension(String url) {
-        return isGifExtension(getUrlObject(url));
+        return isGifExtension(MediaUrl.parse(url));
     }
 
     /**
@@ -280,8 +406,15 @@ public class ParseUtils {
      * @return True if the extension of the file in the URL appears to be for a GIF, false otherwise
      */
     public static boolean isGifExtension(URL url) {
-        String extension = getExtension(url);
-        return extension != null && extension.equals(IMedia.EXT_GIF);
+        return getMediaKind(url) == MediaKind.GIF;
+    }
+
+    /**
+     * @param url The URL to check for a GIF extension
+     * @return True if the extension of the file in the URL appears to be for a GIF, false otherwise
+     */
+    public static boolean isGifExtension(MediaUrl url) {
+        return getMediaKind(url) == MediaKind.GIF;
     }
 
     /**
@@ -290,7 +423,7 @@ public class ParseUtils {
      * otherwise
      */
     public static boolean isImageExtension(String url) {
-        return isImageExtension(getUrlObject(url));
+        return isImageExtension(MediaUrl.parse(url));
     }
 
     /**
@@ -299,18 +432,16 @@ public class ParseUtils {
      * otherwise
      */
     public static boolean isImageExtension(URL url) {
-        String extension = getExtension(url);
-        if (extension == null) return false;
-        switch (extension) {
-            case IMedia.EXT_BMP:
-            case IMedia.EXT_JPG:
-            case IMedia.EXT_JPEG:
-            case IMedia.EXT_PNG:
-            case IMedia.EXT_WEBP:
-                return true;
-        }
+        return getMediaKind(url) == MediaKind.IMAGE;
+    }
 
-        return false;
+    /**
+     * @param url The URL to check for an image extension
+     * @return True if the extension of the file in the URL appears to be for an image, false
+     * otherwise
+     */
+    public static boolean isImageExtension(MediaUrl url) {
+        return getMediaKind(url) == MediaKind.IMAGE;
     }
 
     /**
@@ -319,7 +450,7 @@ public class ParseUtils {
      * otherwise
      */
     public static boolean isVideoExtension(String url) {
-        return isVideoExtension(getUrlObject(url));
+        return isVideoExtension(MediaUrl.parse(url));
     }
 
     /**
@@ -328,18 +459,37 @@ public class ParseUtils {
      * otherwise
      */
     public static boolean isVideoExtension(URL url) {
-        String extension = getExtension(url);
-        if (extension == null) return false;
-        switch (extension) {
-            case IMedia.EXT_3GP:
-            case IMedia.EXT_GIFV:
-            case IMedia.EXT_MKV:
-            case IMedia.EXT_MP4:
-            case IMedia.EXT_WEBM:
-                return true;
-        }
+        return getMediaKind(url) == MediaKind.VIDEO;
+    }
 
-        return false;
+    /**
+     * @param url The URL to check for a video extension
+     * @return True if the extension of the file in the URL appears to be for a video or GIF, false
+     * otherwise
+     */
+    public static boolean isVideoExtension(MediaUrl url) {
+        return getMediaKind(url) == MediaKind.VIDEO;
+    }
+
+    private static String getExtensionFromFileName(String filename) {
+        if (filename == null) return null;
+        int extensionStart = filename.lastIndexOf('.');
+        if (extensionStart < 0) return null;
+        return filename.substring(extensionStart + 1).toLowerCase();
+    }
+
+    private static MediaKind getMediaKindFromPath(String path) {
+        return getMediaKindFromPath(path, 0, path.length());
+    }
+
+    private static boolean matches(CharSequence text, int start, int length, String extension) {
+        if (length != extension.length()) return false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(start + i);
+            char e = extension.charAt(i);
+            if (c != e && Character.toLowerCase(c) != e) return false;
+        }
+        return true;
     }
 
     private static Map<String, String> buildQueryMap(String query) {
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A small least recently used cache of compiled regex patterns for the callers that only have the
+ * regex as a String. Compiling a Pattern costs far more than matching it against a URL path, so
+ * the same regex is only compiled again once it has been evicted.
+ */
+final class PatternCache {
+    static final int MAX_SIZE = 64;
+
+    private static final Map<String, Pattern> CACHE =
+            new LinkedHashMap<String, Pattern>(MAX_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+                    return size() > MAX_SIZE;
+                }
+            };
+
+    private PatternCache() {
+    }
+
+    /**
+     * Gets the compiled pattern for a regex, compiling and caching it if needed
+     *
+     * @param regex The regex to compile
+     * @return The compiled pattern for the regex
+     * @throws java.util.regex.PatternSyntaxException When the regex is invalid
+     */
+    static Pattern get(String regex) {
+        synchronized (CACHE) {
+            Pattern pattern = CACHE.get(regex);
+            if (pattern == null) {
+                pattern = Pattern.compile(regex);
+                CACHE.put(regex, pattern);
+            }
+            return pattern;
+        }
+    }
+
+    /**
+     * @return The number of patterns currently cached
+     */
+    static int size() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+}
@@ -22,10 +22,17 @@ package com.fernandobarillas.albumparser.vidble;
 
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.MediaStream;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
+import com.fernandobarillas.albumparser.util.ParseUtils;
 import com.fernandobarillas.albumparser.vidble.api.VidbleApi;
 import com.fernandobarillas.albumparser.vidble.model.VidbleMedia;
 import com.fernandobarillas.albumparser.vidble.model.VidbleResponse;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
 
 import java.io.IOException;
 import java.net.URL;
@@ -38,6 +45,18 @@ import retrofit2.Response;
  * Parser for the Vidble API
  */
 public class VidbleParser extends AbstractApiParser {
+    /** Turns each of the album's "pics" into media while the album is streamed */
+    private static final JsonAdapter<VidbleMedia> PIC_ADAPTER = new JsonAdapter<VidbleMedia>() {
+        @Override
+        public VidbleMedia fromJson(JsonReader reader) throws IOException {
+            return new VidbleMedia(reader.nextString());
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, VidbleMedia value) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }.nullSafe();
 
     public VidbleParser() {
     }
@@ -58,10 +77,7 @@ public class VidbleParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) {
-        if (mediaUrl == null) throw new InvalidMediaUrlException(mediaUrl);
-        String hash = VidbleUtils.getHash(mediaUrl.toString()); // TODO: Implement me in this method
-        if (hash == null) throw new InvalidMediaUrlException(mediaUrl);
-        return hash;
+        return getHash(ParsedUrl.of(mediaUrl));
     }
 
     @Override
@@ -70,19 +86,54 @@ public class VidbleParser extends AbstractApiParser {
     }
 
     @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
         String hash = getHash(mediaUrl);
 
         if (VidbleUtils.isAlbum(hash)) {
-            VidbleApi service = getRetrofit().create(VidbleApi.class);
-            Response<VidbleResponse> serviceResponse = service.getAlbumData(hash).execute();
+            VidbleApi service = getServices().get(VidbleApi.class);
+            Response<VidbleResponse> serviceResponse = execute(service.getAlbumData(hash));
             VidbleResponse apiResponse = serviceResponse.body();
             return getParserResponse(mediaUrl, apiResponse, serviceResponse);
         } else {
-            ParserResponse parserResponse =
-                    new ParserResponse(new VidbleMedia(mediaUrl.toString()));
-            parserResponse.setOriginalUrl(mediaUrl);
-            return parserResponse;
+            return getMediaResponse(mediaUrl);
+        }
+    }
+
+    @Override
+    protected void parseAsync(ParsedUrl mediaUrl, ParserFuture future)
+            throws IOException, RuntimeException {
+        String hash = getHash(mediaUrl);
+
+        if (VidbleUtils.isAlbum(hash)) {
+            VidbleApi service = getServices().get(VidbleApi.class);
+            enqueue(mediaUrl, service.getAlbumData(hash), future);
+        } else {
+            future.set(getMediaResponse(mediaUrl));
         }
     }
+
+    @Override
+    protected MediaStream.Source<VidbleMedia> getStreamSource(ParsedUrl mediaUrl)
+            throws IOException, RuntimeException {
+        String hash = getHash(mediaUrl);
+        if (!VidbleUtils.isAlbum(hash)) return null;
+        VidbleApi service = getServices().get(VidbleApi.class);
+        return new MediaStream.Source<>(service.streamAlbumData(hash), PIC_ADAPTER, "pics");
+    }
+
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) throws InvalidMediaUrlException {
+        String hash = null;
+        if (ParseUtils.isDomainMatch(mediaUrl.getHost(), VidbleApi.BASE_DOMAIN)) {
+            hash = VidbleUtils.getHash(mediaUrl.getMediaUrl());
+        }
+        if (hash == null) throw new InvalidMediaUrlException(mediaUrl.getUrl());
+        return hash;
+    }
+
+    private ParserResponse getMediaResponse(ParsedUrl mediaUrl) {
+        ParserResponse parserResponse = new ParserResponse(new VidbleMedia(mediaUrl.toString()));
+        parserResponse.setOriginalUrl(mediaUrl.getMediaUrl());
+        return parserResponse;
+    }
 }
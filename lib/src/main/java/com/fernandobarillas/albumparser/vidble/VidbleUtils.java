@@ -21,15 +21,23 @@
 package com.fernandobarillas.albumparser.vidble;
 
 import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 import com.fernandobarillas.albumparser.vidble.api.VidbleApi;
 
 import java.net.URL;
+import java.util.regex.Pattern;
 
 /**
  * Utilities for working with Vidble URLs and hashes
  */
 public class VidbleUtils {
+    private static final Pattern ALBUM_PATTERN =
+            Pattern.compile("/album/(\\w{" + VidbleApi.ALBUM_HASH_LENGTH + "})");
+    private static final Pattern SHOW_PATTERN  =
+            Pattern.compile("/show/(\\w{" + VidbleApi.IMAGE_HASH_LENGTH + "})");
+    private static final Pattern IMAGE_PATTERN =
+            Pattern.compile("/(\\w{" + VidbleApi.IMAGE_HASH_LENGTH + "})");
 
     /**
      * Attempts to get Vidble hash for a passed in URL String
@@ -50,19 +58,30 @@ public class VidbleUtils {
      * invalid
      */
     public static String getHash(URL url) {
+        return getHash(MediaUrl.of(url));
+    }
+
+    /**
+     * Gets the Vidble hash for a URL
+     *
+     * @param url The URL to get a hash from
+     * @return A hash that can be used to get a Vidble image/album, null if the Vidble URL was
+     * invalid
+     */
+    public static String getHash(MediaUrl url) {
         if (url == null) return null; // Passed in String wasn't a valid URL
         String path = url.getPath();
 
         if (path.startsWith("/album/")) {
-            return ParseUtils.hashRegex(path, "/album/(\\w{" + VidbleApi.ALBUM_HASH_LENGTH + "})");
+            return ParseUtils.hashRegex(path, ALBUM_PATTERN);
         }
 
         if (path.startsWith("/show/")) {
-            return ParseUtils.hashRegex(path, "/show/(\\w{" + VidbleApi.IMAGE_HASH_LENGTH + "})");
+            return ParseUtils.hashRegex(path, SHOW_PATTERN);
         }
 
         // Probably a gallery URL with no prefix
-        return ParseUtils.hashRegex(path, "/(\\w{" + VidbleApi.IMAGE_HASH_LENGTH + "})");
+        return ParseUtils.hashRegex(path, IMAGE_PATTERN);
     }
 
     /**
@@ -76,7 +95,7 @@ public class VidbleUtils {
     public static String getImageUrl(String hash) {
         if (hash == null) return null;
         if (hash.length() != VidbleApi.IMAGE_HASH_LENGTH) return null;
-        return String.format("%s/%s.%s", VidbleApi.IMAGE_URL, hash, IMedia.EXT_JPG);
+        return VidbleApi.IMAGE_URL + "/" + hash + "." + IMedia.EXT_JPG;
     }
 
     /**
@@ -26,9 +26,11 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Path;
+import retrofit2.http.Streaming;
 
 /**
  * Retrofit Interface for the Vidble API
@@ -49,4 +51,9 @@ public interface VidbleApi {
 
     @GET("/album/{hash}?json=1")
     Call<VidbleResponse> getAlbumData(@Path("hash") String hash);
+
+    // Same as getAlbumData() without decoding, the pics are read from the body as it arrives
+    @Streaming
+    @GET("/album/{hash}?json=1")
+    Call<ResponseBody> streamAlbumData(@Path("hash") String hash);
 }
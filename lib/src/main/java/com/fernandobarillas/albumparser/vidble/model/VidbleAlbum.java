@@ -21,8 +21,8 @@
 package com.fernandobarillas.albumparser.vidble.model;
 
 import com.fernandobarillas.albumparser.media.BaseMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -43,10 +43,10 @@ public class VidbleAlbum extends BaseMediaAlbum<VidbleMedia> {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         if (!isEmpty()) {
             // Return the first image as the preview
-            return mMediaList.get(0).getPreviewUrl();
+            return mMediaList.get(0).getPreviewMediaUrl();
         }
 
         return null;
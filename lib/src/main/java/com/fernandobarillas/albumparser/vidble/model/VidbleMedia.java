@@ -21,6 +21,7 @@
 package com.fernandobarillas.albumparser.vidble.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 import com.fernandobarillas.albumparser.vidble.VidbleUtils;
 import com.fernandobarillas.albumparser.vidble.api.VidbleApi;
@@ -66,12 +67,12 @@ public class VidbleMedia extends BaseMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    protected MediaUrl createPreviewMediaUrl() {
         return getImageUrl(THUMBNAIL_QUALITY, EXT_JPG);
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    protected MediaUrl createMediaUrl(boolean highQuality) {
         // Vidble doesn't have medium quality GIFs that are animated
         if (highQuality && mExtension.equals(EXT_GIF)) return null;
         String quality = (highQuality) ? ORIGINAL_QUALITY : MEDIUM_QUALITY;
@@ -83,9 +84,8 @@ public class VidbleMedia extends BaseMedia {
         return EXT_GIF.equals(mExtension);
     }
 
-    private URL getImageUrl(final String quality, final String extension) {
-        String resultUrl =
-                String.format("%s/%s%s.%s", VidbleApi.IMAGE_URL, mHash, quality, extension);
-        return ParseUtils.getUrlObject(resultUrl);
+    private MediaUrl getImageUrl(final String quality, final String extension) {
+        String resultUrl = VidbleApi.IMAGE_URL + "/" + mHash + quality + "." + extension;
+        return MediaUrl.parse(resultUrl);
     }
 }
@@ -22,9 +22,9 @@ package com.fernandobarillas.albumparser.vidble.model;
 
 import com.fernandobarillas.albumparser.media.BaseApiResponse;
 import com.fernandobarillas.albumparser.media.IMediaAlbum;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
 import java.util.List;
 
 public class VidbleResponse extends BaseApiResponse<VidbleMedia> {
@@ -43,8 +43,8 @@ public class VidbleResponse extends BaseApiResponse<VidbleMedia> {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        return (getAlbum() != null) ? getAlbum().getPreviewUrl() : null;
+    public MediaUrl getPreviewMediaUrl() {
+        return (getAlbum() != null) ? getAlbum().getPreviewMediaUrl() : null;
     }
 
     @Override
@@ -22,6 +22,8 @@ package com.fernandobarillas.albumparser.vidme;
 
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
 import com.fernandobarillas.albumparser.vidme.api.VidmeApi;
 import com.fernandobarillas.albumparser.vidme.model.VidmeResponse;
@@ -57,10 +59,7 @@ public class VidmeParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) {
-        if (mediaUrl == null) throw new InvalidMediaUrlException(mediaUrl);
-        String hash = VidmeUtils.getHash(mediaUrl.toString()); // TODO: Implement me in this method
-        if (hash == null) throw new InvalidMediaUrlException(mediaUrl);
-        return hash;
+        return getHash(ParsedUrl.of(mediaUrl));
     }
 
     @Override
@@ -69,11 +68,26 @@ public class VidmeParser extends AbstractApiParser {
     }
 
     @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
         String hash = getHash(mediaUrl);
-        VidmeApi service = getRetrofit().create(VidmeApi.class);
-        Response<VidmeResponse> serviceResponse = service.getVideoData(hash).execute();
+        VidmeApi service = getServices().get(VidmeApi.class);
+        Response<VidmeResponse> serviceResponse = execute(service.getVideoData(hash));
         VidmeResponse apiResponse = serviceResponse.body();
         return getParserResponse(mediaUrl, apiResponse, serviceResponse);
     }
+
+    @Override
+    protected void parseAsync(ParsedUrl mediaUrl, ParserFuture future)
+            throws IOException, RuntimeException {
+        String hash = getHash(mediaUrl);
+        VidmeApi service = getServices().get(VidmeApi.class);
+        enqueue(mediaUrl, service.getVideoData(hash), future);
+    }
+
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) {
+        String hash = VidmeUtils.getHash(mediaUrl.getMediaUrl());
+        if (hash == null) throw new InvalidMediaUrlException(mediaUrl.getUrl());
+        return hash;
+    }
 }
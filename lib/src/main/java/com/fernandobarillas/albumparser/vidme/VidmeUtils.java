@@ -20,15 +20,20 @@
 
 package com.fernandobarillas.albumparser.vidme;
 
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 import com.fernandobarillas.albumparser.vidme.api.VidmeApi;
 
 import java.net.URL;
+import java.util.regex.Pattern;
 
 /**
  * Created by fb on 5/10/16.
  */
 public class VidmeUtils {
+    private static final Pattern EMBED_PATTERN = Pattern.compile("/e/(\\w+)");
+    private static final Pattern HASH_PATTERN  = Pattern.compile("/(\\w+)");
+
     /**
      * Attempts to get an vid.me hash for a passed in URL String
      *
@@ -36,17 +41,37 @@ public class VidmeUtils {
      * @return A vid.me video URL hash if the passed in URL was a valid vid.me URL, null otherwise
      */
     public static String getHash(String vidmeUrl) {
-        URL url = ParseUtils.getUrlObject(vidmeUrl, VidmeApi.BASE_DOMAIN);
-        if (url == null) return null; // Passed in String wasn't a valid URL
+        return getHash(ParseUtils.getUrlObject(vidmeUrl, VidmeApi.BASE_DOMAIN));
+    }
+
+    /**
+     * Attempts to get an vid.me hash for a passed in URL
+     *
+     * @param url The URL to attempt to get a hash from
+     * @return A vid.me video URL hash if the passed in URL was a valid vid.me URL, null otherwise
+     */
+    public static String getHash(URL url) {
+        return getHash(MediaUrl.of(url));
+    }
+
+    /**
+     * Attempts to get an vid.me hash for a passed in URL
+     *
+     * @param url The URL to attempt to get a hash from
+     * @return A vid.me video URL hash if the passed in URL was a valid vid.me URL, null otherwise
+     */
+    public static String getHash(MediaUrl url) {
+        if (url == null) return null;
+        if (!ParseUtils.isDomainMatch(url.getHost(), VidmeApi.BASE_DOMAIN)) return null;
         String path = url.getPath();
         if (path == null) return null;
 
         if (path.startsWith("/e/")) {
-            return ParseUtils.hashRegex(path, "/e/(\\w+)");
+            return ParseUtils.hashRegex(path, EMBED_PATTERN);
         }
 
         // Probably a gallery URL with no prefix
-        return ParseUtils.hashRegex(path, "/(\\w+)");
+        return ParseUtils.hashRegex(path, HASH_PATTERN);
     }
 
 }
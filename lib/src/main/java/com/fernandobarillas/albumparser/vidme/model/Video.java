@@ -21,11 +21,9 @@
 package com.fernandobarillas.albumparser.vidme.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
-
 public class Video extends BaseMedia {
 
     @Json(name = "video_id")
@@ -119,8 +117,8 @@ public class Video extends BaseMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        return ParseUtils.getUrlObject(thumbnailUrl);
+    protected MediaUrl createPreviewMediaUrl() {
+        return MediaUrl.parse(thumbnailUrl);
     }
 
     @Override
@@ -129,9 +127,9 @@ public class Video extends BaseMedia {
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    protected MediaUrl createMediaUrl(boolean highQuality) {
         // TODO: Get low quality URL. 480p? There are variants available under the "formats" obj
-        return highQuality ? ParseUtils.getUrlObject(completeUrl) : null;
+        return highQuality ? MediaUrl.parse(completeUrl) : null;
     }
 
     @Override
@@ -21,10 +21,9 @@
 package com.fernandobarillas.albumparser.vidme.model;
 
 import com.fernandobarillas.albumparser.media.BaseApiResponse;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 import com.squareup.moshi.Json;
 
-import java.net.URL;
-
 public class VidmeResponse extends BaseApiResponse<Video> {
     @Json(name = "status")
     public Boolean status;
@@ -46,8 +45,8 @@ public class VidmeResponse extends BaseApiResponse<Video> {
     }
 
     @Override
-    public URL getPreviewUrl() {
-        return (video != null) ? video.getPreviewUrl() : null;
+    public MediaUrl getPreviewMediaUrl() {
+        return (video != null) ? video.getPreviewMediaUrl() : null;
     }
 
     @Override
@@ -21,7 +21,10 @@
 package com.fernandobarillas.albumparser.xkcd;
 
 import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.media.MediaKind;
 import com.fernandobarillas.albumparser.parser.AbstractApiParser;
+import com.fernandobarillas.albumparser.parser.ParsedUrl;
+import com.fernandobarillas.albumparser.parser.ParserFuture;
 import com.fernandobarillas.albumparser.parser.ParserResponse;
 import com.fernandobarillas.albumparser.util.ParseUtils;
 import com.fernandobarillas.albumparser.xkcd.api.XkcdApi;
@@ -64,25 +67,7 @@ public class XkcdParser extends AbstractApiParser {
 
     @Override
     public String getHash(URL mediaUrl) {
-        if (!isValidDomain(mediaUrl)) throw new InvalidMediaUrlException(mediaUrl);
-        String[] splitPath = ParseUtils.getSplitPath(mediaUrl);
-        String hash;
-
-        // No path segments for the URL
-        if (splitPath == null || splitPath.length < 1) throw new InvalidMediaUrlException(mediaUrl);
-        String firstSegment = splitPath[0];
-        if (splitPath.length >= 2
-                && PATH_COMICS.equalsIgnoreCase(firstSegment)
-                && ParseUtils.isImageExtension(mediaUrl)) {
-            String secondSegment = splitPath[1];
-            hash = ParseUtils.hashRegex(secondSegment, COMICS_REGEX);
-            hash = String.format("/%s/%s", PATH_COMICS, hash);
-        } else {
-            hash = ParseUtils.hashRegex(firstSegment, NUMBER_REGEX);
-            getComicNumber(mediaUrl, hash);
-        }
-        if (hash == null) throw new InvalidMediaUrlException(mediaUrl);
-        return hash;
+        return getHash(ParsedUrl.of(mediaUrl));
     }
 
     @Override
@@ -91,48 +76,93 @@ public class XkcdParser extends AbstractApiParser {
     }
 
     @Override
-    public ParserResponse parse(URL mediaUrl) throws IOException, RuntimeException {
+    public ParserResponse parse(ParsedUrl mediaUrl) throws IOException, RuntimeException {
         String hash = getHash(mediaUrl);
         if (hash == null) {
-            throw new InvalidMediaUrlException(mediaUrl);
+            throw new InvalidMediaUrlException(mediaUrl.getUrl());
         }
 
-        if (hash.startsWith("/comics/") && ParseUtils.isImageExtension(mediaUrl)) {
-            // Direct link to an xkcd comic image
-            XkcdImage image = new XkcdImage(null, null, mediaUrl.toString());
-            ParserResponse parserResponse = new ParserResponse(image);
-            parserResponse.setOriginalUrl(mediaUrl);
-            return parserResponse;
+        if (isComicImage(mediaUrl, hash)) {
+            return getComicImageResponse(mediaUrl);
         }
 
         long comicNumber = getComicNumber(mediaUrl, hash);
-        XkcdApi service = getRetrofit().create(XkcdApi.class);
-        Response<XkcdResponse> serviceResponse = service.getComic(comicNumber).execute();
+        XkcdApi service = getServices().get(XkcdApi.class);
+        Response<XkcdResponse> serviceResponse = execute(service.getComic(comicNumber));
         XkcdResponse apiResponse = serviceResponse.body();
         return getParserResponse(mediaUrl, apiResponse, serviceResponse);
     }
 
     @Override
-    protected boolean isValidDomain(URL mediaUrl) {
-        if (mediaUrl == null) return false;
-        String domain = mediaUrl.getHost().toLowerCase();
+    protected void parseAsync(ParsedUrl mediaUrl, ParserFuture future)
+            throws IOException, RuntimeException {
+        String hash = getHash(mediaUrl);
+
+        if (isComicImage(mediaUrl, hash)) {
+            future.set(getComicImageResponse(mediaUrl));
+            return;
+        }
+
+        long comicNumber = getComicNumber(mediaUrl, hash);
+        XkcdApi service = getServices().get(XkcdApi.class);
+        enqueue(mediaUrl, service.getComic(comicNumber), future);
+    }
+
+    @Override
+    protected String findHash(ParsedUrl mediaUrl) {
+        if (!isValidDomain(mediaUrl)) throw new InvalidMediaUrlException(mediaUrl.getUrl());
+        String hash;
+
+        // No path segments for the URL
+        if (mediaUrl.getPathSegmentCount() < 1) {
+            throw new InvalidMediaUrlException(mediaUrl.getUrl());
+        }
+        if (mediaUrl.getPathSegmentCount() >= 2
+                && mediaUrl.pathSegmentEqualsIgnoreCase(0, PATH_COMICS)
+                && mediaUrl.getMediaKind() == MediaKind.IMAGE) {
+            hash = ParseUtils.hashRegex(mediaUrl.getPathSegment(1), COMICS_REGEX);
+            hash = String.format("/%s/%s", PATH_COMICS, hash);
+        } else {
+            hash = ParseUtils.hashRegex(mediaUrl.getPathSegment(0), NUMBER_REGEX);
+            getComicNumber(mediaUrl, hash);
+        }
+        if (hash == null) throw new InvalidMediaUrlException(mediaUrl.getUrl());
+        return hash;
+    }
+
+    @Override
+    protected boolean isValidHost(String host) {
+        if (host == null) return false;
+        String domain = host.toLowerCase();
         String baseDomain = getBaseDomain();
         return baseDomain.equals(domain) || getValidDomains().contains(domain);
     }
 
-    private long getComicNumber(final URL mediaUrl, final String hash)
+    private ParserResponse getComicImageResponse(ParsedUrl mediaUrl) {
+        // Direct link to an xkcd comic image
+        XkcdImage image = new XkcdImage(null, null, mediaUrl.toString());
+        ParserResponse parserResponse = new ParserResponse(image);
+        parserResponse.setOriginalUrl(mediaUrl.getMediaUrl());
+        return parserResponse;
+    }
+
+    private long getComicNumber(final ParsedUrl mediaUrl, final String hash)
             throws InvalidMediaUrlException {
         long comicNumber;
         try {
             comicNumber = Long.parseLong(hash);
             if (comicNumber < 1) {
                 // XKCD comic numbers 1 or higher
-                throw new InvalidMediaUrlException(mediaUrl);
+                throw new InvalidMediaUrlException(mediaUrl.getUrl());
             }
         } catch (NumberFormatException e) {
             // XKCD API only supports getting info via an integer, the URL isn't valid
-            throw new InvalidMediaUrlException(mediaUrl);
+            throw new InvalidMediaUrlException(mediaUrl.getUrl());
         }
         return comicNumber;
     }
+
+    private boolean isComicImage(ParsedUrl mediaUrl, String hash) {
+        return hash.startsWith("/comics/") && mediaUrl.getMediaKind() == MediaKind.IMAGE;
+    }
 }
@@ -21,17 +21,15 @@
 package com.fernandobarillas.albumparser.xkcd.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
-import com.fernandobarillas.albumparser.util.ParseUtils;
-
-import java.net.URL;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
 /**
  * XKCD API Response Image
  */
 public class XkcdImage extends BaseMedia {
-    private String mTitle;
-    private String mDescription;
-    private URL    mHighQualityUrl;
+    private String   mTitle;
+    private String   mDescription;
+    private MediaUrl mHighQualityUrl;
 
     public XkcdImage(String title, String description, String url) {
         mTitle = title;
@@ -39,7 +37,7 @@ public class XkcdImage extends BaseMedia {
 
         if (url != null) {
             String imageUrl = url.replace("http://", "https://"); // Always return https URLs
-            mHighQualityUrl = ParseUtils.getUrlObject(imageUrl);
+            mHighQualityUrl = MediaUrl.parse(imageUrl);
         }
     }
 
@@ -54,7 +52,7 @@ public class XkcdImage extends BaseMedia {
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    public MediaUrl getMediaUrl(boolean highQuality) {
         // XKCD doesn't support low quality URLs
         if (!highQuality) return null;
         return mHighQualityUrl;
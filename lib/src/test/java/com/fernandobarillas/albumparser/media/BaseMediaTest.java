@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.media;
+
+import com.fernandobarillas.albumparser.imgur.model.Image;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the URLs memoized by {@link BaseMedia}
+ */
+public class BaseMediaTest {
+
+    @Test
+    public void testClearMediaUrls() {
+        Image image = new Image();
+        image.hash = "0t3yWP9";
+        image.ext = ".png";
+        assertEquals("https://i.imgur.com/0t3yWP9h.jpg", image.getMediaUrl(false).toString());
+        assertEquals("https://i.imgur.com/0t3yWP9m.jpg", image.getPreviewMediaUrl().toString());
+
+        // Changing the qualities recomputes the URLs
+        image.setLowQuality(Image.LARGE_THUMBNAIL);
+        image.setPreviewQuality(Image.SMALL_SQUARE);
+        assertEquals("https://i.imgur.com/0t3yWP9l.jpg", image.getMediaUrl(false).toString());
+        assertEquals("https://i.imgur.com/0t3yWP9s.jpg", image.getPreviewMediaUrl().toString());
+        assertEquals("https://i.imgur.com/0t3yWP9.png", image.getMediaUrl(true).toString());
+    }
+
+    @Test
+    public void testMemoizedUrls() {
+        CountingMedia media = new CountingMedia();
+        MediaUrl highQualityUrl = media.getMediaUrl(true);
+        assertEquals("https://example.com/high.jpg", highQualityUrl.toString());
+        assertSame(highQualityUrl, media.getMediaUrl(true));
+        assertSame(highQualityUrl.toUrl(), media.getUrl(true));
+        assertNull(media.getMediaUrl(false));
+        assertNull(media.getMediaUrl(false));
+        assertSame(media.getPreviewMediaUrl(), media.getPreviewMediaUrl());
+        assertEquals(3, media.mCreated);
+
+        media.clearMediaUrls();
+        assertEquals(highQualityUrl, media.getMediaUrl(true));
+        assertEquals(4, media.mCreated);
+    }
+
+    private static class CountingMedia extends BaseMedia {
+        private int mCreated;
+
+        @Override
+        protected MediaUrl createMediaUrl(boolean highQuality) {
+            mCreated++;
+            return highQuality ? MediaUrl.parse("https://example.com/high.jpg") : null;
+        }
+
+        @Override
+        protected MediaUrl createPreviewMediaUrl() {
+            mCreated++;
+            return MediaUrl.parse("https://example.com/preview.jpg");
+        }
+    }
+}
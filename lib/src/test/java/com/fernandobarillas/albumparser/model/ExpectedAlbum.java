@@ -2,7 +2,7 @@ package com.fernandobarillas.albumparser.model;
 
 import com.fernandobarillas.albumparser.media.BaseMediaAlbum;
 import com.fernandobarillas.albumparser.media.IMedia;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
 import java.net.URL;
 import java.util.List;
@@ -14,7 +14,7 @@ public class ExpectedAlbum extends BaseMediaAlbum {
 
     private List<IMedia> mAlbumMedia;
     private int          mCount;
-    private URL          mPreviewUrl;
+    private MediaUrl     mPreviewUrl;
 
     private ExpectedAlbum() {
         mAlbumMedia = null;
@@ -33,7 +33,7 @@ public class ExpectedAlbum extends BaseMediaAlbum {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         return mPreviewUrl;
     }
 
@@ -60,12 +60,13 @@ public class ExpectedAlbum extends BaseMediaAlbum {
         }
 
         public Builder setPreviewUrl(URL previewUrl) {
-            mExpectedAlbum.mPreviewUrl = previewUrl;
+            mExpectedAlbum.mPreviewUrl = MediaUrl.of(previewUrl);
             return this;
         }
 
         public Builder setPreviewUrl(String previewUrl) {
-            return setPreviewUrl(ParseUtils.getUrlObject(previewUrl));
+            mExpectedAlbum.mPreviewUrl = MediaUrl.parse(previewUrl);
+            return this;
         }
     }
 }
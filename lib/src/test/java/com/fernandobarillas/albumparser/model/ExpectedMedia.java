@@ -1,7 +1,7 @@
 package com.fernandobarillas.albumparser.model;
 
 import com.fernandobarillas.albumparser.media.BaseMedia;
-import com.fernandobarillas.albumparser.util.ParseUtils;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
 import java.net.URL;
 
@@ -10,20 +10,20 @@ import java.net.URL;
  */
 public class ExpectedMedia extends BaseMedia {
 
-    private boolean mIsVideo;
-    private boolean mIsGif;
-    private double  mDuration;
-    private int     mLowQualityByteSize;
-    private int     mHighQualityByteSize;
-    private int     mLowQualityHeight;
-    private int     mHighQualityHeight;
-    private int     mLowQualityWidth;
-    private int     mHighQualityWidth;
-    private String  mDescription;
-    private String  mTitle;
-    private URL     mPreviewUrl;
-    private URL     mHighQualityUrl;
-    private URL     mLowQualityUrl;
+    private boolean  mIsVideo;
+    private boolean  mIsGif;
+    private double   mDuration;
+    private int      mLowQualityByteSize;
+    private int      mHighQualityByteSize;
+    private int      mLowQualityHeight;
+    private int      mHighQualityHeight;
+    private int      mLowQualityWidth;
+    private int      mHighQualityWidth;
+    private String   mDescription;
+    private String   mTitle;
+    private MediaUrl mPreviewUrl;
+    private MediaUrl mHighQualityUrl;
+    private MediaUrl mLowQualityUrl;
 
     private ExpectedMedia() {
         mDuration = DURATION_UNAVAILABLE;
@@ -56,7 +56,7 @@ public class ExpectedMedia extends BaseMedia {
     }
 
     @Override
-    public URL getPreviewUrl() {
+    public MediaUrl getPreviewMediaUrl() {
         return mPreviewUrl;
     }
 
@@ -66,7 +66,7 @@ public class ExpectedMedia extends BaseMedia {
     }
 
     @Override
-    public URL getUrl(boolean highQuality) {
+    public MediaUrl getMediaUrl(boolean highQuality) {
         return highQuality ? mHighQualityUrl : mLowQualityUrl;
     }
 
@@ -118,12 +118,13 @@ public class ExpectedMedia extends BaseMedia {
         }
 
         public Builder setHighQualityUrl(URL highQualityUrl) {
-            mExpectedMedia.mHighQualityUrl = highQualityUrl;
+            mExpectedMedia.mHighQualityUrl = MediaUrl.of(highQualityUrl);
             return this;
         }
 
         public Builder setHighQualityUrl(String highQualityUrl) {
-            return setHighQualityUrl(ParseUtils.getUrlObject(highQualityUrl));
+            mExpectedMedia.mHighQualityUrl = MediaUrl.parse(highQualityUrl);
+            return this;
         }
 
         public Builder setHighQualityWidth(int highQualityWidth) {
@@ -152,11 +153,12 @@ public class ExpectedMedia extends BaseMedia {
         }
 
         public Builder setLowQualityUrl(String lowQualityUrl) {
-            return setLowQualityUrl(ParseUtils.getUrlObject(lowQualityUrl));
+            mExpectedMedia.mLowQualityUrl = MediaUrl.parse(lowQualityUrl);
+            return this;
         }
 
         public Builder setLowQualityUrl(URL lowQualityUrl) {
-            mExpectedMedia.mLowQualityUrl = lowQualityUrl;
+            mExpectedMedia.mLowQualityUrl = MediaUrl.of(lowQualityUrl);
             return this;
         }
 
@@ -166,12 +168,13 @@ public class ExpectedMedia extends BaseMedia {
         }
 
         public Builder setPreviewUrl(URL previewUrl) {
-            mExpectedMedia.mPreviewUrl = previewUrl;
+            mExpectedMedia.mPreviewUrl = MediaUrl.of(previewUrl);
             return this;
         }
 
         public Builder setPreviewUrl(String previewUrl) {
-            return setPreviewUrl(ParseUtils.getUrlObject(previewUrl));
+            mExpectedMedia.mPreviewUrl = MediaUrl.parse(previewUrl);
+            return this;
         }
 
         public Builder setTitle(String title) {
@@ -4,6 +4,7 @@ import com.fernandobarillas.albumparser.media.IApiResponse;
 import com.fernandobarillas.albumparser.media.IMedia;
 import com.fernandobarillas.albumparser.media.IMediaAlbum;
 import com.fernandobarillas.albumparser.parser.IParserResponse;
+import com.fernandobarillas.albumparser.util.MediaUrl;
 
 import java.net.URL;
 
@@ -12,14 +13,14 @@ import java.net.URL;
  */
 public class ExpectedParserResponse implements IParserResponse {
 
-    private URL         mOriginalUrl;
+    private MediaUrl    mOriginalUrl;
     private IMediaAlbum mMediaAlbum;
     private IMedia      mMedia;
     private boolean     mIsAlbum;
     private boolean     mIsSingleMedia;
 
     private ExpectedParserResponse(URL originalUrl) {
-        mOriginalUrl = originalUrl;
+        mOriginalUrl = MediaUrl.of(originalUrl);
         mMediaAlbum = null;
         mMedia = null;
         mIsAlbum = false;
@@ -55,10 +56,15 @@ public class ExpectedParserResponse implements IParserResponse {
     }
 
     @Override
-    public URL getOriginalUrl() {
+    public MediaUrl getOriginalMediaUrl() {
         return mOriginalUrl;
     }
 
+    @Override
+    public URL getOriginalUrl() {
+        return mOriginalUrl != null ? mOriginalUrl.toUrl() : null;
+    }
+
     @Override
     public boolean isAlbum() {
         return mIsAlbum;
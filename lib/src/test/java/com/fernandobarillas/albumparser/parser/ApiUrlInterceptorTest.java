@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for sending API calls to the servers set with {@link AlbumParser.Builder#apiUrl(String,
+ * String)}
+ */
+public class ApiUrlInterceptorTest {
+
+    @Test
+    public void testApiUrl() throws IOException {
+        final List<String> requestedUrls = new ArrayList<>();
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                Request request = chain.request();
+                requestedUrls.add(request.url().toString());
+                return new Response.Builder().request(request)
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(200)
+                        .message("OK")
+                        .body(ResponseBody.create(MediaType.parse("application/json"),
+                                readFixture("imgur_album.json")))
+                        .build();
+            }
+        }).build();
+
+        // Imgur's v3 API host is hard coded in its Retrofit interface
+        AlbumParser albumParser = new AlbumParser.Builder().okHttpClient(client)
+                .imgurClientId("test")
+                .apiUrl("imgur.com", "http://127.0.0.1:8080/replay/imgur/")
+                .build();
+        assertNotNull(albumParser.parseUrl("https://imgur.com/a/kvNbA").getAlbum());
+        assertEquals(1, requestedUrls.size());
+        assertEquals("http://127.0.0.1:8080/replay/imgur/3/album/kvNbA", requestedUrls.get(0));
+    }
+
+    @Test
+    public void testInvalidApiUrl() {
+        try {
+            new AlbumParser.Builder().apiUrl("imgur.com", "localhost:8080");
+            fail("API URLs without a scheme should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testRewrite() throws IOException {
+        ApiUrlInterceptor interceptor =
+                new ApiUrlInterceptor("gfycat.com", "http://localhost:9000");
+        assertEquals("http://localhost:9000/transcode?fetchUrl=a%20b",
+                rewrite(interceptor, "https://upload.gfycat.com/transcode?fetchUrl=a%20b"));
+        assertEquals("http://localhost:9000/v1/gfycats/Hash",
+                rewrite(interceptor, "https://api.gfycat.com/v1/gfycats/Hash"));
+        // Other hosts are left alone
+        assertEquals("https://notgfycat.com/v1/gfycats/Hash",
+                rewrite(interceptor, "https://notgfycat.com/v1/gfycats/Hash"));
+    }
+
+    private static String readFixture(String fixture) throws IOException {
+        return Okio.buffer(Okio.source(ApiUrlInterceptorTest.class.getResourceAsStream(
+                "/fixtures/" + fixture))).readUtf8();
+    }
+
+    private static String rewrite(ApiUrlInterceptor interceptor, String url) throws IOException {
+        final String[] rewrittenUrl = new String[1];
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor)
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        rewrittenUrl[0] = chain.request().url().toString();
+                        return new Response.Builder().request(chain.request())
+                                .protocol(Protocol.HTTP_1_1)
+                                .code(204)
+                                .message("No Content")
+                                .body(ResponseBody.create(null, ""))
+                                .build();
+                    }
+                })
+                .build();
+        client.newCall(new Request.Builder().url(url).build()).execute().close();
+        return rewrittenUrl[0];
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+import com.fernandobarillas.albumparser.exception.CircuitBreakerOpenException;
+import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
+import com.fernandobarillas.albumparser.giphy.model.GiphyMedia;
+import com.fernandobarillas.albumparser.media.IMedia;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static com.fernandobarillas.albumparser.util.ParseUtils.getUrlObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for failing fast while a provider is down
+ */
+public class CircuitBreakerTest {
+    private static final String GFYCAT_URL = "https://gfycat.com/SomeHash";
+    private static final String GIPHY_URL  = "http://giphy.com/gifs/l0HlD7sTICR75rDHy";
+    private static final String IMGUR_URL  = "https://imgur.com/a/kvNbA";
+
+    @Test
+    public void testAlbumParser() throws Exception {
+        AtomicInteger requestCount = new AtomicInteger();
+        AlbumParser albumParser = new AlbumParser.Builder()
+                .okHttpClient(newDownClient(requestCount))
+                .giphyApiKey("test")
+                .circuitBreaker(new CircuitBreaker.Builder().failureRate(1, 2, 2)
+                        .openDuration(1, TimeUnit.MINUTES))
+                .build();
+        for (int i = 0; i < 2; i++) {
+            try {
+                albumParser.parseUrl(GFYCAT_URL);
+                fail("The provider is down");
+            } catch (IOException expected) {
+            }
+        }
+        CircuitBreaker gfycatBreaker = albumParser.getCircuitBreaker("gfycat.com");
+        assertEquals(CircuitBreaker.State.OPEN, gfycatBreaker.getState());
+        assertEquals(2, requestCount.get());
+
+        // Calls fail right away without any requests once the breaker is open
+        try {
+            albumParser.parseUrl(GFYCAT_URL);
+            fail("The breaker should be open");
+        } catch (CircuitBreakerOpenException e) {
+            assertEquals("gfycat.com", e.getProviderName());
+            assertTrue(e.getRetryAfterMillis() > 0);
+        }
+        try {
+            albumParser.parseUrlAsync(GFYCAT_URL).get(10, TimeUnit.SECONDS);
+            fail("The breaker should be open");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+        }
+        assertEquals(2, requestCount.get());
+        assertEquals(2, gfycatBreaker.getRejectedCount());
+
+        // Other providers have their own breakers
+        assertEquals(CircuitBreaker.State.CLOSED,
+                albumParser.getCircuitBreaker("giphy.com").getState());
+        assertNull(albumParser.getCircuitBreaker("example.com"));
+
+        // Giphy responses can be guessed from the URL while its breaker is open
+        for (int i = 0; i < 2; i++) {
+            try {
+                albumParser.parseUrl(GIPHY_URL);
+                fail("The provider is down");
+            } catch (IOException expected) {
+            }
+        }
+        ParserResponse<IMedia> response = albumParser.parseUrl(GIPHY_URL);
+        assertTrue(response.getMedia() instanceof GiphyMedia);
+        assertEquals(4, requestCount.get());
+    }
+
+    @Test
+    public void testStates() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker.Builder().failureRate(0.5, 4, 4)
+                .openDuration(100, TimeUnit.MILLISECONDS)
+                .probeRequests(2)
+                .build("example.com");
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire();
+        }
+        breaker.onResult(null);
+        // Errors from a provider that is up, and canceled calls, aren't failures
+        breaker.onResult(new InvalidApiResponseException(null, 404, "Not Found"));
+        breaker.onResult(new CancellationException());
+        breaker.acquire();
+        breaker.onResult(new InvalidApiResponseException(null, 503, "Unavailable"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.acquire();
+        breaker.onResult(new IOException("Connection refused"));
+        assertEquals(0.5, breaker.getFailureRate(), 0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getOpenedCount());
+        try {
+            breaker.acquire();
+            fail("The breaker should be open");
+        } catch (CircuitBreakerOpenException e) {
+            assertTrue(e.getRetryAfterMillis() <= 100);
+        }
+
+        // Only the probes are let through once the breaker half-opens
+        Thread.sleep(150);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.acquire();
+        breaker.acquire();
+        try {
+            breaker.acquire();
+            fail("Only 2 probes should be let through");
+        } catch (CircuitBreakerOpenException e) {
+            assertEquals(0, e.getRetryAfterMillis());
+        }
+        breaker.onResult(null);
+        breaker.onResult(null);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureRate(), 0);
+
+        // A failed probe opens the breaker again
+        for (int i = 0; i < 4; i++) {
+            breaker.acquire();
+            breaker.onResult(new IOException("Connection refused"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(150);
+        breaker.acquire();
+        breaker.onResult(new IOException("Connection refused"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(3, breaker.getOpenedCount());
+        assertEquals(2, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        // Blocking and async streams count the same outcomes
+        for (boolean async : new boolean[]{false, true}) {
+            // The provider answered, the album being cut off while it's read isn't its failure
+            AlbumParser albumParser = newStreamingParser(newTruncatedClient());
+            CircuitBreaker imgurBreaker = albumParser.getCircuitBreaker("imgur.com");
+            for (int i = 0; i < 2; i++) {
+                assertTrue(readStream(albumParser, async) instanceof IOException);
+            }
+            assertEquals(CircuitBreaker.State.CLOSED, imgurBreaker.getState());
+            assertEquals(0, imgurBreaker.getFailureRate(), 0);
+
+            albumParser = newStreamingParser(newDownClient(new AtomicInteger()));
+            imgurBreaker = albumParser.getCircuitBreaker("imgur.com");
+            for (int i = 0; i < 2; i++) {
+                assertTrue(readStream(albumParser, async) instanceof IOException);
+            }
+            assertEquals(CircuitBreaker.State.OPEN, imgurBreaker.getState());
+            assertTrue(readStream(albumParser, async) instanceof CircuitBreakerOpenException);
+        }
+    }
+
+    private static AlbumParser newStreamingParser(OkHttpClient client) {
+        return new AlbumParser.Builder().okHttpClient(client)
+                .circuitBreaker(new CircuitBreaker.Builder().failureRate(1, 2, 2)
+                        .openDuration(1, TimeUnit.MINUTES))
+                .build();
+    }
+
+    /**
+     * Reads every media of the Imgur album
+     *
+     * @return The reason the stream failed, null if it was read to the end
+     */
+    private static Throwable readStream(AlbumParser albumParser, boolean async)
+            throws InterruptedException {
+        if (!async) {
+            try {
+                MediaStream<IMedia> stream = albumParser.parseUrlStream(IMGUR_URL);
+                while (stream.hasNext()) {
+                    stream.next();
+                }
+                return null;
+            } catch (IOException | RuntimeException e) {
+                return e;
+            }
+        }
+
+        final Throwable[] failure = new Throwable[1];
+        final CountDownLatch done = new CountDownLatch(1);
+        albumParser.parseUrlStreamAsync(getUrlObject(IMGUR_URL),
+                new MediaStream.Callback<IMedia>() {
+                    @Override
+                    public void onMedia(IMedia media) {
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(Throwable throwable) {
+                        failure[0] = throwable;
+                        done.countDown();
+                    }
+                });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return failure[0];
+    }
+
+    /**
+     * @return A client whose responses are cut off in the middle of the album media
+     */
+    private static OkHttpClient newTruncatedClient() {
+        return new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                return new Response.Builder().request(chain.request())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(200)
+                        .message("OK")
+                        .body(ResponseBody.create(MediaType.parse("application/json"),
+                                "{\"data\": {\"images\": ["))
+                        .build();
+            }
+        }).build();
+    }
+
+    /**
+     * @return A client whose requests all fail as if the provider's host were down
+     */
+    private static OkHttpClient newDownClient(final AtomicInteger requestCount) {
+        return new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                requestCount.incrementAndGet();
+                throw new IOException("Connection refused");
+            }
+        }).build();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for clients derived from a {@link ClientProfile}
+ */
+public class ClientProfileTest {
+
+    @Test
+    public void testNewClient() {
+        Interceptor interceptor = new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                return chain.proceed(chain.request());
+            }
+        };
+        OkHttpClient baseClient = new OkHttpClient.Builder().addInterceptor(interceptor)
+                .connectTimeout(3, TimeUnit.SECONDS)
+                .readTimeout(4, TimeUnit.SECONDS)
+                .build();
+
+        ClientProfile profile = new ClientProfile.Builder().readTimeout(20, TimeUnit.SECONDS)
+                .maxRequests(8, 2)
+                .http2(false)
+                .build();
+        OkHttpClient client = profile.newClient(baseClient);
+        assertEquals(Collections.singletonList(interceptor), client.interceptors());
+        assertEquals(3000, client.connectTimeoutMillis());
+        assertEquals(20000, client.readTimeoutMillis());
+        assertEquals(8, client.dispatcher().getMaxRequests());
+        assertEquals(2, client.dispatcher().getMaxRequestsPerHost());
+        assertEquals(Collections.singletonList(Protocol.HTTP_1_1), client.protocols());
+        assertNotSame(baseClient.connectionPool(), client.connectionPool());
+        assertSame(baseClient.dispatcher().executorService(),
+                client.dispatcher().executorService());
+
+        // Every client gets its own pool and dispatcher
+        OkHttpClient otherClient = profile.newClient(baseClient);
+        assertNotSame(client.connectionPool(), otherClient.connectionPool());
+        assertNotSame(client.dispatcher(), otherClient.dispatcher());
+    }
+
+    @Test
+    public void testProviderProfiles() {
+        OkHttpClient baseClient = new OkHttpClient();
+        ClientProfile slowProfile = new ClientProfile.Builder().connectTimeout(30, TimeUnit.SECONDS)
+                .connectionPool(1, 10, TimeUnit.SECONDS)
+                .build();
+        AlbumParser albumParser = new AlbumParser.Builder().okHttpClient(baseClient)
+                .clientProfile("deviantart.com", slowProfile)
+                .build();
+        assertSame(baseClient, albumParser.getClient());
+        assertSame(baseClient, albumParser.getClient("imgur.com"));
+        OkHttpClient deviantartClient = albumParser.getClient("deviantart.com");
+        assertNotSame(baseClient, deviantartClient);
+        assertEquals(30000, deviantartClient.connectTimeoutMillis());
+
+        // A default profile gives every provider its own client
+        albumParser = new AlbumParser.Builder().okHttpClient(baseClient)
+                .clientProfile(new ClientProfile.Builder().build())
+                .clientProfile("deviantart.com", slowProfile)
+                .build();
+        OkHttpClient imgurClient = albumParser.getClient("imgur.com");
+        OkHttpClient gfycatClient = albumParser.getClient("gfycat.com");
+        assertNotSame(baseClient, imgurClient);
+        assertNotSame(imgurClient.connectionPool(), gfycatClient.connectionPool());
+        assertEquals(baseClient.connectTimeoutMillis(), imgurClient.connectTimeoutMillis());
+        assertEquals(30000, albumParser.getClient("deviantart.com").connectTimeoutMillis());
+    }
+}
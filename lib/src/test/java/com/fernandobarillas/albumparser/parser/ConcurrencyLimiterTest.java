@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.media.IMedia;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for limiting concurrent parses and batch parsing
+ */
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+        final List<ParserFuture<IMedia>> running = new ArrayList<>();
+        List<ParserFuture<IMedia>> submitted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            submitted.add(limiter.submit(new ConcurrencyLimiter.Task<IMedia>() {
+                @Override
+                public ParserFuture<IMedia> start() {
+                    ParserFuture<IMedia> future = new ParserFuture<>();
+                    running.add(future);
+                    return future;
+                }
+            }));
+        }
+        assertEquals("Started up to the limit", 2, running.size());
+        assertEquals("Rest queued", 3, limiter.getQueued());
+
+        // Cancelled parses are skipped once they reach the front of the queue
+        assertTrue(submitted.get(2).cancel(true));
+        running.get(0).set(null);
+        assertTrue("Result passed through", submitted.get(0).isDone());
+        assertEquals("Next queued parse started", 3, running.size());
+        assertEquals(2, limiter.getInFlight());
+
+        // Cancelling a running parse cancels the underlying future and frees its slot
+        assertTrue(submitted.get(1).cancel(true));
+        assertTrue(running.get(1).isCancelled());
+        assertEquals("Last parse started", 4, running.size());
+        assertEquals(0, limiter.getQueued());
+
+        running.get(2).set(null);
+        running.get(3).setException(new RuntimeException());
+        assertTrue(submitted.get(4).isDone());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testParseUrls() throws Exception {
+        AlbumParser albumParser = new AlbumParser.Builder().maxRequestsPerProvider(1).build();
+        // None of these URLs need an API call so the batch completes right away
+        List<String> urls = Arrays.asList("https://i.redd.it/abcdefg.jpg",
+                "http://example.com/file.html",
+                "http://example.com/file.jpg",
+                "https://i.redd.it/abcdefg.jpg",
+                "https://i.redd.it/hijklmn.jpg");
+        List<ParserFuture<IMedia>> futures = albumParser.parseUrls(urls);
+        assertEquals("One future per URL", urls.size(), futures.size());
+        assertSame("Duplicates share a future", futures.get(0), futures.get(3));
+        assertNotSame(futures.get(0), futures.get(4));
+
+        for (int i = 0; i < urls.size(); i++) {
+            ParserFuture<IMedia> future = futures.get(i);
+            if (i == 1) {
+                try {
+                    future.get(1, TimeUnit.SECONDS);
+                    fail("Unsupported URL should fail");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof InvalidMediaUrlException);
+                }
+            } else {
+                ParserResponse<IMedia> response = future.get(1, TimeUnit.SECONDS);
+                assertEquals("Input order", urls.get(i), response.getMedia().getUrl(true).toString());
+                assertFalse(response.isAlbum());
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+import com.fernandobarillas.albumparser.exception.DeadlineExceededException;
+import com.fernandobarillas.albumparser.exception.RateLimitExceededException;
+import com.fernandobarillas.albumparser.imgur.ImgurParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static com.fernandobarillas.albumparser.util.ParseUtils.getUrlObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for parsing within a deadline and canceling parses
+ */
+public class DeadlineTest {
+    private static final String IMGUR_URL = "https://imgur.com/kvNbA";
+
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    private ExecutorService mExecutor;
+    private HttpServer      mServer;
+    private AlbumParser     mAlbumParser;
+
+    @Before
+    public void setUp() throws IOException {
+        mExecutor = Executors.newCachedThreadPool();
+        mServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        mServer.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mRequestCount.incrementAndGet();
+                // Imgur image lookups answer right away without an image, album lookups hang
+                if (!exchange.getRequestURI().getPath().contains("/image/")) {
+                    try {
+                        Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                byte[] body = "null".getBytes(Charset.forName("UTF-8"));
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream outputStream = exchange.getResponseBody();
+                outputStream.write(body);
+                outputStream.close();
+            }
+        });
+        mServer.setExecutor(mExecutor);
+        mServer.start();
+        String apiUrl = "http://127.0.0.1:" + mServer.getAddress().getPort();
+        mAlbumParser = new AlbumParser.Builder().apiUrl("imgur.com", apiUrl)
+                .imgurClientId("test")
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+        cancelAfter(deadline, 200);
+        long startMillis = System.currentTimeMillis();
+        try {
+            mAlbumParser.parseUrl(IMGUR_URL, deadline);
+            fail("The parse should be canceled");
+        } catch (DeadlineExceededException e) {
+            fail("The parse was canceled before its deadline");
+        } catch (InterruptedIOException expected) {
+        }
+        assertTrue(System.currentTimeMillis() - startMillis < TimeUnit.SECONDS.toMillis(3));
+        assertTrue(deadline.isCancelled());
+        assertFalse(deadline.isExpired());
+
+        // Later parses with the canceled deadline don't make any calls
+        int requestCount = mRequestCount.get();
+        try {
+            mAlbumParser.parseUrl(IMGUR_URL, deadline);
+            fail("The parse should be canceled");
+        } catch (InterruptedIOException expected) {
+        }
+        assertEquals(requestCount, mRequestCount.get());
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        // The image lookup and the album lookup after it share the budget
+        Deadline deadline = Deadline.after(500, TimeUnit.MILLISECONDS);
+        long startMillis = System.currentTimeMillis();
+        try {
+            mAlbumParser.parseUrl(IMGUR_URL, deadline);
+            fail("The album lookup should run past the deadline");
+        } catch (DeadlineExceededException expected) {
+        }
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        assertTrue(String.valueOf(elapsedMillis), elapsedMillis < TimeUnit.SECONDS.toMillis(3));
+        assertEquals(2, mRequestCount.get());
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.getRemainingMillis());
+
+        // No calls are made once the deadline has passed
+        try {
+            mAlbumParser.parseUrl(IMGUR_URL, deadline);
+            fail("The deadline has passed");
+        } catch (DeadlineExceededException expected) {
+        }
+        assertEquals(2, mRequestCount.get());
+    }
+
+    @Test
+    public void testRateLimitWait() throws Exception {
+        // A permit every 10 seconds, the first one is taken right away
+        RateLimiter rateLimiter = new RateLimiter(0.1, 1, 1, TimeUnit.MINUTES);
+        rateLimiter.acquire();
+
+        // The next permit only comes after the deadline, so the request isn't made to wait for it
+        long startMillis = System.currentTimeMillis();
+        try {
+            rateLimiter.acquire(Deadline.after(200, TimeUnit.MILLISECONDS));
+            fail("The request should be shed");
+        } catch (RateLimitExceededException expected) {
+        }
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        assertTrue(String.valueOf(elapsedMillis), elapsedMillis < 100);
+        assertEquals(1, rateLimiter.getShedCount());
+
+        // Canceling the deadline ends the wait for a permit
+        Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+        cancelAfter(deadline, 200);
+        startMillis = System.currentTimeMillis();
+        try {
+            rateLimiter.acquire(deadline);
+            fail("The wait should be canceled");
+        } catch (DeadlineExceededException e) {
+            fail("The wait was canceled before its deadline");
+        } catch (InterruptedIOException expected) {
+        }
+        elapsedMillis = System.currentTimeMillis() - startMillis;
+        assertTrue(String.valueOf(elapsedMillis), elapsedMillis < TimeUnit.SECONDS.toMillis(3));
+    }
+
+    @Test
+    public void testRetryWait() throws Exception {
+        final AtomicInteger requestCount = new AtomicInteger();
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                Request request = chain.request();
+                requestCount.incrementAndGet();
+                return new Response.Builder().request(request)
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(503)
+                        .message("Fixture")
+                        .body(ResponseBody.create(MediaType.parse("application/json"), "{}"))
+                        .build();
+            }
+        }).build();
+        ImgurParser parser = new ImgurParser(client, "test");
+        parser.setRetryPolicy(new RetryPolicy.Builder().backoff(10, 10, TimeUnit.SECONDS)
+                .jitter(0)
+                .budget(1, TimeUnit.MINUTES)
+                .build());
+
+        // Canceling the deadline ends the wait before the retry
+        Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+        cancelAfter(deadline, 200);
+        long startMillis = System.currentTimeMillis();
+        try {
+            parser.parse(ParsedUrl.of(getUrlObject("https://imgur.com/a/kvNbA")), deadline);
+            fail("The parse should be canceled");
+        } catch (DeadlineExceededException e) {
+            fail("The parse was canceled before its deadline");
+        } catch (InterruptedIOException expected) {
+        }
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        assertTrue(String.valueOf(elapsedMillis), elapsedMillis < TimeUnit.SECONDS.toMillis(3));
+        assertEquals(1, requestCount.get());
+    }
+
+    private void cancelAfter(final Deadline deadline, final long delayMillis) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                deadline.cancel();
+            }
+        });
+    }
+}
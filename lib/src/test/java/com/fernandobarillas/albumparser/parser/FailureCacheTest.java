@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
+import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the cache of failed parses
+ */
+public class FailureCacheTest {
+    private static final String PROVIDER = "gfycat.com";
+
+    private static final MediaUrl FIRST_URL = MediaUrl.parse("https://gfycat.com/Dead");
+    private static final MediaUrl SECOND_URL = MediaUrl.parse("https://fat.gfycat.com/Dead.mp4");
+
+    @Test
+    public void testGet() {
+        FailureCache cache = new FailureCache.Builder().build();
+        cache.put(PROVIDER, "Dead", FIRST_URL, apiError(404));
+        cache.put(PROVIDER, "Offline", FIRST_URL, new IOException("Network errors aren't cached"));
+        cache.put(PROVIDER,
+                "",
+                FIRST_URL,
+                new InvalidMediaUrlException(FIRST_URL.toUrl(), "No hash"));
+        assertEquals(2, cache.size());
+
+        RuntimeException failure = cache.get(PROVIDER, "Dead", SECOND_URL);
+        assertTrue(failure instanceof InvalidApiResponseException);
+        assertEquals("Status code kept",
+                404,
+                ((InvalidApiResponseException) failure).getStatusCode());
+        assertTrue("Rethrown for the requested URL",
+                failure.getMessage().contains(SECOND_URL.toString()));
+
+        // URLs without a hash are cached by the URL itself
+        failure = cache.get(PROVIDER, null, FIRST_URL);
+        assertTrue(failure instanceof InvalidMediaUrlException);
+        assertEquals("No hash", ((InvalidMediaUrlException) failure).getErrorMessage());
+        assertNull(cache.get(PROVIDER, null, SECOND_URL));
+        assertNull(cache.get(PROVIDER, "Offline", FIRST_URL));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testKind() {
+        assertEquals(FailureCache.Kind.UNSUPPORTED_URL,
+                FailureCache.getKind(new InvalidMediaUrlException(FIRST_URL.toUrl())));
+        assertEquals(FailureCache.Kind.CLIENT_ERROR, FailureCache.getKind(apiError(404)));
+        assertEquals(FailureCache.Kind.SERVER_ERROR, FailureCache.getKind(apiError(503)));
+        assertEquals(FailureCache.Kind.SERVER_ERROR, FailureCache.getKind(apiError(429)));
+        assertEquals(FailureCache.Kind.INVALID_RESPONSE,
+                FailureCache.getKind(new InvalidApiResponseException(FIRST_URL.toUrl(),
+                        "null response")));
+        assertNull(FailureCache.getKind(new IOException()));
+        assertNull(FailureCache.getKind(new IllegalArgumentException()));
+    }
+
+    @Test
+    public void testTtl() throws Exception {
+        FailureCache cache = new FailureCache.Builder().ttl(FailureCache.Kind.SERVER_ERROR,
+                0,
+                TimeUnit.SECONDS)
+                .ttl(FailureCache.Kind.CLIENT_ERROR, 1, TimeUnit.MILLISECONDS)
+                .build();
+        cache.put(PROVIDER, "Busy", FIRST_URL, apiError(500));
+        assertEquals("Server errors not cached", 0, cache.size());
+
+        cache.put(PROVIDER, "Dead", FIRST_URL, apiError(404));
+        Thread.sleep(10);
+        assertNull("Expired", cache.get(PROVIDER, "Dead", FIRST_URL));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    private static InvalidApiResponseException apiError(int statusCode) {
+        return new InvalidApiResponseException(FIRST_URL.toUrl(),
+                statusCode,
+                "API Error " + statusCode);
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.deviantart.api.DeviantartApi;
+import com.fernandobarillas.albumparser.gfycat.api.GfycatApi;
+import com.fernandobarillas.albumparser.gfycat.model.GfycatInfoResponse;
+import com.fernandobarillas.albumparser.giphy.api.GiphyApi;
+import com.fernandobarillas.albumparser.giphy.model.GiphyResponse;
+import com.fernandobarillas.albumparser.imgur.api.ImgurApi;
+import com.fernandobarillas.albumparser.imgur.model.v3.AlbumResponseV3;
+import com.fernandobarillas.albumparser.imgur.model.v3.ImageResponseV3;
+import com.fernandobarillas.albumparser.streamable.api.StreamableApi;
+import com.fernandobarillas.albumparser.tumblr.api.TumblrApi;
+import com.fernandobarillas.albumparser.tumblr.model.TumblrResponse;
+import com.fernandobarillas.albumparser.vidble.api.VidbleApi;
+import com.fernandobarillas.albumparser.vidme.api.VidmeApi;
+import com.fernandobarillas.albumparser.xkcd.api.XkcdApi;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Okio;
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.moshi.MoshiConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the JsonAdapters and service clients generated at build time. They have to decode the
+ * same objects and send the same requests as Moshi's and Retrofit's reflection.
+ */
+public class GeneratedCodeTest {
+    private static final Moshi REFLECTIVE_MOSHI = new Moshi.Builder().add(new URLAdapter()).build();
+    private static final Moshi GENERATED_MOSHI  = REFLECTIVE_MOSHI.newBuilder()
+            .add(GeneratedCode.ADAPTER_FACTORY)
+            .build();
+
+    private static final Class<?>[] APIS = {
+            DeviantartApi.class,
+            GfycatApi.class,
+            GiphyApi.class,
+            ImgurApi.class,
+            StreamableApi.class,
+            TumblrApi.class,
+            VidbleApi.class,
+            VidmeApi.class,
+            XkcdApi.class,
+    };
+
+    /**
+     * Parameter values that need every kind of escaping a path or query can do. Non-ASCII values
+     * aren't valid in headers so building those requests has to fail the same way, as do nulls
+     * for path parameters.
+     */
+    private static final String[] SAMPLE_VALUES = {"a b/c?d%e#f", "\u00e9t\u00e9", null};
+
+    @Test
+    public void testAdapters() throws IOException {
+        assertNotNull(GeneratedCode.ADAPTER_FACTORY);
+        compareDecoding(GfycatInfoResponse.class, "gfycat_gfyitem.json");
+        compareDecoding(GiphyResponse.class, "giphy_gif.json");
+        compareDecoding(AlbumResponseV3.class, "imgur_album.json");
+        compareDecoding(ImageResponseV3.class, "imgur_image.json");
+        compareDecoding(TumblrResponse.class, "tumblr_photo_post.json");
+        compareDecoding(TumblrResponse.class, "tumblr_video_post.json");
+    }
+
+    @Test
+    public void testCalls() throws IOException {
+        Retrofit retrofit = newRetrofit(new OkHttpClient.Builder()
+                .addInterceptor(new FixtureInterceptor())
+                .build());
+        GfycatApi proxy = retrofit.create(GfycatApi.class);
+        GfycatApi client = GeneratedCode.createService(GfycatApi.class, retrofit);
+
+        Response<GfycatInfoResponse> expected = proxy.getGfycatInfo("hash").execute();
+        Call<GfycatInfoResponse> call = client.getGfycatInfo("hash");
+        Response<GfycatInfoResponse> response = call.execute();
+        assertTrue(call.isExecuted());
+        assertTrue(response.isSuccessful());
+        assertEquals(toJson(expected.body()), toJson(response.body()));
+        assertEquals(expected.headers(), response.headers());
+
+        // A clone can be executed again
+        Call<GfycatInfoResponse> clone = call.clone();
+        assertNotSame(call, clone);
+        assertFalse(clone.isExecuted());
+        assertEquals(toJson(expected.body()), toJson(clone.execute().body()));
+        try {
+            call.execute();
+            fail("Calls can only be executed once");
+        } catch (IllegalStateException expectedException) {
+        }
+
+        Response<GfycatInfoResponse> expectedError = proxy.getGfycatInfo("error").execute();
+        Response<GfycatInfoResponse> error = client.getGfycatInfo("error").execute();
+        assertEquals(expectedError.code(), error.code());
+        assertFalse(error.isSuccessful());
+        assertNull(error.body());
+        assertEquals(expectedError.errorBody().string(), error.errorBody().string());
+
+        Response<GfycatInfoResponse> empty = client.getGfycatInfo("empty").execute();
+        assertEquals(204, empty.code());
+        assertNull(empty.body());
+    }
+
+    @Test
+    public void testResponseModels() {
+        // Every response the APIs decode has to get a generated adapter, not fall back to
+        // reflection
+        for (Class<?> api : APIS) {
+            for (Method method : api.getDeclaredMethods()) {
+                Type responseType = ((ParameterizedType) method.getGenericReturnType())
+                        .getActualTypeArguments()[0];
+                if (responseType == ResponseBody.class) continue;
+                String message = api.getSimpleName() + "." + method.getName();
+                String adapter = GENERATED_MOSHI.adapter(responseType).toString();
+                assertTrue(message + " uses " + adapter,
+                        adapter.startsWith("GeneratedJsonAdapter"));
+            }
+        }
+    }
+
+    @Test
+    public void testServices() throws Exception {
+        assertNotNull(GeneratedCode.SERVICE_FACTORY);
+        Retrofit retrofit = newRetrofit(new OkHttpClient());
+        for (Class<?> api : APIS) {
+            for (String value : SAMPLE_VALUES) {
+                compareRequests(retrofit, api, value);
+            }
+        }
+    }
+
+    private static void compareDecoding(Class<?> type, String fixture) throws IOException {
+        JsonAdapter<?> adapter = GENERATED_MOSHI.adapter(type);
+        assertTrue(adapter.toString(), adapter.toString().startsWith("GeneratedJsonAdapter"));
+
+        String json = readFixture(fixture);
+        Object expected = REFLECTIVE_MOSHI.adapter(type).fromJson(json);
+        Object decoded = adapter.fromJson(json);
+        assertEquals(fixture, toJson(expected), toJson(decoded));
+
+        // Writing with the generated adapters has to produce the same JSON too
+        Object roundTrip = adapter.fromJson(toJson(GENERATED_MOSHI, decoded));
+        assertEquals(fixture, toJson(expected), toJson(roundTrip));
+    }
+
+    /**
+     * Calls every method of the API with the same arguments through Retrofit's proxy and the
+     * generated client and compares the requests, or the Exceptions thrown building them
+     */
+    private static void compareRequests(Retrofit retrofit, Class<?> api, String value)
+            throws Exception {
+        Object proxy = retrofit.create(api);
+        Object client = GeneratedCode.createService(api, retrofit);
+        assertNotNull(api.getName(), client);
+        for (Method method : api.getDeclaredMethods()) {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                // Primitives can't be null, use a number that is still a valid path segment
+                args[i] = parameterTypes[i] == String.class ? value : 42L;
+            }
+            String message = api.getSimpleName() + "." + method.getName() + "(" + value + ")";
+
+            Request expected = null;
+            Exception expectedException = null;
+            try {
+                expected = ((Call<?>) invoke(method, proxy, args)).request();
+            } catch (RuntimeException e) {
+                expectedException = e;
+            }
+
+            Call<?> call = (Call<?>) invoke(method, client, args);
+            if (expectedException != null) {
+                try {
+                    call.request();
+                    fail(message + " should throw " + expectedException);
+                } catch (RuntimeException e) {
+                    assertEquals(message, expectedException.getClass(), e.getClass());
+                    assertEquals(message, expectedException.getMessage(), e.getMessage());
+                }
+                continue;
+            }
+
+            Request request = call.request();
+            assertEquals(message, expected.url(), request.url());
+            assertEquals(message, expected.method(), request.method());
+            assertEquals(message, expected.headers(), request.headers());
+            assertNull(message, request.body());
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Exception {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private static Retrofit newRetrofit(OkHttpClient client) {
+        return new Retrofit.Builder()
+                .baseUrl("https://api.example.com/v1/")
+                .addConverterFactory(MoshiConverterFactory.create(GENERATED_MOSHI))
+                .client(client)
+                .build();
+    }
+
+    private static String readFixture(String fixture) throws IOException {
+        InputStream inputStream =
+                GeneratedCodeTest.class.getResourceAsStream("/fixtures/" + fixture);
+        assertNotNull("Missing fixture " + fixture, inputStream);
+        try {
+            return Okio.buffer(Okio.source(inputStream)).readUtf8();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Writes a decoded response with reflection so the fields of both decoders can be compared
+     */
+    private static String toJson(Object response) {
+        return toJson(REFLECTIVE_MOSHI, response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String toJson(Moshi moshi, Object response) {
+        assertNotNull(response);
+        return ((JsonAdapter<Object>) moshi.adapter(response.getClass())).toJson(response);
+    }
+
+    /**
+     * Answers every request with the Gfycat fixture, an error or an empty response depending on
+     * the last path segment
+     */
+    private static class FixtureInterceptor implements Interceptor {
+        @Override
+        public okhttp3.Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            String hash = request.url().pathSegments().get(request.url().pathSize() - 1);
+            MediaType json = MediaType.parse("application/json");
+            okhttp3.Response.Builder response = new okhttp3.Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .header("X-Fixture", hash);
+            switch (hash) {
+                case "error":
+                    return response.code(404)
+                            .message("Not Found")
+                            .body(ResponseBody.create(json, "{\"error\":\"not found\"}"))
+                            .build();
+                case "empty":
+                    return response.code(204)
+                            .message("No Content")
+                            .body(ResponseBody.create(json, ""))
+                            .build();
+                default:
+                    return response.code(200)
+                            .message("OK")
+                            .body(ResponseBody.create(json, readFixture("gfycat_gfyitem.json")))
+                            .build();
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.gfycat.GfycatParser;
+import com.fernandobarillas.albumparser.gfycat.api.GfycatApi;
+import com.fernandobarillas.albumparser.imgur.ImgurParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+import static com.fernandobarillas.albumparser.util.ParseUtils.getUrlObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for hedging slow API calls
+ */
+public class HedgingPolicyTest {
+    private static final String IMGUR_ALBUM_URL = "https://imgur.com/a/kvNbA";
+
+    /** How long the first request made with a test client takes */
+    private static final long SLOW_MILLIS = 1000;
+
+    @Test
+    public void testAsync() throws Exception {
+        HedgingPolicy hedgingPolicy = newHedgingPolicy(1);
+        AtomicInteger requestCount = new AtomicInteger();
+        ImgurParser parser = new ImgurParser(newClient(requestCount), "test");
+        parser.setHedgingPolicy(hedgingPolicy);
+        long startMillis = System.currentTimeMillis();
+        assertNotNull(parser.parseAsync(getUrlObject(IMGUR_ALBUM_URL))
+                .get(10, TimeUnit.SECONDS)
+                .getAlbum());
+        assertTrue(System.currentTimeMillis() - startMillis < SLOW_MILLIS);
+        assertEquals(2, requestCount.get());
+        assertEquals(1, hedgingPolicy.getHedgeCount());
+        assertEquals(1, hedgingPolicy.getHedgeWonCount());
+    }
+
+    @Test
+    public void testBudget() {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy.Builder().maxHedgeRatio(0.5).build();
+        assertFalse(hedgingPolicy.tryHedge());
+        for (int i = 0; i < 4; i++) {
+            hedgingPolicy.recordRequest();
+        }
+        assertTrue(hedgingPolicy.tryHedge());
+        assertTrue(hedgingPolicy.tryHedge());
+        assertFalse(hedgingPolicy.tryHedge());
+        assertEquals(4, hedgingPolicy.getRequestCount());
+        assertEquals(2, hedgingPolicy.getSkippedCount());
+
+        // A long quiet stretch doesn't save up more than a handful of hedges
+        for (int i = 0; i < 1000; i++) {
+            hedgingPolicy.recordRequest();
+        }
+        int hedges = 0;
+        while (hedgingPolicy.tryHedge()) {
+            hedges++;
+        }
+        assertEquals(10, hedges);
+    }
+
+    @Test
+    public void testDelay() {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy.Builder().percentile(0.95)
+                .delayRange(10, 500, TimeUnit.MILLISECONDS)
+                .initialDelay(200, TimeUnit.MILLISECONDS)
+                .build();
+        // The initial delay is used until enough response times are recorded
+        for (int i = 1; i < 20; i++) {
+            hedgingPolicy.recordLatency(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(200, hedgingPolicy.getHedgeDelayMillis());
+        for (int i = 20; i <= 100; i++) {
+            hedgingPolicy.recordLatency(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(95, hedgingPolicy.getHedgeDelayMillis());
+
+        // Only the most recent response times count and the delay stays in its range
+        for (int i = 0; i < 100; i++) {
+            hedgingPolicy.recordLatency(TimeUnit.SECONDS.toNanos(2));
+        }
+        assertEquals(500, hedgingPolicy.getHedgeDelayMillis());
+        for (int i = 0; i < 100; i++) {
+            hedgingPolicy.recordLatency(0);
+        }
+        assertEquals(10, hedgingPolicy.getHedgeDelayMillis());
+    }
+
+    @Test
+    public void testHedgeable() {
+        AbstractApiParser<?> parser = new GfycatParser();
+        GfycatApi service = parser.getServices().get(GfycatApi.class);
+        assertTrue(parser.isHedgeable(service.getGfycatInfo("hash")));
+        // Starting a transcode twice would make two gifs
+        assertFalse(parser.isHedgeable(service.convertGif("https://example.com/a.gif")));
+    }
+
+    @Test
+    public void testSync() throws IOException {
+        HedgingPolicy hedgingPolicy = newHedgingPolicy(1);
+        AtomicInteger requestCount = new AtomicInteger();
+        ImgurParser parser = new ImgurParser(newClient(requestCount), "test");
+        parser.setHedgingPolicy(hedgingPolicy);
+        long startMillis = System.currentTimeMillis();
+        assertNotNull(parser.parse(getUrlObject(IMGUR_ALBUM_URL)).getAlbum());
+        assertTrue(System.currentTimeMillis() - startMillis < SLOW_MILLIS);
+        assertEquals(2, requestCount.get());
+        assertEquals(1, hedgingPolicy.getHedgeCount());
+        assertEquals(1, hedgingPolicy.getHedgeWonCount());
+
+        // Calls aren't hedged once the budget is used up
+        hedgingPolicy = newHedgingPolicy(0);
+        requestCount.set(0);
+        parser = new ImgurParser(newClient(requestCount), "test");
+        parser.setHedgingPolicy(hedgingPolicy);
+        startMillis = System.currentTimeMillis();
+        assertNotNull(parser.parse(getUrlObject(IMGUR_ALBUM_URL)).getAlbum());
+        assertTrue(System.currentTimeMillis() - startMillis >= SLOW_MILLIS);
+        assertEquals(1, requestCount.get());
+        assertEquals(0, hedgingPolicy.getHedgeCount());
+        assertEquals(1, hedgingPolicy.getSkippedCount());
+    }
+
+    private static HedgingPolicy newHedgingPolicy(double maxHedgeRatio) {
+        return new HedgingPolicy.Builder().initialDelay(100, TimeUnit.MILLISECONDS)
+                .maxHedgeRatio(maxHedgeRatio)
+                .build();
+    }
+
+    /**
+     * @return A client whose first request takes {@link #SLOW_MILLIS}, later ones respond right
+     * away
+     */
+    private static OkHttpClient newClient(final AtomicInteger requestCount) {
+        return new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                Request request = chain.request();
+                if (requestCount.getAndIncrement() == 0) {
+                    try {
+                        Thread.sleep(SLOW_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                String json = readFixture("imgur_album.json");
+                return new Response.Builder().request(request)
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(200)
+                        .message("Fixture")
+                        .body(ResponseBody.create(MediaType.parse("application/json"), json))
+                        .build();
+            }
+        }).build();
+    }
+
+    private static String readFixture(String fixture) throws IOException {
+        InputStream inputStream =
+                HedgingPolicyTest.class.getResourceAsStream("/fixtures/" + fixture);
+        assertNotNull("Missing fixture " + fixture, inputStream);
+        try {
+            return Okio.buffer(Okio.source(inputStream)).readUtf8();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
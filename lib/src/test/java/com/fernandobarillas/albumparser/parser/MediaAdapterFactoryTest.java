@@ -0,0 +1,184 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.gfycat.GfycatParser;
+import com.fernandobarillas.albumparser.gfycat.model.GfycatInfoResponse;
+import com.fernandobarillas.albumparser.giphy.GiphyParser;
+import com.fernandobarillas.albumparser.giphy.model.GiphyResponse;
+import com.fernandobarillas.albumparser.imgur.ImgurParser;
+import com.fernandobarillas.albumparser.imgur.model.v3.AlbumResponseV3;
+import com.fernandobarillas.albumparser.imgur.model.v3.ImageResponseV3;
+import com.fernandobarillas.albumparser.media.IApiResponse;
+import com.fernandobarillas.albumparser.tumblr.TumblrParser;
+import com.fernandobarillas.albumparser.tumblr.model.TumblrResponse;
+import com.fernandobarillas.albumparser.xkcd.XkcdParser;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import okio.Okio;
+
+import static com.fernandobarillas.albumparser.util.TestUtils.compareAlbum;
+import static com.fernandobarillas.albumparser.util.TestUtils.compareMedia;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the adapters that only decode the API fields backing IMedia. Every fixture has to
+ * produce the same media when decoded with them as when every field is decoded.
+ */
+public class MediaAdapterFactoryTest {
+    private static final Moshi MOSHI = new Moshi.Builder().add(new URLAdapter()).build();
+
+    @Test
+    public void testGfycat() throws IOException {
+        GfycatInfoResponse full = decode(null, GfycatInfoResponse.class, "gfycat_gfyitem.json");
+        GfycatInfoResponse lean =
+                decode(new GfycatParser(), GfycatInfoResponse.class, "gfycat_gfyitem.json");
+        compareResponses("gfycat_gfyitem.json", full, lean);
+
+        assertNotNull(full.gfyItem.webmUrl);
+        assertNull(lean.gfyItem.webmUrl);
+        assertNull(lean.gfyItem.tags);
+    }
+
+    @Test
+    public void testGiphy() throws IOException {
+        GiphyResponse full = decode(null, GiphyResponse.class, "giphy_gif.json");
+        GiphyResponse lean = decode(new GiphyParser(), GiphyResponse.class, "giphy_gif.json");
+        compareResponses("giphy_gif.json", full, lean);
+
+        assertNotNull(full.data.images.fixedWidth);
+        assertNull(lean.data.images.fixedWidth);
+        assertNull(lean.data.images.original.webp);
+        assertNull(lean.data.slug);
+    }
+
+    @Test
+    public void testImgur() throws IOException {
+        AlbumResponseV3 fullAlbum = decode(null, AlbumResponseV3.class, "imgur_album.json");
+        AlbumResponseV3 leanAlbum =
+                decode(new ImgurParser(), AlbumResponseV3.class, "imgur_album.json");
+        compareResponses("imgur_album.json", fullAlbum, leanAlbum);
+
+        assertNotNull(fullAlbum.data.images.get(0).bandwidth);
+        assertNull(leanAlbum.data.images.get(0).bandwidth);
+        assertNull(leanAlbum.data.accountUrl);
+
+        ImageResponseV3 fullImage = decode(null, ImageResponseV3.class, "imgur_image.json");
+        ImageResponseV3 leanImage =
+                decode(new ImgurParser(), ImageResponseV3.class, "imgur_image.json");
+        compareResponses("imgur_image.json", fullImage, leanImage);
+    }
+
+    @Test
+    public void testMediaFieldsOnly() {
+        assertFalse(new GfycatParser().isMediaFieldsOnly());
+        assertTrue(new GfycatParser(null, true).isMediaFieldsOnly());
+        assertTrue(new GiphyParser(null, null, true).isMediaFieldsOnly());
+        assertTrue(new ImgurParser(null, null, null, null, true).isMediaFieldsOnly());
+        assertTrue(new TumblrParser(null, null, true).isMediaFieldsOnly());
+        // Parsers without their own adapters always decode every field
+        AbstractApiParser<?> xkcdParser = new XkcdParser();
+        assertNull(xkcdParser.getMediaAdapterFactory());
+        assertFalse(xkcdParser.isMediaFieldsOnly());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        // Writing still goes through the regular adapters
+        JsonAdapter<GfycatInfoResponse> adapter =
+                leanMoshi(new GfycatParser()).adapter(GfycatInfoResponse.class);
+        GfycatInfoResponse response = adapter.fromJson(readFixture("gfycat_gfyitem.json"));
+        GfycatInfoResponse copy = adapter.fromJson(adapter.toJson(response));
+        compareResponses("gfycat_gfyitem.json", response, copy);
+    }
+
+    @Test
+    public void testTumblr() throws IOException {
+        String[] fixtures = {"tumblr_photo_post.json", "tumblr_video_post.json"};
+        for (String fixture : fixtures) {
+            TumblrResponse full = decode(null, TumblrResponse.class, fixture);
+            TumblrResponse lean = decode(new TumblrParser(), TumblrResponse.class, fixture);
+            compareResponses(fixture, full, lean);
+
+            assertNotNull(full.response.posts.get(0).blogName);
+            assertNull(lean.response.posts.get(0).blogName);
+        }
+    }
+
+    private static void compareResponses(String fixture,
+            IApiResponse expected,
+            IApiResponse response) {
+        URL fixtureUrl = getFixtureUrl(fixture);
+        assertNotNull(response);
+        assertEquals(expected.isSuccessful(), response.isSuccessful());
+        assertEquals(expected.isAlbum(), response.isAlbum());
+        assertEquals(expected.getPreviewMediaUrl(), response.getPreviewMediaUrl());
+        if (expected.isAlbum()) {
+            compareAlbum(fixtureUrl, expected.getAlbum(), response.getAlbum());
+        } else {
+            compareMedia(fixtureUrl, expected.getMedia(), response.getMedia());
+        }
+    }
+
+    /**
+     * @param parser The parser whose adapters to decode with, null to decode every field
+     */
+    private static <T> T decode(AbstractApiParser<?> parser, Class<T> type, String fixture)
+            throws IOException {
+        Moshi moshi = parser != null ? leanMoshi(parser) : MOSHI;
+        T response = moshi.adapter(type).fromJson(readFixture(fixture));
+        assertNotNull(fixture, response);
+        return response;
+    }
+
+    private static URL getFixtureUrl(String fixture) {
+        URL fixtureUrl = MediaAdapterFactoryTest.class.getResource("/fixtures/" + fixture);
+        assertNotNull("Missing fixture " + fixture, fixtureUrl);
+        return fixtureUrl;
+    }
+
+    private static Moshi leanMoshi(AbstractApiParser<?> parser) {
+        JsonAdapter.Factory factory = parser.getMediaAdapterFactory();
+        assertNotNull(factory);
+        return MOSHI.newBuilder().add(factory).build();
+    }
+
+    private static String readFixture(String fixture) throws IOException {
+        InputStream inputStream = getFixtureUrl(fixture).openStream();
+        try {
+            return Okio.buffer(Okio.source(inputStream)).readUtf8();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
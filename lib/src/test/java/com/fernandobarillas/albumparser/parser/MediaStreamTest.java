@@ -0,0 +1,221 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
+import com.fernandobarillas.albumparser.imgur.ImgurParser;
+import com.fernandobarillas.albumparser.media.DirectMedia;
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.vidble.VidbleParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+import static com.fernandobarillas.albumparser.util.ParseUtils.getUrlObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for streaming album media straight from the API response body
+ */
+public class MediaStreamTest {
+    private static final String IMGUR_ALBUM_URL  = "https://imgur.com/a/kvNbA";
+    private static final String VIDBLE_ALBUM_URL = "https://www.vidble.com/album/cfQZodMa";
+
+    @Test
+    public void testAsync() throws Exception {
+        ImgurParser parser = new ImgurParser(newClient("imgur_album.json", 200), "test");
+        final List<IMedia> media = Collections.synchronizedList(new ArrayList<IMedia>());
+        final Throwable[] failure = new Throwable[1];
+        final CountDownLatch done = new CountDownLatch(1);
+        parser.parseStreamAsync(ParsedUrl.of(IMGUR_ALBUM_URL), new MediaStream.Callback() {
+            @Override
+            public void onMedia(IMedia item) {
+                media.add(item);
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                failure[0] = throwable;
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNull(failure[0]);
+        assertEquals(getMediaUrls(parser.parse(getUrlObject(IMGUR_ALBUM_URL)).getAlbum()),
+                getMediaUrls(media));
+    }
+
+    @Test
+    public void testError() throws IOException {
+        ImgurParser parser = new ImgurParser(newClient("imgur_album.json", 404), "test");
+        try {
+            parser.parseStream(getUrlObject(IMGUR_ALBUM_URL));
+            fail("Errors should be thrown before streaming");
+        } catch (InvalidApiResponseException e) {
+            assertEquals(404, e.getStatusCode());
+        }
+
+        // A response without the array is invalid
+        parser = new ImgurParser(newClient("imgur_image.json", 200), "test");
+        MediaStream stream = parser.parseStream(getUrlObject(IMGUR_ALBUM_URL));
+        try {
+            stream.hasNext();
+            fail("Responses without album media should be invalid");
+        } catch (InvalidApiResponseException expected) {
+        }
+        assertFalse(stream.hasNext());
+    }
+
+    @Test
+    public void testImgur() throws IOException {
+        ImgurParser parser = new ImgurParser(newClient("imgur_album.json", 200), "test");
+        parser.setLowQualitySize("m");
+        ParserResponse response = parser.parse(getUrlObject(IMGUR_ALBUM_URL));
+        List<String> expected = getMediaUrls(response.getAlbum());
+        assertEquals(20, expected.size());
+        assertEquals(expected, getMediaUrls(parser.parseStream(getUrlObject(IMGUR_ALBUM_URL))));
+    }
+
+    @Test
+    public void testIncremental() throws IOException {
+        // Cut the album off halfway through, the media before the cut are still returned
+        ImgurParser parser = new ImgurParser(newClient("imgur_album.json", 200, 0.5), "test");
+        MediaStream stream = parser.parseStream(getUrlObject(IMGUR_ALBUM_URL));
+        int count = 0;
+        try {
+            while (stream.hasNext()) {
+                assertNotNull(stream.next());
+                count++;
+            }
+            fail("The truncated response should fail");
+        } catch (IOException expected) {
+        }
+        assertTrue(String.valueOf(count), count > 0 && count < 20);
+        assertFalse(stream.hasNext());
+    }
+
+    @Test
+    public void testParsedResponse() throws IOException {
+        DirectMedia media = new DirectMedia(getUrlObject("https://example.com/image.jpg"));
+        MediaStream<DirectMedia> stream = MediaStream.of(new ParserResponse<>(media));
+        assertTrue(stream.hasNext());
+        assertEquals(media, stream.next());
+        assertFalse(stream.hasNext());
+
+        // Parsers that can't stream return the media of the parsed response
+        VidbleParser parser = new VidbleParser(newClient("vidble_album.json", 200));
+        MediaStream image = parser.parseStream(getUrlObject("https://vidble.com/4nYiMeOo2n.jpg"));
+        assertTrue(image.hasNext());
+        assertNotNull(image.next());
+        assertFalse(image.hasNext());
+    }
+
+    @Test
+    public void testVidble() throws IOException {
+        VidbleParser parser = new VidbleParser(newClient("vidble_album.json", 200));
+        List<String> expected =
+                getMediaUrls(parser.parse(getUrlObject(VIDBLE_ALBUM_URL)).getAlbum());
+        List<String> streamed = getMediaUrls(parser.parseStream(getUrlObject(VIDBLE_ALBUM_URL)));
+        // Null pics are skipped
+        assertEquals(3, streamed.size());
+        assertEquals(expected.subList(0, 2), streamed.subList(0, 2));
+        assertEquals(expected.get(3), streamed.get(2));
+    }
+
+    private static List<String> getMediaUrls(Iterable<?> album) {
+        List<String> urls = new ArrayList<>();
+        for (Object media : album) {
+            urls.add(String.valueOf(((IMedia) media).getMediaUrl(false)));
+        }
+        return urls;
+    }
+
+    private static List<String> getMediaUrls(MediaStream<?> stream) throws IOException {
+        List<String> urls = new ArrayList<>();
+        while (stream.hasNext()) {
+            urls.add(String.valueOf(stream.next().getMediaUrl(false)));
+        }
+        return urls;
+    }
+
+    private static OkHttpClient newClient(String fixture, int code) {
+        return newClient(fixture, code, 1);
+    }
+
+    /**
+     * @param fraction How much of the fixture to respond with
+     */
+    private static OkHttpClient newClient(final String fixture,
+            final int code,
+            final double fraction) {
+        return new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                Request request = chain.request();
+                String json = readFixture(fixture);
+                json = json.substring(0, (int) (json.length() * fraction));
+                return new Response.Builder().request(request)
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(code)
+                        .message("Fixture")
+                        .body(ResponseBody.create(MediaType.parse("application/json"), json))
+                        .build();
+            }
+        }).build();
+    }
+
+    private static String readFixture(String fixture) throws IOException {
+        InputStream inputStream = MediaStreamTest.class.getResourceAsStream("/fixtures/" + fixture);
+        assertNotNull("Missing fixture " + fixture, inputStream);
+        try {
+            return Okio.buffer(Okio.source(inputStream)).readUtf8();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.gfycat.GfycatParser;
+import com.fernandobarillas.albumparser.media.MediaKind;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the URLs that are parsed once and shared by routing, hashing and parsing
+ */
+public class ParsedUrlTest {
+
+    @Test
+    public void testPathSegments() {
+        String[] urls = {
+                "https://example.com",
+                "https://example.com/",
+                "https://example.com/one",
+                "https://example.com/one/",
+                "https://example.com/one/two.jpg?three=four#five",
+                "https://example.com//one//two//",
+                "https://example.com/gifs/detail/AngryFrequentChuckwalla",
+        };
+        for (String urlString : urls) {
+            URL url = ParseUtils.getUrlObject(urlString);
+            ParsedUrl parsedUrl = ParsedUrl.of(url);
+            String[] expected = ParseUtils.getSplitPath(url);
+            if (expected == null) expected = new String[0];
+            String[] actual = new String[parsedUrl.getPathSegmentCount()];
+            for (int i = 0; i < actual.length; i++) {
+                actual[i] = parsedUrl.getPathSegment(i);
+                assertTrue(urlString, parsedUrl.pathSegmentEquals(i, expected[i]));
+            }
+            assertArrayEquals(urlString, expected, actual);
+            assertNull(urlString, parsedUrl.getPathSegment(actual.length));
+            assertFalse(urlString, parsedUrl.pathSegmentEquals(actual.length, ""));
+        }
+
+        ParsedUrl parsedUrl = ParsedUrl.of("https://imgur.com/Gallery/abcde");
+        assertFalse(parsedUrl.pathSegmentEquals(0, "gallery"));
+        assertTrue(parsedUrl.pathSegmentEqualsIgnoreCase(0, "gallery"));
+        assertFalse(parsedUrl.pathSegmentEqualsIgnoreCase(0, "galler"));
+    }
+
+    @Test
+    public void testUrlParts() {
+        ParsedUrl parsedUrl = ParsedUrl.of("https://I.Imgur.com/a.b/0t3yWP9.GIFV?w=1&h=2");
+        assertEquals("i.imgur.com", parsedUrl.getHost());
+        assertEquals("/a.b/0t3yWP9.GIFV", parsedUrl.getPath());
+        assertEquals("gifv", parsedUrl.getExtension());
+        assertEquals(MediaKind.VIDEO, parsedUrl.getMediaKind());
+        assertEquals("1", parsedUrl.getQueryMap().get("w"));
+        assertEquals("2", parsedUrl.getQueryMap().get("h"));
+
+        parsedUrl = ParsedUrl.of("https://example.com/a.b/file");
+        assertNull(parsedUrl.getExtension());
+        assertEquals(MediaKind.UNKNOWN, parsedUrl.getMediaKind());
+        assertNull(parsedUrl.getQueryMap());
+
+        assertNull(ParsedUrl.of((URL) null));
+        assertNull(ParsedUrl.of("not a url"));
+    }
+
+    @Test
+    public void testHashComputedOnce() {
+        final AtomicInteger hashCount = new AtomicInteger();
+        GfycatParser parser = new GfycatParser() {
+            @Override
+            protected String findHash(ParsedUrl mediaUrl) {
+                hashCount.incrementAndGet();
+                return super.findHash(mediaUrl);
+            }
+        };
+
+        ParsedUrl parsedUrl = ParsedUrl.of("https://gfycat.com/AngryFrequentChuckwalla");
+        assertNull("No hash before resolving", parsedUrl.getHash());
+        assertTrue(parser.canParse(parsedUrl));
+        assertEquals("AngryFrequentChuckwalla", parser.getHash(parsedUrl));
+        assertEquals("AngryFrequentChuckwalla", parsedUrl.getHash());
+        assertEquals("gfycat.com", parsedUrl.getProviderName());
+        assertEquals(1, hashCount.get());
+
+        // Failures are remembered too
+        ParsedUrl invalidUrl = ParsedUrl.of("https://example.com/AngryFrequentChuckwalla");
+        InvalidMediaUrlException first = null;
+        for (int i = 0; i < 2; i++) {
+            try {
+                parser.getHash(invalidUrl);
+                fail("Invalid domain should throw");
+            } catch (InvalidMediaUrlException e) {
+                if (first == null) first = e;
+                assertSame(first, e);
+            }
+        }
+        assertEquals(2, hashCount.get());
+        assertNull(invalidUrl.getHash());
+        assertNull(invalidUrl.getProviderName());
+    }
+}
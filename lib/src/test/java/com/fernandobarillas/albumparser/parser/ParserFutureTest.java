@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.giphy.GiphyParser;
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for asynchronous parsing and ParserFuture
+ */
+public class ParserFutureTest {
+
+    @Test
+    public void testCallbacks() throws Exception {
+        ParserFuture<IMedia> future = new ParserFuture<>();
+        RecordingCallback before = new RecordingCallback();
+        future.addCallback(before);
+        assertFalse("Not done", future.isDone());
+        assertNull("Callback not called early", before.mResponse.get());
+
+        ParserResponse<IMedia> response = new ParserResponse<>((IMedia) null);
+        assertTrue("First completion wins", future.set(response));
+        assertFalse("Second completion ignored", future.setException(new RuntimeException()));
+        assertTrue("Done", future.isDone());
+        assertSame("Callback added before completion", response, before.mResponse.get());
+
+        RecordingCallback after = new RecordingCallback();
+        future.addCallback(after);
+        assertSame("Callback added after completion", response, after.mResponse.get());
+        assertSame("get() result", response, future.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        ParserFuture<IMedia> future = new ParserFuture<>();
+        RecordingCallback callback = new RecordingCallback();
+        future.addCallback(callback);
+        assertTrue("Cancelled", future.cancel(true));
+        assertTrue(future.isCancelled());
+        assertFalse("Can't complete after cancel", future.set(null));
+        assertTrue(callback.mThrowable.get() instanceof CancellationException);
+        try {
+            future.get();
+            fail("get() should throw after cancel");
+        } catch (CancellationException ignored) {
+        }
+    }
+
+    @Test
+    public void testCancelRace() throws Exception {
+        final ParserResponse<IMedia> response = new ParserResponse<>((IMedia) null);
+        for (int i = 0; i < 1000; i++) {
+            final ParserFuture<IMedia> future = new ParserFuture<>();
+            RecordingCallback callback = new RecordingCallback();
+            future.addCallback(callback);
+            final CountDownLatch start = new CountDownLatch(1);
+            final AtomicBoolean isSet = new AtomicBoolean();
+            Thread completer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    isSet.set(future.set(response));
+                }
+            });
+            completer.start();
+            start.countDown();
+            boolean isCancelled = future.cancel(true);
+            completer.join();
+
+            // Exactly one of them wins and everything agrees on which one
+            assertTrue(isCancelled != isSet.get());
+            assertEquals(isCancelled, future.isCancelled());
+            if (isCancelled) {
+                assertNull(callback.mResponse.get());
+                assertTrue(callback.mThrowable.get() instanceof CancellationException);
+                try {
+                    future.get();
+                    fail("get() should throw after cancel");
+                } catch (CancellationException ignored) {
+                }
+            } else {
+                assertSame(response, callback.mResponse.get());
+                assertNull(callback.mThrowable.get());
+                assertSame(response, future.get());
+            }
+        }
+    }
+
+    @Test
+    public void testParseAsync() throws Exception {
+        // Without an API key the Giphy parser answers without making any HTTP calls
+        GiphyParser parser = new GiphyParser();
+        URL url = ParseUtils.getUrlObject("https://media.giphy.com/media/PNSCRvHld1eP6/giphy.gif");
+        ParserResponse response = parser.parseAsync(url).get(1, TimeUnit.SECONDS);
+        assertNotNull("Media", response.getMedia());
+        assertEquals("Original URL", MediaUrl.of(url), response.getOriginalMediaUrl());
+
+        try {
+            parser.parseAsync(ParseUtils.getUrlObject("https://example.com/")).get();
+            fail("Invalid URL should fail the future");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InvalidMediaUrlException);
+        }
+    }
+
+    private static class RecordingCallback implements ParserCallback<IMedia> {
+        private final AtomicReference<ParserResponse<IMedia>> mResponse  = new AtomicReference<>();
+        private final AtomicReference<Throwable>              mThrowable = new AtomicReference<>();
+
+        @Override
+        public void onSuccess(ParserResponse<IMedia> response) {
+            mResponse.set(response);
+        }
+
+        @Override
+        public void onFailure(Throwable throwable) {
+            mThrowable.set(throwable);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.RateLimitExceededException;
+import com.fernandobarillas.albumparser.imgur.ImgurParser;
+import com.fernandobarillas.albumparser.imgur.api.ImgurApi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+import static com.fernandobarillas.albumparser.util.ParseUtils.getUrlObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for rate limiting API calls and tracking the credits providers report
+ */
+public class RateLimiterTest {
+    private static final String IMGUR_ALBUM_URL = "https://imgur.com/a/kvNbA";
+
+    @Test
+    public void testBurst() throws Exception {
+        // 100 permits per second, one every 10ms
+        FakeClockRateLimiter limiter = new FakeClockRateLimiter(100, 2, 15);
+        final AtomicInteger runCount = new AtomicInteger();
+        final CountDownLatch delayed = new CountDownLatch(1);
+        final Thread testThread = Thread.currentThread();
+        Runnable request = new Runnable() {
+            @Override
+            public void run() {
+                runCount.incrementAndGet();
+                if (Thread.currentThread() != testThread) delayed.countDown();
+            }
+        };
+        limiter.acquire(request);
+        limiter.acquire(request);
+        assertEquals("The burst should run right away", 2, runCount.get());
+        assertEquals(0, limiter.getAvailablePermits());
+
+        // The next permit is 10ms away, within the maximum wait
+        limiter.acquire(request);
+        assertTrue(delayed.await(10, TimeUnit.SECONDS));
+        assertEquals(3, runCount.get());
+        assertEquals(1, limiter.getDelayedCount());
+
+        // The one after that is 20ms away since the last one was reserved
+        try {
+            limiter.acquire(request);
+            fail("Requests waiting longer than the maximum should be shed");
+        } catch (RateLimitExceededException e) {
+            assertEquals(20, e.getRetryAfterMillis());
+        }
+        assertEquals(3, runCount.get());
+        assertEquals(3, limiter.getAcquiredCount());
+        assertEquals(1, limiter.getShedCount());
+
+        // Idle time refills the bucket up to the burst size
+        limiter.advance(1, TimeUnit.SECONDS);
+        assertEquals(2, limiter.getAvailablePermits());
+        limiter.acquire();
+        assertEquals(4, limiter.getAcquiredCount());
+    }
+
+    @Test
+    public void testCredits() throws Exception {
+        FakeClockRateLimiter limiter = new FakeClockRateLimiter(100, 10, 1000);
+        assertEquals(RateLimiter.UNKNOWN, limiter.getRemainingCredits());
+        assertEquals(RateLimiter.UNKNOWN, limiter.getCreditsResetMillis());
+
+        limiter.updateCredits(50, 2, 5000);
+        assertEquals(50, limiter.getCreditLimit());
+        assertEquals(2, limiter.getRemainingCredits());
+        assertEquals(5000, limiter.getCreditsResetMillis());
+        assertEquals(2, limiter.getAvailablePermits());
+
+        // Each request uses up a credit until the provider reports them again
+        limiter.acquire();
+        limiter.acquire();
+        assertEquals(0, limiter.getRemainingCredits());
+        assertEquals(0, limiter.getAvailablePermits());
+        try {
+            limiter.acquire();
+            fail("Requests should be shed when the credits don't reset within the maximum wait");
+        } catch (RateLimitExceededException e) {
+            assertEquals(5000, e.getRetryAfterMillis());
+        }
+
+        // Credits are only trusted until they reset
+        limiter.advance(5, TimeUnit.SECONDS);
+        assertEquals(RateLimiter.UNKNOWN, limiter.getRemainingCredits());
+        assertEquals(50, limiter.getCreditLimit());
+        limiter.acquire();
+        assertEquals(3, limiter.getAcquiredCount());
+    }
+
+    @Test
+    public void testImgurCredits() throws Exception {
+        long resetAtSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3600;
+        Headers userLimited = new Headers.Builder()
+                .add(ImgurApi.RATE_LIMIT_USER_LIMIT_HEADER, "500")
+                .add(ImgurApi.RATE_LIMIT_USER_REMAINING_HEADER, "5")
+                .add(ImgurApi.RATE_LIMIT_USER_RESET_HEADER, String.valueOf(resetAtSeconds))
+                .add(ImgurApi.RATE_LIMIT_CLIENT_LIMIT_HEADER, "12500")
+                .add(ImgurApi.RATE_LIMIT_CLIENT_REMAINING_HEADER, "12000")
+                .build();
+        RateLimiter limiter = new RateLimiter(100, 10, 0, TimeUnit.MILLISECONDS);
+        ImgurParser parser = new ImgurParser(newClient(userLimited), "test");
+        parser.setRateLimiter(limiter);
+        parser.parse(getUrlObject(IMGUR_ALBUM_URL));
+        assertEquals(500, limiter.getCreditLimit());
+        assertEquals(5, limiter.getRemainingCredits());
+        long resetMillis = limiter.getCreditsResetMillis();
+        assertTrue(String.valueOf(resetMillis),
+                resetMillis > TimeUnit.MINUTES.toMillis(59)
+                        && resetMillis <= TimeUnit.MINUTES.toMillis(60));
+
+        // The daily client credits are lower, they're the ones that limit the requests
+        Headers clientLimited = new Headers.Builder()
+                .add(ImgurApi.RATE_LIMIT_USER_LIMIT_HEADER, "500")
+                .add(ImgurApi.RATE_LIMIT_USER_REMAINING_HEADER, "400")
+                .add(ImgurApi.RATE_LIMIT_CLIENT_LIMIT_HEADER, "12500")
+                .add(ImgurApi.RATE_LIMIT_CLIENT_REMAINING_HEADER, "0")
+                .build();
+        parser = new ImgurParser(newClient(clientLimited), "test");
+        parser.setRateLimiter(limiter);
+        parser.parse(getUrlObject(IMGUR_ALBUM_URL));
+        assertEquals(12500, limiter.getCreditLimit());
+        assertEquals(0, limiter.getRemainingCredits());
+        try {
+            parser.parse(getUrlObject(IMGUR_ALBUM_URL));
+            fail("Requests should be shed once Imgur reports no credits left");
+        } catch (RateLimitExceededException expected) {
+        }
+        try {
+            parser.parseAsync(getUrlObject(IMGUR_ALBUM_URL)).get(10, TimeUnit.SECONDS);
+            fail("Asynchronous requests should be shed too");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RateLimitExceededException);
+        }
+        assertEquals(2, limiter.getShedCount());
+    }
+
+    private static OkHttpClient newClient(final Headers headers) {
+        return new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                Request request = chain.request();
+                return new Response.Builder().request(request)
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(200)
+                        .message("Fixture")
+                        .headers(headers)
+                        .body(ResponseBody.create(MediaType.parse("application/json"),
+                                readFixture("imgur_album.json")))
+                        .build();
+            }
+        }).build();
+    }
+
+    private static String readFixture(String fixture) throws IOException {
+        InputStream inputStream = RateLimiterTest.class.getResourceAsStream("/fixtures/" + fixture);
+        assertNotNull("Missing fixture " + fixture, inputStream);
+        try {
+            return Okio.buffer(Okio.source(inputStream)).readUtf8();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * A rate limiter whose time only moves when the test advances it
+     */
+    private static class FakeClockRateLimiter extends RateLimiter {
+        private volatile long mNow;
+
+        FakeClockRateLimiter(double permitsPerSecond, int burst, long maxWaitMillis) {
+            super(permitsPerSecond, burst, maxWaitMillis, TimeUnit.MILLISECONDS);
+        }
+
+        void advance(long duration, TimeUnit unit) {
+            mNow += unit.toNanos(duration);
+        }
+
+        @Override
+        long nanoTime() {
+            return mNow;
+        }
+    }
+}
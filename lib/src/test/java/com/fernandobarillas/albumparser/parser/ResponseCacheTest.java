@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.media.DirectMedia;
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the in-memory API response cache
+ */
+public class ResponseCacheTest {
+    private static final String PROVIDER = "imgur.com";
+
+    @Test
+    public void testExpiry() throws Exception {
+        ResponseCache cache = new ResponseCache.Builder().defaultTtl(1, TimeUnit.MILLISECONDS)
+                .ttl("xkcd.com", 0, TimeUnit.MILLISECONDS)
+                .build();
+        cache.put(newResponse(PROVIDER, "abc"));
+        cache.put(newResponse("xkcd.com", "1728"));
+        assertEquals("Providers with a TTL of 0 aren't cached", 1, cache.size());
+
+        Thread.sleep(10);
+        assertNull("Expired", cache.get(PROVIDER, "abc", null));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(Long.MAX_VALUE, new ResponseCache.Builder().build().getTtlMillis("xkcd.com"));
+    }
+
+    @Test
+    public void testGet() {
+        ResponseCache cache = new ResponseCache.Builder().build();
+        MediaUrl firstUrl = MediaUrl.parse("https://imgur.com/abc");
+        MediaUrl secondUrl = MediaUrl.parse("https://i.imgur.com/abc.jpg");
+        ParserResponse<IMedia> response = newResponse(PROVIDER, "abc");
+        response.setOriginalUrl(firstUrl);
+        cache.put(response);
+        // Responses without a hash can't be looked up
+        cache.put(newResponse(PROVIDER, ""));
+        cache.put(newResponse(null, "abc"));
+
+        assertNull(cache.get(PROVIDER, "def", secondUrl));
+        assertNull(cache.get("gfycat.com", "abc", secondUrl));
+        ParserResponse<IMedia> cached = cache.get(PROVIDER, "abc", secondUrl);
+        assertNotNull(cached);
+        assertSame("Media is shared", response.getMedia(), cached.getMedia());
+        assertEquals("abc", cached.getHash());
+        assertEquals(PROVIDER, cached.getApiProviderName());
+        assertEquals("Copy has the requested URL",
+                secondUrl,
+                cached.getOriginalMediaUrl());
+        assertEquals("Original left alone", firstUrl, response.getOriginalMediaUrl());
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testExpiredEviction() throws Exception {
+        ResponseCache cache = new ResponseCache.Builder().maxEntries(3)
+                .ttl("gfycat.com", 1, TimeUnit.MILLISECONDS)
+                .build();
+        cache.put(newResponse(PROVIDER, "a"));
+        cache.put(newResponse("gfycat.com", "b"));
+        cache.put(newResponse(PROVIDER, "c"));
+        Thread.sleep(10);
+        // The expired response makes room instead of the least recently used one
+        cache.put(newResponse(PROVIDER, "d"));
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get(PROVIDER, "a", null));
+        assertNotNull(cache.get(PROVIDER, "c", null));
+        assertNotNull(cache.get(PROVIDER, "d", null));
+    }
+
+    @Test
+    public void testLruEviction() {
+        ResponseCache cache = new ResponseCache.Builder().maxEntries(2).build();
+        cache.put(newResponse(PROVIDER, "a"));
+        cache.put(newResponse(PROVIDER, "b"));
+        // Using "a" makes "b" the least recently used response
+        assertNotNull(cache.get(PROVIDER, "a", null));
+        cache.put(newResponse(PROVIDER, "c"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull("Least recently used evicted", cache.get(PROVIDER, "b", null));
+        assertNotNull(cache.get(PROVIDER, "a", null));
+        assertNotNull(cache.get(PROVIDER, "c", null));
+    }
+
+    private static ParserResponse<IMedia> newResponse(String providerName, String hash) {
+        URL url = ParseUtils.getUrlObject("https://i.imgur.com/" + hash + ".jpg");
+        ParserResponse<IMedia> response = new ParserResponse<IMedia>(new DirectMedia(url));
+        response.setApiProviderName(providerName);
+        response.setHash(hash);
+        return response;
+    }
+}
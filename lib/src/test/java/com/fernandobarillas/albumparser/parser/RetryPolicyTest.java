@@ -0,0 +1,293 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
+import com.fernandobarillas.albumparser.exception.RateLimitExceededException;
+import com.fernandobarillas.albumparser.imgur.ImgurParser;
+import com.fernandobarillas.albumparser.imgur.api.ImgurApi;
+import com.fernandobarillas.albumparser.media.IMedia;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+import static com.fernandobarillas.albumparser.util.ParseUtils.getUrlObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for retrying API calls that failed with a transient error
+ */
+public class RetryPolicyTest {
+    private static final String IMGUR_ALBUM_URL = "https://imgur.com/a/kvNbA";
+
+    @Test
+    public void testAsync() throws Exception {
+        RetryPolicy retryPolicy = newRetryPolicy(3);
+        AtomicInteger requestCount = new AtomicInteger();
+        ImgurParser parser = new ImgurParser(newClient(requestCount, 500, 200), "test");
+        parser.setRetryPolicy(retryPolicy);
+        assertNotNull(parser.parseAsync(getUrlObject(IMGUR_ALBUM_URL))
+                .get(10, TimeUnit.SECONDS)
+                .getAlbum());
+        assertEquals(2, requestCount.get());
+        assertEquals(1, retryPolicy.getRetryCount());
+        assertEquals(1, retryPolicy.getRecoveredCount());
+
+        // Client errors won't go away by retrying
+        requestCount.set(0);
+        parser = new ImgurParser(newClient(requestCount, 404, 200), "test");
+        parser.setRetryPolicy(retryPolicy);
+        try {
+            parser.parseAsync(getUrlObject(IMGUR_ALBUM_URL)).get(10, TimeUnit.SECONDS);
+            fail("404 responses should not be retried");
+        } catch (ExecutionException e) {
+            assertEquals(404, ((InvalidApiResponseException) e.getCause()).getStatusCode());
+        }
+        assertEquals(1, requestCount.get());
+        assertEquals(1, retryPolicy.getRetryCount());
+    }
+
+    @Test
+    public void testCanceled() throws Exception {
+        RetryPolicy retryPolicy = newRetryPolicy(3);
+        final AtomicReference<ParserFuture<IMedia>> future = new AtomicReference<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        // The parse is canceled while its first attempt is in flight
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                try {
+                    assertTrue(started.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                future.get().cancel(true);
+                throw new SocketTimeoutException("Retryable");
+            }
+        }).build();
+        AlbumParser albumParser = new AlbumParser.Builder().okHttpClient(client)
+                .retryPolicy(retryPolicy)
+                .build();
+        future.set(albumParser.parseUrlAsync(IMGUR_ALBUM_URL));
+        started.countDown();
+        try {
+            future.get().get(10, TimeUnit.SECONDS);
+            fail("The parse was canceled");
+        } catch (CancellationException expected) {
+        }
+        // The failed attempt reaches the retrying callback after the cancel, give it time to run
+        Thread.sleep(100);
+        assertEquals("Retries of canceled calls aren't counted", 0, retryPolicy.getRetryCount());
+        assertEquals(0, retryPolicy.getRetryDelayMillis());
+    }
+
+    @Test
+    public void testDelay() {
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().maxAttempts(5)
+                .backoff(100, 300, TimeUnit.MILLISECONDS)
+                .jitter(0)
+                .build();
+        long startNanos = System.nanoTime();
+        assertEquals(100, retryPolicy.getRetryDelayMillis(1, startNanos, null, 503, null));
+        assertEquals(200, retryPolicy.getRetryDelayMillis(2, startNanos, null, 503, null));
+        assertEquals(300, retryPolicy.getRetryDelayMillis(3, startNanos, null, 503, null));
+        assertEquals(300, retryPolicy.getRetryDelayMillis(4, startNanos, null, 503, null));
+        assertEquals(RetryPolicy.NO_RETRY,
+                retryPolicy.getRetryDelayMillis(5, startNanos, null, 503, null));
+        assertEquals(RetryPolicy.NO_RETRY,
+                retryPolicy.getRetryDelayMillis(1, startNanos, null, 404, null));
+
+        // Retry-After is waited out, as long as it fits in the budget
+        Headers retryAfter = Headers.of("Retry-After", "2");
+        assertEquals(2000, retryPolicy.getRetryDelayMillis(1, startNanos, null, 429, retryAfter));
+        retryAfter = Headers.of("Retry-After", "60");
+        assertEquals(RetryPolicy.NO_RETRY,
+                retryPolicy.getRetryDelayMillis(1, startNanos, null, 429, retryAfter));
+
+        assertEquals(100,
+                retryPolicy.getRetryDelayMillis(1, startNanos, null, new SocketTimeoutException()));
+        IOException shed = new RateLimitExceededException(0);
+        assertEquals(RetryPolicy.NO_RETRY,
+                retryPolicy.getRetryDelayMillis(1, startNanos, null, shed));
+        // Retries are only counted once they're made
+        assertEquals(0, retryPolicy.getRetryCount());
+        retryPolicy.recordRetry(100);
+        retryPolicy.recordRetry(200);
+        assertEquals(2, retryPolicy.getRetryCount());
+        assertEquals(300, retryPolicy.getRetryDelayMillis());
+
+        // Jitter only ever shortens the delay
+        retryPolicy = new RetryPolicy.Builder().backoff(100, 100, TimeUnit.MILLISECONDS)
+                .jitter(0.5)
+                .build();
+        long delayMillis = retryPolicy.getRetryDelayMillis(1, startNanos, null, 503, null);
+        assertTrue(String.valueOf(delayMillis), delayMillis >= 50 && delayMillis <= 100);
+    }
+
+    @Test
+    public void testShedRetry() throws Exception {
+        // The failed attempt reports that no credits are left, so its retry is shed
+        Headers noCredits = new Headers.Builder()
+                .add(ImgurApi.RATE_LIMIT_CLIENT_LIMIT_HEADER, "12500")
+                .add(ImgurApi.RATE_LIMIT_CLIENT_REMAINING_HEADER, "0")
+                .build();
+        AtomicInteger requestCount = new AtomicInteger();
+        AlbumParser albumParser = new AlbumParser.Builder()
+                .okHttpClient(newClient(requestCount, noCredits, 503))
+                .imgurClientId("test")
+                .retryPolicy(newRetryPolicy(3))
+                .rateLimiter("imgur.com", new RateLimiter(100, 10, 0, TimeUnit.MILLISECONDS))
+                .build();
+        final Throwable[] failure = new Throwable[1];
+        final String[] threadName = new String[1];
+        final CountDownLatch done = new CountDownLatch(1);
+        albumParser.parseUrlAsync(IMGUR_ALBUM_URL).addCallback(new ParserCallback<IMedia>() {
+            @Override
+            public void onSuccess(ParserResponse<IMedia> response) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                failure[0] = throwable;
+                threadName[0] = Thread.currentThread().getName();
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(String.valueOf(failure[0]), failure[0] instanceof RateLimitExceededException);
+        assertEquals(1, requestCount.get());
+        assertFalse("Callbacks shouldn't run on the timer thread",
+                threadName[0].contains("Timer"));
+    }
+
+    @Test
+    public void testSync() throws IOException {
+        RetryPolicy retryPolicy = newRetryPolicy(3);
+        AtomicInteger requestCount = new AtomicInteger();
+        ImgurParser parser = new ImgurParser(newClient(requestCount, 503, 503, 200), "test");
+        parser.setRetryPolicy(retryPolicy);
+        assertNotNull(parser.parse(getUrlObject(IMGUR_ALBUM_URL)).getAlbum());
+        assertEquals(3, requestCount.get());
+        assertEquals(2, retryPolicy.getRetryCount());
+        assertEquals(1, retryPolicy.getRecoveredCount());
+        assertEquals(0, retryPolicy.getExhaustedCount());
+
+        // The error of the last attempt is thrown once the attempts run out
+        requestCount.set(0);
+        parser = new ImgurParser(newClient(requestCount, 503, 502, 504, 200), "test");
+        parser.setRetryPolicy(retryPolicy);
+        try {
+            parser.parse(getUrlObject(IMGUR_ALBUM_URL));
+            fail("The call should fail after 3 attempts");
+        } catch (InvalidApiResponseException e) {
+            assertEquals(504, e.getStatusCode());
+        }
+        assertEquals(3, requestCount.get());
+        assertEquals(1, retryPolicy.getExhaustedCount());
+
+        // No retries without a policy
+        requestCount.set(0);
+        parser = new ImgurParser(newClient(requestCount, 503, 200), "test");
+        assertNull(parser.getRetryPolicy());
+        try {
+            parser.parse(getUrlObject(IMGUR_ALBUM_URL));
+            fail("The call should not be retried");
+        } catch (InvalidApiResponseException e) {
+            assertEquals(503, e.getStatusCode());
+        }
+        assertEquals(1, requestCount.get());
+    }
+
+    private static RetryPolicy newRetryPolicy(int maxAttempts) {
+        return new RetryPolicy.Builder().maxAttempts(maxAttempts)
+                .backoff(1, 10, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * @param codes The status codes to respond with in order, the last one is repeated
+     */
+    private static OkHttpClient newClient(final AtomicInteger requestCount, final int... codes) {
+        return newClient(requestCount, Headers.of(), codes);
+    }
+
+    /**
+     * @param headers The headers of every response
+     * @param codes   The status codes to respond with in order, the last one is repeated
+     */
+    private static OkHttpClient newClient(final AtomicInteger requestCount,
+            final Headers headers,
+            final int... codes) {
+        return new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                Request request = chain.request();
+                int code = codes[Math.min(requestCount.getAndIncrement(), codes.length - 1)];
+                String json = code == 200 ? readFixture("imgur_album.json") : "{}";
+                return new Response.Builder().request(request)
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(code)
+                        .message("Fixture")
+                        .headers(headers)
+                        .body(ResponseBody.create(MediaType.parse("application/json"), json))
+                        .build();
+            }
+        }).build();
+    }
+
+    private static String readFixture(String fixture) throws IOException {
+        InputStream inputStream = RetryPolicyTest.class.getResourceAsStream("/fixtures/" + fixture);
+        assertNotNull("Missing fixture " + fixture, inputStream);
+        try {
+            return Okio.buffer(Okio.source(inputStream)).readUtf8();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidApiResponseException;
+import com.fernandobarillas.albumparser.media.DirectMedia;
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for coalescing concurrent parses of the same media
+ */
+public class SingleFlightTest {
+    private static final String KEY = "imgur.com/abc";
+
+    private static final MediaUrl FIRST_URL = MediaUrl.parse("https://imgur.com/abc");
+    private static final MediaUrl SECOND_URL = MediaUrl.parse("https://i.imgur.com/abc.jpg");
+
+    @Test
+    public void testAsync() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        PendingTask task = new PendingTask();
+        ParserFuture<IMedia> first = singleFlight.join(KEY, FIRST_URL, task);
+        ParserFuture<IMedia> second = singleFlight.join(KEY, SECOND_URL, task);
+        assertEquals("Only one parse started", 1, task.mStarted.size());
+        assertEquals(1, singleFlight.getCoalescedCount());
+
+        ParserResponse<IMedia> response = newResponse();
+        task.mStarted.get(0).set(response);
+        assertSame(response, first.get(1, TimeUnit.SECONDS));
+        assertEquals("Copy for the second URL",
+                SECOND_URL,
+                second.get(1, TimeUnit.SECONDS).getOriginalMediaUrl());
+        assertEquals(0, singleFlight.getInFlightCount());
+
+        // Finished parses aren't joined
+        singleFlight.join(KEY, FIRST_URL, task);
+        assertEquals(2, task.mStarted.size());
+    }
+
+    @Test
+    public void testCancel() {
+        SingleFlight singleFlight = new SingleFlight();
+        PendingTask task = new PendingTask();
+        ParserFuture<IMedia> first = singleFlight.join(KEY, FIRST_URL, task);
+        ParserFuture<IMedia> second = singleFlight.join(KEY, SECOND_URL, task);
+        ParserFuture<IMedia> running = task.mStarted.get(0);
+
+        first.cancel(true);
+        assertFalse("Still needed by the second caller", running.isCancelled());
+        second.cancel(true);
+        assertTrue("Cancelled once nobody is waiting", running.isCancelled());
+        assertEquals(0, singleFlight.getInFlightCount());
+
+        singleFlight.join(KEY, FIRST_URL, task);
+        assertEquals("Abandoned parses aren't joined", 2, task.mStarted.size());
+    }
+
+    @Test
+    public void testSync() throws Exception {
+        final SingleFlight singleFlight = new SingleFlight();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final SingleFlight.Parse parse = new SingleFlight.Parse() {
+            @Override
+            public ParserResponse<IMedia> call() throws IOException {
+                calls.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                throw new InvalidApiResponseException(FIRST_URL.toUrl(), 404, "Not found");
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        results.add(executor.submit(new CallTask(singleFlight, FIRST_URL, parse)));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            results.add(executor.submit(new CallTask(singleFlight, SECOND_URL, parse)));
+        }
+        // Give the waiters time to join the flight before it completes
+        long deadline = System.currentTimeMillis() + 1000;
+        while (singleFlight.getCoalescedCount() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        for (Future<?> result : results) {
+            try {
+                result.get(1, TimeUnit.SECONDS);
+                fail("Every caller should get the Exception");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof InvalidApiResponseException);
+            }
+        }
+        executor.shutdown();
+        assertEquals("One API call for every caller", 1, calls.get());
+        assertEquals(3, singleFlight.getCoalescedCount());
+    }
+
+    private static ParserResponse<IMedia> newResponse() {
+        ParserResponse<IMedia> response = new ParserResponse<IMedia>(new DirectMedia(SECOND_URL));
+        response.setOriginalUrl(FIRST_URL);
+        return response;
+    }
+
+    private static class CallTask implements Callable<Void> {
+        private final SingleFlight       mSingleFlight;
+        private final MediaUrl           mUrl;
+        private final SingleFlight.Parse mParse;
+
+        private CallTask(SingleFlight singleFlight, MediaUrl url, SingleFlight.Parse parse) {
+            mSingleFlight = singleFlight;
+            mUrl = url;
+            mParse = parse;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            mSingleFlight.call(KEY, mUrl, mParse);
+            return null;
+        }
+    }
+
+    private static class PendingTask implements ConcurrencyLimiter.Task<IMedia> {
+        private final List<ParserFuture<IMedia>> mStarted = new ArrayList<>();
+
+        @Override
+        public ParserFuture<IMedia> start() {
+            ParserFuture<IMedia> future = new ParserFuture<>();
+            mStarted.add(future);
+            return future;
+        }
+    }
+}
@@ -148,7 +148,7 @@ public class TumblrParserTest implements IParserTest {
     @Test(expected = InvalidApiKeyException.class)
     public void testTumblrApiKeyNotSet() throws IOException {
         TumblrParser tumblrParser = new TumblrParser(null, null);
-        tumblrParser.parse(null);
+        tumblrParser.parse((URL) null);
     }
 
     // Tests a video post
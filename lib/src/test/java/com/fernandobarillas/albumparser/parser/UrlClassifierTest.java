@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.parser;
+
+import com.fernandobarillas.albumparser.exception.InvalidMediaUrlException;
+import com.fernandobarillas.albumparser.gfycat.GfycatParser;
+import com.fernandobarillas.albumparser.giphy.GiphyParser;
+import com.fernandobarillas.albumparser.imgur.ImgurParser;
+import com.fernandobarillas.albumparser.streamable.StreamableParser;
+import com.fernandobarillas.albumparser.tumblr.TumblrParser;
+import com.fernandobarillas.albumparser.vidble.VidbleParser;
+import com.fernandobarillas.albumparser.vidme.VidmeParser;
+import com.fernandobarillas.albumparser.xkcd.XkcdParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the offline bulk URL classifier, which has to agree with the parsers' getHash()
+ */
+public class UrlClassifierTest {
+    private static final AbstractApiParser<?>[] PARSERS = {
+            new GfycatParser(),
+            new GiphyParser(),
+            new ImgurParser(),
+            new StreamableParser(),
+            new TumblrParser(),
+            new VidbleParser(),
+            new VidmeParser(),
+            new XkcdParser(),
+    };
+
+    private static final String[] URLS = {
+            "https://gfycat.com/AngryFrequentChuckwalla",
+            "https://gfycat.com/gifs/detail/AngryFrequentChuckwalla",
+            "https://fat.gfycat.com/PotableLeftAbalone.webm",
+            "https://gfycat.com/gifs/other/AngryFrequentChuckwalla",
+            "https://giphy.com/gifs/cat-funny-PNSCRvHld1eP6",
+            "https://giphy.com/gifs/cat-funny-PNSCRvHld1eP6/",
+            "https://giphy.com/gifs/PNSCRvHld1eP6",
+            "https://giphy.com/gifs/-/gifs/abc",
+            "https://giphy.com/embed/PNSCRvHld1eP6",
+            "https://media.giphy.com/media/PNSCRvHld1eP6/giphy.gif",
+            "https://i.giphy.com/PNSCRvHld1eP6.gif",
+            "http://imgur.com/gallery/abcde",
+            "http://imgur.com/gallery/abcdefg/comments",
+            "http://imgur.com/Gallery/abcde",
+            "http://imgur.com/gallery/abcdef",
+            "http://imgur.com/a/abcde",
+            "http://imgur.com/A/abcdefg/",
+            "http://imgur.com/a/toolonghash/abcdef",
+            "http://imgur.com/r/pics/abcdefg",
+            "http://imgur.com/t/funny/abcde/",
+            "http://imgur.com/R/pics/abcdefg",
+            "http://imgur.com/r//abcdefg",
+            "http://imgur.com/abcde",
+            "http://imgur.com/abcdefg/",
+            "http://i.imgur.com/0t3yWP9.gifv",
+            "http://i.imgur.com/0t3yWP9h.jpg",
+            "http://i.imgur.com/abcde_d.jpg?maxwidth=640",
+            "http://i.imgur.com/0t3yWP9_d.png/",
+            "http://i.imgur.com/abcdex.jpg",
+            "http://i.imgur.com/abcde.jpegs",
+            "http://i.stack.imgur.com/abcde.png",
+            "http://api.imgur.com/abcde",
+            "http://imgur.com.",
+            "https://user@imgur.com:443/abcde",
+            "https://streamable.com/w78y",
+            "https://cdn.streamable.com/video/mp4/w78y.mp4",
+            "https://cdn.streamable.com/video/mp4-mobile/w78y.mp4",
+            "https://cdn.streamable.com/video/mp4/w7.mp4",
+            "http://fbis251.tumblr.com/post/150135750508/",
+            "http://fbis251.tumblr.com/post/slug/150135750508",
+            "http://fbis251.tumblr.com/image/150135750508",
+            "http://fbis251.tumblr.com/page/2",
+            "https://www.vidble.com/album/cfQZodMa",
+            "https://www.vidble.com/show/XOwqxH6Xz9",
+            "https://www.vidble.com/XOwqxH6Xz9_med.jpg",
+            "https://www.vidble.com/album/short",
+            "https://vid.me/2wl6",
+            "https://vid.me/e/2wl6?autoplay=1",
+            "http://xkcd.com/1728/",
+            "http://m.xkcd.com/0001",
+            "http://xkcd.com/0",
+            "http://xkcd.com/99999999999999999999",
+            "http://imgs.xkcd.com/comics/cron_mail.png",
+            "http://imgs.xkcd.com/comics/cron_mail.html",
+            "https://blog.xkcd.com/1728",
+            "HTTPS://IMGUR.COM/abcde",
+            "  http://imgur.com/abcde  ",
+            "ftp://imgur.com/abcde",
+            "http://inkyshade.deviantart.com/art/Steven-is-my-Universe-524095996",
+            "https://i.redd.it/abcdefg.jpg",
+            "http://example.com/abcde",
+            "not a url",
+            "",
+    };
+
+    @Test
+    public void testAgreesWithParsers() {
+        UrlClassifier.Classification result = new UrlClassifier.Classification();
+        for (String url : URLS) {
+            assertClassification(url, result);
+        }
+    }
+
+    @Test
+    public void testAgreesWithParsersOnGeneratedUrls() {
+        // Random paths built from pieces that exercise each provider's path rules
+        String[] hosts = {
+                "imgur.com", "i.imgur.com", "gfycat.com", "giphy.com", "media.giphy.com",
+                "cdn.streamable.com", "blog.tumblr.com", "vidble.com", "vid.me", "xkcd.com",
+                "imgs.xkcd.com",
+        };
+        String[] pieces = {
+                "/", "/", "/", "a", "A", "r", "t", "e", "-", "_", ".", "_d", "gallery", "gifs",
+                "detail", "embed", "media", "mp4", "mp4-mobile", "album", "show", "post",
+                "image", "comics", "abcde", "abcdefg", "XOwqxH6Xz9", "1728", "0", ".jpg", ".gif",
+                ".png", ".gifv", "h", "?q=1", "#/abcde",
+        };
+        Random random = new Random(251);
+        UrlClassifier.Classification result = new UrlClassifier.Classification();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder url = new StringBuilder("https://");
+            url.append(hosts[random.nextInt(hosts.length)]);
+            int pieceCount = random.nextInt(8);
+            url.append('/');
+            for (int j = 0; j < pieceCount; j++) {
+                url.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertClassification(url.toString(), result);
+        }
+    }
+
+    @Test
+    public void testStreaming() throws IOException {
+        String urls = "http://imgur.com/abcde\r\n\nhttp://example.com/abcde\nhttps://vid.me/2wl6";
+        final List<String> hashes = new ArrayList<>();
+        UrlClassifier.Listener listener = new UrlClassifier.Listener() {
+            @Override
+            public void onUrl(CharSequence url, UrlClassifier.Classification result) {
+                hashes.add(result.isClassified()
+                        ? result.getProviderName() + ":" + result.getHash()
+                        : null);
+            }
+        };
+
+        assertEquals(2, UrlClassifier.classify(new StringReader(urls), listener));
+        assertEquals(Arrays.asList("imgur.com:abcde", null, "vid.me:2wl6"), hashes);
+
+        hashes.clear();
+        List<String> urlList = Arrays.asList("http://xkcd.com/1728/", "http://example.com/");
+        assertEquals(1, UrlClassifier.classify(urlList, listener));
+        assertEquals(Arrays.asList("xkcd.com:1728", null), hashes);
+
+        UrlClassifier.Classification result = new UrlClassifier.Classification();
+        assertFalse(UrlClassifier.classify(null, result));
+        assertFalse(result.isClassified());
+        assertNull(result.getHash());
+        assertNull(result.getProviderName());
+    }
+
+    private static void assertClassification(String url, UrlClassifier.Classification result) {
+        String expectedProvider = null;
+        String expectedHash = null;
+        ParsedUrl parsedUrl = ParsedUrl.of(url);
+        if (parsedUrl != null && url.trim().toLowerCase().startsWith("http")) {
+            for (AbstractApiParser<?> parser : PARSERS) {
+                if (!parser.isValidDomain(parsedUrl)) continue;
+                try {
+                    expectedHash = parser.getHash(parsedUrl);
+                    expectedProvider = parser.getBaseDomain();
+                } catch (InvalidMediaUrlException ignored) {
+                }
+                break;
+            }
+        }
+        // XkcdParser returns "/comics/null" for comic images it can't find a file name in
+        if ("/comics/null".equals(expectedHash)) {
+            expectedHash = null;
+            expectedProvider = null;
+        }
+
+        assertEquals(url, expectedHash != null, UrlClassifier.classify(url, result));
+        assertEquals(url, expectedProvider, result.getProviderName());
+        assertEquals(url, expectedHash, result.getHash());
+    }
+}
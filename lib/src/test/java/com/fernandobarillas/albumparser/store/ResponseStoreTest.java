@@ -0,0 +1,257 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.store;
+
+import com.fernandobarillas.albumparser.media.BaseApiResponse;
+import com.fernandobarillas.albumparser.media.BaseMediaAlbum;
+import com.fernandobarillas.albumparser.media.DirectMedia;
+import com.fernandobarillas.albumparser.media.IMedia;
+import com.fernandobarillas.albumparser.media.IMediaAlbum;
+import com.fernandobarillas.albumparser.parser.ParserResponse;
+import com.fernandobarillas.albumparser.util.MediaUrl;
+import com.fernandobarillas.albumparser.util.ParseUtils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the persistent response store
+ */
+public class ResponseStoreTest {
+    private static final String PROVIDER = "imgur.com";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void testCompaction() throws Exception {
+        File directory = mFolder.newFolder();
+        ResponseStore store = new ResponseStore.Builder(directory).segmentSize(1024).build();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(store.put(newMediaResponse("abc", "https://i.imgur.com/abc" + i + ".jpg")));
+        }
+        assertEquals(1, store.size());
+        // Compaction runs in the background, wait for it to delete the first segment
+        File firstSegment = new File(directory, String.format("segment-%016d.dat", 1));
+        long start = System.currentTimeMillis();
+        while (firstSegment.exists() && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+        }
+        assertFalse("Replaced responses were compacted", firstSegment.exists());
+
+        store.compact();
+        assertEquals(1, store.getSegmentCount());
+        assertEquals(store.getSegmentCount(), directory.listFiles().length);
+        store.close();
+
+        store = new ResponseStore.Builder(directory).segmentSize(1024).build();
+        assertEquals("https://i.imgur.com/abc99.jpg",
+                store.get(PROVIDER, "abc", null).getMedia().getUrl(true).toString());
+        store.close();
+    }
+
+    @Test
+    public void testConcurrentCompaction() throws Exception {
+        File directory = mFolder.newFolder();
+        final ResponseStore store = new ResponseStore.Builder(directory).segmentSize(1024).build();
+        final int putCount = 1000;
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < putCount; i++) {
+                        store.put(newMediaResponse("abc" + i % 10, "https://i.imgur.com/" + i));
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            store.compact();
+        }
+        writer.join();
+        store.close();
+
+        // Responses stored while compacting win over the copies
+        ResponseStore reopened = new ResponseStore.Builder(directory).segmentSize(1024).build();
+        assertEquals(10, reopened.size());
+        for (int i = putCount - 10; i < putCount; i++) {
+            IMedia media = reopened.get(PROVIDER, "abc" + i % 10, null).getMedia();
+            assertEquals("https://i.imgur.com/" + i, media.getUrl(true).toString());
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void testFailedCompaction() throws Exception {
+        File directory = mFolder.newFolder();
+        ResponseStore store = new ResponseStore.Builder(directory).segmentSize(1024).build();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(store.put(newMediaResponse("abc" + i, "https://i.imgur.com/" + i + ".jpg")));
+        }
+        int segmentCount = store.getSegmentCount();
+        assertTrue(segmentCount > 1);
+
+        // Block the file the first copy would be written to
+        String[] names = directory.list();
+        Arrays.sort(names);
+        String lastName = names[names.length - 1];
+        long nextSequence = Long.parseLong(lastName.replaceAll("\\D", "")) + 1;
+        File blocked = new File(directory, String.format("segment-%016d.dat", nextSequence));
+        assertTrue(blocked.mkdir());
+        try {
+            store.compact();
+            fail("Compaction should fail when its segment can't be created");
+        } catch (IOException expected) {
+        }
+        assertTrue(blocked.delete());
+
+        assertEquals("Failed compaction keeps the old segments",
+                segmentCount,
+                store.getSegmentCount());
+        assertEquals(segmentCount, directory.listFiles().length);
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(store.get(PROVIDER, "abc" + i, null));
+        }
+        store.close();
+
+        store = new ResponseStore.Builder(directory).segmentSize(1024).build();
+        assertEquals(20, store.size());
+        store.close();
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        File directory = mFolder.newFolder();
+        ResponseStore store = new ResponseStore.Builder(directory).build();
+        assertTrue(store.put(newMediaResponse("abc", "https://i.imgur.com/abc.mp4")));
+        assertTrue(store.put(newAlbumResponse("album")));
+        assertFalse("Responses need a hash", store.put(newMediaResponse("", "https://a.b/c.jpg")));
+        store.close();
+
+        store = new ResponseStore.Builder(directory).build();
+        assertEquals(2, store.size());
+        MediaUrl originalUrl = MediaUrl.parse("https://imgur.com/abc");
+        ParserResponse<IMedia> response = store.get(PROVIDER, "abc", originalUrl);
+        assertNotNull(response);
+        assertEquals(originalUrl, response.getOriginalMediaUrl());
+        assertEquals("abc", response.getHash());
+        assertEquals(PROVIDER, response.getApiProviderName());
+        IMedia media = response.getMedia();
+        assertEquals("https://i.imgur.com/abc.mp4", media.getUrl(true).toString());
+        assertTrue(media.isVideo());
+        assertEquals(IMedia.SIZE_UNAVAILABLE, media.getWidth(true));
+
+        response = store.get(PROVIDER, "album", null);
+        assertTrue(response.isAlbum());
+        assertEquals(2, response.getAlbum().getCount());
+        assertEquals("https://i.imgur.com/2.gif",
+                response.getAlbum().getAlbumMedia().get(1).getUrl(false).toString());
+        assertTrue(response.getAlbum().getAlbumMedia().get(1).isGif());
+
+        assertNull(store.get(PROVIDER, "missing", null));
+        assertEquals(2, store.getHitCount());
+        assertEquals(1, store.getMissCount());
+        store.close();
+    }
+
+    @Test
+    public void testRecovery() throws Exception {
+        File directory = mFolder.newFolder();
+        ResponseStore store = new ResponseStore.Builder(directory).build();
+        store.put(newMediaResponse("first", "https://i.imgur.com/first.jpg"));
+        store.put(newMediaResponse("torn", "https://i.imgur.com/torn.jpg"));
+        store.close();
+
+        // Simulate a crash in the middle of writing the last record by corrupting its end
+        File segmentFile = directory.listFiles()[0];
+        RandomAccessFile file = new RandomAccessFile(segmentFile, "rw");
+        byte[] contents = new byte[4096];
+        file.readFully(contents);
+        int end = contents.length - 1;
+        while (contents[end] == 0) end--;
+        file.seek(end);
+        file.write(contents[end] + 1);
+        file.close();
+
+        store = new ResponseStore.Builder(directory).build();
+        assertNotNull("Records before the torn one survive", store.get(PROVIDER, "first", null));
+        assertNull("Torn record dropped", store.get(PROVIDER, "torn", null));
+        assertTrue(store.put(newMediaResponse("after", "https://i.imgur.com/after.jpg")));
+        store.close();
+
+        store = new ResponseStore.Builder(directory).build();
+        assertNotNull(store.get(PROVIDER, "first", null));
+        assertNotNull("Appended over the torn record", store.get(PROVIDER, "after", null));
+        assertEquals(2, store.size());
+        store.close();
+    }
+
+    private static ParserResponse<IMedia> newAlbumResponse(String hash) {
+        final List<IMedia> albumMedia = Arrays.<IMedia>asList(
+                new DirectMedia(ParseUtils.getUrlObject("https://i.imgur.com/1.jpg")),
+                new DirectMedia(ParseUtils.getUrlObject("https://i.imgur.com/2.gif")));
+        final IMediaAlbum<IMedia> album = new BaseMediaAlbum<IMedia>() {
+            @Override
+            public List<IMedia> getAlbumMedia() {
+                return albumMedia;
+            }
+        };
+        ParserResponse<IMedia> response = new ParserResponse<IMedia>(new BaseApiResponse<IMedia>() {
+            @Override
+            public IMediaAlbum<IMedia> getAlbum() {
+                return album;
+            }
+
+            @Override
+            public boolean isAlbum() {
+                return true;
+            }
+        });
+        response.setApiProviderName(PROVIDER);
+        response.setHash(hash);
+        return response;
+    }
+
+    private static ParserResponse<IMedia> newMediaResponse(String hash, String url) {
+        ParserResponse<IMedia> response =
+                new ParserResponse<IMedia>(new DirectMedia(ParseUtils.getUrlObject(url)));
+        response.setApiProviderName(PROVIDER);
+        response.setHash(hash);
+        return response;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 Fernando Barillas (FBis251)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.fernandobarillas.albumparser.util;
+
+import com.fernandobarillas.albumparser.AlbumParser;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the reversed domain name trie used to route URLs to parsers
+ */
+public class DomainTrieTest {
+
+    @Test
+    public void testDomainMatching() {
+        DomainTrie<String> trie = new DomainTrie<>();
+        trie.put("imgur.com", "imgur");
+        trie.put("i.imgur.com", "imgur-i");
+        trie.put("*.tumblr.com", "tumblr");
+        trie.putWithSubdomains("gfycat.com", "gfycat");
+        trie.put("*.giphy.com", "giphy-sub");
+        trie.put("giphy.com", "giphy");
+
+        Map<String, String> expected = new HashMap<>();
+        // Exact matches
+        expected.put("imgur.com", "imgur");
+        expected.put("IMGUR.COM", "imgur");
+        expected.put("imgur.com.", "imgur");
+        expected.put("i.imgur.com", "imgur-i");
+        expected.put("m.imgur.com", null);
+        expected.put("notimgur.com", null);
+        expected.put("mgur.com", null);
+        // Wildcards don't match the bare domain
+        expected.put("fbis251.tumblr.com", "tumblr");
+        expected.put("a.b.tumblr.com", "tumblr");
+        expected.put("tumblr.com", null);
+        expected.put(".tumblr.com", null);
+        expected.put("eviltumblr.com", null);
+        // Domains with subdomains match both
+        expected.put("gfycat.com", "gfycat");
+        expected.put("fat.gfycat.com", "gfycat");
+        expected.put("giphy.com", "giphy");
+        expected.put("media.giphy.com", "giphy-sub");
+        // Invalid hosts
+        expected.put("", null);
+        expected.put(".", null);
+        expected.put("com", null);
+        expected.put(null, null);
+
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals("host = [" + entry.getKey() + "]",
+                    entry.getValue(),
+                    trie.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testProviderRouting() {
+        String[] supportedUrls = {
+                "http://inkyshade.deviantart.com/art/Steven-is-my-Universe-524095996",
+                "https://fat.gfycat.com/PotableLeftAbalone.webm",
+                "https://media.giphy.com/media/PNSCRvHld1eP6/giphy.gif",
+                "http://i.imgur.com/0t3yWP9.gifv",
+                "https://i.redd.it/abcdefg.jpg",
+                "https://cdn.streamable.com/video/mp4/w78y.mp4",
+                "https://www.vidble.com/album/cfQZodMa",
+                "https://vid.me/2wl6",
+                "http://fbis251.tumblr.com/post/150135750508/",
+                "http://m.xkcd.com/1728/",
+                "http://example.com/file.jpg",
+        };
+        for (String url : supportedUrls) {
+            assertTrue(url + " supported", AlbumParser.isSupported(url));
+        }
+
+        String[] unsupportedUrls = {
+                null,
+                "http://example.com/file.html",
+                "http://nottumblr.com/post/150135750508/",
+                "https://blog.xkcd.com/",
+                "https://api.imgur.com/whatever/page",
+        };
+        for (String url : unsupportedUrls) {
+            assertFalse(url + " unsupported", AlbumParser.isSupported(url));
+        }
+    }
+}
@@ -20,6 +20,8 @@
 
 package com.fernandobarillas.albumparser.util;
 
+import com.fernandobarillas.albumparser.media.MediaKind;
+
 import org.junit.Test;
 
 import java.net.MalformedURLException;
@@ -40,6 +42,7 @@ import static com.fernandobarillas.albumparser.util.ParseUtils.isImageExtension;
 import static com.fernandobarillas.albumparser.util.ParseUtils.isVideoExtension;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -122,6 +125,43 @@ public class ParseUtilsTest {
         }
     }
 
+    @Test
+    public void getMediaKindTest() {
+        Map<String, MediaKind> kindMap = new HashMap<>();
+        kindMap.put(null, MediaKind.UNKNOWN);
+        kindMap.put("example.com/file.jpg", MediaKind.UNKNOWN);
+        kindMap.put("http://example.com", MediaKind.UNKNOWN);
+        kindMap.put("http://example.gif/", MediaKind.UNKNOWN);
+        kindMap.put("http://example.com/file", MediaKind.UNKNOWN);
+        kindMap.put("http://example.com/file.", MediaKind.UNKNOWN);
+        kindMap.put("http://example.com/file.html", MediaKind.UNKNOWN);
+        kindMap.put("http://example.com/file.jpgx", MediaKind.UNKNOWN);
+        kindMap.put("http://example.com/file.mp", MediaKind.UNKNOWN);
+        kindMap.put("http://example.com/file.jpg/", MediaKind.UNKNOWN);
+        kindMap.put("http://example.com/path.jpg/file", MediaKind.UNKNOWN);
+        kindMap.put("http://example.com/file?name=file.jpg", MediaKind.UNKNOWN);
+
+        kindMap.put("http://example.com/file.bmp", MediaKind.IMAGE);
+        kindMap.put("http://example.com/file.JPG", MediaKind.IMAGE);
+        kindMap.put("http://example.com/file.jpeg", MediaKind.IMAGE);
+        kindMap.put("http://example.com/.png", MediaKind.IMAGE);
+        kindMap.put("http://example.com/file.WebP?w=320#top", MediaKind.IMAGE);
+        kindMap.put("http://example.com/file.gif", MediaKind.GIF);
+        kindMap.put("http://example.com/path.jpg/file.gifv", MediaKind.VIDEO);
+        kindMap.put("http://example.com/file.3gp", MediaKind.VIDEO);
+        kindMap.put("http://example.com/file.mkv", MediaKind.VIDEO);
+        kindMap.put("http://example.com/file.Mp4", MediaKind.VIDEO);
+        kindMap.put("http://example.com/file.webm", MediaKind.VIDEO);
+
+        for (Map.Entry<String, MediaKind> entry : kindMap.entrySet()) {
+            String url = entry.getKey();
+            MediaKind kind = entry.getValue();
+            assertEquals(url, kind, ParseUtils.getMediaKind(url));
+            assertEquals(url, kind, ParseUtils.getMediaKind(getUrlObject(url)));
+            assertEquals(url, kind.isDirect(), isDirectUrl(url));
+        }
+    }
+
     @Test
     public void getQueryMapTest() {
         String nullString = null;
@@ -262,6 +302,22 @@ public class ParseUtilsTest {
         assertEquals("123", hashRegex("test123", ".*?([\\d]+).*?"));
     }
 
+    @Test
+    public void testHashRegexPatternCache() {
+        // Repeated regexes are compiled once and reused
+        assertEquals("abc", hashRegex("/cache/abc", "/cache/(\\w+)"));
+        int size = PatternCache.size();
+        assertEquals("def", hashRegex("/cache/def", "/cache/(\\w+)"));
+        assertEquals(size, PatternCache.size());
+        assertSame(PatternCache.get("/cache/(\\w+)"), PatternCache.get("/cache/(\\w+)"));
+
+        // The cache never grows past its limit
+        for (int i = 0; i < PatternCache.MAX_SIZE * 2; i++) {
+            assertEquals(String.valueOf(i), hashRegex("/" + i, "/(" + i + ")"));
+        }
+        assertEquals(PatternCache.MAX_SIZE, PatternCache.size());
+    }
+
     @Test
     public void testIsDirectUrl() {
         for (String url : VALID_IMAGE_URLS) {
@@ -131,8 +131,8 @@ public class TestUtils {
 
         // Album fields
         assertEquals(originalUrl + " Preview URL",
-                expectedAlbum.getPreviewUrl(),
-                mediaAlbum.getPreviewUrl());
+                expectedAlbum.getPreviewMediaUrl(),
+                mediaAlbum.getPreviewMediaUrl());
         assertEquals(originalUrl + " Count", expectedAlbum.getCount(), mediaAlbum.getCount());
         assertEquals(originalUrl + " Is empty", expectedAlbum.isEmpty(), mediaAlbum.isEmpty());
 
@@ -158,12 +158,12 @@ public class TestUtils {
 
         // Media Fields
         assertEquals(originalUrl + " High quality URL",
-                expectedMedia.getUrl(true),
-                media.getUrl(true));
+                expectedMedia.getMediaUrl(true),
+                media.getMediaUrl(true));
         assertEquals(originalUrl + " Low quality URL",
-                expectedMedia.getUrl(false),
-                media.getUrl(false));
-        String prefix = String.format("%s %s ", originalUrl, media.getUrl(true));
+                expectedMedia.getMediaUrl(false),
+                media.getMediaUrl(false));
+        String prefix = String.format("%s %s ", originalUrl, media.getMediaUrl(true));
         assertEquals(prefix + " High quality byte size",
                 expectedMedia.getByteSize(true),
                 media.getByteSize(true));
@@ -180,7 +180,9 @@ public class TestUtils {
         assertEquals(prefix + " Low quality height",
                 expectedMedia.getHeight(false),
                 media.getHeight(false));
-        assertEquals(prefix + " Preview URL", expectedMedia.getPreviewUrl(), media.getPreviewUrl());
+        assertEquals(prefix + " Preview URL",
+                expectedMedia.getPreviewMediaUrl(),
+                media.getPreviewMediaUrl());
         assertEquals(prefix + " Title", expectedMedia.getTitle(), media.getTitle());
         assertEquals(prefix + " High quality width",
                 expectedMedia.getWidth(true),
@@ -199,8 +201,8 @@ public class TestUtils {
         assertNotNull(originalUrl + " Parser Response null", parserResponse);
 
         assertEquals(originalUrl + " Original URL",
-                expectedParserResponse.getOriginalUrl(),
-                parserResponse.getOriginalUrl());
+                expectedParserResponse.getOriginalMediaUrl(),
+                parserResponse.getOriginalMediaUrl());
         assertEquals(originalUrl + " Is album",
                 expectedParserResponse.isAlbum(),
                 parserResponse.isAlbum());